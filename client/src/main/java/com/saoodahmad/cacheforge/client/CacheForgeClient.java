@@ -0,0 +1,380 @@
+package com.saoodahmad.cacheforge.client;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+ * Client for the /api/cache HTTP API. Responses use the binary application/x-cacheforge
+ * format, so nothing is parsed as JSON.
+ *
+ * Connections are pooled and kept alive by the JDK HttpClient. At most maxInFlight
+ * requests are outstanding at once, later ones queue in the client instead of opening
+ * more connections. With http2(true) they are multiplexed over one connection, which
+ * needs server.http2.enabled=true on the server. Batches (getAll / setAll / deleteAll)
+ * send many keys in one request.
+ *
+ * nearCache(...) keeps hot keys in this process, see NearCache. Only get() is served from
+ * it, a cached Hit is shared between callers so its value array must not be modified.
+ *
+ *   try (CacheForgeClient client = CacheForgeClient.builder(URI.create("http://127.0.0.1:5000")).build()) {
+ *       client.set("users", "42", "alice", 60);
+ *       CacheReply reply = client.get("users", "42");
+ *   }
+ */
+public final class CacheForgeClient implements AutoCloseable {
+
+    public record Key(String namespace, String key) {}
+
+    private static final String TRACKING_HEADER = "X-CacheForge-Tracking";
+
+    private final HttpClient http;
+
+    private final String base;
+
+    private final Duration timeout;
+
+    private final int maxInFlight;
+
+    private final NearCache nearCache; // null when disabled
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private int inFlight;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+    private CacheForgeClient(Builder builder) {
+        this.http = HttpClient.newBuilder()
+                .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.timeout)
+                .build();
+
+        String uri = builder.baseUri.toString();
+
+        this.base = (uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri) + "/api/cache";
+        this.timeout = builder.timeout;
+        this.maxInFlight = builder.maxInFlight;
+
+        this.nearCache = builder.nearCacheEntries == 0 ? null
+                : new NearCache(this.http, URI.create(this.base + "/tracking"), builder.nearCacheEntries, builder.nearCacheMaxAge);
+    }
+
+    public static Builder builder(URI baseUri) {
+        return new Builder(baseUri);
+    }
+
+    public CompletableFuture<CacheReply> getAsync(String namespace, String key) {
+        HttpRequest.Builder request = this.request("/get/" + path(namespace) + "/" + path(key)).GET();
+
+        String trackingId = this.nearCache == null ? null : this.nearCache.trackingId();
+
+        if (trackingId == null) {
+            return this.send(request.build(), WireCodec::decodeOutput);
+        }
+
+        // the server trims, invalidations name the trimmed key
+        Key cacheKey = new Key(namespace.trim(), key.trim());
+
+        CacheReply cached = this.nearCache.get(cacheKey);
+
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Object token = this.nearCache.beginRead(cacheKey);
+
+        return this.send(request.header(TRACKING_HEADER, trackingId).build(), WireCodec::decodeOutput)
+                .whenComplete((reply, error) -> this.nearCache.endRead(cacheKey, token, trackingId, reply));
+    }
+
+    public CompletableFuture<CacheReply> setAsync(String namespace, String key, String value, long ttlInSecs) {
+        this.forget(namespace, key);
+
+        HttpRequest request = this.request("/set")
+                .header("Content-Type", WireCodec.MEDIA_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(WireCodec.setRequest(namespace, key, value, ttlInSecs)))
+                .build();
+
+        return this.send(request, WireCodec::decodeOutput).whenComplete((reply, error) -> this.forget(namespace, key));
+    }
+
+    // stored as raw bytes through the octet-stream endpoint, which answers without a body
+    public CompletableFuture<CacheReply> setAsync(String namespace, String key, byte[] value, long ttlInSecs) {
+        this.forget(namespace, key);
+
+        HttpRequest request = this.request("/bin/" + path(namespace) + "/" + path(key) + "?ttl=" + ttlInSecs)
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(value))
+                .build();
+
+        CacheReply.Entry entry = new CacheReply.Entry(value, ttlInSecs, true);
+
+        return this.exchange(request).<CacheReply>thenApply(response -> {
+            if (response.statusCode() == 201) {
+                return new CacheReply.Created(entry);
+            }
+
+            if (response.statusCode() == 204) {
+                return new CacheReply.Updated(entry);
+            }
+
+            throw WireCodec.error(response.statusCode(), response.body());
+        }).whenComplete((reply, error) -> this.forget(namespace, key));
+    }
+
+    public CompletableFuture<CacheReply> deleteAsync(String namespace, String key) {
+        this.forget(namespace, key);
+
+        HttpRequest request = this.request("/del/" + path(namespace) + "/" + path(key)).DELETE().build();
+
+        return this.send(request, WireCodec::decodeOutput).whenComplete((reply, error) -> this.forget(namespace, key));
+    }
+
+    // replies are in key order
+    public CompletableFuture<List<CacheReply>> getAllAsync(List<Key> keys) {
+        return this.send(this.jsonPost("/mget", WireCodec.keysJson(keys)), WireCodec::decodeBatch);
+    }
+
+    public CompletableFuture<List<CacheReply>> setAllAsync(List<Key> keys, List<String> values, long ttlInSecs) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Got " + keys.size() + " keys and " + values.size() + " values");
+        }
+
+        this.forgetAll(keys);
+
+        return this.send(this.jsonPost("/mset", WireCodec.entriesJson(keys, values, ttlInSecs)), WireCodec::decodeBatch)
+                .whenComplete((replies, error) -> this.forgetAll(keys));
+    }
+
+    public CompletableFuture<List<CacheReply>> deleteAllAsync(List<Key> keys) {
+        this.forgetAll(keys);
+
+        return this.send(this.jsonPost("/mdel", WireCodec.keysJson(keys)), WireCodec::decodeBatch)
+                .whenComplete((replies, error) -> this.forgetAll(keys));
+    }
+
+    public CacheReply get(String namespace, String key) {
+        return join(this.getAsync(namespace, key));
+    }
+
+    public CacheReply set(String namespace, String key, String value, long ttlInSecs) {
+        return join(this.setAsync(namespace, key, value, ttlInSecs));
+    }
+
+    public CacheReply set(String namespace, String key, byte[] value, long ttlInSecs) {
+        return join(this.setAsync(namespace, key, value, ttlInSecs));
+    }
+
+    public CacheReply delete(String namespace, String key) {
+        return join(this.deleteAsync(namespace, key));
+    }
+
+    public List<CacheReply> getAll(List<Key> keys) {
+        return join(this.getAllAsync(keys));
+    }
+
+    public List<CacheReply> setAll(List<Key> keys, List<String> values, long ttlInSecs) {
+        return join(this.setAllAsync(keys, values, ttlInSecs));
+    }
+
+    public List<CacheReply> deleteAll(List<Key> keys) {
+        return join(this.deleteAllAsync(keys));
+    }
+
+    // keys currently held in the near cache, 0 when it is disabled
+    public int nearCacheSize() {
+        return this.nearCache == null ? 0 : this.nearCache.size();
+    }
+
+    @Override
+    public void close() {
+        if (this.nearCache != null) {
+            this.nearCache.close();
+        }
+
+        this.http.close();
+    }
+
+    // our own writes drop the local copy right away, before and after the server applies them
+    private void forget(String namespace, String key) {
+        if (this.nearCache != null) {
+            this.nearCache.invalidate(new Key(namespace.trim(), key.trim()));
+        }
+    }
+
+    private void forgetAll(List<Key> keys) {
+        for (Key key : keys) {
+            this.forget(key.namespace(), key.key());
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(this.base + path))
+                .timeout(this.timeout)
+                .header("Accept", WireCodec.MEDIA_TYPE);
+    }
+
+    private HttpRequest jsonPost(String path, String json) {
+        return this.request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> send(HttpRequest request, Function<byte[], T> decoder) {
+        return this.exchange(request).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw WireCodec.error(response.statusCode(), response.body());
+            }
+
+            return decoder.apply(response.body());
+        });
+    }
+
+    // sends now if a slot is free, otherwise once an earlier request completes
+    private CompletableFuture<HttpResponse<byte[]>> exchange(HttpRequest request) {
+        CompletableFuture<HttpResponse<byte[]>> result = new CompletableFuture<>();
+
+        Runnable dispatch = () -> {
+            try {
+                this.http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, error) -> {
+                            this.release();
+
+                            if (error != null) {
+                                result.completeExceptionally(error);
+                            } else {
+                                result.complete(response);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                // closed client and friends, the slot is not taken by anything
+                this.release();
+
+                result.completeExceptionally(e);
+            }
+        };
+
+        this.lock.lock();
+
+        try {
+            if (this.inFlight >= this.maxInFlight) {
+                this.waiting.add(dispatch);
+
+                return result;
+            }
+
+            this.inFlight++;
+        } finally {
+            this.lock.unlock();
+        }
+
+        dispatch.run();
+
+        return result;
+    }
+
+    // hands the freed slot to the next queued request
+    private void release() {
+        Runnable next;
+
+        this.lock.lock();
+
+        try {
+            next = this.waiting.poll();
+
+            if (next == null) {
+                this.inFlight--;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    private static String path(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    public static final class Builder {
+
+        private final URI baseUri;
+
+        private int maxInFlight = 64;
+
+        private Duration timeout = Duration.ofSeconds(5);
+
+        private boolean http2 = false;
+
+        private int nearCacheEntries = 0;
+
+        private Duration nearCacheMaxAge = Duration.ofMinutes(1);
+
+        private Builder(URI baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        // outstanding requests, and so connections over HTTP/1.1
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("maxInFlight must be > 0");
+            }
+
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        // connect and per-request timeout
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        // local copies of up to maxEntries keys, each trusted for at most maxAge even without an invalidation
+        public Builder nearCache(int maxEntries, Duration maxAge) {
+            if (maxEntries <= 0 || maxAge.isNegative() || maxAge.isZero()) {
+                throw new IllegalArgumentException("nearCache needs maxEntries > 0 and a positive maxAge");
+            }
+
+            this.nearCacheEntries = maxEntries;
+            this.nearCacheMaxAge = maxAge;
+            return this;
+        }
+
+        public CacheForgeClient build() {
+            return new CacheForgeClient(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.saoodahmad.cacheforge.client;
+
+// the server answered with an error, errorCode is the API's code (INVALID_TTL, ENTRY_TOO_LARGE ...)
+public class CacheForgeClientException extends RuntimeException {
+
+    private final int status;
+
+    private final String errorCode;
+
+    public CacheForgeClientException(int status, String errorCode, String message) {
+        super(status + " " + errorCode + ": " + message);
+
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+    public int status() {
+        return this.status;
+    }
+
+    public String errorCode() {
+        return this.errorCode;
+    }
+}
@@ -0,0 +1,33 @@
+package com.saoodahmad.cacheforge.client;
+
+import java.nio.charset.StandardCharsets;
+
+// client side mirror of the server's CacheResult
+public sealed interface CacheReply
+        permits CacheReply.Hit,
+        CacheReply.Miss,
+        CacheReply.Expired,
+        CacheReply.Created,
+        CacheReply.Updated {
+
+    record Hit(Entry entry) implements CacheReply {}       // GET / DELETE
+    record Miss() implements CacheReply {}                 // GET / DELETE
+    record Expired() implements CacheReply {}              // GET / DELETE
+
+    record Created(Entry entry) implements CacheReply {}   // SET (new)
+    record Updated(Entry entry) implements CacheReply {}   // SET (overwrite)
+
+    Miss MISS = new Miss();
+    Expired EXPIRED = new Expired();
+
+    /*
+     * ttlInSecs is -1 when the entry never expires. binary tells whether the value was
+     * stored as raw bytes or as text, text() decodes it as UTF-8 either way.
+     */
+    record Entry(byte[] value, long ttlInSecs, boolean binary) {
+
+        public String text() {
+            return new String(this.value, StandardCharsets.UTF_8);
+        }
+    }
+}
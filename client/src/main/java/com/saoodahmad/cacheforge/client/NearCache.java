@@ -0,0 +1,279 @@
+package com.saoodahmad.cacheforge.client;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bounded local copy of recently read keys, kept coherent by the server's invalidation
+ * stream (GET /api/cache/tracking, server-sent events). Reads are only cached while the
+ * stream is up: its hello event hands out the tracking id sent with every read, and
+ * losing the stream drops everything because invalidations may have been missed.
+ *
+ * A read registers a token for its key before it is sent and only stores the reply if the
+ * token is still there, so an invalidation that overtakes the reply wins. Entries also
+ * expire after maxAge, which bounds staleness if an invalidation is delayed.
+ */
+final class NearCache {
+
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private record Cached(CacheReply.Hit hit, long expiresAtNs) {}
+
+    private final HttpClient http;
+
+    private final URI streamUri;
+
+    private final int maxEntries;
+
+    private final long maxAgeNs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // access order, guarded by lock
+    private final LinkedHashMap<CacheForgeClient.Key, Cached> entries;
+
+    // reads in flight, see beginRead
+    private final Map<CacheForgeClient.Key, Object> pending = new ConcurrentHashMap<>();
+
+    // null while the stream is down
+    private volatile String trackingId;
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile boolean closed;
+
+    NearCache(HttpClient http, URI streamUri, int maxEntries, Duration maxAge) {
+        this.http = http;
+        this.streamUri = streamUri;
+        this.maxEntries = maxEntries;
+        this.maxAgeNs = maxAge.toNanos();
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheForgeClient.Key, Cached> eldest) {
+                return this.size() > NearCache.this.maxEntries;
+            }
+        };
+
+        this.connect();
+    }
+
+    String trackingId() {
+        return this.trackingId;
+    }
+
+    // a cached hit, or null when the key has to be read from the server
+    CacheReply get(CacheForgeClient.Key key) {
+        this.lock.lock();
+
+        try {
+            Cached cached = this.entries.get(key);
+
+            if (cached == null) {
+                return null;
+            }
+
+            if (System.nanoTime() - cached.expiresAtNs >= 0) {
+                this.entries.remove(key);
+
+                return null;
+            }
+
+            return cached.hit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    Object beginRead(CacheForgeClient.Key key) {
+        Object token = new Object();
+
+        this.pending.put(key, token);
+
+        return token;
+    }
+
+    // reply is null when the read failed
+    void endRead(CacheForgeClient.Key key, Object token, String trackingId, CacheReply reply) {
+        if (!this.pending.remove(key, token)) {
+            return;
+        }
+
+        if (!(reply instanceof CacheReply.Hit hit) || !trackingId.equals(this.trackingId)) {
+            return;
+        }
+
+        long ttlNs = hit.entry().ttlInSecs() > 0 ? TimeUnit.SECONDS.toNanos(hit.entry().ttlInSecs()) : Long.MAX_VALUE;
+
+        this.lock.lock();
+
+        try {
+            this.entries.put(key, new Cached(hit, System.nanoTime() + Math.min(ttlNs, this.maxAgeNs)));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void invalidate(CacheForgeClient.Key key) {
+        this.pending.remove(key);
+
+        this.lock.lock();
+
+        try {
+            this.entries.remove(key);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void flush() {
+        this.pending.clear();
+
+        this.lock.lock();
+
+        try {
+            this.entries.clear();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void flushNamespace(String namespace) {
+        this.pending.keySet().removeIf(key -> key.namespace().equals(namespace));
+
+        this.lock.lock();
+
+        try {
+            this.entries.keySet().removeIf(key -> key.namespace().equals(namespace));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    int size() {
+        this.lock.lock();
+
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void close() {
+        this.closed = true;
+
+        Flow.Subscription subscription = this.subscription;
+
+        if (subscription != null) {
+            subscription.cancel();
+        }
+
+        this.disconnected();
+    }
+
+    private void connect() {
+        if (this.closed) {
+            return;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(this.streamUri).header("Accept", "text/event-stream").GET().build();
+
+        this.http.sendAsync(request, info -> info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.fromLineSubscriber(new EventReader())
+                        : HttpResponse.BodySubscribers.replacing(null))
+                .whenComplete((response, error) -> {
+                    // tracking is disabled on the server, reads just skip the near cache
+                    if (error == null && response.statusCode() == 404) {
+                        return;
+                    }
+
+                    this.disconnected();
+
+                    if (!this.closed) {
+                        CompletableFuture.delayedExecutor(RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS).execute(this::connect);
+                    }
+                });
+    }
+
+    private void disconnected() {
+        this.trackingId = null;
+        this.flush();
+    }
+
+    private void onEvent(String event, String data) {
+        switch (event) {
+            case "hello" -> this.trackingId = data;
+            case "flush" -> this.flush();
+            case "flush-namespace" -> this.flushNamespace(URLDecoder.decode(data, StandardCharsets.UTF_8));
+            case "invalidate" -> {
+                int space = data.indexOf(' ');
+
+                this.invalidate(new CacheForgeClient.Key(
+                        URLDecoder.decode(data.substring(0, space), StandardCharsets.UTF_8),
+                        URLDecoder.decode(data.substring(space + 1), StandardCharsets.UTF_8)));
+            }
+            default -> {
+                // unknown events are skipped, newer servers may send more
+            }
+        }
+    }
+
+    // the subset of the SSE format the server writes: event and single-line data fields
+    private final class EventReader implements Flow.Subscriber<String> {
+
+        private String event = "message";
+
+        private String data = "";
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            NearCache.this.subscription = subscription;
+
+            if (NearCache.this.closed) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.isEmpty()) {
+                NearCache.this.onEvent(this.event, this.data);
+
+                this.event = "message";
+                this.data = "";
+            } else if (line.startsWith("event:")) {
+                this.event = field(line, 6);
+            } else if (line.startsWith("data:")) {
+                this.data = field(line, 5);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // the send future completes with the same error
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        private static String field(String line, int from) {
+            return line.startsWith(" ", from) ? line.substring(from + 1) : line.substring(from);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.saoodahmad.cacheforge.client;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Client half of the application/x-cacheforge format (server: CacheWireFormat). Batch
+ * requests have no binary form on the server, those bodies are small hand-built JSON.
+ */
+final class WireCodec {
+
+    static final String MEDIA_TYPE = "application/x-cacheforge";
+
+    private static final byte TAG_OUTPUT = 'O';
+    private static final byte TAG_BATCH = 'M';
+    private static final byte TAG_ERROR = 'E';
+
+    // CacheWireFormat.OP_SET, the codes are fixed on both ends
+    private static final int OP_SET = 0;
+
+    private static final int HIT = 1;
+    private static final int MISS = 2;
+    private static final int EXPIRED = 4;
+    private static final int DATA = 8;
+    private static final int BINARY = 16;
+
+    private WireCodec() {
+    }
+
+    static byte[] setRequest(String namespace, String key, String value, long ttlInSecs) {
+        byte[] ns = namespace.getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+
+        if (ns.length > 0xffff || k.length > 0xffff) {
+            throw new IllegalArgumentException("Namespace and key must be at most 65535 UTF-8 bytes");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + 2 + ns.length + 2 + k.length + 4 + v.length);
+        buf.putLong(ttlInSecs);
+        buf.putShort((short) ns.length).put(ns);
+        buf.putShort((short) k.length).put(k);
+        buf.putInt(v.length).put(v);
+
+        return buf.array();
+    }
+
+    static CacheReply decodeOutput(byte[] body) {
+        ByteBuffer buf = ByteBuffer.wrap(body);
+
+        try {
+            expectTag(buf, TAG_OUTPUT);
+
+            return output(buf);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Truncated cache response");
+        }
+    }
+
+    static List<CacheReply> decodeBatch(byte[] body) {
+        ByteBuffer buf = ByteBuffer.wrap(body);
+
+        try {
+            expectTag(buf, TAG_BATCH);
+
+            int count = buf.getInt();
+
+            List<CacheReply> replies = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                replies.add(output(buf));
+            }
+
+            return replies;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Truncated batch response");
+        }
+    }
+
+    // error bodies are binary when the server could encode them, anything else is reported as is
+    static CacheForgeClientException error(int status, byte[] body) {
+        if (body.length > 0 && body[0] == TAG_ERROR) {
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(body, 1, body.length - 1);
+
+                String code = new String(bytes(buf, buf.getShort() & 0xffff), StandardCharsets.UTF_8);
+                String message = new String(bytes(buf, buf.getShort() & 0xffff), StandardCharsets.UTF_8);
+
+                return new CacheForgeClientException(status, code, message);
+            } catch (BufferUnderflowException e) {
+                // fall through to the raw body
+            }
+        }
+
+        return new CacheForgeClientException(status, "HTTP_" + status, new String(body, StandardCharsets.UTF_8));
+    }
+
+    // {"keys":[{"namespace":..,"key":..}]}
+    static String keysJson(List<CacheForgeClient.Key> keys) {
+        StringBuilder sb = new StringBuilder(32 + keys.size() * 40).append("{\"keys\":[");
+
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) sb.append(',');
+
+            CacheForgeClient.Key key = keys.get(i);
+
+            sb.append("{\"namespace\":");
+            quote(sb, key.namespace());
+            sb.append(",\"key\":");
+            quote(sb, key.key());
+            sb.append('}');
+        }
+
+        return sb.append("]}").toString();
+    }
+
+    // {"entries":[{"namespace":..,"key":..,"value":..,"ttl":..}]}
+    static String entriesJson(List<CacheForgeClient.Key> keys, List<String> values, long ttlInSecs) {
+        StringBuilder sb = new StringBuilder(32 + keys.size() * 64).append("{\"entries\":[");
+
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) sb.append(',');
+
+            CacheForgeClient.Key key = keys.get(i);
+
+            sb.append("{\"namespace\":");
+            quote(sb, key.namespace());
+            sb.append(",\"key\":");
+            quote(sb, key.key());
+            sb.append(",\"value\":");
+            quote(sb, values.get(i));
+            sb.append(",\"ttl\":").append(ttlInSecs).append('}');
+        }
+
+        return sb.append("]}").toString();
+    }
+
+    private static CacheReply output(ByteBuffer buf) {
+        int op = buf.get();
+        int flags = buf.get();
+
+        CacheReply.Entry entry = null;
+
+        if ((flags & DATA) != 0) {
+            long ttl = buf.getLong();
+
+            entry = new CacheReply.Entry(bytes(buf, buf.getInt()), ttl, (flags & BINARY) != 0);
+        }
+
+        if (op == OP_SET) {
+            // the server reports a created key as a miss
+            return (flags & MISS) != 0 ? new CacheReply.Created(entry) : new CacheReply.Updated(entry);
+        }
+
+        if ((flags & HIT) != 0) {
+            return new CacheReply.Hit(entry);
+        }
+
+        return (flags & EXPIRED) != 0 ? CacheReply.EXPIRED : CacheReply.MISS;
+    }
+
+    private static void expectTag(ByteBuffer buf, byte tag) {
+        byte actual = buf.get();
+
+        if (actual != tag) {
+            throw new IllegalStateException("Expected response tag '" + (char) tag + "', got " + actual);
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer buf, int length) {
+        if (length < 0 || length > buf.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+
+        return bytes;
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+
+        sb.append('"');
+    }
+}
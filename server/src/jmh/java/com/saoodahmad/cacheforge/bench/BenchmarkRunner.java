@@ -0,0 +1,66 @@
+package com.saoodahmad.cacheforge.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs the benchmarks once per thread count with the GC profiler attached, so every
+ * result carries gc.alloc.rate.norm (bytes allocated per op) next to its score.
+ *
+ * Any regular JMH option is passed through (-p, -f, -wi, -i ...). Thread counts come
+ * from -Dbench.threads=1,2,4,8 (defaults to 1 and all cores) unless -t is given. For
+ * grouped benchmarks such as TtlChurnBenchmark JMH rounds the count up to whole groups.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        int[] sweep = cli.getThreads().hasValue() ? new int[]{cli.getThreads().get()} : threadCounts();
+
+        for (int threads : sweep) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(cli)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-result-" + threads + "t.json");
+
+            if (cli.getIncludes().isEmpty()) {
+                options.include("com.saoodahmad.cacheforge.bench");
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static int[] threadCounts() {
+        String configured = System.getProperty("bench.threads");
+
+        if (configured == null || configured.isBlank()) {
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            return cores > 1 ? new int[]{1, cores} : new int[]{1};
+        }
+
+        String[] parts = configured.split(",");
+
+        int[] counts = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+
+            if (counts[i] <= 0) {
+                throw new IllegalArgumentException("bench.threads must be positive: " + configured);
+            }
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,158 @@
+package com.saoodahmad.cacheforge.bench;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.config.ReadMode;
+import com.saoodahmad.cacheforge.cache.engine.CommonEngine;
+import com.saoodahmad.cacheforge.cache.engine.MetricsCacheEngine;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicyType;
+import com.saoodahmad.cacheforge.cache.time.SystemTimeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * GET / SET / DEL and mixed workloads against the engine, with or without the
+ * metrics decorator. Thread counts are swept by BenchmarkRunner.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheEngineBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+
+        @Param({"1", "16"})
+        public int stripes;
+
+        @Param({"LRU"})
+        public EvictionPolicyType policy;
+
+        @Param({"LOCKED", "LOCK_FREE"})
+        public ReadMode readMode;
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        public KeyDistribution distribution;
+
+        @Param({"false", "true"})
+        public boolean metrics;
+
+        // more keys than capacity, so uniform reads also exercise misses and eviction
+        @Param({"100000"})
+        public int keys;
+
+        @Param({"65536"})
+        public int capacity;
+
+        CommonEngine engine;
+
+        CacheKey[] cacheKeys;
+        String[] values;
+
+        final AtomicLong seeds = new AtomicLong(42);
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            CacheForgeProperties props = new CacheForgeProperties();
+            props.setStripes(this.stripes);
+            props.setCapacity(this.capacity);
+            props.setReadMode(this.readMode);
+            props.getEviction().setPolicy(this.policy);
+
+            StripedCacheEngine striped = new StripedCacheEngine(props, new SystemTimeProvider());
+
+            this.engine = this.metrics ? new MetricsCacheEngine(striped, new SimpleMeterRegistry()) : striped;
+
+            this.cacheKeys = new CacheKey[this.keys];
+            this.values = new String[this.keys];
+
+            for (int i = 0; i < this.keys; i++) {
+                this.cacheKeys[i] = new CacheKey("bench", "K" + i);
+                this.values[i] = "V" + i;
+            }
+
+            // hottest keys go in last so they are resident when measurement starts
+            for (int i = this.keys - 1; i >= 0; i--) {
+                this.engine.setKey(this.cacheKeys[i], this.values[i], -1);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int[] sequence;
+
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(EngineState state) {
+            this.sequence = state.distribution.sequence(state.keys, SEQUENCE_LENGTH, state.seeds.getAndIncrement());
+        }
+
+        int next() {
+            return this.cursor++ & (SEQUENCE_LENGTH - 1);
+        }
+    }
+
+    // separate state so the read ratio only multiplies the mixed benchmark
+    @State(Scope.Thread)
+    public static class MixState {
+
+        // percentage of mixed operations that are GETs, the rest are SETs
+        @Param({"95", "50"})
+        public int readPercent;
+
+        int[] ops;
+
+        @Setup(Level.Trial)
+        public void setUp(EngineState state) {
+            this.ops = KeyDistribution.UNIFORM.sequence(100, SEQUENCE_LENGTH, ~state.seeds.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    public CacheResult get(EngineState state, ThreadState thread) {
+        return state.engine.getKey(state.cacheKeys[thread.sequence[thread.next()]]);
+    }
+
+    @Benchmark
+    public CacheResult set(EngineState state, ThreadState thread) {
+        int k = thread.sequence[thread.next()];
+
+        return state.engine.setKey(state.cacheKeys[k], state.values[k], -1);
+    }
+
+    // the key is written back so later deletes do not all degenerate into misses
+    @Benchmark
+    public CacheResult deleteAndReinsert(EngineState state, ThreadState thread) {
+        int k = thread.sequence[thread.next()];
+
+        CacheResult result = state.engine.deleteKey(state.cacheKeys[k]);
+
+        state.engine.setKey(state.cacheKeys[k], state.values[k], -1);
+
+        return result;
+    }
+
+    @Benchmark
+    public CacheResult mixed(EngineState state, ThreadState thread, MixState mix) {
+        int i = thread.next();
+        int k = thread.sequence[i];
+
+        if (mix.ops[i] < mix.readPercent) {
+            return state.engine.getKey(state.cacheKeys[k]);
+        }
+
+        return state.engine.setKey(state.cacheKeys[k], state.values[k], -1);
+    }
+}
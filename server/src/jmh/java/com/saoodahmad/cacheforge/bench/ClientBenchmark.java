@@ -0,0 +1,110 @@
+package com.saoodahmad.cacheforge.bench;
+
+import com.saoodahmad.cacheforge.CacheforgeApplication;
+import com.saoodahmad.cacheforge.client.CacheForgeClient;
+import com.saoodahmad.cacheforge.client.CacheReply;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * CacheForgeClient against a server started in the same JVM on a random port. Compares
+ * one request per round trip, PIPELINE async requests kept in flight, and one mget for
+ * the same PIPELINE keys.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+
+    private static final int PIPELINE = 32;
+
+    @Param({"1000"})
+    public int keys;
+
+    @Param({"false"})
+    public boolean http2;
+
+    ConfigurableApplicationContext server;
+
+    CacheForgeClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.server = new SpringApplicationBuilder(CacheforgeApplication.class).run(
+                "--server.port=0", "--server.http2.enabled=" + this.http2,
+                "--cacheforge.capacity=" + this.keys, "--logging.level.root=WARN");
+
+        int port = ((WebServerApplicationContext) this.server).getWebServer().getPort();
+
+        this.client = CacheForgeClient.builder(URI.create("http://127.0.0.1:" + port))
+                .maxInFlight(PIPELINE)
+                .http2(this.http2)
+                .build();
+
+        for (int i = 0; i < this.keys; i++) {
+            this.client.set("bench", "K" + i, "V" + i, -1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int cursor;
+
+        int next(ClientBenchmark bench) {
+            return this.cursor++ % bench.keys;
+        }
+    }
+
+    @Benchmark
+    public CacheReply get(ThreadState state) {
+        return this.client.get("bench", "K" + state.next(this));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public List<CacheReply> pipelinedGet(ThreadState state) {
+        List<CompletableFuture<CacheReply>> futures = new ArrayList<>(PIPELINE);
+
+        for (int i = 0; i < PIPELINE; i++) {
+            futures.add(this.client.getAsync("bench", "K" + state.next(this)));
+        }
+
+        List<CacheReply> replies = new ArrayList<>(PIPELINE);
+
+        for (CompletableFuture<CacheReply> future : futures) {
+            replies.add(future.join());
+        }
+
+        return replies;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public List<CacheReply> batchGet(ThreadState state) {
+        List<CacheForgeClient.Key> batch = new ArrayList<>(PIPELINE);
+
+        for (int i = 0; i < PIPELINE; i++) {
+            batch.add(new CacheForgeClient.Key("bench", "K" + state.next(this)));
+        }
+
+        return this.client.getAll(batch);
+    }
+}
@@ -0,0 +1,164 @@
+package com.saoodahmad.cacheforge.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Closed-loop HTTP load against a running instance: every connection is a virtual thread
+ * that sends its next request as soon as the previous one is answered, so latency under
+ * 1k+ connections shows where requests queue. Run it once against the default profile
+ * (fixed Tomcat pool) and once against --spring.profiles.active=virtual to compare p99.
+ *
+ *   --url http://127.0.0.1:5000 --connections 1000 --seconds 30 --warmup 5
+ *   --keys 1000 --read-percent 90
+ */
+public class HttpLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+
+        String url = opts.getOrDefault("url", "http://127.0.0.1:5000");
+        int connections = Integer.parseInt(opts.getOrDefault("connections", "1000"));
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+        int keys = Integer.parseInt(opts.getOrDefault("keys", "1000"));
+        int readPercent = Integer.parseInt(opts.getOrDefault("read-percent", "90"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        for (int i = 0; i < keys; i++) {
+            client.send(setRequest(url, i), HttpResponse.BodyHandlers.discarding());
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(warmup).toNanos();
+        long end = measureFrom + Duration.ofSeconds(seconds).toNanos();
+
+        AtomicLong errors = new AtomicLong();
+
+        List<Future<long[]>> workers = new ArrayList<>(connections);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                long seed = c;
+
+                workers.add(executor.submit(() -> run(client, url, keys, readPercent, seed, measureFrom, end, errors)));
+            }
+
+            long[] all = new long[0];
+
+            for (Future<long[]> worker : workers) {
+                long[] samples = worker.get();
+
+                int offset = all.length;
+
+                all = Arrays.copyOf(all, offset + samples.length);
+                System.arraycopy(samples, 0, all, offset, samples.length);
+            }
+
+            report(connections, seconds, all, errors.get());
+        }
+    }
+
+    // latencies in ns of requests started inside the measurement window
+    private static long[] run(HttpClient client, String url, int keys, int readPercent, long seed,
+                              long measureFrom, long end, AtomicLong errors) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long[] samples = new long[1024];
+        int count = 0;
+
+        long now;
+
+        while ((now = System.nanoTime()) < end) {
+            int key = random.nextInt(keys);
+
+            HttpRequest request = random.nextInt(100) < readPercent
+                    ? HttpRequest.newBuilder(URI.create(url + "/api/cache/get/load/k" + key)).GET().build()
+                    : setRequest(url, key);
+
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                continue;
+            }
+
+            if (now >= measureFrom) {
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+
+                samples[count++] = System.nanoTime() - now;
+            }
+        }
+
+        return Arrays.copyOf(samples, count);
+    }
+
+    private static HttpRequest setRequest(String url, int key) {
+        String body = "{\"namespace\":\"load\",\"key\":\"k" + key + "\",\"value\":\"v" + key + "\",\"ttl\":-1}";
+
+        return HttpRequest.newBuilder(URI.create(url + "/api/cache/set"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void report(int connections, int seconds, long[] latencies, long errors) {
+        Arrays.sort(latencies);
+
+        System.out.printf("connections=%d requests=%d errors=%d throughput=%.0f req/s%n",
+                connections, latencies.length, errors, (double) latencies.length / seconds);
+
+        if (latencies.length == 0) {
+            return;
+        }
+
+        System.out.printf("p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + args[i]);
+            }
+
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+
+        return opts;
+    }
+}
@@ -0,0 +1,57 @@
+package com.saoodahmad.cacheforge.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * Key index sequences are precomputed per thread so the benchmarks measure the cache,
+ * not the random number generator.
+ */
+public enum KeyDistribution {
+
+    UNIFORM {
+        @Override
+        int[] sequence(int keys, int length, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+
+            int[] seq = new int[length];
+
+            for (int i = 0; i < length; i++) {
+                seq[i] = random.nextInt(keys);
+            }
+
+            return seq;
+        }
+    },
+
+    // YCSB style skew, rank 0 is the hottest key
+    ZIPFIAN {
+        @Override
+        int[] sequence(int keys, int length, long seed) {
+            double[] cdf = new double[keys];
+
+            double sum = 0;
+
+            for (int i = 0; i < keys; i++) {
+                sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+                cdf[i] = sum;
+            }
+
+            SplittableRandom random = new SplittableRandom(seed);
+
+            int[] seq = new int[length];
+
+            for (int i = 0; i < length; i++) {
+                int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+
+                seq[i] = Math.min(keys - 1, rank < 0 ? -rank - 1 : rank);
+            }
+
+            return seq;
+        }
+    };
+
+    static final double ZIPF_EXPONENT = 0.99;
+
+    abstract int[] sequence(int keys, int length, long seed);
+}
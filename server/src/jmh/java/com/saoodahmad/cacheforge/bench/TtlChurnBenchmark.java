@@ -0,0 +1,105 @@
+package com.saoodahmad.cacheforge.bench;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.MetricsCacheEngine;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.time.SystemTimeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Every write carries a short TTL, so keys keep expiring while readers hit them and a
+ * sweeper thread drives the timing wheels the way CacheExpiryJob does in production.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class TtlChurnBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"16"})
+    public int stripes;
+
+    @Param({"1"})
+    public long ttlSecs;
+
+    @Param({"100000"})
+    public int keys;
+
+    @Param({"65536"})
+    public int capacity;
+
+    MetricsCacheEngine engine;
+
+    CacheKey[] cacheKeys;
+    String[] values;
+
+    final AtomicLong seeds = new AtomicLong(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(this.stripes);
+        props.setCapacity(this.capacity);
+
+        this.engine = new MetricsCacheEngine(
+                new StripedCacheEngine(props, new SystemTimeProvider()), new SimpleMeterRegistry());
+
+        this.cacheKeys = new CacheKey[this.keys];
+        this.values = new String[this.keys];
+
+        for (int i = 0; i < this.keys; i++) {
+            this.cacheKeys[i] = new CacheKey("bench", "K" + i);
+            this.values[i] = "V" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int[] sequence;
+
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(TtlChurnBenchmark bench) {
+            this.sequence = KeyDistribution.ZIPFIAN.sequence(bench.keys, SEQUENCE_LENGTH, bench.seeds.getAndIncrement());
+        }
+
+        int next() {
+            return this.sequence[this.cursor++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(2)
+    public CacheResult setWithTtl(ThreadState thread) {
+        int k = thread.next();
+
+        return this.engine.setKey(this.cacheKeys[k], this.values[k], this.ttlSecs);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(2)
+    public CacheResult getExpiring(ThreadState thread) {
+        return this.engine.getKey(this.cacheKeys[thread.next()]);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public int sweep() {
+        return this.engine.expireKeys();
+    }
+}
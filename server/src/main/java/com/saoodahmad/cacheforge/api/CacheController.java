@@ -0,0 +1,453 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.saoodahmad.cacheforge.api.dtos.*;
+import com.saoodahmad.cacheforge.api.tracking.InvalidationTracker;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.api.ReadOnlyReplicaException;
+import com.saoodahmad.cacheforge.cache.api.CacheOperationOutput;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.EntryTooLargeException;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.KeyTooLongException;
+import com.saoodahmad.cacheforge.cache.model.NamespaceLimitException;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+// servlet front end, the reactive profile adapts its routes onto this class (see ReactiveCacheRoutes)
+@RestController
+@RequestMapping("/api/cache")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CacheController {
+    public final CacheApi cacheApi;
+
+    private final TimeProvider time;
+
+    private final InvalidationTracker tracker;
+
+    private final int maxBatchKeys;
+
+    public CacheController(CacheApi cacheApi, TimeProvider time, InvalidationTracker tracker, CacheForgeProperties props) {
+        this.cacheApi = cacheApi;
+        this.time = time;
+        this.tracker = tracker;
+        this.maxBatchKeys = props.getBatch().getMaxKeys();
+    }
+
+    @PostMapping("/set")
+    public ResponseEntity<?> set(@Valid @RequestBody SetRequest req, BindingResult br) {
+
+        if (br.hasErrors()) {
+            return validationError(br);
+        }
+
+        if (req.ttl != -1 && req.ttl <= 0) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("INVALID_TTL", "ttl must be -1 or > 0"));
+        }
+
+        CacheOperationOutput output = cacheApi.setKey(req.namespace.trim(), req.key.trim(), req.value.trim(), req.ttl);
+
+        return ResponseEntity.status(HttpStatus.OK).body(output);
+
+    }
+
+    @GetMapping("/get/{namespace}/{key}")
+    public ResponseEntity<?> get(@PathVariable("namespace") String namespace, @PathVariable("key") String key,
+                                 @RequestHeader(value = InvalidationTracker.HEADER, required = false) String trackingId) {
+        if (namespace == null || namespace.trim().isEmpty()) {
+
+            String code = "INVALID_NAMESPACE";
+
+            String msg = "Namespace is required";
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(code, msg));
+
+        }
+
+        if (key == null || key.trim().isEmpty()) {
+
+            String code = "INVALID_KEY";
+
+            String msg = "Key is required";
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(code, msg));
+
+        }
+
+        tracker.track(trackingId, namespace.trim(), key.trim());
+
+        CacheOperationOutput output = cacheApi.getKey(namespace.trim(), key.trim());
+
+        return ResponseEntity.status(HttpStatus.OK).body(output);
+    }
+
+    /*
+     * Invalidations for keys read with the X-CacheForge-Tracking id from the first event, see
+     * InvalidationTracker. MVC only streams a Flux that is the declared body type, so a
+     * disabled tracker answers 404 without an ErrorResponse.
+     */
+    @GetMapping("/tracking")
+    public ResponseEntity<Flux<ServerSentEvent<String>>> tracking() {
+        if (!tracker.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.TEXT_EVENT_STREAM).body(tracker.subscribe());
+    }
+
+    @DeleteMapping("/del/{namespace}/{key}")
+    public ResponseEntity<?> delete(@PathVariable("namespace") String namespace, @PathVariable("key") String key) {
+        if (namespace == null || namespace.trim().isEmpty()) {
+
+            String code = "INVALID_NAMESPACE";
+
+            String msg = "Namespace is required";
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(code, msg));
+
+        }
+
+        if (key == null || key.trim().isEmpty()) {
+
+            String code = "INVALID_KEY";
+
+            String msg = "Key is required";
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(code, msg));
+
+        }
+
+        CacheOperationOutput output = cacheApi.deleteKey(namespace.trim(), key.trim());
+
+        return ResponseEntity.status(HttpStatus.OK).body(output);
+    }
+
+    /*
+     * Raw binary values: the request body is stored as is and GET writes the stored array
+     * straight to the response, no Base64, JSON escaping or trimming on the way.
+     */
+    @PutMapping(value = "/bin/{namespace}/{key}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> setBinary(@PathVariable("namespace") String namespace, @PathVariable("key") String key,
+                                       @RequestParam(value = "ttl", defaultValue = "-1") long ttl,
+                                       @RequestBody byte[] value) {
+        ResponseEntity<?> invalid = invalidKey(namespace, key);
+
+        if (invalid != null) {
+            return invalid;
+        }
+
+        if (ttl != -1 && ttl <= 0) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("INVALID_TTL", "ttl must be -1 or > 0"));
+        }
+
+        CacheOperationOutput output = cacheApi.setKey(namespace.trim(), key.trim(), value, ttl);
+
+        // no body, echoing the value back would cost as much as the write
+        return ResponseEntity.status(output.miss ? HttpStatus.CREATED : HttpStatus.NO_CONTENT).build();
+    }
+
+    @GetMapping(value = "/bin/{namespace}/{key}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> getBinary(@PathVariable("namespace") String namespace, @PathVariable("key") String key) {
+        ResponseEntity<?> invalid = invalidKey(namespace, key);
+
+        if (invalid != null) {
+            return invalid;
+        }
+
+        CacheOperationOutput output = cacheApi.getKey(namespace.trim(), key.trim());
+
+        if (!output.hit) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(output.data.valBytes());
+    }
+
+    @PostMapping("/mget")
+    public ResponseEntity<?> mget(@Valid @RequestBody MultiKeyRequest req, BindingResult br) {
+        if (br.hasErrors()) {
+            return validationError(br);
+        }
+
+        if (req.keys.size() > this.maxBatchKeys) {
+            return batchTooLarge(req.keys.size());
+        }
+
+        List<CacheOperationOutput> outputs = cacheApi.getKeys(toCacheKeys(req.keys));
+
+        return ResponseEntity.status(HttpStatus.OK).body(new MultiKeyResponse(outputs));
+    }
+
+    @PostMapping("/mset")
+    public ResponseEntity<?> mset(@Valid @RequestBody MultiSetRequest req, BindingResult br) {
+        if (br.hasErrors()) {
+            return validationError(br);
+        }
+
+        if (req.entries.size() > this.maxBatchKeys) {
+            return batchTooLarge(req.entries.size());
+        }
+
+        List<CacheKey> keys = new ArrayList<>(req.entries.size());
+        List<String> vals = new ArrayList<>(req.entries.size());
+        long[] ttls = new long[req.entries.size()];
+
+        for (int i = 0; i < ttls.length; i++) {
+            SetRequest entry = req.entries.get(i);
+
+            if (entry.ttl != -1 && entry.ttl <= 0) {
+
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(new ErrorResponse("INVALID_TTL", "entries[" + i + "].ttl must be -1 or > 0"));
+            }
+
+            keys.add(new CacheKey(entry.namespace.trim(), entry.key.trim()));
+            vals.add(entry.value.trim());
+            ttls[i] = entry.ttl;
+        }
+
+        List<CacheOperationOutput> outputs = cacheApi.setKeys(keys, vals, ttls);
+
+        return ResponseEntity.status(HttpStatus.OK).body(new MultiKeyResponse(outputs));
+    }
+
+    @PostMapping("/mdel")
+    public ResponseEntity<?> mdel(@Valid @RequestBody MultiKeyRequest req, BindingResult br) {
+        if (br.hasErrors()) {
+            return validationError(br);
+        }
+
+        if (req.keys.size() > this.maxBatchKeys) {
+            return batchTooLarge(req.keys.size());
+        }
+
+        List<CacheOperationOutput> outputs = cacheApi.deleteKeys(toCacheKeys(req.keys));
+
+        return ResponseEntity.status(HttpStatus.OK).body(new MultiKeyResponse(outputs));
+    }
+
+    @GetMapping("/state")
+    public ResponseEntity<?> state() {
+        CacheStateResponse resp = new CacheStateResponse();
+        resp.capacity = cacheApi.cacheCapacity();
+
+        Map<Integer, List<CacheEntryDto>> storeEntries = new HashMap<>();
+        Map<Integer, List<LRUEntryDto>> lruEntries = new HashMap<>();
+
+        for (Map.Entry<Integer, List<CacheKey>> entry : cacheApi.snapshotKeys().entrySet()) {
+            int StripeId = entry.getKey();
+
+            List<CacheKey> cKeys = entry.getValue();
+
+            List<CacheEntryDto> entries = new ArrayList<>();
+
+            for (CacheKey cKey : cKeys) {
+
+                CacheEntry cEntry = cacheApi.getCacheEntryDirectlyFromStore(cKey.getNamespace(), cKey.getKey());
+
+                if (cEntry != null) {
+                    entries.add(new CacheEntryDto(cKey.getNamespace(), cKey.getKey(), cEntry, time.nowNs()));
+                }
+            }
+
+            storeEntries.put(StripeId, entries);
+        }
+
+        for (Map.Entry<Integer, List<CacheKey>> entry : cacheApi.snapshotLRU().entrySet()) {
+            int StripeId = entry.getKey();
+
+            List<CacheKey> lKeys = entry.getValue();
+
+            List<LRUEntryDto> entries = new ArrayList<>();
+
+            for (CacheKey lKey : lKeys) {
+
+                CacheEntry cEntry = cacheApi.getCacheEntryDirectlyFromStore(lKey.getNamespace(), lKey.getKey());
+
+                if (cEntry != null) {
+                    entries.add(new LRUEntryDto(lKey.getNamespace(), lKey.getKey()));
+                }
+            }
+
+            lruEntries.put(StripeId, entries);
+        }
+
+        resp.keys = storeEntries;
+        resp.lru = lruEntries;
+
+        return ResponseEntity.status(HttpStatus.OK).body(resp);
+    }
+
+
+    @PostMapping("/admin/reshard")
+    public ResponseEntity<?> reshard(@RequestBody ReshardRequest req) {
+        try {
+            int stripes = cacheApi.reshard(req.stripes);
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ReshardResponse(stripes));
+        } catch (IllegalArgumentException e) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("INVALID_STRIPES", e.getMessage()));
+        }
+    }
+
+    // every key of the namespace reads as a miss from now on, whatever the number of keys
+    @PostMapping("/admin/flush/{namespace}")
+    public ResponseEntity<?> flush(@PathVariable("namespace") String namespace) {
+        if (namespace == null || namespace.trim().isEmpty()) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("INVALID_NAMESPACE", "Namespace is required"));
+        }
+
+        int generation = cacheApi.flushNamespace(namespace.trim());
+
+        return ResponseEntity.status(HttpStatus.OK).body(new FlushResponse(namespace.trim(), generation));
+    }
+
+    @ExceptionHandler(EntryTooLargeException.class)
+    public ResponseEntity<?> entryTooLarge(EntryTooLargeException e) {
+        return ResponseEntity
+                .status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(new ErrorResponse("ENTRY_TOO_LARGE", e.getMessage()));
+    }
+
+    // path variables are only checked once they become a CacheKey
+    @ExceptionHandler(KeyTooLongException.class)
+    public ResponseEntity<?> keyTooLong(KeyTooLongException e) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("KEY_TOO_LONG", e.getMessage()));
+    }
+
+    @ExceptionHandler(NamespaceLimitException.class)
+    public ResponseEntity<?> namespaceLimit(NamespaceLimitException e) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("TOO_MANY_NAMESPACES", e.getMessage()));
+    }
+
+    @ExceptionHandler(ReadOnlyReplicaException.class)
+    public ResponseEntity<?> readOnlyReplica(ReadOnlyReplicaException e) {
+        return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .body(new ErrorResponse("READ_ONLY_REPLICA", e.getMessage()));
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> home() {
+        RootResponse resp = new RootResponse("Hello from cache!");
+
+        return ResponseEntity.status(HttpStatus.OK).body(resp);
+    }
+
+    // errors go out as JSON even on octet-stream routes, null when both are present
+    private static ResponseEntity<?> invalidKey(String namespace, String key) {
+        if (namespace == null || namespace.trim().isEmpty()) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse("INVALID_NAMESPACE", "Namespace is required"));
+        }
+
+        if (key == null || key.trim().isEmpty()) {
+
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse("INVALID_KEY", "Key is required"));
+        }
+
+        return null;
+    }
+
+    // reads and deletes, null for keys of namespaces never written
+    private static List<CacheKey> toCacheKeys(List<KeyRequest> refs) {
+        List<CacheKey> keys = new ArrayList<>(refs.size());
+
+        for (KeyRequest ref : refs) {
+            keys.add(CacheKey.ifKnown(ref.namespace.trim(), ref.key.trim()));
+        }
+
+        return keys;
+    }
+
+    private ResponseEntity<?> batchTooLarge(int size) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BATCH_TOO_LARGE", "Batch of " + size + " keys exceeds the limit of " + this.maxBatchKeys));
+    }
+
+    private static ResponseEntity<?> validationError(BindingResult br) {
+        FieldError fe = br.getFieldErrors().isEmpty() ? null : br.getFieldErrors().get(0);
+
+        String msg;
+
+        if (fe != null) {
+            msg = fe.getDefaultMessage();
+        } else {
+            msg = "validation failed";
+        }
+
+        String code = "VALIDATION_FAILED";
+
+        if (fe != null) {
+            // batch fields come as entries[2].key
+            String field = fe.getField().substring(fe.getField().lastIndexOf('.') + 1);
+
+            if ("Size".equals(fe.getCode()) && ("key".equals(field) || "namespace".equals(field))) {
+                // same code as a path variable that fails in CacheKey, see keyTooLong
+                code = "KEY_TOO_LONG";
+            } else if ("key".equals(field)) {
+                code = "INVALID_KEY";
+            } else if ("value".equals(field)) {
+                code = "INVALID_VALUE";
+            } else if ("namespace".equals(field)) {
+                code = "INVALID_NAMESPACE";
+            }
+        }
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(code, msg));
+    }
+}
@@ -0,0 +1,195 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.saoodahmad.cacheforge.api.dtos.MultiKeyRequest;
+import com.saoodahmad.cacheforge.api.dtos.MultiSetRequest;
+import com.saoodahmad.cacheforge.api.dtos.ReshardRequest;
+import com.saoodahmad.cacheforge.api.dtos.SetRequest;
+import com.saoodahmad.cacheforge.api.tracking.InvalidationTracker;
+import com.saoodahmad.cacheforge.api.wire.CacheWireFormat;
+import com.saoodahmad.cacheforge.cache.api.ReadOnlyReplicaException;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.EntryTooLargeException;
+import com.saoodahmad.cacheforge.cache.model.KeyTooLongException;
+import com.saoodahmad.cacheforge.cache.model.NamespaceLimitException;
+import com.saoodahmad.cacheforge.cache.persistence.FsyncPolicy;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Validator;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/*
+ * Cache calls run inline on the Netty event loop that decoded the request, the engine is
+ * in memory and only waits on a contended stripe lock. Calls that can block go to the
+ * bounded elastic scheduler instead, so they do not stall every other connection of the
+ * loop: reshards, flushes and /state wait on engine locks, disk tier reads and
+ * fsync=always writes wait on the disk, and large batches join a fork-join pool.
+ */
+final class ReactiveCacheHandler {
+
+    private final CacheController controller;
+
+    private final Validator validator;
+
+    // a miss reads the disk tier
+    private final boolean tieredReads;
+
+    // every write waits for its fsync
+    private final boolean syncedWrites;
+
+    // batches this large run their stripe groups on the fork-join pool
+    private final int parallelMinKeys;
+
+    ReactiveCacheHandler(CacheController controller, Validator validator, CacheForgeProperties props) {
+        this.controller = controller;
+        this.validator = validator;
+        this.tieredReads = props.getTier().isEnabled();
+        this.syncedWrites = props.getAof().isEnabled() && props.getAof().getFsync() == FsyncPolicy.ALWAYS;
+        this.parallelMinKeys = props.getBatch().getParallelMinKeys();
+    }
+
+    Mono<ServerResponse> home(ServerRequest req) {
+        return this.respond(req, false, this.controller::home);
+    }
+
+    Mono<ServerResponse> set(ServerRequest req) {
+        return this.withBody(req, SetRequest.class, body -> this.syncedWrites, this.controller::set);
+    }
+
+    Mono<ServerResponse> get(ServerRequest req) {
+        return this.respond(req, this.tieredReads, () -> this.controller.get(req.pathVariable("namespace"), req.pathVariable("key"),
+                req.headers().firstHeader(InvalidationTracker.HEADER)));
+    }
+
+    Mono<ServerResponse> delete(ServerRequest req) {
+        return this.respond(req, this.syncedWrites, () -> this.controller.delete(req.pathVariable("namespace"), req.pathVariable("key")));
+    }
+
+    Mono<ServerResponse> setBinary(ServerRequest req) {
+        long ttl;
+
+        try {
+            ttl = req.queryParam("ttl").map(Long::parseLong).orElse(-1L);
+        } catch (NumberFormatException e) {
+            return Mono.error(new ServerWebInputException("ttl must be a number"));
+        }
+
+        return req.bodyToMono(byte[].class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .flatMap(value -> this.respond(req, this.syncedWrites, () -> this.controller.setBinary(req.pathVariable("namespace"), req.pathVariable("key"), ttl, value)));
+    }
+
+    Mono<ServerResponse> getBinary(ServerRequest req) {
+        return this.respond(req, this.tieredReads, () -> this.controller.getBinary(req.pathVariable("namespace"), req.pathVariable("key")));
+    }
+
+    Mono<ServerResponse> tracking(ServerRequest req) {
+        ResponseEntity<Flux<ServerSentEvent<String>>> entity = this.controller.tracking();
+
+        if (entity.getBody() == null) {
+            return ServerResponse.status(entity.getStatusCode()).build();
+        }
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(entity.getBody()));
+    }
+
+    Mono<ServerResponse> mget(ServerRequest req) {
+        return this.withBody(req, MultiKeyRequest.class,
+                body -> this.tieredReads || this.parallel(body.keys), this.controller::mget);
+    }
+
+    Mono<ServerResponse> mset(ServerRequest req) {
+        return this.withBody(req, MultiSetRequest.class,
+                body -> this.syncedWrites || this.parallel(body.entries), this.controller::mset);
+    }
+
+    Mono<ServerResponse> mdel(ServerRequest req) {
+        return this.withBody(req, MultiKeyRequest.class,
+                body -> this.syncedWrites || this.parallel(body.keys), this.controller::mdel);
+    }
+
+    Mono<ServerResponse> state(ServerRequest req) {
+        return this.respond(req, true, this.controller::state);
+    }
+
+    Mono<ServerResponse> reshard(ServerRequest req) {
+        return req.bodyToMono(ReshardRequest.class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .flatMap(body -> this.respond(req, true, () -> this.controller.reshard(body)));
+    }
+
+    Mono<ServerResponse> flush(ServerRequest req) {
+        return this.respond(req, true, () -> this.controller.flush(req.pathVariable("namespace")));
+    }
+
+    // a missing list fails validation, the controller answers it without touching the cache
+    private boolean parallel(List<?> keys) {
+        return keys != null && keys.size() >= this.parallelMinKeys;
+    }
+
+    // decodes and validates like @Valid @RequestBody with a BindingResult argument
+    private <T> Mono<ServerResponse> withBody(ServerRequest req, Class<T> type, Predicate<T> blocking,
+                                              BiFunction<T, BindingResult, ResponseEntity<?>> call) {
+        return req.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .flatMap(body -> {
+                    BindingResult br = new BeanPropertyBindingResult(body, type.getSimpleName());
+
+                    this.validator.validate(body, br);
+
+                    return this.respond(req, blocking.test(body), () -> call.apply(body, br));
+                });
+    }
+
+    private Mono<ServerResponse> respond(ServerRequest req, boolean blocking, Supplier<ResponseEntity<?>> call) {
+        Mono<ResponseEntity<?>> result = Mono.fromCallable(() -> this.call(call));
+
+        if (blocking) {
+            result = result.subscribeOn(Schedulers.boundedElastic());
+        }
+
+        return result.flatMap(entity -> toServerResponse(req, entity));
+    }
+
+    private ResponseEntity<?> call(Supplier<ResponseEntity<?>> call) {
+        try {
+            return call.get();
+        } catch (EntryTooLargeException e) {
+            return this.controller.entryTooLarge(e);
+        } catch (ReadOnlyReplicaException e) {
+            return this.controller.readOnlyReplica(e);
+        } catch (KeyTooLongException e) {
+            return this.controller.keyTooLong(e);
+        } catch (NamespaceLimitException e) {
+            return this.controller.namespaceLimit(e);
+        }
+    }
+
+    private static Mono<ServerResponse> toServerResponse(ServerRequest req, ResponseEntity<?> entity) {
+        ServerResponse.BodyBuilder response = ServerResponse.status(entity.getStatusCode())
+                .headers(headers -> headers.addAll(entity.getHeaders()));
+
+        Object body = entity.getBody();
+
+        if (entity.getHeaders().getContentType() == null && CacheWireFormat.preferredFor(req.headers().accept(), body)) {
+            response.contentType(CacheWireFormat.MEDIA_TYPE);
+        }
+
+        return body == null ? response.build() : response.bodyValue(body);
+    }
+}
@@ -0,0 +1,49 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.saoodahmad.cacheforge.api.tracking.InvalidationTracker;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/*
+ * /api/cache on Netty when the app runs reactive (profile "reactive"). Same contract as the
+ * servlet CacheController, which handles the decoded requests so both front ends answer alike.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCacheRoutes {
+
+    @Bean
+    RouterFunction<ServerResponse> cacheRoutes(CacheApi cacheApi, TimeProvider time, InvalidationTracker tracker,
+                                               CacheForgeProperties props, Validator validator) {
+        ReactiveCacheHandler handler = new ReactiveCacheHandler(
+                new CacheController(cacheApi, time, tracker, props), new SpringValidatorAdapter(validator), props);
+
+        return RouterFunctions.route()
+                .path("/api/cache", routes -> routes
+                        .GET("", handler::home)
+                        .POST("/set", handler::set)
+                        .GET("/get/{namespace}/{key}", handler::get)
+                        .DELETE("/del/{namespace}/{key}", handler::delete)
+                        .PUT("/bin/{namespace}/{key}", RequestPredicates.contentType(MediaType.APPLICATION_OCTET_STREAM), handler::setBinary)
+                        .GET("/bin/{namespace}/{key}", handler::getBinary)
+                        .GET("/tracking", handler::tracking)
+                        .POST("/mget", handler::mget)
+                        .POST("/mset", handler::mset)
+                        .POST("/mdel", handler::mdel)
+                        .GET("/state", handler::state)
+                        .POST("/admin/reshard", handler::reshard)
+                        .POST("/admin/flush/{namespace}", handler::flush))
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+public class FlushResponse {
+    public String namespace;
+    public int generation;
+
+    public FlushResponse(String namespace, int generation) {
+        this.namespace = namespace;
+        this.generation = generation;
+    }
+}
@@ -0,0 +1,15 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class KeyRequest {
+    @NotBlank(message = "Namespace cannot be blank")
+    @Size(max = CacheKey.MAX_NAMESPACE_LENGTH, message = "Namespace cannot be longer than " + CacheKey.MAX_NAMESPACE_LENGTH + " characters")
+    public String namespace;
+
+    @NotBlank(message = "Key cannot be blank")
+    @Size(max = CacheKey.MAX_KEY_LENGTH, message = "Key cannot be longer than " + CacheKey.MAX_KEY_LENGTH + " characters")
+    public String key;
+}
@@ -0,0 +1,13 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// MGET / MDEL body, batch size validated in controller
+public class MultiKeyRequest {
+    @NotEmpty(message = "Keys cannot be empty")
+    public List<@NotNull(message = "Key entry cannot be null") @Valid KeyRequest> keys;
+}
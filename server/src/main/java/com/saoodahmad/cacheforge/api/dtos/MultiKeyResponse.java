@@ -0,0 +1,13 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+import com.saoodahmad.cacheforge.cache.api.CacheOperationOutput;
+
+import java.util.List;
+
+public class MultiKeyResponse {
+    public List<CacheOperationOutput> results; // same order as the request
+
+    public MultiKeyResponse(List<CacheOperationOutput> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,13 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// MSET body, batch size and ttls validated in controller
+public class MultiSetRequest {
+    @NotEmpty(message = "Entries cannot be empty")
+    public List<@NotNull(message = "Entry cannot be null") @Valid SetRequest> entries;
+}
@@ -0,0 +1,6 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+public class ReshardRequest {
+    // validated by the engine: a power of two larger than the current count
+    public int stripes;
+}
@@ -0,0 +1,9 @@
+package com.saoodahmad.cacheforge.api.dtos;
+
+public class ReshardResponse {
+    public int stripes;
+
+    public ReshardResponse(int stripes) {
+        this.stripes = stripes;
+    }
+}
@@ -0,0 +1,253 @@
+package com.saoodahmad.cacheforge.api.tracking;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.CacheEventListener;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Server side of client near caches, like Redis client-side caching in its default
+ * tracking mode. A client opens GET /api/cache/tracking (server-sent events), learns its id
+ * from the first event and sends that id in X-CacheForge-Tracking on reads. Every key read
+ * that way is remembered for the client, and the next time the engine reports the key
+ * changed or gone the client gets one invalidation and is forgotten for that key until it
+ * reads it again.
+ *
+ *   hello            data = client id
+ *   invalidate       data = namespace and key, each URL-encoded, separated by a space
+ *   flush            drop every cached key, sent when the cache is cleared
+ *   flush-namespace  data = namespace, URL-encoded; drop every cached key in it
+ *
+ * A client that falls maxPending invalidations behind is disconnected, so it has to flush
+ * and reconnect rather than serve keys it was never told about.
+ */
+@Component
+public class InvalidationTracker implements CacheEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationTracker.class);
+
+    public static final String HEADER = "X-CacheForge-Tracking";
+
+    private static final ServerSentEvent<String> FLUSH = ServerSentEvent.<String>builder().event("flush").data("").build();
+
+    private static final ServerSentEvent<String> HEARTBEAT = ServerSentEvent.<String>builder().comment("ping").build();
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final int maxPending;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+
+    // clients that read the key since its last invalidation, arrays are replaced, never changed
+    private final ConcurrentHashMap<CacheKey, Client[]> table = new ConcurrentHashMap<>();
+
+    public InvalidationTracker(StripedCacheEngine engine, CacheForgeProperties props) {
+        this.enabled = props.getTracking().isEnabled();
+        this.maxKeys = props.getTracking().getMaxKeys();
+        this.maxPending = props.getTracking().getMaxPending();
+
+        if (this.maxKeys <= 0 || this.maxPending <= 0) {
+            throw new IllegalArgumentException("Tracking max keys and max pending must be > 0");
+        }
+
+        if (this.enabled) {
+            engine.addListener(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    // the invalidation stream of a new client, it is forgotten once the stream ends
+    public Flux<ServerSentEvent<String>> subscribe() {
+        Client client = new Client(Long.toString(this.ids.incrementAndGet()), this.maxPending);
+
+        client.send(ServerSentEvent.<String>builder().event("hello").data(client.id).build());
+
+        this.clients.put(client.id, client);
+
+        log.debug("Tracking client {} connected", client.id);
+
+        // events are emitted under stripe locks, writing them to the connection happens elsewhere
+        return client.sink.asFlux()
+                .publishOn(Schedulers.boundedElastic())
+                .doFinally(signal -> this.disconnect(client));
+    }
+
+    // records that the client read the key, before the read so no write can slip in between
+    public void track(String clientId, String namespace, String key) {
+        if (clientId == null || !this.enabled) {
+            return;
+        }
+
+        Client client = this.clients.get(clientId);
+
+        if (client == null) {
+            return;
+        }
+
+        this.table.compute(new CacheKey(namespace, key), (k, tracked) -> {
+            if (tracked == null) {
+                return new Client[]{client};
+            }
+
+            for (Client c : tracked) {
+                if (c == client) {
+                    return tracked;
+                }
+            }
+
+            Client[] next = Arrays.copyOf(tracked, tracked.length + 1);
+            next[tracked.length] = client;
+
+            return next;
+        });
+
+        if (this.table.mappingCount() > this.maxKeys) {
+            this.evictOne();
+        }
+    }
+
+    public int trackedKeys() {
+        return this.table.size();
+    }
+
+    public int clientCount() {
+        return this.clients.size();
+    }
+
+    @Override
+    public void written(CacheKey key, CacheEntry entry) {
+        this.removed(key);
+    }
+
+    @Override
+    public void removed(CacheKey key) {
+        Client[] tracked = this.table.remove(key);
+
+        if (tracked == null) {
+            return;
+        }
+
+        ServerSentEvent<String> event = ServerSentEvent.<String>builder()
+                .event("invalidate")
+                .data(encode(key.getNamespace()) + " " + encode(key.getKey()))
+                .build();
+
+        for (Client client : tracked) {
+            client.send(event);
+        }
+    }
+
+    @Override
+    public void cleared() {
+        this.table.clear();
+
+        for (Client client : this.clients.values()) {
+            client.send(FLUSH);
+        }
+    }
+
+    // tracked keys of the namespace stay in the table, a later write only sends a spare invalidation
+    @Override
+    public void flushed(String namespace) {
+        ServerSentEvent<String> event = ServerSentEvent.<String>builder()
+                .event("flush-namespace")
+                .data(encode(namespace))
+                .build();
+
+        for (Client client : this.clients.values()) {
+            client.send(event);
+        }
+    }
+
+    // proxies drop idle streams, and a failed write is how a vanished client is noticed
+    @Scheduled(fixedDelay = 15_000)
+    public void heartbeat() {
+        for (Client client : this.clients.values()) {
+            client.send(HEARTBEAT);
+        }
+    }
+
+    // over maxKeys, an arbitrary key is invalidated early like Redis does
+    private void evictOne() {
+        Iterator<CacheKey> keys = this.table.keySet().iterator();
+
+        if (keys.hasNext()) {
+            this.removed(keys.next());
+        }
+    }
+
+    private void disconnect(Client client) {
+        client.closed = true;
+
+        this.clients.remove(client.id);
+
+        log.debug("Tracking client {} disconnected", client.id);
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static final class Client {
+
+        final String id;
+
+        final Sinks.Many<ServerSentEvent<String>> sink;
+
+        volatile boolean closed;
+
+        // a lock rather than synchronized, send runs under stripe locks and must not pin a virtual thread's carrier
+        private final ReentrantLock sendLock = new ReentrantLock();
+
+        Client(String id, int maxPending) {
+            this.id = id;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(maxPending));
+        }
+
+        // serialized, the sink rejects concurrent emits
+        void send(ServerSentEvent<String> event) {
+            this.sendLock.lock();
+
+            try {
+                if (this.closed) {
+                    return;
+                }
+
+                Sinks.EmitResult result = this.sink.tryEmitNext(event);
+
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    log.warn("Tracking client {} fell too far behind, disconnecting", this.id);
+
+                    this.closed = true;
+                    this.sink.tryEmitComplete();
+                }
+            } finally {
+                this.sendLock.unlock();
+            }
+        }
+    }
+}
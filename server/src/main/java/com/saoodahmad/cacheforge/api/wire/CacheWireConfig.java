@@ -0,0 +1,43 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// registers the application/x-cacheforge converter for whichever web stack is running
+@Configuration
+public class CacheWireConfig {
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class Servlet implements WebMvcConfigurer {
+
+        @Bean
+        ServerHttpMessageConvertersCustomizer cacheWireConverter() {
+            return builder -> builder.addCustomConverter(new CacheWireHttpMessageConverter());
+        }
+
+        // custom converters go ahead of JSON, so Accept */* (or none) asks for JSON first
+        @Override
+        public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+            configurer.defaultContentType(MediaType.APPLICATION_JSON, MediaType.ALL);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class Reactive implements WebFluxConfigurer {
+
+        @Override
+        public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+            configurer.customCodecs().register(new CacheWireEncoder());
+            configurer.customCodecs().register(new CacheWireDecoder());
+        }
+    }
+}
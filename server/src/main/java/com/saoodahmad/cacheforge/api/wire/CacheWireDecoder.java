@@ -0,0 +1,38 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+// reactive side of CacheWireFormat, reads a SetRequest body
+public class CacheWireDecoder extends AbstractDataBufferDecoder<Object> {
+
+    public CacheWireDecoder() {
+        super(CacheWireFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && CacheWireFormat.MEDIA_TYPE.equalsTypeAndSubtype(mimeType)
+                && CacheWireFormat.canDecode(elementType.toClass());
+    }
+
+    @Override
+    public Object decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+
+        try {
+            return CacheWireFormat.decodeSetRequest(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new DecodingException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/*
+ * Reactive side of CacheWireFormat. Only used when the response content type is set to
+ * application/x-cacheforge explicitly, so it never wins over JSON by default.
+ */
+public class CacheWireEncoder extends AbstractEncoder<Object> {
+
+    public CacheWireEncoder() {
+        super(CacheWireFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && CacheWireFormat.MEDIA_TYPE.equalsTypeAndSubtype(mimeType)
+                && CacheWireFormat.canEncode(elementType.toClass());
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(value -> this.encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        return bufferFactory.wrap(CacheWireFormat.encode(value));
+    }
+}
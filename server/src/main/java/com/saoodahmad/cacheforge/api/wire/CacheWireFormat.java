@@ -0,0 +1,217 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import com.saoodahmad.cacheforge.api.dtos.ErrorResponse;
+import com.saoodahmad.cacheforge.api.dtos.MultiKeyResponse;
+import com.saoodahmad.cacheforge.api.dtos.SetRequest;
+import com.saoodahmad.cacheforge.cache.OperationType;
+import com.saoodahmad.cacheforge.cache.api.CacheOperationOutput;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Fixed-layout binary encoding of the cache responses and SetRequest, picked with
+ * Accept / Content-Type: application/x-cacheforge. Big endian, no field names:
+ *
+ *   output   'O' op:u8 flags:u8 [ttl:i64 length:i32 value]   value only when flags has DATA, op see OP_*
+ *   batch    'M' count:i32 output*                             outputs without their 'O' tag
+ *   error    'E' length:u16 code length:u16 message            UTF-8
+ *   set      ttl:i64 length:u16 namespace length:u16 key length:i32 value
+ *
+ * Text values are UTF-8, binary values are written as stored.
+ */
+public final class CacheWireFormat {
+
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "x-cacheforge");
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-cacheforge";
+
+    static final byte TAG_OUTPUT = 'O';
+    static final byte TAG_BATCH = 'M';
+    static final byte TAG_ERROR = 'E';
+
+    // fixed, clients decode them (client/WireCodec), so never derived from the enum order
+    static final byte OP_SET = 0;
+    static final byte OP_GET = 1;
+    static final byte OP_DELETE = 2;
+
+    static final int HIT = 1;
+    static final int MISS = 2;
+    static final int EXPIRED = 4;
+    static final int DATA = 8;
+    static final int BINARY = 16;
+
+    private CacheWireFormat() {
+    }
+
+    // functional WebFlux routes do no content negotiation, they ask here
+    public static boolean preferredFor(List<MediaType> accept, Object body) {
+        if (body == null || accept.isEmpty() || !canEncode(body.getClass())) {
+            return false;
+        }
+
+        // quality first, then specificity
+        List<MediaType> sorted = new ArrayList<>(accept);
+        MimeTypeUtils.sortBySpecificity(sorted);
+
+        return MEDIA_TYPE.equalsTypeAndSubtype(sorted.get(0));
+    }
+
+    static boolean canEncode(Class<?> type) {
+        return CacheOperationOutput.class.isAssignableFrom(type)
+                || MultiKeyResponse.class.isAssignableFrom(type)
+                || ErrorResponse.class.isAssignableFrom(type);
+    }
+
+    static boolean canDecode(Class<?> type) {
+        return SetRequest.class == type;
+    }
+
+    public static byte[] encode(Object value) {
+        if (value instanceof CacheOperationOutput output) {
+            byte[] val = valueOf(output);
+
+            ByteBuffer buf = ByteBuffer.allocate(1 + outputSize(val));
+            buf.put(TAG_OUTPUT);
+            putOutput(buf, output, val);
+
+            return buf.array();
+        }
+
+        if (value instanceof MultiKeyResponse batch) {
+            return encodeBatch(batch.results);
+        }
+
+        if (value instanceof ErrorResponse error) {
+            byte[] code = utf8(error.errorCode);
+            byte[] message = utf8(error.message);
+
+            ByteBuffer buf = ByteBuffer.allocate(1 + 2 + code.length + 2 + message.length);
+            buf.put(TAG_ERROR);
+            putShortBytes(buf, code);
+            putShortBytes(buf, message);
+
+            return buf.array();
+        }
+
+        throw new IllegalArgumentException("Cannot encode " + value.getClass().getName());
+    }
+
+    public static SetRequest decodeSetRequest(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+        try {
+            SetRequest req = new SetRequest();
+
+            req.ttl = buf.getLong();
+            req.namespace = new String(getBytes(buf, buf.getShort() & 0xffff), StandardCharsets.UTF_8);
+            req.key = new String(getBytes(buf, buf.getShort() & 0xffff), StandardCharsets.UTF_8);
+            req.value = new String(getBytes(buf, buf.getInt()), StandardCharsets.UTF_8);
+
+            if (buf.hasRemaining()) {
+                throw new IllegalArgumentException(buf.remaining() + " trailing bytes after set request");
+            }
+
+            return req;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated set request");
+        }
+    }
+
+    private static byte[] encodeBatch(List<CacheOperationOutput> outputs) {
+        byte[][] vals = new byte[outputs.size()][];
+
+        int size = 1 + 4;
+
+        for (int i = 0; i < vals.length; i++) {
+            vals[i] = valueOf(outputs.get(i));
+            size += outputSize(vals[i]);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(TAG_BATCH);
+        buf.putInt(vals.length);
+
+        for (int i = 0; i < vals.length; i++) {
+            putOutput(buf, outputs.get(i), vals[i]);
+        }
+
+        return buf.array();
+    }
+
+    // null when the output carries no entry
+    private static byte[] valueOf(CacheOperationOutput output) {
+        if (output.data == null) {
+            return null;
+        }
+
+        byte[] val = output.data.valBytes();
+
+        return val == null ? new byte[0] : val;
+    }
+
+    private static int outputSize(byte[] val) {
+        return 2 + (val == null ? 0 : 8 + 4 + val.length);
+    }
+
+    private static void putOutput(ByteBuffer buf, CacheOperationOutput output, byte[] val) {
+        CacheEntry entry = output.data;
+
+        int flags = (output.hit ? HIT : 0) | (output.miss ? MISS : 0) | (output.expired ? EXPIRED : 0);
+
+        if (val != null) {
+            flags |= DATA;
+
+            if (entry.isBinary()) {
+                flags |= BINARY;
+            }
+        }
+
+        buf.put(opCode(output.opType));
+        buf.put((byte) flags);
+
+        if (val != null) {
+            buf.putLong(entry.getTtlInSecs());
+            buf.putInt(val.length);
+            buf.put(val);
+        }
+    }
+
+    static byte opCode(OperationType opType) {
+        return switch (opType) {
+            case SET -> OP_SET;
+            case GET -> OP_GET;
+            case DELETE -> OP_DELETE;
+        };
+    }
+
+    private static void putShortBytes(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buf, int length) {
+        if (length < 0 || length > buf.remaining()) {
+            throw new IllegalArgumentException("Field length " + length + " exceeds the " + buf.remaining() + " remaining bytes");
+        }
+
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+
+        return bytes;
+    }
+
+    // error codes and messages are short, cut at 64 KB to fit the u16 length
+    private static byte[] utf8(String s) {
+        byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+
+        return bytes.length > 0xffff ? Arrays.copyOf(bytes, 0xffff) : bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+// servlet side of CacheWireFormat, JSON stays the default through content negotiation, see CacheWireConfig
+public class CacheWireHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public CacheWireHttpMessageConverter() {
+        super(CacheWireFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CacheWireFormat.canEncode(clazz) || CacheWireFormat.canDecode(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return CacheWireFormat.canDecode(clazz) && this.canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return CacheWireFormat.canEncode(clazz) && this.canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return CacheWireFormat.decodeSetRequest(inputMessage.getBody().readAllBytes());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = CacheWireFormat.encode(value);
+
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
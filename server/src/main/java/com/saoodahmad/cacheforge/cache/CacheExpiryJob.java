@@ -0,0 +1,21 @@
+package com.saoodahmad.cacheforge.cache;
+
+import com.saoodahmad.cacheforge.cache.engine.MetricsEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.expiry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheExpiryJob {
+    private final MetricsEngine engine;
+
+    public CacheExpiryJob(MetricsEngine engine) {
+        this.engine = engine;
+    }
+
+    @Scheduled(fixedDelayString = "${cacheforge.expiry.tick-ms:1000}")
+    public void expire() {
+        engine.expireKeys();
+    }
+}
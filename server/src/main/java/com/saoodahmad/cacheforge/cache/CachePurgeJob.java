@@ -0,0 +1,59 @@
+package com.saoodahmad.cacheforge.cache;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.MetricsEngine;
+import com.saoodahmad.cacheforge.cache.persistence.SnapshotLoader;
+import com.saoodahmad.cacheforge.cache.replication.ReplicationRole;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CachePurgeJob {
+    private final MetricsEngine engine;
+    private final SnapshotLoader snapshots;
+    private final CacheForgeProperties props;
+
+    public CachePurgeJob(MetricsEngine engine, SnapshotLoader snapshots, CacheForgeProperties props) {
+        this.engine = engine;
+        this.snapshots = snapshots;
+        this.props = props;
+    }
+
+    @Scheduled(cron = "${cacheforge.purge.cron}", zone = "Asia/Kolkata")
+    public void purge() {
+        if (follower()) {
+            return;
+        }
+
+        engine.clear();
+
+        if (!persistent()) {
+            engine.populateByDefault();
+        }
+    }
+
+    // persisted data replaces the demo data; the append-only file replays itself and is newer than any snapshot
+    @PostConstruct()
+    public void populate() {
+        if (props.getAof().isEnabled() || follower()) {
+            return;
+        }
+
+        if (props.getSnapshot().isEnabled()) {
+            snapshots.restore();
+            return;
+        }
+
+        engine.populateByDefault();
+    }
+
+    // a follower's data comes from its leader, which purges for both
+    private boolean follower() {
+        return props.getReplication().getRole() == ReplicationRole.FOLLOWER;
+    }
+
+    private boolean persistent() {
+        return props.getAof().isEnabled() || props.getSnapshot().isEnabled();
+    }
+}
@@ -0,0 +1,19 @@
+package com.saoodahmad.cacheforge.cache;
+
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FlushSweepJob {
+    private final StripedCacheEngine engine;
+
+    public FlushSweepJob(StripedCacheEngine engine) {
+        this.engine = engine;
+    }
+
+    @Scheduled(fixedDelayString = "${cacheforge.flush.sweep-ms:1000}")
+    public void sweep() {
+        engine.sweepFlushed();
+    }
+}
@@ -0,0 +1,21 @@
+package com.saoodahmad.cacheforge.cache;
+
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.tier", name = "enabled", havingValue = "true")
+public class TierCompactionJob {
+    private final StripedCacheEngine engine;
+
+    public TierCompactionJob(StripedCacheEngine engine) {
+        this.engine = engine;
+    }
+
+    @Scheduled(fixedDelayString = "${cacheforge.tier.compact-ms:1000}")
+    public void compact() {
+        engine.compactTier();
+    }
+}
@@ -0,0 +1,236 @@
+package com.saoodahmad.cacheforge.cache.api;
+
+import com.saoodahmad.cacheforge.cache.OperationType;
+import com.saoodahmad.cacheforge.cache.engine.MetricsEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Component
+public class CacheApi {
+
+    // misses carry no entry, every caller gets the same output
+    private static final CacheOperationOutput GET_MISS = new CacheOperationOutput(OperationType.GET, false, true, null);
+    private static final CacheOperationOutput DELETE_MISS = new CacheOperationOutput(OperationType.DELETE, false, true, null);
+    private static final CacheOperationOutput GET_EXPIRED = new CacheOperationOutput(OperationType.GET, false, true, true, null);
+    private static final CacheOperationOutput DELETE_EXPIRED = new CacheOperationOutput(OperationType.DELETE, false, true, true, null);
+
+    private final MetricsEngine engine;
+
+    // set on followers, which take writes from the leader's stream only
+    private volatile boolean readOnly;
+
+    public CacheApi(MetricsEngine engine) {
+        this.engine = engine;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    private void checkWritable() {
+        if (this.readOnly) {
+            throw new ReadOnlyReplicaException();
+        }
+    }
+
+    public CacheOperationOutput getKey(String namespace, String key) {
+        CacheKey cKey = CacheKey.ifKnown(namespace, key);
+
+        if (cKey == null) {
+            return GET_MISS;
+        }
+
+        return getOutput(engine.getKey(cKey));
+    }
+
+    public CacheOperationOutput setKey(String namespace, String key, String val, long ttl) {
+        this.checkWritable();
+
+        CacheKey cKey = new CacheKey(namespace, key);
+
+        return setOutput(engine.setKey(cKey, val, ttl));
+    }
+
+    public CacheOperationOutput setKey(String namespace, String key, byte[] val, long ttl) {
+        this.checkWritable();
+
+        CacheKey cKey = new CacheKey(namespace, key);
+
+        return setOutput(engine.setKey(cKey, val, ttl));
+    }
+
+    public CacheOperationOutput deleteKey(String namespace, String key) {
+        this.checkWritable();
+
+        CacheKey cKey = CacheKey.ifKnown(namespace, key);
+
+        if (cKey == null) {
+            return DELETE_MISS;
+        }
+
+        return deleteOutput(engine.deleteKey(cKey));
+    }
+
+    // outputs are in key order, a null key (see CacheKey.ifKnown) is a miss
+    public List<CacheOperationOutput> getKeys(List<CacheKey> keys) {
+        List<CacheOperationOutput> outputs = new ArrayList<>(keys.size());
+
+        for (CacheResult result : known(keys, engine::getKeys)) {
+            outputs.add(getOutput(result));
+        }
+
+        return outputs;
+    }
+
+    public List<CacheOperationOutput> setKeys(List<CacheKey> keys, List<String> vals, long[] ttls) {
+        this.checkWritable();
+
+        List<CacheOperationOutput> outputs = new ArrayList<>(keys.size());
+
+        for (CacheResult result : engine.setKeys(keys, vals, ttls)) {
+            outputs.add(setOutput(result));
+        }
+
+        return outputs;
+    }
+
+    // each val a String or a byte[]
+    public List<CacheOperationOutput> setValues(List<CacheKey> keys, List<?> vals, long[] ttls) {
+        this.checkWritable();
+
+        List<CacheOperationOutput> outputs = new ArrayList<>(keys.size());
+
+        for (CacheResult result : engine.setValues(keys, vals, ttls)) {
+            outputs.add(setOutput(result));
+        }
+
+        return outputs;
+    }
+
+    public List<CacheOperationOutput> deleteKeys(List<CacheKey> keys) {
+        this.checkWritable();
+
+        List<CacheOperationOutput> outputs = new ArrayList<>(keys.size());
+
+        for (CacheResult result : known(keys, engine::deleteKeys)) {
+            outputs.add(deleteOutput(result));
+        }
+
+        return outputs;
+    }
+
+    // runs the batch over the non-null keys, nulls come back as a null result
+    private static List<CacheResult> known(List<CacheKey> keys, Function<List<CacheKey>, List<CacheResult>> batch) {
+        if (!keys.contains(null)) {
+            return batch.apply(keys);
+        }
+
+        List<CacheKey> known = new ArrayList<>(keys.size());
+
+        for (CacheKey key : keys) {
+            if (key != null) {
+                known.add(key);
+            }
+        }
+
+        List<CacheResult> knownResults = known.isEmpty() ? List.of() : batch.apply(known);
+        List<CacheResult> results = new ArrayList<>(keys.size());
+
+        int next = 0;
+
+        for (CacheKey key : keys) {
+            results.add(key == null ? null : knownResults.get(next++));
+        }
+
+        return results;
+    }
+
+    private static CacheOperationOutput getOutput(CacheResult result) {
+        if (result instanceof CacheResult.Hit(CacheEntry entry)) {
+            return new CacheOperationOutput(
+                    OperationType.GET,
+                    true,
+                    false,
+                    entry
+            );
+        }
+
+        return result instanceof CacheResult.Expired ? GET_EXPIRED : GET_MISS;
+    }
+
+    private static CacheOperationOutput setOutput(CacheResult result) {
+        if (result instanceof CacheResult.Created(CacheEntry entry)) {
+            return new CacheOperationOutput(
+                    OperationType.SET,
+                    false,
+                    true,
+                    entry
+            );
+        }
+
+        if (result instanceof CacheResult.Updated(CacheEntry entry)) {
+            return new CacheOperationOutput(OperationType.SET, true, false, entry);
+        }
+
+        throw new IllegalStateException("Unhandled CacheResult in setKey: " + result);
+    }
+
+    private static CacheOperationOutput deleteOutput(CacheResult result) {
+        if (result instanceof CacheResult.Hit(CacheEntry entry)) {
+            return new CacheOperationOutput(
+                    OperationType.DELETE,
+                    true,
+                    false,
+                    entry
+            );
+
+        }
+
+        return result instanceof CacheResult.Expired ? DELETE_EXPIRED : DELETE_MISS;
+    }
+
+    public Map<Integer, List<CacheKey>> snapshotKeys() {
+        return engine.snapshotKeys();
+    }
+
+    public Map<Integer, List<CacheKey>> snapshotLRU() {
+        return engine.snapshotLRU();
+    }
+
+    public CacheEntry getCacheEntryDirectlyFromStore(String namespace, String key) {
+        CacheKey cKey = CacheKey.ifKnown(namespace, key);
+
+        return cKey == null ? null : engine.getCacheEntryDirectlyFromStore(cKey);
+    }
+
+    public int flushNamespace(String namespace) {
+        this.checkWritable();
+
+        return engine.flushNamespace(namespace);
+    }
+
+    public int reshard(int stripes) {
+        return engine.reshard(stripes);
+    }
+
+    public int cacheCapacity() {
+        return engine.cacheCapacity();
+    }
+
+    public void clear() {
+        this.checkWritable();
+
+        engine.clear();
+    }
+}
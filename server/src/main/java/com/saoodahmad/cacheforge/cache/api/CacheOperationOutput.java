@@ -12,17 +12,24 @@ public class CacheOperationOutput {
 
     public boolean miss;
 
+    public boolean expired; // a miss because the key's TTL had passed
+
     public CacheEntry data;
 
     public CacheOperationOutput(OperationType opType, boolean hit, boolean miss, CacheEntry data) {
+        this(opType, hit, miss, false, data);
+    }
+
+    public CacheOperationOutput(OperationType opType, boolean hit, boolean miss, boolean expired, CacheEntry data) {
         this.opType = opType;
         this.hit = hit;
         this.miss = miss;
+        this.expired = expired;
         this.data = data;
     }
 
     @Override
     public String toString() {
-        return "OperationType: " + this.opType.desc() + ", Hit: " + this.hit + ", Miss: " + this.miss + ", data: " + this.data;
+        return "OperationType: " + this.opType.desc() + ", Hit: " + this.hit + ", Miss: " + this.miss + ", Expired: " + this.expired + ", data: " + this.data;
     }
 }
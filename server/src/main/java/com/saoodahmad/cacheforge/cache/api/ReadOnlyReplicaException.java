@@ -0,0 +1,9 @@
+package com.saoodahmad.cacheforge.cache.api;
+
+// thrown for writes sent to a follower, its data only changes through the leader's stream
+public class ReadOnlyReplicaException extends RuntimeException {
+
+    public ReadOnlyReplicaException() {
+        super("This node is a read-only replica, send writes to the leader");
+    }
+}
@@ -0,0 +1,6 @@
+package com.saoodahmad.cacheforge.cache.config;
+
+public enum ReadMode {
+    LOCKED,     // every GET takes the stripe lock
+    LOCK_FREE   // GET hits skip the lock, recency is buffered per stripe
+}
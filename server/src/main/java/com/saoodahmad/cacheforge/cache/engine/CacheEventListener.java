@@ -0,0 +1,29 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+/*
+ * Told about every change to the cached data: sets, and deletes, expiry, eviction and flushes.
+ * These are called with the key's stripe locked, so implementations must only hand the
+ * event off and never block or call back into the engine.
+ */
+public interface CacheEventListener {
+
+    // the key was created or overwritten and now holds entry
+    void written(CacheKey key, CacheEntry entry);
+
+    // deleted, expired or evicted
+    void removed(CacheKey key);
+
+    // every key went away at once
+    void cleared();
+
+    // every key of the namespace went away at once, called with every stripe locked
+    default void flushed(String namespace) {
+    }
+
+    // a set or delete call has released its stripe locks, on the calling thread; the one place a listener may block
+    default void afterWrite() {
+    }
+}
@@ -0,0 +1,49 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.stripe.CacheStripe;
+
+import java.util.HashMap;
+import java.util.List;
+
+public interface CommonEngine {
+
+    CacheResult setKey(CacheKey rawKey, String val, long ttlInSecs);
+
+    // the array is stored as is, the caller hands over ownership
+    CacheResult setKey(CacheKey rawKey, byte[] val, long ttlInSecs);
+
+    CacheResult getKey(CacheKey key);
+
+    CacheResult deleteKey(CacheKey key);
+
+    // results in key order, every stripe touched by the batch is locked once
+    List<CacheResult> getKeys(List<CacheKey> keys);
+
+    List<CacheResult> setKeys(List<CacheKey> keys, List<String> vals, long[] ttlsInSecs);
+
+    // each val a String or a byte[], for batches that mix text and binary values
+    List<CacheResult> setValues(List<CacheKey> keys, List<?> vals, long[] ttlsInSecs);
+
+    List<CacheResult> deleteKeys(List<CacheKey> keys);
+
+    void evictKeys(List<CacheKey> lruEvictedKeys, CacheStripe stripe);
+
+    // removes keys whose TTL has passed, returns how many were removed
+    int expireKeys();
+
+    HashMap<Integer, List<CacheKey>> snapshotKeys();
+
+    HashMap<Integer, List<CacheKey>> snapshotLRU();
+
+    // invalidates every key of the namespace at once, returns its new generation
+    int flushNamespace(String namespace);
+
+    // grows the stripe count online, returns the new count
+    int reshard(int stripes);
+
+    int cacheCapacity();
+
+    void clear();
+}
@@ -0,0 +1,13 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+// thrown when a single entry is larger than the cache can hold, e.g. a whole stripe's byte budget
+public class EntryTooLargeException extends RuntimeException {
+
+    public EntryTooLargeException(long weight, long budget) {
+        super("Entry of ~" + weight + " bytes exceeds the per stripe budget of " + budget + " bytes");
+    }
+
+    public EntryTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -7,6 +7,7 @@ import com.saoodahmad.cacheforge.cache.stripe.CacheStripe;
 import io.micrometer.core.instrument.*;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
@@ -18,11 +19,19 @@ public class MetricsCacheEngine implements MetricsEngine {
 
     private final DefaultEngine delegate;
 
+    private final StripedCacheEngine striped;
+    private final MeterRegistry registry;
+    private final Tags base;
+    private int stripeGauges;
+
     private final Counter getCalls, getHits, getMisses, getExpired;
     private final Counter setCalls, setCreated, setUpdated;
     private final Counter delCalls, delHits, delMisses, delExpired;
+    private final Counter sweepExpired;
+    private final Counter flushCalls;
 
     private final Timer getTimer, setTimer, delTimer;
+    private final Timer mgetTimer, msetTimer, mdelTimer;
 
     private final AtomicLong lastGetNs = new AtomicLong();
     private final AtomicLong lastSetNs = new AtomicLong();
@@ -31,8 +40,11 @@ public class MetricsCacheEngine implements MetricsEngine {
     // gauges can be registered against *this* (delegate snapshots)
     public MetricsCacheEngine(StripedCacheEngine delegate, MeterRegistry registry) {
         this.delegate = delegate;
+        this.striped = delegate;
+        this.registry = registry;
 
         Tags base = Tags.of("cache", "cacheforge");
+        this.base = base;
 
         getCalls = Counter.builder("cacheforge.cache.calls").tags(base.and("op", "get")).register(registry);
         getHits = Counter.builder("cacheforge.cache.hits").tags(base.and("op", "get")).register(registry);
@@ -48,6 +60,10 @@ public class MetricsCacheEngine implements MetricsEngine {
         delMisses = Counter.builder("cacheforge.cache.misses").tags(base.and("op", "del")).register(registry);
         delExpired = Counter.builder("cacheforge.cache.expired").tags(base.and("op", "del")).register(registry);
 
+        sweepExpired = Counter.builder("cacheforge.cache.expired").tags(base.and("op", "sweep")).register(registry);
+
+        flushCalls = Counter.builder("cacheforge.cache.calls").tags(base.and("op", "flush")).register(registry);
+
         getTimer = Timer.builder("cacheforge.cache.latency")
                 .tags(base.and("op", "get"))
                 .publishPercentileHistogram()
@@ -63,6 +79,22 @@ public class MetricsCacheEngine implements MetricsEngine {
                 .publishPercentileHistogram()
                 .register(registry);
 
+        // whole batch, the per-key outcomes go to the get/set/del counters
+        mgetTimer = Timer.builder("cacheforge.cache.latency")
+                .tags(base.and("op", "mget"))
+                .publishPercentileHistogram()
+                .register(registry);
+
+        msetTimer = Timer.builder("cacheforge.cache.latency")
+                .tags(base.and("op", "mset"))
+                .publishPercentileHistogram()
+                .register(registry);
+
+        mdelTimer = Timer.builder("cacheforge.cache.latency")
+                .tags(base.and("op", "mdel"))
+                .publishPercentileHistogram()
+                .register(registry);
+
         Gauge.builder("cacheforge.cache.latency.last", lastGetNs, AtomicLong::get)
                 .baseUnit("nanoseconds")
                 .tags(base.and("op", "get"))
@@ -77,6 +109,49 @@ public class MetricsCacheEngine implements MetricsEngine {
                 .baseUnit("nanoseconds")
                 .tags(base.and("op", "del"))
                 .register(registry);
+
+        if (this.striped.hasTier()) {
+            Gauge.builder("cacheforge.cache.tier.keys", this.striped, StripedCacheEngine::tierKeys)
+                    .tags(base)
+                    .register(registry);
+
+            Gauge.builder("cacheforge.cache.tier.bytes", this.striped, StripedCacheEngine::tierBytes)
+                    .baseUnit("bytes")
+                    .tags(base)
+                    .register(registry);
+        }
+
+        // namespaces with a quota get their own series, everything else is summed under "_other"
+        List<String> namespaces = new ArrayList<>(this.striped.quotaNamespaces());
+        namespaces.add(null);
+
+        for (String namespace : namespaces) {
+            for (String cause : new String[]{"capacity", "quota"}) {
+                int idx = cause.equals("quota") ? StripedCacheEngine.EVICTED_BY_QUOTA : StripedCacheEngine.EVICTED_BY_CAPACITY;
+
+                FunctionCounter.builder("cacheforge.cache.evictions", this.striped, d -> d.evictions(namespace, idx))
+                        .tags(base.and("namespace", namespace == null ? "_other" : namespace).and("cause", cause))
+                        .register(registry);
+            }
+        }
+
+        this.registerStripeGauges();
+    }
+
+    // one gauge per stripe id, called again after a reshard adds stripes
+    private synchronized void registerStripeGauges() {
+        if (!this.striped.isByteBudget()) return;
+
+        for (int i = this.stripeGauges; i < this.striped.stripeCount(); i++) {
+            int stripeId = i;
+
+            Gauge.builder("cacheforge.cache.stripe.bytes", this.striped, d -> d.stripeBytes(stripeId))
+                    .baseUnit("bytes")
+                    .tags(this.base.and("stripe", String.valueOf(stripeId)))
+                    .register(this.registry);
+        }
+
+        this.stripeGauges = this.striped.stripeCount();
     }
 
     @Override
@@ -108,6 +183,20 @@ public class MetricsCacheEngine implements MetricsEngine {
         setCalls.increment();
         CacheResult r = delegate.setKey(key, val, ttlInSecs);
 
+        return this.recordSet(r, start);
+    }
+
+    @Override
+    public CacheResult setKey(CacheKey key, byte[] val, long ttlInSecs) {
+        long start = System.nanoTime();
+
+        setCalls.increment();
+        CacheResult r = delegate.setKey(key, val, ttlInSecs);
+
+        return this.recordSet(r, start);
+    }
+
+    private CacheResult recordSet(CacheResult r, long start) {
         long dur = System.nanoTime() - start;
 
         if (r instanceof CacheResult.Created)
@@ -143,11 +232,101 @@ public class MetricsCacheEngine implements MetricsEngine {
         return r;
     }
 
+    @Override
+    public List<CacheResult> getKeys(List<CacheKey> keys) {
+        long start = System.nanoTime();
+
+        getCalls.increment(keys.size());
+        List<CacheResult> results = delegate.getKeys(keys);
+
+        long dur = System.nanoTime() - start;
+
+        for (CacheResult r : results) {
+            if (r instanceof CacheResult.Hit)
+                getHits.increment();
+            else if (r instanceof CacheResult.Expired)
+                getExpired.increment();
+            else
+                getMisses.increment();
+        }
+
+        mgetTimer.record(dur, TimeUnit.NANOSECONDS);
+
+        return results;
+    }
+
+    @Override
+    public List<CacheResult> setKeys(List<CacheKey> keys, List<String> vals, long[] ttlsInSecs) {
+        long start = System.nanoTime();
+
+        setCalls.increment(keys.size());
+        List<CacheResult> results = delegate.setKeys(keys, vals, ttlsInSecs);
+
+        return this.recordSets(results, start);
+    }
+
+    @Override
+    public List<CacheResult> setValues(List<CacheKey> keys, List<?> vals, long[] ttlsInSecs) {
+        long start = System.nanoTime();
+
+        setCalls.increment(keys.size());
+        List<CacheResult> results = delegate.setValues(keys, vals, ttlsInSecs);
+
+        return this.recordSets(results, start);
+    }
+
+    private List<CacheResult> recordSets(List<CacheResult> results, long start) {
+        long dur = System.nanoTime() - start;
+
+        for (CacheResult r : results) {
+            if (r instanceof CacheResult.Created)
+                setCreated.increment();
+            else if (r instanceof CacheResult.Updated)
+                setUpdated.increment();
+        }
+
+        msetTimer.record(dur, TimeUnit.NANOSECONDS);
+
+        return results;
+    }
+
+    @Override
+    public List<CacheResult> deleteKeys(List<CacheKey> keys) {
+        long start = System.nanoTime();
+
+        delCalls.increment(keys.size());
+        List<CacheResult> results = delegate.deleteKeys(keys);
+
+        long dur = System.nanoTime() - start;
+
+        for (CacheResult r : results) {
+            if (r instanceof CacheResult.Hit)
+                delHits.increment();
+            else if (r instanceof CacheResult.Expired)
+                delExpired.increment();
+            else
+                delMisses.increment();
+        }
+
+        mdelTimer.record(dur, TimeUnit.NANOSECONDS);
+
+        return results;
+    }
+
     @Override
     public void evictKeys(List<CacheKey> keys, CacheStripe stripe) {
         delegate.evictKeys(keys, stripe);
     }
 
+    @Override
+    public int expireKeys() {
+        int expired = delegate.expireKeys();
+
+        sweepExpired.increment(expired);
+
+        return expired;
+    }
+
     @Override
     public HashMap<Integer, List<CacheKey>> snapshotKeys() {
         return delegate.snapshotKeys();
@@ -172,6 +351,22 @@ public class MetricsCacheEngine implements MetricsEngine {
         return entry;
     }
 
+    @Override
+    public int flushNamespace(String namespace) {
+        flushCalls.increment();
+
+        return delegate.flushNamespace(namespace);
+    }
+
+    @Override
+    public int reshard(int stripes) {
+        int count = delegate.reshard(stripes);
+
+        this.registerStripeGauges();
+
+        return count;
+    }
+
     @Override
     public int cacheCapacity() {
         return delegate.cacheCapacity();
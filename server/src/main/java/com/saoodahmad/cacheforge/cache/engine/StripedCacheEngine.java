@@ -0,0 +1,1322 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.config.ReadMode;
+import com.saoodahmad.cacheforge.cache.expiry.TimingWheel;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.model.Namespace;
+import com.saoodahmad.cacheforge.cache.model.NamespaceTable;
+import com.saoodahmad.cacheforge.cache.stripe.CacheStripe;
+import com.saoodahmad.cacheforge.cache.stripe.NamespaceQuotas;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicy;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicyType;
+import com.saoodahmad.cacheforge.cache.store.CacheStore;
+import com.saoodahmad.cacheforge.cache.store.CacheStoreType;
+import com.saoodahmad.cacheforge.cache.stripe.StripeTable;
+import com.saoodahmad.cacheforge.cache.tier.DiskTier;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+@Component
+public class StripedCacheEngine implements DefaultEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedCacheEngine.class);
+
+    private static final int TIER_BATCH = 65536;
+
+    // eviction causes, index into the per namespace counters
+    public static final int EVICTED_BY_CAPACITY = 0;
+    public static final int EVICTED_BY_QUOTA = 1;
+
+    private final TimeProvider time;
+    private final int totalCapacity;
+    private final long maxBytes; // 0 when capacity counts entries
+    private final ReadMode readMode;
+    private final int expiryBudget;
+    private final int parallelBatchMin;
+
+    private final EvictionPolicyType policyType;
+    private final CacheStoreType storeType;
+    private final int slabBytes;
+    private final CacheForgeProperties.Expiry expiry;
+
+    // evicted entries spill here, null when disabled
+    private final DiskTier tier;
+
+    // namespace name -> its limits, copied into every stripe as that stripe's share
+    private final Map<String, CacheForgeProperties.Quota> quotas;
+
+    // evictions by cause, own counters for namespaces with a quota only so the tag count stays bounded
+    private final Map<Namespace, LongAdder[]> evictions = new HashMap<>();
+    private final LongAdder[] otherEvictions = newEvictionCounts();
+
+    // one per walk in progress, copy on write like the listeners, see forEachStripeEntries
+    private volatile Walk[] walks = new Walk[0];
+
+    // namespace id -> generation, replaced by every flush; namespaces past the end are at 0
+    private volatile int[] generations = new int[0];
+
+    // set by a flush, the next sweep reclaims what it left stale
+    private final AtomicBoolean sweepPending = new AtomicBoolean();
+
+    // swapped by reshard(), readers route through whatever table they load
+    private volatile StripeTable table;
+
+    // one reshard at a time, bulk operations wait for it to finish
+    private final ReentrantLock reshardLock = new ReentrantLock();
+
+    // copy on write, usually empty and read on every write
+    private volatile CacheEventListener[] listeners = new CacheEventListener[0];
+
+    public StripedCacheEngine(CacheForgeProperties props, TimeProvider time) {
+
+        this.time = time;
+
+        int stripesCount = props.getStripes();
+        this.totalCapacity = props.getCapacity();
+        this.readMode = props.getReadMode();
+
+        validateStripesAndCapacity(stripesCount, this.totalCapacity);
+
+        this.maxBytes = props.getMaxBytes();
+
+        validateMaxBytes(stripesCount, this.maxBytes);
+
+        NamespaceTable.configure(props.getMaxNamespaces());
+
+        this.policyType = props.getEviction().getPolicy();
+
+        this.storeType = props.getStore().getType();
+        this.slabBytes = props.getStore().getSlabBytes();
+
+        this.expiry = props.getExpiry();
+        this.expiryBudget = this.expiry.getMaxPerTick();
+
+        this.parallelBatchMin = props.getBatch().getParallelMinKeys();
+
+        this.tier = props.getTier().isEnabled() ? new DiskTier(props.getTier(), time) : null;
+
+        NamespaceQuotas.validate(props.getQuotas());
+
+        this.quotas = new LinkedHashMap<>(props.getQuotas());
+
+        for (String namespace : this.quotas.keySet()) {
+            this.evictions.put(NamespaceTable.of(namespace), newEvictionCounts());
+        }
+
+        this.table = new StripeTable(this.newStripes(stripesCount));
+
+    }
+
+    private CacheStripe[] newStripes(int stripesCount) {
+        // policies evict by weight, an entry weighs 1 in count mode and its estimated size in byte mode
+        long perStripeBudget = this.maxBytes > 0 ? this.maxBytes / stripesCount : this.totalCapacity / stripesCount;
+
+        CacheStripe[] stripes = new CacheStripe[stripesCount];
+
+        for (int i = 0; i < stripesCount; i++) {
+            CacheStore store = this.storeType.create(this.slabBytes);
+            EvictionPolicy policy = this.policyType.create(perStripeBudget);
+
+            TimingWheel timers = null;
+
+            if (this.expiry.isEnabled()) {
+                timers = new TimingWheel(TimeUnit.MILLISECONDS.toNanos(this.expiry.getTickMs()), this.time.nowNs());
+            }
+
+            stripes[i] = new CacheStripe(i, perStripeBudget, store, policy, timers, new NamespaceQuotas(this.quotas, stripesCount));
+
+        }
+
+        return stripes;
+    }
+
+    @Override
+    public CacheResult setKey(CacheKey cKey, String val, long ttlInSecs) {
+        return this.setValue(cKey, val, ttlInSecs);
+    }
+
+    @Override
+    public CacheResult setKey(CacheKey cKey, byte[] val, long ttlInSecs) {
+        return this.setValue(cKey, val, ttlInSecs);
+    }
+
+    // val is a String or byte[]
+    private CacheResult setValue(CacheKey cKey, Object val, long ttlInSecs) {
+
+        // guarded, boxing the TTL would allocate on every call even with debug off
+        if (log.isDebugEnabled()) {
+            log.debug("Executing Set Key command");
+
+            log.debug("Key:{}", cKey);
+            log.debug("Value: {}", val instanceof byte[] bytes ? bytes.length + " bytes" : val);
+            log.debug("TTL in secs: {}", ttlInSecs);
+        }
+
+        long weight = this.weigh(cKey, val);
+
+        CacheStripe stripe = this.lockedStripeFor(cKey);
+
+        CacheResult result;
+
+        try {
+            result = this.setLocked(stripe, cKey, val, ttlInSecs, weight);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        this.afterWrite();
+
+        return result;
+    }
+
+    // caller holds the stripe lock
+    private CacheResult setLocked(CacheStripe stripe, CacheKey cKey, Object val, long ttlInSecs, long weight) {
+        // admitting it would flush the whole stripe and still not fit
+        if (this.maxBytes > 0 && weight > stripe.capacity) {
+            throw new EntryTooLargeException(weight, stripe.capacity);
+        }
+
+        this.checkQuotaFits(stripe, cKey, val);
+
+        stripe.drainReadBuffer();
+
+        CacheEntry entry = stripe.store.get(cKey);
+
+        if (entry == null) {
+            // a spilled copy is stale now, a key lives in one tier only
+            if (this.tier != null) {
+                this.tier.remove(cKey);
+            }
+
+            entry = this.newEntry(cKey, val, ttlInSecs, time.nowNs());
+            stripe.store.put(cKey, entry);
+            stripe.policy.touch(cKey, weight);
+            stripe.quotas.touch(cKey, val);
+            stripe.scheduleExpiry(cKey, entry);
+
+            this.written(cKey, entry);
+
+            this.evictOverLimits(stripe, cKey);
+
+            log.debug("New key added to cache");
+
+            log.debug("==================================");
+
+            return new CacheResult.Created(entry);
+        }
+
+        long nowNs = this.time.nowNs();
+
+        // a flushed key is created anew, like an expired one
+        boolean expired = entry.isKeyExpired(nowNs) || this.isStale(cKey, entry);
+
+        if (expired) {
+            stripe.remove(cKey);
+
+            entry = this.newEntry(cKey, val, ttlInSecs, nowNs);
+        } else {
+            entry.updateVal(val);
+
+            entry.setTtlSeconds(ttlInSecs, nowNs);
+        }
+
+        stripe.store.put(cKey, entry);
+
+        stripe.policy.touch(cKey, weight);
+        stripe.quotas.touch(cKey, val);
+
+        stripe.scheduleExpiry(cKey, entry);
+
+        this.written(cKey, entry);
+
+        this.evictOverLimits(stripe, cKey);
+
+        log.debug("Existing key refreshed in cache");
+
+        log.debug("==================================");
+
+        if (expired) {
+            return new CacheResult.Created(entry);
+        }
+
+        return entry.asUpdated();
+    }
+
+    @Override
+    public CacheResult getKey(CacheKey cKey) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Executing Get Key command");
+
+            log.debug("Key: {}", cKey);
+        }
+
+        CacheStripe stripe = this.stripeFor(cKey);
+
+        if (this.readMode == ReadMode.LOCK_FREE) {
+            CacheEntry entry = stripe.store.get(cKey);
+
+            // checked after the read, a stripe split meanwhile holds a stale copy or nothing
+            // and the locked path re-routes
+            if (!stripe.retired) {
+                // with a disk tier a miss falls through too, promoting needs the lock
+                if (entry == null && this.tier == null) {
+                    log.debug("Key does not exist in cache");
+
+                    log.debug("==================================");
+
+                    return CacheResult.MISS;
+                }
+
+                // expired and flushed keys fall through to the locked path which removes them
+                if (entry != null && !entry.isKeyExpired(this.time.nowNs()) && !this.isStale(cKey, entry)) {
+                    if (!stripe.policy.recordHitLockFree(cKey) && stripe.readBuffer.offer(cKey)) {
+                        stripe.tryDrainReadBuffer();
+                    }
+
+                    log.debug("Key found in cache");
+
+                    log.debug("==================================");
+
+                    return entry.asHit();
+                }
+            }
+        }
+
+        stripe = this.lockedStripeFor(cKey);
+
+        try {
+            return this.getLocked(stripe, cKey);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // caller holds the stripe lock
+    private CacheResult getLocked(CacheStripe stripe, CacheKey cKey) {
+        CacheEntry entry = stripe.store.get(cKey);
+
+        if (entry == null && this.tier != null) {
+            return this.getFromTier(stripe, cKey);
+        }
+
+        if (entry == null) {
+            log.debug("Key does not exist in cache");
+
+            log.debug("==================================");
+
+            return CacheResult.MISS;
+        }
+
+        // listeners heard about the flush already
+        if (this.isStale(cKey, entry)) {
+            stripe.remove(cKey);
+
+            log.debug("Key was flushed with its namespace");
+
+            return CacheResult.MISS;
+        }
+
+        boolean keyExpired = entry.isKeyExpired(this.time.nowNs());
+
+        if (keyExpired) {
+            stripe.remove(cKey);
+
+            this.removed(cKey);
+
+            log.debug("Key is in cache but expired");
+
+            log.debug("==================================");
+
+            return CacheResult.EXPIRED;
+        }
+
+        stripe.policy.touch(cKey);
+        stripe.quotas.touch(cKey);
+
+        log.debug("Key found in cache");
+
+        log.debug("==================================");
+
+        return entry.asHit();
+    }
+
+    @Override
+    public CacheResult deleteKey(CacheKey cKey) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Executing Delete Key command");
+
+            log.debug("Key: {}", cKey);
+        }
+
+        CacheStripe stripe = this.lockedStripeFor(cKey);
+
+        CacheResult result;
+
+        try {
+            result = this.deleteLocked(stripe, cKey);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        this.afterWrite();
+
+        return result;
+    }
+
+    // caller holds the stripe lock
+    private CacheResult deleteLocked(CacheStripe stripe, CacheKey cKey) {
+        stripe.drainReadBuffer();
+
+        CacheEntry entry = stripe.store.get(cKey);
+
+        if (entry == null && this.tier != null) {
+            entry = this.tier.take(cKey);
+        } else if (entry != null) {
+            stripe.remove(cKey);
+        }
+
+        if (entry == null || this.isStale(cKey, entry)) {
+            log.debug("Key does not exist in cache");
+
+            log.debug("==================================");
+
+            return CacheResult.MISS;
+        }
+
+        boolean expired = entry.isKeyExpired(this.time.nowNs());
+
+        this.removed(cKey);
+
+        if (expired) {
+            log.debug("Key is in cache but expired");
+
+            log.debug("==================================");
+
+            return CacheResult.EXPIRED;
+        }
+
+        log.debug("Key deleted from cache");
+
+        log.debug("==================================");
+
+        return entry.asHit();
+    }
+
+    @Override
+    public List<CacheResult> getKeys(List<CacheKey> keys) {
+        // lock-free hits never take the stripe lock, there is nothing to batch
+        if (this.readMode == ReadMode.LOCK_FREE) {
+            List<CacheResult> results = new ArrayList<>(keys.size());
+
+            for (CacheKey key : keys) {
+                results.add(this.getKey(key));
+            }
+
+            return results;
+        }
+
+        return this.runBatch(keys, (stripe, i) -> this.getLocked(stripe, keys.get(i)));
+    }
+
+    @Override
+    public List<CacheResult> setKeys(List<CacheKey> keys, List<String> vals, long[] ttlsInSecs) {
+        return this.setValues(keys, vals, ttlsInSecs);
+    }
+
+    @Override
+    public List<CacheResult> setValues(List<CacheKey> keys, List<?> vals, long[] ttlsInSecs) {
+        long[] weights = new long[keys.size()];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = this.weigh(keys.get(i), vals.get(i));
+
+            // rejected up front so an oversized entry does not leave the batch half applied
+            if (this.maxBytes > 0 && weights[i] > this.stripeFor(keys.get(i)).capacity) {
+                throw new EntryTooLargeException(weights[i], this.stripeFor(keys.get(i)).capacity);
+            }
+
+            // quota shares never change after a stripe is built, safe to read unlocked
+            this.checkQuotaFits(this.stripeFor(keys.get(i)), keys.get(i), vals.get(i));
+        }
+
+        List<CacheResult> results = this.runBatch(keys, (stripe, i) -> this.setLocked(stripe, keys.get(i), vals.get(i), ttlsInSecs[i], weights[i]));
+
+        this.afterWrite();
+
+        return results;
+    }
+
+    @Override
+    public List<CacheResult> deleteKeys(List<CacheKey> keys) {
+        List<CacheResult> results = this.runBatch(keys, (stripe, i) -> this.deleteLocked(stripe, keys.get(i)));
+
+        this.afterWrite();
+
+        return results;
+    }
+
+    // one key of a batch, run with the key's stripe locked
+    private interface BatchOp {
+        CacheResult apply(CacheStripe stripe, int i);
+    }
+
+    // keys of one batch that route to the same stripe, as positions into the batch
+    private static final class StripeBatch {
+
+        final CacheStripe stripe;
+
+        int[] positions = new int[8];
+        int size;
+
+        StripeBatch(CacheStripe stripe) {
+            this.stripe = stripe;
+        }
+
+        void add(int position) {
+            if (this.size == this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, this.size * 2);
+            }
+
+            this.positions[this.size++] = position;
+        }
+    }
+
+    /*
+     * Groups the keys by stripe and locks each stripe once for all of its keys. Large
+     * batches spread over several stripes run the stripe groups in parallel, a group
+     * only ever holds its own stripe lock so groups cannot deadlock each other.
+     */
+    private List<CacheResult> runBatch(List<CacheKey> keys, BatchOp op) {
+        CacheResult[] results = new CacheResult[keys.size()];
+
+        // grouped by the stripe itself rather than its index, during a reshard keys route to two tables
+        Map<CacheStripe, StripeBatch> groups = new IdentityHashMap<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            groups.computeIfAbsent(this.stripeFor(keys.get(i)), StripeBatch::new).add(i);
+        }
+
+        if (groups.size() > 1 && keys.size() >= this.parallelBatchMin) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+
+            for (StripeBatch group : groups.values()) {
+                tasks.add(ForkJoinTask.adapt(() -> this.runStripeBatch(group, keys, results, op)));
+            }
+
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for (StripeBatch group : groups.values()) {
+                this.runStripeBatch(group, keys, results, op);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void runStripeBatch(StripeBatch group, List<CacheKey> keys, CacheResult[] results, BatchOp op) {
+        CacheStripe stripe = group.stripe;
+
+        // keys a reshard moved off this stripe before we got its lock, compacted to the front
+        int moved = 0;
+
+        stripe.lock.lock();
+
+        try {
+            for (int j = 0; j < group.size; j++) {
+                int i = group.positions[j];
+
+                if (this.stripeFor(keys.get(i)) != stripe) {
+                    group.positions[moved++] = i;
+                    continue;
+                }
+
+                results[i] = op.apply(stripe, i);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        for (int j = 0; j < moved; j++) {
+            int i = group.positions[j];
+
+            CacheStripe current = this.lockedStripeFor(keys.get(i));
+
+            try {
+                results[i] = op.apply(current, i);
+            } finally {
+                current.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public CacheEntry getCacheEntryDirectlyFromStore(CacheKey cKey, Counter expiredCounter) {
+        long timeNow = this.time.nowNs();
+
+        CacheStripe stripe = this.lockedStripeFor(cKey);
+
+        try {
+            CacheEntry entry = stripe.store.get(cKey);
+
+            if (entry.isKeyExpired(timeNow) && !entry.expiryCounted()) {
+                expiredCounter.increment();
+                entry.markExpiryCounted();
+
+                // off-heap stores hand out copies, write the flag back
+                stripe.store.put(cKey, entry);
+            }
+
+            return entry;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void evictKeys(List<CacheKey> lruEvictedKeys, CacheStripe stripe) {
+        this.evict(lruEvictedKeys, stripe, EVICTED_BY_CAPACITY);
+    }
+
+    // caller holds the stripe lock; key's namespace gives up its own keys first, then the stripe evicts as usual
+    private void evictOverLimits(CacheStripe stripe, CacheKey key) {
+        this.evict(stripe.quotas.evictIfOverQuota(key), stripe, EVICTED_BY_QUOTA);
+        this.evict(stripe.policy.evictIfOverLimit(), stripe, EVICTED_BY_CAPACITY);
+    }
+
+    private void evict(List<CacheKey> keys, CacheStripe stripe, int cause) {
+        // indexed, an iterator would be allocated on every SET
+        for (int i = 0; i < keys.size(); i++) {
+            CacheKey key = keys.get(i);
+            CacheEntry entry = stripe.remove(key);
+
+            if (entry != null) {
+                this.evictionCounts(key.namespace())[cause].increment();
+            }
+
+            // spilled keys keep their value, listeners only hear about keys that are gone
+            if (this.tier != null && entry != null && !entry.isKeyExpired(this.time.nowNs()) && !this.isStale(key, entry)
+                    && this.tier.put(key, entry)) {
+                continue;
+            }
+
+            this.removed(key);
+        }
+    }
+
+    // caller holds the stripe lock and found nothing in memory
+    private CacheResult getFromTier(CacheStripe stripe, CacheKey cKey) {
+        CacheEntry entry = this.tier.take(cKey);
+
+        if (entry == null || this.isStale(cKey, entry)) {
+            log.debug("Key does not exist in cache");
+
+            return CacheResult.MISS;
+        }
+
+        if (entry.isKeyExpired(this.time.nowNs())) {
+            this.removed(cKey);
+
+            log.debug("Key is on disk but expired");
+
+            return CacheResult.EXPIRED;
+        }
+
+        for (Walk walk : this.walks) {
+            if (walk.copied.contains(stripe)) {
+                walk.promoted.add(Map.entry(cKey, copy(entry)));
+            }
+        }
+
+        // promoted, which may spill colder keys in turn
+        stripe.drainReadBuffer();
+        stripe.store.put(cKey, entry);
+        stripe.policy.touch(cKey, this.weigh(cKey, entry.rawVal()));
+        stripe.quotas.touch(cKey, entry.rawVal());
+        stripe.scheduleExpiry(cKey, entry);
+
+        this.evictOverLimits(stripe, cKey);
+
+        log.debug("Key found on disk and promoted");
+
+        return entry.asHit();
+    }
+
+    // one step of disk tier upkeep, see DiskTier.compact
+    public void compactTier() {
+        if (this.tier != null) {
+            this.tier.compact();
+        }
+    }
+
+    public boolean hasTier() {
+        return this.tier != null;
+    }
+
+    public long tierKeys() {
+        return this.tier == null ? 0 : this.tier.size();
+    }
+
+    public long tierBytes() {
+        return this.tier == null ? 0 : this.tier.bytes();
+    }
+
+    public Set<String> quotaNamespaces() {
+        return this.quotas.keySet();
+    }
+
+    // null, or a namespace without a quota, reports the evictions of all namespaces without one together
+    public long evictions(String namespace, int cause) {
+        LongAdder[] counts = namespace == null ? this.otherEvictions : this.evictionCounts(NamespaceTable.of(namespace));
+
+        return counts[cause].sum();
+    }
+
+    private LongAdder[] evictionCounts(Namespace namespace) {
+        LongAdder[] counts = this.evictions.isEmpty() ? null : this.evictions.get(namespace);
+
+        return counts == null ? this.otherEvictions : counts;
+    }
+
+    private static LongAdder[] newEvictionCounts() {
+        return new LongAdder[]{new LongAdder(), new LongAdder()};
+    }
+
+    // an entry over its namespace's byte share would evict the whole namespace and still not fit
+    private void checkQuotaFits(CacheStripe stripe, CacheKey cKey, Object val) {
+        long share = stripe.quotas.maxBytes(cKey);
+
+        if (share == 0) {
+            return;
+        }
+
+        long bytes = CacheEntry.estimateBytes(cKey, val);
+
+        if (bytes > share) {
+            throw new EntryTooLargeException("Entry of ~" + bytes + " bytes exceeds the per stripe quota of " + share
+                    + " bytes of namespace " + cKey.namespace().name);
+        }
+    }
+
+    /*
+     * Drops every key of the namespace in O(1): its generation is bumped, and entries written
+     * under an older one read as misses from then on. They are reclaimed lazily, by the reads,
+     * writes and evictions that come across them and by sweepFlushed(). Every stripe is locked
+     * around the bump so each write lands wholly before or after it, listeners included.
+     *
+     * No reshard lock, walks hold it across their I/O. During a resize both tables' stripes
+     * are locked, old before new like splitStripe, and a table swapped meanwhile is retried.
+     */
+    @Override
+    public int flushNamespace(String namespace) {
+        Namespace ns = NamespaceTable.of(namespace);
+
+        int generation;
+
+        while (true) {
+            StripeTable table = this.table;
+
+            CacheStripe[] stripes = table.next == null ? table.stripes : concat(table.stripes, table.next.stripes);
+
+            for (CacheStripe stripe : stripes) {
+                stripe.lock.lock();
+            }
+
+            try {
+                // holding these, no key can route anywhere else until they are released
+                if (this.table != table) {
+                    continue;
+                }
+
+                int[] next = Arrays.copyOf(this.generations, Math.max(this.generations.length, ns.id + 1));
+
+                generation = ++next[ns.id];
+
+                this.generations = next;
+
+                for (CacheEventListener listener : this.listeners) {
+                    listener.flushed(namespace);
+                }
+
+                break;
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    stripes[i].lock.unlock();
+                }
+            }
+        }
+
+        this.sweepPending.set(true);
+
+        this.afterWrite();
+
+        log.debug("Flushed namespace {}, now at generation {}", namespace, generation);
+
+        return generation;
+    }
+
+    // removes the entries flushes left behind, one stripe locked at a time; returns how many
+    public int sweepFlushed() {
+        if (!this.sweepPending.getAndSet(false)) {
+            return 0;
+        }
+
+        int swept = 0;
+
+        for (CacheStripe stripe : this.table.activeStripes()) {
+            stripe.lock.lock();
+
+            try {
+                for (CacheKey key : stripe.store.keys()) {
+                    CacheEntry entry = stripe.store.get(key);
+
+                    if (entry != null && this.isStale(key, entry)) {
+                        stripe.remove(key);
+                        swept++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        if (this.tier != null) {
+            swept += this.tier.removeStale(this::generation);
+        }
+
+        if (swept > 0) {
+            log.debug("Swept {} flushed keys", swept);
+        }
+
+        return swept;
+    }
+
+    private static CacheStripe[] concat(CacheStripe[] a, CacheStripe[] b) {
+        CacheStripe[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+
+        return both;
+    }
+
+    private int generation(CacheKey key) {
+        int id = key.namespace().id;
+        int[] current = this.generations;
+
+        return id < current.length ? current[id] : 0;
+    }
+
+    private boolean isStale(CacheKey key, CacheEntry entry) {
+        return entry.generation() != this.generation(key);
+    }
+
+    private CacheEntry newEntry(CacheKey key, Object val, long ttlInSecs, long nowNs) {
+        CacheEntry entry = CacheEntry.of(val, ttlInSecs, nowNs);
+
+        entry.setGeneration(this.generation(key));
+
+        return entry;
+    }
+
+    @Override
+    public int expireKeys() {
+        int expiredCount = 0;
+
+        for (CacheStripe stripe : this.table.activeStripes()) {
+            if (stripe.timers == null) continue;
+
+            // a busy stripe is skipped, it is picked up again on the next tick
+            if (!stripe.lock.tryLock()) continue;
+
+            try {
+                long nowNs = this.time.nowNs();
+
+                for (CacheKey key : stripe.timers.advance(nowNs, this.expiryBudget)) {
+                    CacheEntry entry = stripe.store.get(key);
+
+                    if (entry == null) continue;
+
+                    if (entry.isKeyExpired(nowNs)) {
+                        stripe.remove(key);
+                        this.removed(key);
+                        expiredCount++;
+                    } else {
+                        stripe.scheduleExpiry(key, entry);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        if (expiredCount > 0) {
+            log.debug("Active expiry removed {} keys", expiredCount);
+        }
+
+        return expiredCount;
+    }
+
+    @Override
+    public HashMap<Integer, List<CacheKey>> snapshotKeys() {
+        HashMap<Integer, List<CacheKey>> storeKeys = new HashMap<>();
+
+        this.reshardLock.lock();
+
+        try {
+            for (CacheStripe stripe : this.table.stripes) {
+                stripe.lock.lock();
+
+                try {
+                    storeKeys.put(stripe.id, stripe.store.keys());
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        } finally {
+            this.reshardLock.unlock();
+        }
+
+        return storeKeys;
+
+    }
+
+    @Override
+    public HashMap<Integer, List<CacheKey>> snapshotLRU() {
+        HashMap<Integer, List<CacheKey>> lruKeys = new HashMap<>();
+
+        this.reshardLock.lock();
+
+        try {
+            for (CacheStripe stripe : this.table.stripes) {
+                stripe.lock.lock();
+
+                try {
+                    stripe.drainReadBuffer();
+
+                    lruKeys.put(stripe.id, stripe.policy.snapshot());
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        } finally {
+            this.reshardLock.unlock();
+        }
+
+        return lruKeys;
+    }
+
+    /*
+     * Hands `visitor` the unexpired entries of one stripe at a time. A stripe is locked only
+     * while its entries are copied out, the visitor runs unlocked, so a slow visitor (a
+     * snapshot writing to disk) holds up no request. Resharding waits until every stripe
+     * was visited, so stripe ids stay stable.
+     *
+     * Disk tier entries follow in batches, with ids counting on from the stripe count. A key
+     * promoted from the tier into a stripe that was already copied would be in neither, so
+     * such promotions are collected meanwhile and visited last.
+     */
+    public void forEachStripeEntries(ObjIntConsumer<List<Map.Entry<CacheKey, CacheEntry>>> visitor) {
+        this.reshardLock.lock();
+
+        Walk walk = this.startWalk();
+
+        try {
+            CacheStripe[] stripes = this.table.stripes;
+
+            for (CacheStripe stripe : stripes) {
+                visitor.accept(this.copyEntries(stripe, walk), stripe.id);
+            }
+
+            this.visitTier(walk, visitor, stripes.length);
+        } finally {
+            this.endWalk(walk);
+
+            this.reshardLock.unlock();
+        }
+    }
+
+    /*
+     * Like forEachStripeEntries for visitors that don't care which stripe an entry came
+     * from, without holding off a reshard for the whole walk. A stripe that was split
+     * before the walk got to it is walked through its successors instead, and the
+     * successors of a stripe already copied count as copied for tier promotions.
+     */
+    public void forEachEntries(Consumer<List<Map.Entry<CacheKey, CacheEntry>>> visitor) {
+        Walk walk = this.startWalk();
+
+        try {
+            StripeTable table = this.table;
+
+            // stripe, stripe count of the table it was taken from
+            ArrayDeque<Map.Entry<CacheStripe, Integer>> pending = new ArrayDeque<>();
+
+            for (CacheStripe stripe : table.stripes) {
+                pending.add(Map.entry(stripe, table.stripes.length));
+            }
+
+            while (!pending.isEmpty()) {
+                Map.Entry<CacheStripe, Integer> next = pending.poll();
+
+                List<Map.Entry<CacheKey, CacheEntry>> entries = this.copyEntries(next.getKey(), walk);
+
+                if (entries == null) {
+                    this.successors(next.getKey().id, next.getValue(), pending);
+                } else {
+                    visitor.accept(entries);
+                }
+            }
+
+            this.visitTier(walk, (entries, id) -> visitor.accept(entries), 0);
+        } finally {
+            this.endWalk(walk);
+        }
+    }
+
+    // the stripes that took over the keys of split stripe idx of a table with n stripes
+    private void successors(int idx, int n, Deque<Map.Entry<CacheStripe, Integer>> into) {
+        StripeTable latest = this.table;
+
+        // split means migrated, so the table moved on from n stripes or is moving on right now
+        StripeTable table = latest.stripes.length == n ? latest.next : latest;
+
+        for (int i = idx; i < table.stripes.length; i += n) {
+            into.addFirst(Map.entry(table.stripes[i], table.stripes.length));
+        }
+    }
+
+    // the unexpired entries of `stripe`, null when a reshard split it already
+    private List<Map.Entry<CacheKey, CacheEntry>> copyEntries(CacheStripe stripe, Walk walk) {
+        List<Map.Entry<CacheKey, CacheEntry>> entries = new ArrayList<>();
+
+        stripe.lock.lock();
+
+        try {
+            if (stripe.retired) {
+                return null;
+            }
+
+            long nowNs = this.time.nowNs();
+
+            for (CacheKey key : stripe.store.keys()) {
+                CacheEntry entry = stripe.store.get(key);
+
+                if (entry != null && !entry.isKeyExpired(nowNs) && !this.isStale(key, entry)) {
+                    entries.add(Map.entry(key, copy(entry)));
+                }
+            }
+
+            walk.copied.add(stripe);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        return entries;
+    }
+
+    private void visitTier(Walk walk, ObjIntConsumer<List<Map.Entry<CacheKey, CacheEntry>>> visitor, int firstId) {
+        if (this.tier == null) {
+            return;
+        }
+
+        int[] id = {firstId};
+
+        this.tier.forEachBatch(TIER_BATCH, entries -> {
+            entries.removeIf(e -> this.isStale(e.getKey(), e.getValue()));
+
+            visitor.accept(entries, id[0]++);
+        });
+
+        // every stripe is copied by now, later promotions take keys the tier batches had
+        this.endWalk(walk);
+
+        synchronized (walk.promoted) {
+            if (!walk.promoted.isEmpty()) {
+                visitor.accept(new ArrayList<>(walk.promoted), id[0]);
+            }
+        }
+    }
+
+    // the stripes a walk copied and the tier keys promoted into them since, see getFromTier
+    private static final class Walk {
+        private final Set<CacheStripe> copied = ConcurrentHashMap.newKeySet();
+        private final List<Map.Entry<CacheKey, CacheEntry>> promoted = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private synchronized Walk startWalk() {
+        Walk walk = new Walk();
+
+        Walk[] next = Arrays.copyOf(this.walks, this.walks.length + 1);
+        next[next.length - 1] = walk;
+
+        this.walks = next;
+
+        return walk;
+    }
+
+    private synchronized void endWalk(Walk walk) {
+        this.walks = Arrays.stream(this.walks).filter(w -> w != walk).toArray(Walk[]::new);
+    }
+
+    // an overwrite updates the entry in place, so copies leave the stripe instead
+    private static CacheEntry copy(CacheEntry entry) {
+        return CacheEntry.restore(entry.rawVal(), entry.getTtlInSecs(), entry.expiresAtNs(), false, entry.generation());
+    }
+
+    /*
+     * Grows the stripe count to `stripesCount` by doubling. Each doubling splits the
+     * stripes one at a time, only the stripe being split is locked, so requests on the
+     * other stripes carry on while keys move.
+     */
+    @Override
+    public int reshard(int stripesCount) {
+        this.reshardLock.lock();
+
+        try {
+            int current = this.table.stripes.length;
+
+            if (stripesCount <= current || Integer.bitCount(stripesCount) != 1) {
+                throw new IllegalArgumentException("Stripes can only grow to a larger power of two than " + current);
+            }
+
+            validateStripesAndCapacity(stripesCount, this.totalCapacity);
+            validateMaxBytes(stripesCount, this.maxBytes);
+
+            while (this.table.stripes.length < stripesCount) {
+                this.doubleStripes();
+            }
+
+            log.info("Resharded from {} to {} stripes", current, stripesCount);
+
+            return stripesCount;
+        } finally {
+            this.reshardLock.unlock();
+        }
+    }
+
+    private void doubleStripes() {
+        StripeTable current = this.table;
+
+        StripeTable next = new StripeTable(this.newStripes(current.stripes.length * 2));
+
+        StripeTable resizing = current.resizingInto(next);
+
+        this.table = resizing;
+
+        for (int i = 0; i < current.stripes.length; i++) {
+            this.splitStripe(resizing, i);
+        }
+
+        this.table = next;
+    }
+
+    /*
+     * Copies stripe idx into its two successors and only then flips its routing, so a
+     * lock-free reader that still routes to the old stripe keeps finding every key.
+     * Writers waiting on the old lock notice the flip and re-route. The old stripe is
+     * retired and emptied before any write reaches the successors, a reader that read it
+     * sees the flag afterwards and retries on the locked path instead of returning a
+     * value that may have been overwritten since.
+     */
+    private void splitStripe(StripeTable resizing, int idx) {
+        int n = resizing.stripes.length;
+
+        CacheStripe from = resizing.stripes[idx];
+        CacheStripe low = resizing.next.stripes[idx];
+        CacheStripe high = resizing.next.stripes[idx + n];
+
+        from.lock.lock();
+        low.lock.lock();
+        high.lock.lock();
+
+        try {
+            from.drainReadBuffer();
+
+            // eviction order, so the new stripes start with the same recency
+            for (CacheKey key : from.policy.snapshot()) {
+                CacheEntry entry = from.store.get(key);
+
+                if (entry == null) continue;
+
+                CacheStripe to = resizing.next.stripeFor(key);
+
+                to.store.put(key, entry);
+                to.policy.touch(key, this.weigh(key, entry.rawVal()));
+                to.quotas.touch(key, entry.rawVal());
+                to.scheduleExpiry(key, entry);
+
+                // each half has half the old quota share too
+                this.evict(to.quotas.evictIfOverQuota(key), to, EVICTED_BY_QUOTA);
+            }
+
+            // the two halves may be uneven, each has half the old budget
+            this.evictKeys(low.policy.evictIfOverLimit(), low);
+            this.evictKeys(high.policy.evictIfOverLimit(), high);
+
+            resizing.markMigrated(idx);
+
+            // a walk that copied the old stripe has its keys already
+            for (Walk walk : this.walks) {
+                if (walk.copied.contains(from)) {
+                    walk.copied.add(low);
+                    walk.copied.add(high);
+                }
+            }
+
+            from.retired = true;
+            from.clear();
+        } finally {
+            high.lock.unlock();
+            low.lock.unlock();
+            from.lock.unlock();
+        }
+    }
+
+    public synchronized void addListener(CacheEventListener listener) {
+        CacheEventListener[] next = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        next[next.length - 1] = listener;
+
+        this.listeners = next;
+    }
+
+    // caller holds the key's stripe lock
+    private void written(CacheKey key, CacheEntry entry) {
+        for (CacheEventListener listener : this.listeners) {
+            listener.written(key, entry);
+        }
+    }
+
+    // caller holds the key's stripe lock
+    private void removed(CacheKey key) {
+        for (CacheEventListener listener : this.listeners) {
+            listener.removed(key);
+        }
+    }
+
+    // caller holds no stripe lock
+    private void afterWrite() {
+        for (CacheEventListener listener : this.listeners) {
+            listener.afterWrite();
+        }
+    }
+
+    @Override
+    public int cacheCapacity() {
+        return this.totalCapacity;
+    }
+
+    public boolean isByteBudget() {
+        return this.maxBytes > 0;
+    }
+
+    public int stripeCount() {
+        return this.table.stripes.length;
+    }
+
+    // read without the stripe lock, only meant for gauges
+    public long stripeBytes(int stripeId) {
+        CacheStripe[] stripes = this.table.stripes;
+
+        return stripeId < stripes.length ? stripes[stripeId].policy.weightedSize() : 0;
+    }
+
+    private long weigh(CacheKey cKey, Object val) {
+        if (this.maxBytes == 0) {
+            return 1;
+        }
+
+        return CacheEntry.estimateBytes(cKey, val);
+    }
+
+    public CacheStripe stripeFor(CacheKey ck) {
+        return this.table.stripeFor(ck);
+    }
+
+    // locks the key's stripe, retrying if a reshard moved the key while we waited
+    private CacheStripe lockedStripeFor(CacheKey ck) {
+        while (true) {
+            CacheStripe stripe = this.stripeFor(ck);
+
+            stripe.lock.lock();
+
+            if (this.stripeFor(ck) == stripe) {
+                return stripe;
+            }
+
+            stripe.lock.unlock();
+        }
+    }
+
+    public static void validateStripesAndCapacity(int stripes, int capacity) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes must be > 0");
+        }
+
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a power of two");
+        }
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity count must be > 0");
+        }
+
+        if (capacity % stripes != 0) {
+            throw new IllegalArgumentException("Capacity must be divisible by no of stripes");
+        }
+
+    }
+
+    public static void validateMaxBytes(int stripes, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max bytes must be >= 0");
+        }
+
+        if (maxBytes > 0 && maxBytes < stripes) {
+            throw new IllegalArgumentException("Max bytes must be at least one byte per stripe");
+        }
+
+    }
+
+    @Override
+    public void clear() {
+        this.reshardLock.lock();
+
+        try {
+            for (CacheStripe stripe : this.table.stripes) {
+                stripe.lock.lock();
+                try {
+                    stripe.clear();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+
+            if (this.tier != null) {
+                this.tier.clear();
+            }
+
+            for (CacheEventListener listener : this.listeners) {
+                listener.cleared();
+            }
+        } finally {
+            this.reshardLock.unlock();
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.saoodahmad.cacheforge.cache.expiry;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+ * Hierarchical timing wheel: 4 levels of 64 slots, level n slots are 64^n ticks wide.
+ * A key is scheduled in the lowest level whose span covers its deadline and is
+ * cascaded one level down each time the wheel reaches its slot, so every key moves
+ * at most 4 times before it fires. Schedule and cancel are O(1).
+ *
+ * Not thread safe, each stripe owns one wheel and only touches it under its lock.
+ */
+public class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private static final class Node {
+        final CacheKey key;
+        long tick;
+        Node prev;
+        Node next;
+
+        Node(CacheKey key) {
+            this.key = key;
+            this.prev = this;
+            this.next = this;
+        }
+    }
+
+    private final long tickNs;
+    private final long originNs;
+
+    // circular lists with a sentinel head per slot
+    private final Node[][] wheel = new Node[LEVELS][SLOTS];
+
+    // slots detached by a cascade that still have to be re-placed
+    private final Node pending = new Node(null);
+
+    private final HashMap<CacheKey, Node> index = new HashMap<>();
+
+    private long currentTick;
+
+    public TimingWheel(long tickNs, long originNs) {
+        if (tickNs <= 0) throw new IllegalArgumentException("tickNs must be > 0");
+
+        this.tickNs = tickNs;
+        this.originNs = originNs;
+
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                this.wheel[level][slot] = new Node(null);
+            }
+        }
+    }
+
+    public void schedule(CacheKey key, long expiresAtNs) {
+        Node node = this.index.get(key);
+
+        if (node == null) {
+            node = new Node(key);
+            this.index.put(key, node);
+        } else {
+            unlink(node);
+        }
+
+        // round up so a key never fires before its deadline
+        node.tick = Math.ceilDiv(expiresAtNs - this.originNs, this.tickNs);
+
+        this.place(node);
+    }
+
+    public void cancel(CacheKey key) {
+        Node node = this.index.remove(key);
+
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    /*
+     * Returns keys whose deadline has passed. Expirations and cascade moves both count
+     * towards maxWork, when it runs out the wheel stops where it is and the next call
+     * resumes from there.
+     */
+    public List<CacheKey> advance(long nowNs, int maxWork) {
+        List<CacheKey> expired = new ArrayList<>();
+
+        long targetTick = Math.floorDiv(nowNs - this.originNs, this.tickNs);
+
+        if (this.index.isEmpty()) {
+            this.currentTick = Math.max(this.currentTick, targetTick);
+            return expired;
+        }
+
+        int work = 0;
+
+        while (true) {
+            while (this.pending.next != this.pending) {
+                if (work >= maxWork) return expired;
+
+                Node node = this.pending.next;
+                unlink(node);
+                this.place(node);
+                work++;
+            }
+
+            Node due = this.wheel[0][(int) (this.currentTick & MASK)];
+
+            while (due.next != due) {
+                if (work >= maxWork) return expired;
+
+                Node node = due.next;
+                unlink(node);
+                this.index.remove(node.key);
+                expired.add(node.key);
+                work++;
+            }
+
+            if (this.currentTick >= targetTick) return expired;
+
+            this.currentTick++;
+
+            for (int level = 1; level < LEVELS; level++) {
+                long levelMask = (1L << (BITS * level)) - 1;
+
+                if ((this.currentTick & levelMask) != 0) break;
+
+                int slot = (int) ((this.currentTick >>> (BITS * level)) & MASK);
+                splice(this.wheel[level][slot], this.pending);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Node[] level : this.wheel) {
+            for (Node head : level) {
+                head.prev = head;
+                head.next = head;
+            }
+        }
+
+        this.pending.prev = this.pending;
+        this.pending.next = this.pending;
+        this.index.clear();
+    }
+
+    private void place(Node node) {
+        long tick = Math.max(node.tick, this.currentTick);
+        long delta = tick - this.currentTick;
+
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                int slot = (int) ((tick >>> (BITS * level)) & MASK);
+                link(this.wheel[level][slot], node);
+                return;
+            }
+        }
+
+        // beyond the wheel's span, park in the farthest top slot and re-place on cascade
+        long farthest = this.currentTick + (1L << (BITS * LEVELS)) - 1;
+        int slot = (int) ((farthest >>> (BITS * (LEVELS - 1))) & MASK);
+        link(this.wheel[LEVELS - 1][slot], node);
+    }
+
+    private static void link(Node head, Node node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node;
+        node.next = node;
+    }
+
+    // moves every node of from to the end of to
+    private static void splice(Node from, Node to) {
+        if (from.next == from) return;
+
+        Node first = from.next;
+        Node last = from.prev;
+
+        first.prev = to.prev;
+        to.prev.next = first;
+        last.next = to;
+        to.prev = last;
+
+        from.prev = from;
+        from.next = from;
+    }
+}
@@ -0,0 +1,221 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class CacheEntry {
+
+    // entry object, key object, store map node and eviction policy node
+    private static final long ENTRY_OVERHEAD = 152;
+
+    // String object plus its backing array header, latin-1 payload assumed
+    private static final long STRING_OVERHEAD = 40;
+
+    private static final long ARRAY_OVERHEAD = 16;
+
+    /*
+     * String for text values, byte[] for binary ones. Binary values are stored and handed
+     * out as is, callers must not modify the array.
+     * volatile so lock-free readers see updates made under the stripe lock
+     */
+    private volatile Object val;
+
+    /*
+     * -1 no expiry
+     * >0 expiry in seconds
+     */
+
+    private volatile long ttlInSecs;
+
+    private volatile long expiresAt;
+
+    // used when key is expired but is not evicted
+    private boolean expiryCounted;
+
+    // generation of the key's namespace when written, a namespace flush makes older ones stale
+    private int generation;
+
+    // results wrapping this entry, built on first use so repeat hits and overwrites allocate nothing.
+    // Racy initialization is fine, records are immutable and any copy is equivalent.
+    private CacheResult.Hit hit;
+    private CacheResult.Updated updated;
+
+    public CacheEntry(String val, long ttlInSecs, long nowNs) {
+        this((Object) val, ttlInSecs, nowNs);
+    }
+
+    public CacheEntry(byte[] val, long ttlInSecs, long nowNs) {
+        this((Object) val, ttlInSecs, nowNs);
+    }
+
+    private CacheEntry(Object val, long ttlInSecs, long nowNs) {
+        this.val = val;
+        this.ttlInSecs = ttlInSecs;
+
+        if (ttlInSecs == -1) {
+            this.expiresAt = -1;
+        } else {
+            long ttlMs = Math.multiplyExact(ttlInSecs, 1000000000L);
+            this.expiresAt = Math.addExact(nowNs, ttlMs);
+        }
+
+        this.expiryCounted = false;
+    }
+
+    // val is a String or byte[]
+    public static CacheEntry of(Object val, long ttlInSecs, long nowNs) {
+        return new CacheEntry(checkVal(val), ttlInSecs, nowNs);
+    }
+
+    // rebuilds an entry from its stored fields, used by stores that keep entries serialized
+    public static CacheEntry restore(Object val, long ttlInSecs, long expiresAtNs, boolean expiryCounted, int generation) {
+        CacheEntry entry = new CacheEntry(checkVal(val), -1, 0);
+
+        entry.ttlInSecs = ttlInSecs;
+        entry.expiresAt = expiresAtNs;
+        entry.expiryCounted = expiryCounted;
+        entry.generation = generation;
+
+        return entry;
+    }
+
+    // binary values are rendered as Base64 here, valBytes() gives the raw bytes
+    public String getVal() {
+        Object v = this.val;
+
+        if (v instanceof byte[] bytes) {
+            return Base64.getEncoder().encodeToString(bytes);
+        }
+
+        return (String) v;
+    }
+
+    public boolean isBinary() {
+        return this.val instanceof byte[];
+    }
+
+    // stored array for binary values (no copy), UTF-8 encoding for text values
+    public byte[] valBytes() {
+        Object v = this.val;
+
+        if (v instanceof byte[] bytes) {
+            return bytes;
+        }
+
+        return v == null ? null : ((String) v).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // String or byte[] as stored, for stores that serialize entries
+    public Object rawVal() {
+        return this.val;
+    }
+
+    public void updateVal(Object newVal) {
+        this.val = checkVal(newVal);
+    }
+
+    public long getTtlInSecs() {
+        return this.ttlInSecs;
+    }
+
+    public void setTtlSeconds(long ttlInSecs, long nowNs) {
+        this.ttlInSecs = ttlInSecs;
+        if (ttlInSecs == -1) {
+            this.expiresAt = -1;
+        } else {
+            long ttlNs = Math.multiplyExact(ttlInSecs, 1000000000L);
+            this.expiresAt = Math.addExact(nowNs, ttlNs);
+        }
+    }
+
+    // -1 when the entry never expires
+    public long expiresAtNs() {
+        return this.expiresAt;
+    }
+
+    public boolean isKeyExpired(long nowNs) {
+        if (this.expiresAt == -1) {
+            return false;
+        }
+
+        return nowNs >= this.expiresAt;
+    }
+
+    public CacheResult.Hit asHit() {
+        CacheResult.Hit h = this.hit;
+
+        if (h == null) {
+            h = new CacheResult.Hit(this);
+            this.hit = h;
+        }
+
+        return h;
+    }
+
+    public CacheResult.Updated asUpdated() {
+        CacheResult.Updated u = this.updated;
+
+        if (u == null) {
+            u = new CacheResult.Updated(this);
+            this.updated = u;
+        }
+
+        return u;
+    }
+
+    public int generation() {
+        return this.generation;
+    }
+
+    public void setGeneration(int generation) {
+        this.generation = generation;
+    }
+
+    public void markExpiryCounted() {
+        this.expiryCounted = true;
+    }
+
+    public boolean expiryCounted() {
+        return expiryCounted;
+    }
+
+    // rough retained heap size of the key and this entry, used for the byte budget.
+    // The namespace name is shared through NamespaceTable and not counted.
+    public long estimatedBytes(CacheKey key) {
+        return estimateBytes(key, this.val);
+    }
+
+    public static long estimateBytes(CacheKey key, Object val) {
+        return ENTRY_OVERHEAD
+                + stringBytes(key.getKey())
+                + valBytes(val);
+    }
+
+    private static long valBytes(Object val) {
+        if (val instanceof byte[] bytes) {
+            return ARRAY_OVERHEAD + bytes.length;
+        }
+
+        return stringBytes((String) val);
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : STRING_OVERHEAD + s.length();
+    }
+
+    private static Object checkVal(Object val) {
+        if (val != null && !(val instanceof String) && !(val instanceof byte[])) {
+            throw new IllegalArgumentException("Value must be a String or byte[], got " + val.getClass().getName());
+        }
+
+        return val;
+    }
+
+    public String toString() {
+        if (this.val instanceof byte[] bytes) {
+            return "value: <" + bytes.length + " bytes>, ttl in secs: " + this.ttlInSecs;
+        }
+
+        return "value: " + this.val + ", ttl in secs: " + this.ttlInSecs;
+    }
+}
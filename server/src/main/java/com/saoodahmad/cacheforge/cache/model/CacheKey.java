@@ -0,0 +1,107 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+public class CacheKey {
+
+    /*
+     * Lengths in chars. A char is at most 3 UTF-8 bytes, so both stay within the u16 length
+     * fields of the append-only file, snapshot, disk tier and replication records.
+     */
+    public static final int MAX_NAMESPACE_LENGTH = 256;
+    public static final int MAX_KEY_LENGTH = 16_384;
+
+    private final Namespace namespace;
+
+    private final String key;
+
+    /*
+     * 64-bit hash computed once. The high half picks the stripe, the low half is
+     * hashCode() for the maps inside the stripe, so the two never correlate.
+     */
+    private final long hash;
+
+    public CacheKey(String namespace, String key) {
+        this(NamespaceTable.of(checkLength(namespace, key)), key);
+    }
+
+    private CacheKey(Namespace namespace, String key) {
+        this.namespace = namespace;
+        this.key = key;
+        this.hash = hash64(namespace.seed, key);
+    }
+
+    // for reads, null when the namespace was never written and so holds nothing
+    public static CacheKey ifKnown(String namespace, String key) {
+        Namespace ns = NamespaceTable.find(checkLength(namespace, key));
+
+        return ns == null ? null : new CacheKey(ns, key);
+    }
+
+    private static String checkLength(String namespace, String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new KeyTooLongException("Key", key.length(), MAX_KEY_LENGTH);
+        }
+
+        return namespace;
+    }
+
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public String getNamespace() {
+        return this.namespace.name;
+    }
+
+    public Namespace namespace() {
+        return this.namespace;
+    }
+
+    public long hash64() {
+        return this.hash;
+    }
+
+    public String fullKey() {
+        return this.getNamespace() + ":" + this.key;
+    }
+
+    // FNV-1a over the key's chars continuing from the namespace's hash, finished with the murmur3 64-bit mixer
+    private static long hash64(long seed, String key) {
+        long h = seed ^ ':';
+
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "Namespace: " + this.getNamespace() + " key: " + this.key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        CacheKey that = (CacheKey) o;
+
+        return this.hash == that.hash
+                && this.namespace == that.namespace
+                && this.key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) this.hash;
+    }
+}
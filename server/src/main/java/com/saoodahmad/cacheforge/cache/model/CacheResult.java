@@ -13,4 +13,8 @@ public sealed interface CacheResult
 
     record Created(CacheEntry entry) implements CacheResult {}   // SET (new)
     record Updated(CacheEntry entry) implements CacheResult {}   // SET (overwrite)
+
+    // results without an entry carry no state, share one instance
+    Miss MISS = new Miss();
+    Expired EXPIRED = new Expired();
 }
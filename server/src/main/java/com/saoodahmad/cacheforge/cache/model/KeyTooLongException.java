@@ -0,0 +1,9 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+// thrown for a namespace or key longer than the persisted formats can hold, see CacheKey.MAX_KEY_LENGTH
+public class KeyTooLongException extends IllegalArgumentException {
+
+    public KeyTooLongException(String what, int length, int max) {
+        super(what + " of " + length + " characters exceeds the limit of " + max);
+    }
+}
@@ -0,0 +1,31 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+// one per distinct namespace name, shared by every key in it
+public final class Namespace {
+
+    public final int id;
+
+    public final String name;
+
+    // hash of the name, keys start from it so their hash does not depend on the id order
+    final long seed;
+
+    Namespace(int id, String name) {
+        this.id = id;
+        this.name = name;
+
+        long h = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        this.seed = h;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,9 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+// thrown for a write to a new namespace once cacheforge.max-namespaces distinct ones exist
+public class NamespaceLimitException extends RuntimeException {
+
+    public NamespaceLimitException(int max) {
+        super("Namespace limit of " + max + " reached, write to an existing namespace");
+    }
+}
@@ -0,0 +1,122 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Namespaces are few and long lived, keys share one Namespace instead of each holding the
+ * name. Ids are never reused, so the table and the engines' per-id arrays are bounded by
+ * max-namespaces instead: past it writes to new namespaces are rejected, and reads of a
+ * namespace never written use find() and do not register it.
+ *
+ * The table is process wide, keys are built from names without an engine at hand, so
+ * every engine in the process has to agree on the limit, see configure().
+ */
+public final class NamespaceTable {
+
+    public static final int DEFAULT_MAX_SIZE = 65_536;
+
+    private static final ConcurrentHashMap<String, Namespace> byName = new ConcurrentHashMap<>();
+
+    // a lock rather than synchronized, a virtual thread waiting on it does not pin its carrier
+    private static final ReentrantLock registerLock = new ReentrantLock();
+
+    // id -> namespace, only appended to under registerLock
+    private static volatile Namespace[] byId = new Namespace[16];
+
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    // the limit the first engine asked for, 0 before that
+    private static int configuredMaxSize;
+
+    private NamespaceTable() {
+    }
+
+    public static Namespace of(String name) {
+        Namespace ns = byName.get(name);
+
+        if (ns != null) {
+            return ns;
+        }
+
+        if (name.length() > CacheKey.MAX_NAMESPACE_LENGTH) {
+            throw new KeyTooLongException("Namespace", name.length(), CacheKey.MAX_NAMESPACE_LENGTH);
+        }
+
+        return register(name);
+    }
+
+    // the namespace if it was ever registered, null otherwise
+    public static Namespace find(String name) {
+        return byName.get(name);
+    }
+
+    // called by every engine, a second engine with another limit would silently change the first one's
+    public static void configure(int max) {
+        registerLock.lock();
+
+        try {
+            if (configuredMaxSize != 0 && configuredMaxSize != max) {
+                throw new IllegalArgumentException("Max namespaces is process wide and already " + configuredMaxSize
+                        + ", another engine cannot set " + max);
+            }
+
+            setMaxSize(max);
+
+            configuredMaxSize = max;
+        } finally {
+            registerLock.unlock();
+        }
+    }
+
+    // namespaces registered before a lower limit is set stay; engines go through configure
+    static void setMaxSize(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("Max namespaces must be > 0");
+        }
+
+        maxSize = max;
+    }
+
+    public static Namespace byId(int id) {
+        return byId[id];
+    }
+
+    public static int size() {
+        return byName.size();
+    }
+
+    private static Namespace register(String name) {
+        registerLock.lock();
+
+        try {
+            Namespace ns = byName.get(name);
+
+            if (ns != null) {
+                return ns;
+            }
+
+            int next = byName.size();
+
+            if (next >= maxSize) {
+                throw new NamespaceLimitException(maxSize);
+            }
+
+            if (next == byId.length) {
+                byId = Arrays.copyOf(byId, next * 2);
+            }
+
+            ns = new Namespace(next, name);
+
+            byId[next] = ns;
+
+            // publishes the namespace, readers only find it through this map or an existing key
+            byName.put(name, ns);
+
+            return ns;
+        } finally {
+            registerLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/*
+ * Append-only file layout, big endian:
+ *
+ *   file    magic "CFAOF1" record*
+ *   record  length:i32 crc32c:i32 payload     crc over the payload
+ *   payload 'S' expiresAtMs:i64 binary:u8 length:u16 namespace length:u16 key length:i32 value
+ *           'D' length:u16 namespace length:u16 key
+ *           'C'
+ *           'F' length:u16 namespace
+ *
+ * Expiry is wall clock epoch millis, -1 for none, so a restart does not extend TTLs.
+ *
+ * The replication stream carries the same records, framed the same way.
+ */
+public final class AofCodec {
+
+    static final byte[] MAGIC = {'C', 'F', 'A', 'O', 'F', '1'};
+
+    public static final byte SET = 'S';
+    public static final byte DELETE = 'D';
+    public static final byte CLEAR = 'C';
+    public static final byte FLUSH = 'F';
+
+    // what replay hands back, val is a String or byte[] for SET, the namespace for FLUSH and null otherwise
+    public record Record(byte op, CacheKey key, Object val, long expiresAtMs) {}
+
+    private AofCodec() {
+    }
+
+    public static byte[] set(CacheKey key, Object val, long expiresAtMs) {
+        byte[] ns = u16Bytes(key.getNamespace());
+        byte[] k = u16Bytes(key.getKey());
+
+        boolean binary = val instanceof byte[];
+        byte[] v = binary ? (byte[]) val : ((String) val).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 1 + 2 + ns.length + 2 + k.length + 4 + v.length);
+        payload.put(SET).putLong(expiresAtMs).put((byte) (binary ? 1 : 0));
+        payload.putShort((short) ns.length).put(ns);
+        payload.putShort((short) k.length).put(k);
+        payload.putInt(v.length).put(v);
+
+        return frame(payload.array());
+    }
+
+    public static byte[] delete(CacheKey key) {
+        byte[] ns = u16Bytes(key.getNamespace());
+        byte[] k = u16Bytes(key.getKey());
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + ns.length + 2 + k.length);
+        payload.put(DELETE);
+        payload.putShort((short) ns.length).put(ns);
+        payload.putShort((short) k.length).put(k);
+
+        return frame(payload.array());
+    }
+
+    public static byte[] clear() {
+        return frame(new byte[]{CLEAR});
+    }
+
+    public static byte[] flush(String namespace) {
+        byte[] ns = u16Bytes(namespace);
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + ns.length);
+        payload.put(FLUSH);
+        payload.putShort((short) ns.length).put(ns);
+
+        return frame(payload.array());
+    }
+
+    /*
+     * Replays every complete record and returns the length of the valid prefix. Reading stops
+     * at the first torn or corrupt record, which is what a crash mid-append leaves behind.
+     */
+    static long read(Path path, Consumer<Record> consumer) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16));
+
+            byte[] magic = new byte[MAGIC.length];
+
+            if (in.readNBytes(magic, 0, magic.length) != magic.length || !Arrays.equals(magic, MAGIC)) {
+                throw new IOException(path + " is not a CacheForge append-only file");
+            }
+
+            long valid = MAGIC.length;
+
+            while (true) {
+                Record record;
+                int length;
+
+                try {
+                    length = in.readInt();
+                    int crc = in.readInt();
+
+                    if (length <= 0) {
+                        return valid;
+                    }
+
+                    byte[] payload = in.readNBytes(length);
+
+                    if (payload.length != length || crc != crc(payload)) {
+                        return valid;
+                    }
+
+                    record = decode(ByteBuffer.wrap(payload));
+                } catch (EOFException e) {
+                    return valid;
+                }
+
+                consumer.accept(record);
+
+                valid += 8 + length;
+            }
+        }
+    }
+
+    // one record off a live stream, unlike a torn file end a bad record is an error here
+    public static byte[] readPayload(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int crc = in.readInt();
+
+        if (length <= 0) {
+            throw new IOException("Invalid record length " + length);
+        }
+
+        byte[] payload = in.readNBytes(length);
+
+        if (payload.length != length) {
+            throw new EOFException();
+        }
+
+        if (crc != crc(payload)) {
+            throw new IOException("Record checksum mismatch");
+        }
+
+        return payload;
+    }
+
+    public static Record decode(ByteBuffer payload) {
+        byte op = payload.get();
+
+        return switch (op) {
+            case SET -> {
+                long expiresAtMs = payload.getLong();
+                boolean binary = payload.get() == 1;
+
+                CacheKey key = new CacheKey(string(payload, payload.getShort() & 0xffff), string(payload, payload.getShort() & 0xffff));
+
+                byte[] v = new byte[payload.getInt()];
+                payload.get(v);
+
+                yield new Record(SET, key, binary ? v : new String(v, StandardCharsets.UTF_8), expiresAtMs);
+            }
+            case DELETE -> new Record(DELETE,
+                    new CacheKey(string(payload, payload.getShort() & 0xffff), string(payload, payload.getShort() & 0xffff)), null, -1);
+            case CLEAR -> new Record(CLEAR, null, null, -1);
+            case FLUSH -> new Record(FLUSH, null, string(payload, payload.getShort() & 0xffff), -1);
+            default -> throw new IllegalStateException("Unknown append-only file record '" + (char) op + "'");
+        };
+    }
+
+    // UTF-8 of a namespace or key, which goes behind a u16 length; CacheKey keeps them short enough
+    static byte[] u16Bytes(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > 0xffff) {
+            throw new IllegalArgumentException("Field of " + bytes.length + " bytes does not fit a u16 length");
+        }
+
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buf, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static byte[] frame(byte[] payload) {
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .put(payload)
+                .array();
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,588 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.CacheEventListener;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Redis-style append-only file. Every set and removal the engine reports is put on a
+ * lock-free queue under the stripe lock, and a single writer thread encodes and appends
+ * them, so request threads never touch the disk unless the fsync policy is ALWAYS.
+ *
+ * The file is compacted once it has grown rewritePercentage past its size after the last
+ * compaction. A rewrite thread walks the live entries into a new file, without holding
+ * off reshards, while the writer keeps appending and syncing the old one and also keeps
+ * a copy of every record it appends, like Redis's rewrite buffer. Once the walk is done
+ * the writer appends that buffer to the new file and swaps it in. Replaying a set or
+ * delete twice is harmless, so the new file replays to the same state.
+ *
+ * On startup the file is replayed into the engine before anything is logged. Entries
+ * whose absolute expiry has passed are dropped, a torn record at the end is cut off.
+ *
+ * With fsync ALWAYS a write returns once it is on disk. Event loops that must not park
+ * call deferSyncWaits() instead and hold their replies until isSynced(writesQueued()),
+ * woken by onSynced, so a pipelined batch shares one fsync and the loop keeps serving.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.aof", name = "enabled", havingValue = "true")
+public class AppendOnlyFile implements CacheEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AppendOnlyFile.class);
+
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long EVERYSEC_NS = TimeUnit.SECONDS.toNanos(1);
+
+    // one set, removal, clear or flush, encoded on the writer thread
+    private record Op(byte type, CacheKey key, Object val, long expiresAtNs) {}
+
+    private static final Op CLEAR = new Op(AofCodec.CLEAR, null, null, -1);
+
+    // one compaction, the writer buffers what it appends until the walk is done
+    private static final class Rewrite {
+        private final Path tmp;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(); // writer thread only
+        private Thread thread;
+
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private volatile Exception error;
+
+        private Rewrite(Path tmp) {
+            this.tmp = tmp;
+        }
+    }
+
+    private final StripedCacheEngine engine;
+    private final TimeProvider time;
+
+    private final Path path;
+    private final FsyncPolicy fsync;
+    private final long rewriteMinBytes;
+    private final int rewritePercentage;
+
+    private final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+
+    // counted before the offer, see awaitSynced
+    private final AtomicLong enqueued = new AtomicLong();
+
+    // ALWAYS waiters, signalled after every fsync
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncCondition = this.syncLock.newCondition();
+    private volatile long synced;
+
+    // threads that do not wait in afterWrite, see deferSyncWaits
+    private final ThreadLocal<Boolean> deferring = ThreadLocal.withInitial(() -> false);
+
+    // run on the writer thread after every fsync
+    private final List<Runnable> syncListeners = new CopyOnWriteArrayList<>();
+
+    private final Thread writer;
+    private volatile boolean running;
+
+    // written by the writer thread only
+    private volatile long fileBytes;
+    private volatile long written;
+    private volatile int rewrites;
+
+    // writer thread only
+    private FileChannel channel;
+    private OutputStream out;
+    private long rewriteBaseBytes;
+    private Rewrite rewrite;
+    private long lastSyncNs;
+    private boolean dirty;
+    private boolean failed;
+
+    public AppendOnlyFile(StripedCacheEngine engine, TimeProvider time, CacheForgeProperties props) {
+        CacheForgeProperties.Aof aof = props.getAof();
+
+        if (aof.getRewriteMinBytes() < 0 || aof.getRewritePercentage() <= 0) {
+            throw new IllegalArgumentException("AOF rewrite min bytes must be >= 0 and rewrite percentage > 0");
+        }
+
+        this.engine = engine;
+        this.time = time;
+        this.path = Path.of(aof.getPath());
+        this.fsync = aof.getFsync();
+        this.rewriteMinBytes = aof.getRewriteMinBytes();
+        this.rewritePercentage = aof.getRewritePercentage();
+
+        this.writer = Thread.ofPlatform().name("cacheforge-aof").daemon().unstarted(this::run);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path dir = this.path.toAbsolutePath().getParent();
+
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+
+        if (Files.exists(this.path)) {
+            this.replay();
+        } else {
+            Files.write(this.path, AofCodec.MAGIC);
+        }
+
+        this.channel = FileChannel.open(this.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(this.channel), 1 << 16);
+        this.fileBytes = this.channel.size();
+        this.rewriteBaseBytes = this.fileBytes;
+        this.lastSyncNs = System.nanoTime();
+
+        this.running = true;
+
+        // only now, replayed writes must not be logged again
+        this.engine.addListener(this);
+        this.writer.start();
+
+        log.info("Append-only file {} open, fsync {}", this.path, this.fsync);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+
+        LockSupport.unpark(this.writer);
+
+        this.writer.join();
+
+        // cancelled by the writer on its way out
+        if (this.rewrite != null) {
+            this.rewrite.thread.join();
+
+            this.discard(this.rewrite.tmp);
+        }
+    }
+
+    @Override
+    public void written(CacheKey key, CacheEntry entry) {
+        this.enqueue(new Op(AofCodec.SET, key, entry.rawVal(), entry.expiresAtNs()));
+    }
+
+    @Override
+    public void removed(CacheKey key) {
+        this.enqueue(new Op(AofCodec.DELETE, key, null, -1));
+    }
+
+    @Override
+    public void cleared() {
+        this.enqueue(CLEAR);
+    }
+
+    @Override
+    public void flushed(String namespace) {
+        this.enqueue(new Op(AofCodec.FLUSH, null, namespace, -1));
+    }
+
+    @Override
+    public void afterWrite() {
+        if (this.fsync == FsyncPolicy.ALWAYS && !this.deferring.get()) {
+            this.awaitSynced(this.enqueued.get());
+        }
+    }
+
+    // file size as last seen by the writer
+    public long fileBytes() {
+        return this.fileBytes;
+    }
+
+    // ops the writer has appended so far, on disk or not
+    public long writesAppended() {
+        return this.written;
+    }
+
+    public int rewrites() {
+        return this.rewrites;
+    }
+
+    public boolean syncsEveryWrite() {
+        return this.fsync == FsyncPolicy.ALWAYS;
+    }
+
+    // writes on the calling thread return without waiting for their fsync from now on
+    public void deferSyncWaits() {
+        this.deferring.set(true);
+    }
+
+    // ops reported so far, read after a write it covers that write
+    public long writesQueued() {
+        return this.enqueued.get();
+    }
+
+    // whether the first `target` ops are on disk, see awaitSynced
+    public boolean isSynced(long target) {
+        if (this.synced >= target) {
+            return true;
+        }
+
+        LockSupport.unpark(this.writer);
+
+        return false;
+    }
+
+    public void onSynced(Runnable listener) {
+        this.syncListeners.add(listener);
+    }
+
+    private void enqueue(Op op) {
+        this.enqueued.incrementAndGet();
+        this.queue.offer(op);
+    }
+
+    /*
+     * Waits until the first `target` ops are on disk. Every op is counted before it is
+     * offered, so all ops offered up to ours are within the count and synced >= target
+     * means the writer polled past ours.
+     */
+    private void awaitSynced(long target) {
+        if (this.synced >= target) {
+            return;
+        }
+
+        LockSupport.unpark(this.writer);
+
+        this.syncLock.lock();
+
+        try {
+            while (this.synced < target && this.running) {
+                this.syncCondition.awaitUninterruptibly();
+            }
+        } finally {
+            this.syncLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            boolean stopping = !this.running;
+
+            int drained = this.drain();
+
+            this.sync(stopping);
+
+            if (stopping && this.queue.isEmpty()) {
+                break;
+            }
+
+            if (this.rewrite != null && this.rewrite.done) {
+                this.finishRewrite();
+            }
+
+            if (drained == 0) {
+                this.maybeRewrite();
+
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+            }
+        }
+
+        if (this.rewrite != null) {
+            this.rewrite.cancelled = true;
+        }
+
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            log.error("Closing append-only file {} failed", this.path, e);
+        }
+
+        this.markSynced(Long.MAX_VALUE);
+    }
+
+    // appends everything queued, returns how many ops were taken
+    private int drain() {
+        int drained = 0;
+
+        Op op;
+
+        while ((op = this.queue.poll()) != null) {
+            drained++;
+
+            if (this.failed) {
+                continue;
+            }
+
+            try {
+                byte[] record = this.encode(op);
+
+                this.out.write(record);
+                this.fileBytes += record.length;
+
+                if (this.rewrite != null) {
+                    this.rewrite.buffer.writeBytes(record);
+                }
+            } catch (IOException e) {
+                this.fail(e);
+            } catch (IllegalArgumentException e) {
+                // one record the format cannot hold, the writer carries on with the rest
+                log.error("Skipping append-only file record {}", op.key, e);
+            }
+        }
+
+        if (drained > 0) {
+            this.written += drained;
+            this.dirty = true;
+
+            try {
+                this.out.flush();
+            } catch (IOException e) {
+                this.fail(e);
+            }
+        }
+
+        return drained;
+    }
+
+    private byte[] encode(Op op) {
+        return switch (op.type) {
+            case AofCodec.SET -> AofCodec.set(op.key, op.val, this.wallClockExpiry(op.expiresAtNs));
+            case AofCodec.DELETE -> AofCodec.delete(op.key);
+            case AofCodec.FLUSH -> AofCodec.flush((String) op.val);
+            default -> AofCodec.clear();
+        };
+    }
+
+    private void sync(boolean force) {
+        if (!this.dirty) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        boolean due = switch (this.fsync) {
+            case ALWAYS -> true;
+            case EVERYSEC -> now - this.lastSyncNs >= EVERYSEC_NS;
+            case NO -> false;
+        };
+
+        if (!due && !force) {
+            return;
+        }
+
+        if (!this.failed && this.fsync != FsyncPolicy.NO) {
+            try {
+                this.channel.force(false);
+            } catch (IOException e) {
+                this.fail(e);
+            }
+        }
+
+        this.dirty = false;
+        this.lastSyncNs = now;
+
+        this.markSynced(this.written);
+    }
+
+    private void markSynced(long count) {
+        this.syncLock.lock();
+
+        try {
+            this.synced = count;
+            this.syncCondition.signalAll();
+        } finally {
+            this.syncLock.unlock();
+        }
+
+        for (Runnable listener : this.syncListeners) {
+            listener.run();
+        }
+    }
+
+    private void maybeRewrite() {
+        if (this.rewrite != null || this.failed || this.fileBytes < this.rewriteMinBytes
+                || this.fileBytes < this.rewriteBaseBytes + this.rewriteBaseBytes * this.rewritePercentage / 100) {
+            return;
+        }
+
+        Rewrite rewrite = new Rewrite(this.path.resolveSibling(this.path.getFileName() + ".rewrite"));
+
+        // buffering starts before the walk, so every change the walk may miss is in the buffer
+        this.rewrite = rewrite;
+
+        rewrite.thread = Thread.ofPlatform().name("cacheforge-aof-rewrite").daemon().start(() -> this.writeLiveEntries(rewrite));
+    }
+
+    // runs on the rewrite thread, the engine is walked a stripe at a time
+    private void writeLiveEntries(Rewrite rewrite) {
+        try (FileChannel file = FileChannel.open(rewrite.tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream rewritten = new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16);
+
+            rewritten.write(AofCodec.MAGIC);
+
+            this.engine.forEachEntries(entries -> {
+                if (rewrite.cancelled) {
+                    throw new CancellationException("append-only file closed");
+                }
+
+                try {
+                    for (Map.Entry<CacheKey, CacheEntry> e : entries) {
+                        CacheEntry entry = e.getValue();
+
+                        rewritten.write(AofCodec.set(e.getKey(), entry.rawVal(), this.wallClockExpiry(entry.expiresAtNs())));
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+
+            rewritten.flush();
+            file.force(true);
+        } catch (IOException | RuntimeException e) {
+            rewrite.error = e;
+
+            this.discard(rewrite.tmp);
+        }
+
+        rewrite.done = true;
+
+        LockSupport.unpark(this.writer);
+    }
+
+    // writer thread, appends what changed during the walk and swaps the new file in
+    private void finishRewrite() {
+        Rewrite rewrite = this.rewrite;
+        this.rewrite = null;
+
+        long before = this.fileBytes;
+
+        Exception error = rewrite.error;
+
+        if (error == null && this.failed) {
+            // the buffer stopped with the appends, the new file would be as incomplete as the old
+            error = new IOException("append-only file failed during the rewrite");
+        }
+
+        if (error == null) {
+            try {
+                this.swapIn(rewrite);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        if (error != null) {
+            // the old file stays in use, try again after it grows further
+            this.rewriteBaseBytes = this.fileBytes;
+
+            this.discard(rewrite.tmp);
+
+            log.error("Compacting append-only file {} failed", this.path, error);
+            return;
+        }
+
+        this.rewrites++;
+
+        log.info("Compacted append-only file {} from {} to {} bytes", this.path, before, this.fileBytes);
+    }
+
+    private void swapIn(Rewrite rewrite) throws IOException {
+        long compacted;
+
+        try (FileChannel file = FileChannel.open(rewrite.tmp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            compacted = file.size();
+
+            rewrite.buffer.writeTo(Channels.newOutputStream(file));
+
+            file.force(true);
+        }
+
+        this.out.flush();
+        this.channel.close();
+
+        Files.move(rewrite.tmp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.channel = FileChannel.open(this.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(this.channel), 1 << 16);
+        this.fileBytes = this.channel.size();
+
+        // growth counts from the live entries, the buffered tail is log like any later append
+        this.rewriteBaseBytes = compacted;
+    }
+
+    private void discard(Path tmp) {
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            log.warn("Removing {} failed", tmp, e);
+        }
+    }
+
+    private void replay() throws IOException {
+        long nowMs = System.currentTimeMillis();
+
+        long[] counts = new long[2];
+
+        long valid = AofCodec.read(this.path, record -> {
+            counts[0]++;
+
+            switch (record.op()) {
+                case AofCodec.SET -> {
+                    // expired while we were down, drop what earlier records set
+                    if (!Replay.set(this.engine, record.key(), record.val(), record.expiresAtMs(), nowMs)) {
+                        this.engine.deleteKey(record.key());
+                    }
+                }
+                case AofCodec.DELETE -> this.engine.deleteKey(record.key());
+                case AofCodec.FLUSH -> this.engine.flushNamespace((String) record.val());
+                default -> this.engine.clear();
+            }
+        });
+
+        long size = Files.size(this.path);
+
+        if (valid < size) {
+            log.warn("Append-only file {} ends in a torn record, dropping the last {} bytes", this.path, size - valid);
+
+            try (FileChannel file = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+                file.truncate(valid);
+            }
+        }
+
+        log.info("Replayed {} records from append-only file {}", counts[0], this.path);
+    }
+
+    private long wallClockExpiry(long expiresAtNs) {
+        return Replay.wallClockExpiry(expiresAtNs, this.time);
+    }
+
+    // keeps the cache serving, a broken disk should not take requests down with it
+    private void fail(IOException e) {
+        if (!this.failed) {
+            log.error("Writing append-only file {} failed, persistence is off until restart", this.path, e);
+        }
+
+        this.failed = true;
+    }
+}
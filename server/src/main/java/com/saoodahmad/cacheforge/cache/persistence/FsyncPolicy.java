@@ -0,0 +1,8 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+// when the append-only file is forced to disk, like Redis' appendfsync
+public enum FsyncPolicy {
+    ALWAYS,   // before a set or delete returns, concurrent writers share one fsync
+    EVERYSEC, // at most once a second on the writer thread, a crash loses about a second
+    NO        // never, the OS flushes when it likes
+}
@@ -0,0 +1,41 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+
+import java.util.concurrent.TimeUnit;
+
+// puts persisted entries back into the engine, shared by the append-only file, snapshots and replication
+public final class Replay {
+
+    private Replay() {
+    }
+
+    // expiresAtMs is wall clock, -1 for none; returns false if the entry expired while we were down
+    public static boolean set(StripedCacheEngine engine, CacheKey key, Object val, long expiresAtMs, long nowMs) {
+        if (expiresAtMs != -1 && expiresAtMs <= nowMs) {
+            return false;
+        }
+
+        // TTLs are whole seconds, rounded up so nothing expires early
+        long ttl = expiresAtMs == -1 ? -1 : (expiresAtMs - nowMs + 999) / 1000;
+
+        if (val instanceof byte[] bytes) {
+            engine.setKey(key, bytes, ttl);
+        } else {
+            engine.setKey(key, (String) val, ttl);
+        }
+
+        return true;
+    }
+
+    // the engine's monotonic expiry as wall clock epoch millis, -1 stays -1
+    public static long wallClockExpiry(long expiresAtNs, TimeProvider time) {
+        if (expiresAtNs == -1) {
+            return -1;
+        }
+
+        return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(expiresAtNs - time.nowNs());
+    }
+}
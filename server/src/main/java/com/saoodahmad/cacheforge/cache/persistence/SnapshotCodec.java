@@ -0,0 +1,253 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * One stripe's entries, big endian:
+ *
+ *   file    magic "CFSNAP01" savedAtMs:i64 count:i64 entry* crc32c:i32     crc over all before it
+ *   entry   expiresAtMs:i64 binary:u8 length:u16 namespace length:u16 key length:i32 value
+ *
+ * Expiry is wall clock epoch millis, -1 for none. Files are read through memory-mapped
+ * windows, so loading costs no read() copies and the page cache does the IO.
+ *
+ * A snapshot is a directory snapshot-<savedAtMs> holding stripe-<id>.snap per stripe, ids
+ * past the stripe count hold disk tier entries. It is written as snapshot-<savedAtMs>.tmp
+ * and renamed once every file is on disk, so a directory without the suffix is complete.
+ */
+final class SnapshotCodec {
+
+    static final byte[] MAGIC = {'C', 'F', 'S', 'N', 'A', 'P', '0', '1'};
+
+    private static final int HEADER_BYTES = MAGIC.length + 8 + 8;
+
+    // one mapping at a time, a single buffer cannot span more than 2GB anyway
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private static final Pattern SNAPSHOT_DIR = Pattern.compile("snapshot-(\\d+)");
+
+    record Entry(CacheKey key, Object val, long expiresAtMs) {}
+
+    private SnapshotCodec() {
+    }
+
+    static Path tempDir(Path dir, long savedAtMs) {
+        return dir.resolve("snapshot-" + savedAtMs + ".tmp");
+    }
+
+    static Path snapshotDir(Path dir, long savedAtMs) {
+        return dir.resolve("snapshot-" + savedAtMs);
+    }
+
+    static Path stripeFile(Path snapshot, int stripeId) {
+        return snapshot.resolve(String.format("stripe-%04d.snap", stripeId));
+    }
+
+    // complete snapshots under dir, newest first
+    static List<Path> snapshots(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+
+        try (Stream<Path> children = Files.list(dir)) {
+            return children
+                    .filter(p -> Files.isDirectory(p) && SNAPSHOT_DIR.matcher(p.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(SnapshotCodec::savedAtMs).reversed())
+                    .toList();
+        }
+    }
+
+    static List<Path> stripeFiles(Path snapshot) throws IOException {
+        try (Stream<Path> children = Files.list(snapshot)) {
+            return children.filter(p -> p.getFileName().toString().endsWith(".snap")).sorted().toList();
+        }
+    }
+
+    // removes a snapshot or a leftover temp directory
+    static void delete(Path snapshot) throws IOException {
+        try (Stream<Path> children = Files.list(snapshot)) {
+            for (Path child : children.toList()) {
+                Files.delete(child);
+            }
+        }
+
+        Files.delete(snapshot);
+    }
+
+    private static long savedAtMs(Path snapshot) {
+        return Long.parseLong(snapshot.getFileName().toString().substring("snapshot-".length()));
+    }
+
+    // writes and forces the file, returns its size
+    static long write(Path path, long savedAtMs, List<Map.Entry<CacheKey, CacheEntry>> entries, LongUnaryOperator toWallClockMs) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            OutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16);
+
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+
+            out.write(MAGIC);
+            out.writeLong(savedAtMs);
+            out.writeLong(entries.size());
+
+            for (Map.Entry<CacheKey, CacheEntry> e : entries) {
+                CacheEntry entry = e.getValue();
+
+                long expiresAtMs = entry.expiresAtNs() == -1 ? -1 : toWallClockMs.applyAsLong(entry.expiresAtNs());
+
+                byte[] ns = AofCodec.u16Bytes(e.getKey().getNamespace());
+                byte[] k = AofCodec.u16Bytes(e.getKey().getKey());
+                byte[] v = entry.isBinary() ? entry.valBytes() : entry.getVal().getBytes(StandardCharsets.UTF_8);
+
+                out.writeLong(expiresAtMs);
+                out.writeByte(entry.isBinary() ? 1 : 0);
+                out.writeShort(ns.length);
+                out.write(ns);
+                out.writeShort(k.length);
+                out.write(k);
+                out.writeInt(v.length);
+                out.write(v);
+            }
+
+            out.flush();
+
+            // the checksum itself is not checksummed
+            buffered.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            buffered.flush();
+
+            file.force(true);
+
+            return file.size();
+        }
+    }
+
+    // checks the whole file before handing out anything, returns the entry count
+    static long read(Path path, Consumer<Entry> consumer) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = file.size() - 4;
+
+            if (end < HEADER_BYTES) {
+                throw new IOException(path + " is truncated");
+            }
+
+            verify(file, end, path);
+
+            MappedReader in = new MappedReader(file, end);
+
+            byte[] magic = new byte[MAGIC.length];
+            in.need(HEADER_BYTES).get(magic);
+
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(path + " is not a CacheForge snapshot");
+            }
+
+            ByteBuffer buf = in.buf;
+            buf.getLong(); // savedAtMs, informational
+
+            long count = buf.getLong();
+
+            for (long i = 0; i < count; i++) {
+                buf = in.need(8 + 1 + 2);
+
+                long expiresAtMs = buf.getLong();
+                boolean binary = buf.get() == 1;
+
+                String namespace = string(in, buf.getShort() & 0xffff);
+                String key = string(in, in.need(2).getShort() & 0xffff);
+
+                byte[] v = new byte[in.need(4).getInt()];
+                in.need(v.length).get(v);
+
+                consumer.accept(new Entry(new CacheKey(namespace, key), binary ? v : new String(v, StandardCharsets.UTF_8), expiresAtMs));
+            }
+
+            if (in.position() != end) {
+                throw new IOException(path + " has trailing bytes after " + count + " entries");
+            }
+
+            return count;
+        }
+    }
+
+    private static void verify(FileChannel file, long end, Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+
+        for (long at = 0; at < end; at += WINDOW_BYTES) {
+            crc.update(file.map(FileChannel.MapMode.READ_ONLY, at, Math.min(WINDOW_BYTES, end - at)));
+        }
+
+        int expected = file.map(FileChannel.MapMode.READ_ONLY, end, 4).getInt();
+
+        if ((int) crc.getValue() != expected) {
+            throw new IOException(path + " fails its checksum");
+        }
+    }
+
+    private static String string(MappedReader in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.need(length).get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // sequential reads over a file larger than one mapping, remapped at a field boundary
+    private static final class MappedReader {
+
+        private final FileChannel file;
+        private final long end;
+
+        private long base;
+        private MappedByteBuffer buf;
+
+        MappedReader(FileChannel file, long end) {
+            this.file = file;
+            this.end = end;
+        }
+
+        // a buffer with at least `bytes` left at its position
+        ByteBuffer need(int bytes) throws IOException {
+            if (this.buf != null && this.buf.remaining() >= bytes) {
+                return this.buf;
+            }
+
+            long at = this.position();
+
+            if (bytes < 0 || this.end - at < bytes) {
+                throw new IOException("Snapshot entry runs past the end of the file");
+            }
+
+            this.base = at;
+            this.buf = this.file.map(FileChannel.MapMode.READ_ONLY, at, Math.min(Math.max(WINDOW_BYTES, bytes), this.end - at));
+
+            return this.buf;
+        }
+
+        long position() {
+            return this.buf == null ? 0 : this.base + this.buf.position();
+        }
+    }
+}
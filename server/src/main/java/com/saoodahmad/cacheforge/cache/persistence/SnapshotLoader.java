@@ -0,0 +1,120 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Warm restart from the newest snapshot SnapshotWriter left. Every stripe file is mapped
+ * and loaded on its own thread. With the same stripe count as when it was saved, each file
+ * fills exactly one stripe, so the loaders never contend for a lock.
+ *
+ * A snapshot that fails its checksum is dropped and the next older one is tried.
+ */
+@Component
+public class SnapshotLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotLoader.class);
+
+    private final StripedCacheEngine engine;
+
+    private final Path dir;
+    private final int threads;
+
+    public SnapshotLoader(StripedCacheEngine engine, CacheForgeProperties props) {
+        this.engine = engine;
+        this.dir = Path.of(props.getSnapshot().getDir());
+        this.threads = props.getSnapshot().getLoadThreads() > 0
+                ? props.getSnapshot().getLoadThreads()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    // returns the number of keys restored, 0 when there is no usable snapshot
+    public long restore() {
+        List<Path> snapshots;
+
+        try {
+            snapshots = SnapshotCodec.snapshots(this.dir);
+        } catch (IOException e) {
+            log.error("Listing snapshots in {} failed, starting empty", this.dir, e);
+
+            return 0;
+        }
+
+        for (Path snapshot : snapshots) {
+            long startNs = System.nanoTime();
+
+            try {
+                long restored = this.load(snapshot);
+
+                log.info("Restored {} keys from snapshot {} in {} ms", restored, snapshot,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+
+                return restored;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot {} is unusable, trying an older one", snapshot, e);
+
+                this.engine.clear();
+            }
+        }
+
+        log.info("No snapshot in {}, starting empty", this.dir);
+
+        return 0;
+    }
+
+    private long load(Path snapshot) throws IOException {
+        List<Path> files = SnapshotCodec.stripeFiles(snapshot);
+
+        long nowMs = System.currentTimeMillis();
+
+        List<Future<Long>> loads = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(this.threads, files.size())),
+                Thread.ofPlatform().name("cacheforge-snapshot-load-", 0).factory())) {
+            for (Path file : files) {
+                loads.add(pool.submit(() -> {
+                    long[] restored = {0};
+
+                    SnapshotCodec.read(file, entry -> {
+                        if (Replay.set(this.engine, entry.key(), entry.val(), entry.expiresAtMs(), nowMs)) {
+                            restored[0]++;
+                        }
+                    });
+
+                    return restored[0];
+                }));
+            }
+
+            long restored = 0;
+
+            for (Future<Long> load : loads) {
+                restored += load.get();
+            }
+
+            return restored;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while loading " + snapshot, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+
+            throw new IOException("Loading " + snapshot + " failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Dumps the whole keyspace every intervalMs and on shutdown, one file per stripe (see
+ * SnapshotCodec). A stripe is locked only while its entries are copied out, the file is
+ * written afterwards, so requests wait at most for one stripe's copy and never on disk.
+ * The dump is therefore not one atomic point in time: each stripe is consistent as of
+ * the moment it was copied.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.snapshot", name = "enabled", havingValue = "true")
+public class SnapshotWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private final StripedCacheEngine engine;
+    private final TimeProvider time;
+
+    private final Path dir;
+    private final int retain;
+
+    public SnapshotWriter(StripedCacheEngine engine, TimeProvider time, CacheForgeProperties props) {
+        CacheForgeProperties.Snapshot snapshot = props.getSnapshot();
+
+        if (snapshot.getRetain() <= 0 || snapshot.getIntervalMs() <= 0) {
+            throw new IllegalArgumentException("Snapshot retain and interval must be > 0");
+        }
+
+        this.engine = engine;
+        this.time = time;
+        this.dir = Path.of(snapshot.getDir());
+        this.retain = snapshot.getRetain();
+    }
+
+    @Scheduled(fixedDelayString = "${cacheforge.snapshot.interval-ms:300000}", initialDelayString = "${cacheforge.snapshot.interval-ms:300000}")
+    public void scheduledSave() {
+        try {
+            this.save();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Writing snapshot to {} failed", this.dir, e);
+        }
+    }
+
+    // the cache is still up here, dependents are destroyed first
+    @PreDestroy
+    public void saveOnShutdown() {
+        this.scheduledSave();
+    }
+
+    // returns the new snapshot directory
+    public synchronized Path save() throws IOException {
+        Files.createDirectories(this.dir);
+
+        long startNs = System.nanoTime();
+        long savedAtMs = this.nextSavedAtMs();
+
+        Path tmp = SnapshotCodec.tempDir(this.dir, savedAtMs);
+
+        Files.createDirectories(tmp);
+
+        long[] totals = new long[2];
+
+        try {
+            this.engine.forEachStripeEntries((entries, stripeId) -> {
+                long nowNs = this.time.nowNs();
+                long nowMs = System.currentTimeMillis();
+
+                try {
+                    totals[1] += SnapshotCodec.write(SnapshotCodec.stripeFile(tmp, stripeId), savedAtMs, entries,
+                            expiresAtNs -> nowMs + TimeUnit.NANOSECONDS.toMillis(expiresAtNs - nowNs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                totals[0] += entries.size();
+            });
+        } catch (UncheckedIOException e) {
+            SnapshotCodec.delete(tmp);
+
+            throw e.getCause();
+        }
+
+        Path snapshot = SnapshotCodec.snapshotDir(this.dir, savedAtMs);
+
+        Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+
+        this.prune();
+
+        log.info("Saved snapshot {} with {} keys, {} bytes in {} ms", snapshot, totals[0], totals[1],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+
+        return snapshot;
+    }
+
+    // names must be unique and ordered, two saves can land in the same millisecond
+    private long nextSavedAtMs() {
+        long savedAtMs = System.currentTimeMillis();
+
+        while (Files.exists(SnapshotCodec.snapshotDir(this.dir, savedAtMs))) {
+            savedAtMs++;
+        }
+
+        return savedAtMs;
+    }
+
+    // older snapshots past `retain`, and temp directories a crash left behind
+    private void prune() throws IOException {
+        List<Path> snapshots = SnapshotCodec.snapshots(this.dir);
+
+        for (Path old : snapshots.subList(Math.min(this.retain, snapshots.size()), snapshots.size())) {
+            SnapshotCodec.delete(old);
+        }
+
+        try (Stream<Path> children = Files.list(this.dir)) {
+            for (Path child : children.filter(p -> p.getFileName().toString().endsWith(".tmp")).toList()) {
+                SnapshotCodec.delete(child);
+            }
+        }
+    }
+}
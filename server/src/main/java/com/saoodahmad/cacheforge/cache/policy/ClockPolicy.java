@@ -0,0 +1,163 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * CLOCK: keys sit on a ring with a reference bit. The hand clears set bits
+ * as it passes and evicts the first key whose bit is already clear.
+ * New keys are inserted just behind the hand, in the slot that was freed.
+ */
+public class ClockPolicy implements EvictionPolicy {
+
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<CacheKey, KeyNode> index = new ConcurrentHashMap<>();
+
+    // head -> tail is the ring order, tail wraps around to head
+    private final KeyNodeList ring = new KeyNodeList();
+
+    private KeyNode hand;
+
+    public ClockPolicy(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public void touch(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+            return;
+        }
+
+        this.insert(key, 1);
+    }
+
+    @Override
+    public void touch(CacheKey key, long weight) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+            this.ring.reweigh(node, weight);
+            return;
+        }
+
+        this.insert(key, weight);
+    }
+
+    @Override
+    public boolean recordHitLockFree(CacheKey key) {
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void forget(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.remove(key);
+
+        if (node != null) {
+            this.unlink(node);
+        }
+    }
+
+    @Override
+    public List<CacheKey> evictIfOverLimit() {
+        if (this.ring.weight <= this.maxWeight) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = new ArrayList<>();
+
+        while (this.ring.weight > this.maxWeight) {
+            KeyNode node = this.hand != null ? this.hand : this.ring.head;
+
+            if (node.hits > 0) {
+                node.hits--;
+                this.hand = this.advance(node);
+                continue;
+            }
+
+            this.hand = node; // unlink() moves the hand past the evicted node
+            this.index.remove(node.key);
+            this.unlink(node);
+            evicted.add(node.key);
+        }
+
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return this.ring.size;
+    }
+
+    @Override
+    public long weightedSize() {
+        return this.ring.weight;
+    }
+
+    // ring order starting at the hand
+    @Override
+    public List<CacheKey> snapshot() {
+        List<CacheKey> keys = new ArrayList<>(this.ring.size);
+
+        KeyNode start = this.hand != null ? this.hand : this.ring.head;
+
+        for (int i = 0; i < this.ring.size; i++) {
+            keys.add(start.key);
+            start = this.advance(start);
+        }
+
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        this.index.clear();
+        this.ring.clear();
+        this.hand = null;
+    }
+
+    private KeyNode advance(KeyNode node) {
+        return node.next != null ? node.next : this.ring.head;
+    }
+
+    private void insert(CacheKey key, long weight) {
+        KeyNode node = new KeyNode(key);
+        node.weight = weight;
+        this.index.put(key, node);
+
+        if (this.hand == null) {
+            this.ring.addLast(node);
+        } else {
+            this.ring.addBefore(this.hand, node);
+        }
+    }
+
+    private void unlink(KeyNode node) {
+        if (node == this.hand) {
+            this.hand = this.ring.size > 1 ? this.advance(node) : null;
+        }
+
+        this.ring.remove(node);
+    }
+}
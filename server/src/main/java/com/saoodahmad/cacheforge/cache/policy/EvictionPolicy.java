@@ -0,0 +1,39 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.List;
+
+// all methods are called with the owning stripe's lock held
+public interface EvictionPolicy {
+
+    // records an access, inserting the key with weight 1 if it is not tracked yet
+    void touch(CacheKey key);
+
+    // records a write, weight is what the entry costs against the budget (1 per entry in count mode)
+    void touch(CacheKey key, long weight);
+
+    /*
+     * Called on a GET hit WITHOUT the stripe lock in lock-free read mode.
+     * Policies whose hit is a plain bit/counter write record it here and return true,
+     * the others return false and the engine buffers the access for touch() instead.
+     */
+    default boolean recordHitLockFree(CacheKey key) {
+        return false;
+    }
+
+    void forget(CacheKey key);
+
+    // keys the engine must drop from the store, the shared List.of() when nothing is over the limit
+    List<CacheKey> evictIfOverLimit();
+
+    int size();
+
+    // sum of the weights of all tracked keys, equals size() in count mode
+    long weightedSize();
+
+    // keys in eviction order, first key is evicted first
+    List<CacheKey> snapshot();
+
+    void clear();
+}
@@ -0,0 +1,19 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+public enum EvictionPolicyType {
+    LRU,
+    W_TINYLFU,
+    SIEVE,
+    S3_FIFO,
+    CLOCK;
+
+    public EvictionPolicy create(long maxWeight) {
+        return switch (this) {
+            case LRU -> new LRUPolicy(maxWeight);
+            case W_TINYLFU -> new WTinyLFUPolicy(maxWeight);
+            case SIEVE -> new SievePolicy(maxWeight);
+            case S3_FIFO -> new S3FifoPolicy(maxWeight);
+            case CLOCK -> new ClockPolicy(maxWeight);
+        };
+    }
+}
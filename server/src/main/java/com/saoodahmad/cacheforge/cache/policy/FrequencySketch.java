@@ -0,0 +1,100 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+/*
+ * Count-min sketch with 4-bit counters packed 16 to a long (depth 4).
+ * Once the number of increments reaches 10x the capacity all counters
+ * are halved, so popularity that is no longer recent ages out.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final int maxEntries;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.clear();
+    }
+
+    int frequency(CacheKey key) {
+        int hash = (int) key.hash64(); // already mixed
+        int start = (hash & 3) << 2;
+
+        int frequency = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    void increment(CacheKey key) {
+        int hash = (int) key.hash64(); // already mixed
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++this.size >= this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    void clear() {
+        int tableSize = Integer.highestOneBit(Math.max(this.maxEntries, 16) - 1) << 1;
+
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = 10 * this.maxEntries;
+        this.size = 0;
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+
+        if ((this.table[i] & mask) != mask) {
+            this.table[i] += 1L << offset;
+            return true;
+        }
+
+        return false; // counter saturated at 15
+    }
+
+    // halves every counter
+    private void reset() {
+        int odd = 0;
+
+        for (int i = 0; i < this.table.length; i++) {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+
+        this.size = (this.size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += (h >>> 32);
+
+        return ((int) h) & this.tableMask;
+    }
+}
@@ -0,0 +1,26 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+class KeyNode {
+
+    final CacheKey key;
+
+    // visited bit (SIEVE, CLOCK) or small saturating counter (S3-FIFO).
+    // Written by lock-free readers without synchronization, a lost update
+    // only costs the key one round of second-chance.
+    int hits;
+
+    // cost against the policy budget, kept in sync with KeyNodeList.weight
+    long weight = 1;
+
+    // which queue the node is in, used by S3-FIFO
+    boolean main;
+
+    KeyNode prev; // towards head
+    KeyNode next; // towards tail
+
+    KeyNode(CacheKey key) {
+        this.key = key;
+    }
+}
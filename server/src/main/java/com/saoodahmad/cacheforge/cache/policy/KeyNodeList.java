@@ -0,0 +1,122 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// intrusive doubly linked list, head is the newest node unless the policy says otherwise
+class KeyNodeList {
+
+    KeyNode head;
+    KeyNode tail;
+    int size;
+    long weight;
+
+    void addFirst(KeyNode node) {
+        node.prev = null;
+        node.next = this.head;
+
+        if (this.head != null) {
+            this.head.prev = node;
+        } else {
+            this.tail = node;
+        }
+
+        this.head = node;
+        this.size++;
+        this.weight += node.weight;
+    }
+
+    void addLast(KeyNode node) {
+        node.next = null;
+        node.prev = this.tail;
+
+        if (this.tail != null) {
+            this.tail.next = node;
+        } else {
+            this.head = node;
+        }
+
+        this.tail = node;
+        this.size++;
+        this.weight += node.weight;
+    }
+
+    void addBefore(KeyNode at, KeyNode node) {
+        if (at == this.head) {
+            this.addFirst(node);
+            return;
+        }
+
+        node.prev = at.prev;
+        node.next = at;
+        at.prev.next = node;
+        at.prev = node;
+        this.size++;
+        this.weight += node.weight;
+    }
+
+    void remove(KeyNode node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            this.head = node.next;
+        }
+
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            this.tail = node.prev;
+        }
+
+        node.prev = null;
+        node.next = null;
+        this.size--;
+        this.weight -= node.weight;
+    }
+
+    void reweigh(KeyNode node, long weight) {
+        this.weight += weight - node.weight;
+        node.weight = weight;
+    }
+
+    KeyNode removeLast() {
+        KeyNode node = this.tail;
+
+        if (node != null) {
+            this.remove(node);
+        }
+
+        return node;
+    }
+
+    // tail to head
+    List<CacheKey> keysFromTail() {
+        List<CacheKey> keys = new ArrayList<>(this.size);
+
+        for (KeyNode n = this.tail; n != null; n = n.prev) {
+            keys.add(n.key);
+        }
+
+        return keys;
+    }
+
+    // head to tail
+    List<CacheKey> keysFromHead() {
+        List<CacheKey> keys = new ArrayList<>(this.size);
+
+        for (KeyNode n = this.head; n != null; n = n.next) {
+            keys.add(n.key);
+        }
+
+        return keys;
+    }
+
+    void clear() {
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+        this.weight = 0;
+    }
+}
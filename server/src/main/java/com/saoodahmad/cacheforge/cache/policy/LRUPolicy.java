@@ -0,0 +1,128 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+
+public class LRUPolicy implements EvictionPolicy {
+
+    // key -> weight
+    private final LinkedHashMap<CacheKey, Long> accessOrder;
+
+    private volatile long maxWeight;
+
+    private long weightedSize;
+
+    public LRUPolicy(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+
+        this.accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public int size() {
+
+        return this.accessOrder.size();
+
+    }
+
+    @Override
+    public long weightedSize() {
+        return this.weightedSize;
+    }
+
+    @Override
+    public void touch(CacheKey key) {
+        if (key == null) return;
+
+        if (this.accessOrder.get(key) == null) { // get() also "touches" in access-order mode
+            this.touch(key, 1);
+        }
+
+    }
+
+    @Override
+    public void touch(CacheKey key, long weight) {
+        if (key == null) return;
+
+        Long old = this.accessOrder.get(key); // get() also "touches" in access-order mode
+
+        if (old != null && old == weight) {
+            return; // skips boxing the unchanged weight
+        }
+
+        this.accessOrder.put(key, weight);
+
+        this.weightedSize += weight - (old == null ? 0 : old);
+
+    }
+
+    @Override
+    public void forget(CacheKey key) {
+        if (key == null) return;
+
+        Long old = this.accessOrder.remove(key);
+
+        if (old != null) {
+            this.weightedSize -= old;
+        }
+
+    }
+
+
+    @Override
+    public List<CacheKey> evictIfOverLimit() {
+        long limit = this.maxWeight;
+
+        if (this.weightedSize <= limit) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = new ArrayList<>();
+        while (this.weightedSize > limit) {
+            CacheKey oldest = this.eldestKeyUnsafe();
+            if (oldest == null) break;
+            this.forget(oldest);
+            evicted.add(oldest);
+        }
+
+        return evicted;
+    }
+
+    private CacheKey eldestKeyUnsafe() {
+        for (Map.Entry<CacheKey, Long> e : this.accessOrder.entrySet()) {
+            return e.getKey(); // first entry is LRU in access-order mode
+        }
+
+        return null;
+    }
+
+    @Override
+    public ArrayList<CacheKey> snapshot() {
+        return new ArrayList<>(this.accessOrder.keySet()); // [LRU ... MRU]
+    }
+
+    @Override
+    public void clear() {
+        this.accessOrder.clear();
+        this.weightedSize = 0;
+    }
+
+
+}
@@ -0,0 +1,211 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * S3-FIFO: a small FIFO (10%) filters one-hit wonders, a main FIFO (90%)
+ * holds keys that were hit while in the small queue, and a ghost FIFO of
+ * recently dropped keys lets a returning key skip the small queue.
+ * Hits only bump a counter capped at 3, the main queue gives a key one
+ * extra lap per remaining count before evicting it.
+ */
+public class S3FifoPolicy implements EvictionPolicy {
+
+    private static final int MAX_FREQ = 3;
+
+    private final long maxWeight;
+    private final long smallMax;
+
+    private final ConcurrentHashMap<CacheKey, KeyNode> index = new ConcurrentHashMap<>();
+
+    // head is newest, eviction takes from the tail
+    private final KeyNodeList small = new KeyNodeList();
+    private final KeyNodeList main = new KeyNodeList();
+
+    private final LinkedHashSet<CacheKey> ghost = new LinkedHashSet<>();
+
+    public S3FifoPolicy(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+        this.smallMax = Math.max(1, maxWeight / 10);
+    }
+
+    @Override
+    public void touch(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            this.recordHit(node);
+            return;
+        }
+
+        this.insert(key, 1);
+    }
+
+    @Override
+    public void touch(CacheKey key, long weight) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            this.recordHit(node);
+            (node.main ? this.main : this.small).reweigh(node, weight);
+            return;
+        }
+
+        this.insert(key, weight);
+    }
+
+    @Override
+    public boolean recordHitLockFree(CacheKey key) {
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            this.recordHit(node);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void forget(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.remove(key);
+
+        if (node != null) {
+            (node.main ? this.main : this.small).remove(node);
+        }
+    }
+
+    @Override
+    public List<CacheKey> evictIfOverLimit() {
+        if (this.weightedSize() <= this.maxWeight) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = new ArrayList<>();
+
+        while (this.weightedSize() > this.maxWeight) {
+            CacheKey victim;
+
+            if (this.small.weight >= this.smallMax || this.main.size == 0) {
+                victim = this.evictSmall();
+            } else {
+                victim = this.evictMain();
+            }
+
+            if (victim != null) {
+                evicted.add(victim);
+            }
+        }
+
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return this.small.size + this.main.size;
+    }
+
+    @Override
+    public long weightedSize() {
+        return this.small.weight + this.main.weight;
+    }
+
+    // small queue first, then main, both oldest first
+    @Override
+    public List<CacheKey> snapshot() {
+        List<CacheKey> keys = this.small.keysFromTail();
+        keys.addAll(this.main.keysFromTail());
+
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        this.index.clear();
+        this.small.clear();
+        this.main.clear();
+        this.ghost.clear();
+    }
+
+    private void insert(CacheKey key, long weight) {
+        KeyNode node = new KeyNode(key);
+        node.weight = weight;
+        this.index.put(key, node);
+
+        if (this.ghost.remove(key)) {
+            node.main = true;
+            this.main.addFirst(node);
+        } else {
+            this.small.addFirst(node);
+        }
+    }
+
+    private void recordHit(KeyNode node) {
+        if (node.hits < MAX_FREQ) {
+            node.hits++;
+        }
+    }
+
+    // moves hit keys to main, returns the first key dropped or null if the queue drained
+    private CacheKey evictSmall() {
+        KeyNode node;
+
+        while ((node = this.small.removeLast()) != null) {
+            if (node.hits > 0) {
+                node.hits = 0;
+                node.main = true;
+                this.main.addFirst(node);
+                continue;
+            }
+
+            this.index.remove(node.key);
+            this.remember(node.key);
+
+            return node.key;
+        }
+
+        return null;
+    }
+
+    private CacheKey evictMain() {
+        KeyNode node;
+
+        while ((node = this.main.removeLast()) != null) {
+            if (node.hits > 0) {
+                node.hits--;
+                this.main.addFirst(node);
+                continue;
+            }
+
+            this.index.remove(node.key);
+
+            return node.key;
+        }
+
+        return null;
+    }
+
+    private void remember(CacheKey key) {
+        this.ghost.add(key);
+
+        // bounded by key count not weight, about as many keys as the cache currently holds
+        if (this.ghost.size() > Math.max(1, this.index.size())) {
+            Iterator<CacheKey> it = this.ghost.iterator();
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * SIEVE: FIFO queue with a visited bit and a hand that sweeps from the tail
+ * towards the head. Visited nodes get their bit cleared and stay in place,
+ * the first unvisited node is evicted. New keys go to the head.
+ */
+public class SievePolicy implements EvictionPolicy {
+
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<CacheKey, KeyNode> index = new ConcurrentHashMap<>();
+
+    private final KeyNodeList queue = new KeyNodeList();
+
+    private KeyNode hand;
+
+    public SievePolicy(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public void touch(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+            return;
+        }
+
+        this.insert(key, 1);
+    }
+
+    @Override
+    public void touch(CacheKey key, long weight) {
+        if (key == null) return;
+
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+            this.queue.reweigh(node, weight);
+            return;
+        }
+
+        this.insert(key, weight);
+    }
+
+    @Override
+    public boolean recordHitLockFree(CacheKey key) {
+        KeyNode node = this.index.get(key);
+
+        if (node != null) {
+            node.hits = 1;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void forget(CacheKey key) {
+        if (key == null) return;
+
+        KeyNode node = this.index.remove(key);
+
+        if (node != null) {
+            this.unlink(node);
+        }
+    }
+
+    @Override
+    public List<CacheKey> evictIfOverLimit() {
+        if (this.queue.weight <= this.maxWeight) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = new ArrayList<>();
+
+        while (this.queue.weight > this.maxWeight) {
+            KeyNode node = this.hand != null ? this.hand : this.queue.tail;
+
+            // one visit per pass, a reader setting the bit again only earns the key another round
+            if (node.hits > 0) {
+                node.hits--;
+                this.hand = node.prev != null ? node.prev : this.queue.tail;
+                continue;
+            }
+
+            this.hand = node; // unlink() moves the hand past the evicted node
+            this.index.remove(node.key);
+            this.unlink(node);
+            evicted.add(node.key);
+        }
+
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return this.queue.size;
+    }
+
+    @Override
+    public long weightedSize() {
+        return this.queue.weight;
+    }
+
+    @Override
+    public List<CacheKey> snapshot() {
+        return this.queue.keysFromTail();
+    }
+
+    @Override
+    public void clear() {
+        this.index.clear();
+        this.queue.clear();
+        this.hand = null;
+    }
+
+    private void insert(CacheKey key, long weight) {
+        KeyNode node = new KeyNode(key);
+        node.weight = weight;
+        this.index.put(key, node);
+        this.queue.addFirst(node);
+    }
+
+    private void unlink(KeyNode node) {
+        if (node == this.hand) {
+            this.hand = node.prev;
+        }
+
+        this.queue.remove(node);
+    }
+}
@@ -0,0 +1,224 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/*
+ * W-TinyLFU: new keys enter a small LRU window (1%). Keys leaving the window
+ * must beat the main region's LRU victim on estimated frequency to be admitted.
+ * The main region is a segmented LRU: probation (20%) and protected (80%),
+ * a hit in probation promotes the key to protected.
+ * Region sizes are weights, so in byte mode the percentages are of the byte budget.
+ */
+public class WTinyLFUPolicy implements EvictionPolicy {
+
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+
+    private final Region window = new Region();
+    private final Region probation = new Region();
+    private final Region protectedRegion = new Region();
+
+    private final FrequencySketch sketch;
+
+    // keys pushed out of the window by the current evictIfOverLimit(), kept across calls
+    private final ArrayDeque<CacheKey> candidates = new ArrayDeque<>();
+
+    public WTinyLFUPolicy(long maxWeight) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+
+        this.maxWeight = maxWeight;
+        this.windowMax = Math.max(1, maxWeight / 100);
+        this.protectedMax = (maxWeight - this.windowMax) * 80 / 100;
+
+        // the sketch is sized by entries, a byte budget would make it needlessly large
+        this.sketch = new FrequencySketch((int) Math.min(maxWeight, 1 << 20));
+    }
+
+    @Override
+    public void touch(CacheKey key) {
+        if (key == null) return;
+
+        this.sketch.increment(key);
+
+        // get() moves the key to the MRU end in access-order mode
+        if (this.window.keys.get(key) != null || this.protectedRegion.keys.get(key) != null) {
+            return;
+        }
+
+        Long weight = this.probation.remove(key);
+
+        if (weight != null) {
+            this.protectedRegion.put(key, weight);
+            this.demoteProtectedOverflow();
+            return;
+        }
+
+        this.window.put(key, 1);
+    }
+
+    @Override
+    public void touch(CacheKey key, long weight) {
+        if (key == null) return;
+
+        this.sketch.increment(key);
+
+        if (this.window.keys.containsKey(key)) {
+            this.window.put(key, weight);
+            return;
+        }
+
+        if (this.protectedRegion.keys.containsKey(key)) {
+            this.protectedRegion.put(key, weight);
+            this.demoteProtectedOverflow();
+            return;
+        }
+
+        if (this.probation.remove(key) != null) {
+            this.protectedRegion.put(key, weight);
+            this.demoteProtectedOverflow();
+            return;
+        }
+
+        this.window.put(key, weight);
+    }
+
+    @Override
+    public void forget(CacheKey key) {
+        if (key == null) return;
+
+        if (this.window.remove(key) == null && this.probation.remove(key) == null) {
+            this.protectedRegion.remove(key);
+        }
+    }
+
+    @Override
+    public List<CacheKey> evictIfOverLimit() {
+        if (this.window.weight <= this.windowMax && this.weightedSize() <= this.maxWeight) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = new ArrayList<>();
+
+        ArrayDeque<CacheKey> candidates = this.candidates;
+
+        while (this.window.weight > this.windowMax) {
+            CacheKey candidate = this.window.eldest();
+            this.probation.put(candidate, this.window.remove(candidate));
+            candidates.add(candidate);
+        }
+
+        while (this.weightedSize() > this.maxWeight) {
+            CacheKey victim = this.probation.eldest();
+
+            if (victim == null) {
+                victim = this.protectedRegion.eldest();
+            }
+
+            if (victim == null) break;
+
+            CacheKey candidate = candidates.poll();
+
+            CacheKey loser;
+
+            if (candidate == null || candidate.equals(victim)) {
+                loser = victim;
+            } else if (this.sketch.frequency(candidate) > this.sketch.frequency(victim)) {
+                loser = victim;
+            } else {
+                loser = candidate;
+            }
+
+            this.forget(loser);
+            candidates.remove(loser);
+            evicted.add(loser);
+        }
+
+        candidates.clear();
+
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return this.window.keys.size() + this.probation.keys.size() + this.protectedRegion.keys.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return this.window.weight + this.probation.weight + this.protectedRegion.weight;
+    }
+
+    @Override
+    public List<CacheKey> snapshot() {
+        List<CacheKey> keys = new ArrayList<>(this.size());
+
+        keys.addAll(this.probation.keys.keySet());
+        keys.addAll(this.protectedRegion.keys.keySet());
+        keys.addAll(this.window.keys.keySet());
+
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        this.window.clear();
+        this.probation.clear();
+        this.protectedRegion.clear();
+        this.sketch.clear();
+    }
+
+    private void demoteProtectedOverflow() {
+        while (this.protectedRegion.weight > this.protectedMax) {
+            CacheKey demoted = this.protectedRegion.eldest();
+            this.probation.put(demoted, this.protectedRegion.remove(demoted));
+        }
+    }
+
+    // access-ordered key -> weight map that keeps its total weight
+    private static class Region {
+
+        final LinkedHashMap<CacheKey, Long> keys = new LinkedHashMap<>(16, 0.75f, true);
+
+        long weight;
+
+        void put(CacheKey key, long w) {
+            Long old = this.keys.get(key); // moves the key to the MRU end
+
+            if (old != null && old == w) {
+                return; // skips boxing the unchanged weight
+            }
+
+            this.keys.put(key, w);
+
+            this.weight += w - (old == null ? 0 : old);
+        }
+
+        Long remove(CacheKey key) {
+            Long old = this.keys.remove(key);
+
+            if (old != null) {
+                this.weight -= old;
+            }
+
+            return old;
+        }
+
+        CacheKey eldest() {
+            Iterator<CacheKey> it = this.keys.keySet().iterator();
+
+            return it.hasNext() ? it.next() : null;
+        }
+
+        void clear() {
+            this.keys.clear();
+            this.weight = 0;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.saoodahmad.cacheforge.cache.replication;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.persistence.AofCodec;
+import com.saoodahmad.cacheforge.cache.persistence.Replay;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Follower side of asynchronous replication. Connects to the leader, drops whatever it
+ * held, applies the full state transfer and then the live stream, straight into the
+ * engine. Requests through the API are read only meanwhile.
+ *
+ * A lost connection is retried every reconnect-ms, and each reconnect syncs from scratch;
+ * reads see a partial cache until the transfer is done. The leader sends heartbeats even
+ * while it walks its state, so a few heartbeats of silence count as a lost connection.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.replication", name = "role", havingValue = "follower")
+public class ReplicationFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final StripedCacheEngine engine;
+    private final CacheForgeProperties.Replication props;
+
+    private final Thread follower;
+    private volatile boolean running;
+
+    private volatile SocketChannel channel;
+
+    // set once the full state is in, cleared while reconnecting
+    private volatile boolean synced;
+
+    // leader offsets, see ReplicationStream
+    private volatile long applied;
+    private volatile long leaderHead;
+
+    // leader wall clock of the newest heartbeat applied
+    private volatile long appliedAtMs;
+
+    public ReplicationFollower(StripedCacheEngine engine, CacheApi cacheApi, CacheForgeProperties props, MeterRegistry registry) {
+        this.props = props.getReplication();
+
+        ReplicationLeader.validateReplication(this.props);
+
+        this.engine = engine;
+
+        cacheApi.setReadOnly(true);
+
+        this.follower = Thread.ofPlatform().name("cacheforge-repl-follower").daemon().unstarted(this::run);
+
+        Tags base = Tags.of("cache", "cacheforge");
+
+        Gauge.builder("cacheforge.replication.lag.writes", this, ReplicationFollower::lagWrites)
+                .tags(base.and("role", "follower"))
+                .register(registry);
+
+        Gauge.builder("cacheforge.replication.lag", this, ReplicationFollower::lagMs)
+                .baseUnit("milliseconds")
+                .tags(base.and("role", "follower"))
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        this.running = true;
+
+        this.follower.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+
+        this.closeChannel();
+
+        LockSupport.unpark(this.follower);
+
+        this.follower.join();
+    }
+
+    public boolean isSynced() {
+        return this.synced;
+    }
+
+    // writes the leader made that are not applied here yet, as of the last heartbeat
+    public long lagWrites() {
+        return Math.max(0, this.leaderHead - this.applied);
+    }
+
+    // how old the newest leader state applied here is, NaN until synced; assumes synchronized clocks across hosts
+    public double lagMs() {
+        if (!this.synced) {
+            return Double.NaN;
+        }
+
+        return Math.max(0, System.currentTimeMillis() - this.appliedAtMs);
+    }
+
+    private void run() {
+        while (this.running) {
+            try {
+                this.follow();
+            } catch (IOException e) {
+                if (this.running) {
+                    log.warn("Replication from {}:{} lost, retrying in {} ms: {}",
+                            this.props.getHost(), this.props.getPort(), this.props.getReconnectMs(), e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // a record that does not decode or apply, resyncing from scratch replaces whatever it left
+                log.error("Applying replication from {}:{} failed, resyncing in {} ms",
+                        this.props.getHost(), this.props.getPort(), this.props.getReconnectMs(), e);
+            } finally {
+                this.synced = false;
+
+                this.closeChannel();
+            }
+
+            if (this.running) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(this.props.getReconnectMs()));
+            }
+        }
+    }
+
+    private void follow() throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(this.props.getHost(), this.props.getPort()));
+
+        // a read that times out throws, like a dropped connection
+        this.channel.socket().setSoTimeout((int) this.props.getHeartbeatMs() * ReplicationStream.MISSED_HEARTBEATS);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(this.channel.socket().getInputStream(), 1 << 16));
+        OutputStream out = this.channel.socket().getOutputStream();
+
+        out.write(ReplicationStream.MAGIC);
+
+        if (!Arrays.equals(in.readNBytes(ReplicationStream.MAGIC.length), ReplicationStream.MAGIC)) {
+            throw new IOException("Leader did not answer with the replication handshake");
+        }
+
+        long transferred = 0;
+
+        while (this.running) {
+            byte[] payload = AofCodec.readPayload(in);
+
+            switch (payload[0]) {
+                case ReplicationStream.READY -> {
+                    ByteBuffer buf = ByteBuffer.wrap(payload, 1, payload.length - 1);
+
+                    this.applied = buf.getLong();
+                    this.leaderHead = this.applied;
+                    this.appliedAtMs = System.currentTimeMillis();
+                    this.synced = true;
+
+                    out.write(ReplicationStream.ack(this.applied));
+
+                    log.info("Synced {} entries from leader {}:{}", transferred, this.props.getHost(), this.props.getPort());
+                }
+                // before the state is in, heartbeats only show the leader is still walking it
+                case ReplicationStream.HEARTBEAT -> {
+                    if (!this.synced) {
+                        continue;
+                    }
+
+                    ByteBuffer buf = ByteBuffer.wrap(payload, 1, payload.length - 1);
+
+                    this.applied = buf.getLong();
+                    this.leaderHead = buf.getLong();
+                    this.appliedAtMs = buf.getLong();
+
+                    out.write(ReplicationStream.ack(this.applied));
+                }
+                default -> {
+                    AofCodec.Record record = AofCodec.decode(ByteBuffer.wrap(payload));
+
+                    this.apply(record);
+
+                    if (!this.synced && record.op() == AofCodec.SET) {
+                        transferred++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(AofCodec.Record record) {
+        switch (record.op()) {
+            case AofCodec.SET -> {
+                // expired in transit, drop what an earlier record set
+                if (!Replay.set(this.engine, record.key(), record.val(), record.expiresAtMs(), System.currentTimeMillis())) {
+                    this.engine.deleteKey(record.key());
+                }
+            }
+            case AofCodec.DELETE -> this.engine.deleteKey(record.key());
+            case AofCodec.FLUSH -> this.engine.flushNamespace((String) record.val());
+            default -> this.engine.clear();
+        }
+    }
+
+    private void closeChannel() {
+        SocketChannel channel = this.channel;
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Closing replication connection failed", e);
+        }
+    }
+}
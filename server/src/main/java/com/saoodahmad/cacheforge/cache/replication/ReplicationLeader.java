@@ -0,0 +1,484 @@
+package com.saoodahmad.cacheforge.cache.replication;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.CacheEventListener;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.persistence.AofCodec;
+import com.saoodahmad.cacheforge.cache.persistence.Replay;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Leader side of asynchronous replication. Every set and removal the engine reports is
+ * put on each connected follower's queue under the stripe lock, and one sender thread per
+ * follower encodes and streams them, so a slow follower never holds up a request.
+ *
+ * A follower that connects first gets the full state: its queue is registered, then the
+ * entries are walked stripe by stripe into a temp file, which is sent once the walk is
+ * done, then the queue is streamed. The walk holds the engine's reshard lock, so it never
+ * waits on the network. Writes that land during the walk may be sent twice, once in the
+ * walk and once queued, which is harmless since the queued copy is the later one.
+ *
+ * A follower whose queue grows past max-backlog, or whose socket accepts no bytes for
+ * send-timeout-ms, is dropped and syncs again when it reconnects.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.replication", name = "role", havingValue = "leader")
+public class ReplicationLeader implements CacheEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationLeader.class);
+
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // one set, removal, clear or flush, encoded on the sender thread
+    private record Op(byte type, CacheKey key, Object val, long expiresAtNs, long offset) {}
+
+    // one connected follower
+    private static final class Link {
+        final SocketChannel channel;
+        final String name;
+
+        final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+
+        volatile boolean overflowed;
+        volatile boolean closed;
+
+        // offset the follower reported applied
+        volatile long acked;
+
+        // System.nanoTime() when the current socket write started, 0 outside of one
+        volatile long writingSinceNs;
+
+        Link(SocketChannel channel, String name) {
+            this.channel = channel;
+            this.name = name;
+        }
+    }
+
+    private final StripedCacheEngine engine;
+    private final TimeProvider time;
+    private final CacheForgeProperties.Replication props;
+    private final long heartbeatNs;
+    private final long sendTimeoutNs;
+
+    // writes reported since start, the offset of the latest one
+    private final AtomicLong head = new AtomicLong();
+
+    // copy on write, read on every write
+    private volatile Link[] links = new Link[0];
+
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public ReplicationLeader(StripedCacheEngine engine, TimeProvider time, CacheForgeProperties props, MeterRegistry registry) {
+        this.props = props.getReplication();
+
+        validateReplication(this.props);
+
+        this.engine = engine;
+        this.time = time;
+        this.heartbeatNs = TimeUnit.MILLISECONDS.toNanos(this.props.getHeartbeatMs());
+        this.sendTimeoutNs = TimeUnit.MILLISECONDS.toNanos(this.props.getSendTimeoutMs());
+
+        Tags base = Tags.of("cache", "cacheforge");
+
+        Gauge.builder("cacheforge.replication.followers", this, l -> l.links.length)
+                .tags(base)
+                .register(registry);
+
+        Gauge.builder("cacheforge.replication.lag.writes", this, ReplicationLeader::lag)
+                .tags(base.and("role", "leader"))
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(this.props.getHost(), this.props.getPort()));
+
+        this.running = true;
+
+        this.engine.addListener(this);
+
+        this.acceptor = Thread.ofPlatform().name("cacheforge-repl-acceptor").daemon().start(this::accept);
+        Thread.ofPlatform().name("cacheforge-repl-watchdog").daemon().start(this::watch);
+
+        log.info("Replication leader listening on {}", this.server.getLocalAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        this.running = false;
+
+        this.server.close();
+
+        // the port is only released once the blocked accept has returned
+        this.acceptor.join();
+
+        for (Link link : this.links) {
+            this.close(link);
+        }
+    }
+
+    // bound port, differs from the configured one when that is 0
+    public int port() throws IOException {
+        return ((InetSocketAddress) this.server.getLocalAddress()).getPort();
+    }
+
+    public int followers() {
+        return this.links.length;
+    }
+
+    // writes the furthest behind follower has yet to apply, 0 without followers
+    public long lag() {
+        long head = this.head.get();
+        long lag = 0;
+
+        for (Link link : this.links) {
+            lag = Math.max(lag, head - link.acked);
+        }
+
+        return lag;
+    }
+
+    @Override
+    public void written(CacheKey key, CacheEntry entry) {
+        this.enqueue(AofCodec.SET, key, entry.rawVal(), entry.expiresAtNs());
+    }
+
+    @Override
+    public void removed(CacheKey key) {
+        this.enqueue(AofCodec.DELETE, key, null, -1);
+    }
+
+    @Override
+    public void cleared() {
+        this.enqueue(AofCodec.CLEAR, null, null, -1);
+    }
+
+    @Override
+    public void flushed(String namespace) {
+        this.enqueue(AofCodec.FLUSH, null, namespace, -1);
+    }
+
+    // caller holds a stripe lock, so stays cheap without followers
+    private void enqueue(byte type, CacheKey key, Object val, long expiresAtNs) {
+        long offset = this.head.incrementAndGet();
+
+        Link[] links = this.links;
+
+        if (links.length == 0) {
+            return;
+        }
+
+        Op op = new Op(type, key, val, expiresAtNs, offset);
+
+        for (Link link : links) {
+            if (link.overflowed) {
+                continue;
+            }
+
+            if (link.queued.incrementAndGet() > this.props.getMaxBacklog()) {
+                // the sender drops it, nothing more is queued meanwhile
+                link.overflowed = true;
+                continue;
+            }
+
+            link.queue.offer(op);
+        }
+    }
+
+    private void accept() {
+        while (this.running) {
+            try {
+                SocketChannel channel = this.server.accept();
+
+                Link link = new Link(channel, String.valueOf(channel.getRemoteAddress()));
+
+                Thread.ofPlatform().name("cacheforge-repl-" + link.name).daemon().start(() -> this.serve(link));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Accepting a follower failed", e);
+            }
+        }
+    }
+
+    // drops followers stuck in a socket write, closing the channel fails the blocked write
+    private void watch() {
+        while (this.running) {
+            LockSupport.parkNanos(this, this.heartbeatNs);
+
+            long now = System.nanoTime();
+
+            for (Link link : this.links) {
+                long since = link.writingSinceNs;
+
+                if (since != 0 && now - since > this.sendTimeoutNs) {
+                    log.warn("Follower {} accepted nothing for {} ms, dropping it", link.name, this.props.getSendTimeoutMs());
+
+                    this.close(link);
+                }
+            }
+        }
+    }
+
+    private void serve(Link link) {
+        Path state = null;
+
+        try {
+            // also bounds the handshake and the gaps between acks
+            link.channel.socket().setSoTimeout((int) this.props.getSendTimeoutMs());
+
+            // the socket's own streams, unlike Channels' they may read and write from two threads at once
+            DataInputStream in = new DataInputStream(new BufferedInputStream(link.channel.socket().getInputStream()));
+            OutputStream out = new BufferedOutputStream(new TimedOutput(link.channel.socket().getOutputStream(), link), 1 << 16);
+
+            byte[] magic = in.readNBytes(ReplicationStream.MAGIC.length);
+
+            if (!Arrays.equals(magic, ReplicationStream.MAGIC)) {
+                log.warn("Connection from {} is not a CacheForge follower, closing it", link.name);
+                return;
+            }
+
+            // registered before the walk, so every write from here on reaches the follower either way
+            this.register(link);
+
+            long ready = this.head.get();
+
+            // answered before the walk, heartbeats keep the follower's read timeout from firing during it
+            out.write(ReplicationStream.MAGIC);
+            out.flush();
+
+            state = Files.createTempFile("cacheforge-repl-", ".sync");
+
+            long sent = this.writeState(state, out, ready);
+
+            out.write(AofCodec.clear());
+            Files.copy(state, out);
+            out.write(ReplicationStream.ready(ready));
+            out.flush();
+
+            Files.delete(state);
+            state = null;
+
+            log.info("Follower {} connected, sent {} entries", link.name, sent);
+
+            Thread.ofPlatform().name("cacheforge-repl-acks-" + link.name).daemon().start(() -> this.readAcks(link, in));
+
+            this.stream(link, out, ready);
+        } catch (IOException | UncheckedIOException e) {
+            if (this.running && !link.closed) {
+                log.warn("Follower {} disconnected: {}", link.name, e.getMessage());
+            }
+        } finally {
+            this.close(link);
+
+            if (state != null) {
+                try {
+                    Files.deleteIfExists(state);
+                } catch (IOException e) {
+                    log.warn("Deleting {} failed", state, e);
+                }
+            }
+        }
+    }
+
+    /*
+     * The state goes to the local disk, the socket only gets a heartbeat between batches
+     * now and then. The walk holds off no reshard, the link was registered before it, so
+     * whatever changes under it reaches the follower through the stream afterwards.
+     */
+    private long writeState(Path state, OutputStream out, long ready) throws IOException {
+        long[] written = {0};
+        long[] lastBeatNs = {System.nanoTime()};
+
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(state), 1 << 16)) {
+            this.engine.forEachEntries(entries -> {
+                try {
+                    for (Map.Entry<CacheKey, CacheEntry> e : entries) {
+                        CacheEntry entry = e.getValue();
+
+                        file.write(AofCodec.set(e.getKey(), entry.rawVal(), Replay.wallClockExpiry(entry.expiresAtNs(), this.time)));
+                    }
+
+                    long now = System.nanoTime();
+
+                    if (now - lastBeatNs[0] >= this.heartbeatNs) {
+                        out.write(ReplicationStream.heartbeat(ready, this.head.get(), System.currentTimeMillis()));
+                        out.flush();
+
+                        lastBeatNs[0] = now;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+
+                written[0] += entries.size();
+            });
+        }
+
+        return written[0];
+    }
+
+    private void stream(Link link, OutputStream out, long ready) throws IOException {
+        long sent = ready;
+        long lastBeatNs = System.nanoTime();
+
+        while (this.running && !link.closed) {
+            if (link.overflowed) {
+                log.warn("Follower {} fell more than {} writes behind, dropping it", link.name, this.props.getMaxBacklog());
+                return;
+            }
+
+            int drained = 0;
+
+            Op op;
+
+            while ((op = link.queue.poll()) != null) {
+                link.queued.decrementAndGet();
+
+                out.write(this.encode(op));
+
+                // stripes enqueue concurrently, offsets arrive almost but not quite in order
+                sent = Math.max(sent, op.offset);
+                drained++;
+            }
+
+            long now = System.nanoTime();
+            boolean beat = now - lastBeatNs >= this.heartbeatNs;
+
+            if (beat) {
+                out.write(ReplicationStream.heartbeat(sent, this.head.get(), System.currentTimeMillis()));
+
+                lastBeatNs = now;
+            }
+
+            if (drained > 0 || beat) {
+                out.flush();
+            }
+
+            if (drained == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+            }
+        }
+    }
+
+    private void readAcks(Link link, DataInputStream in) {
+        try {
+            while (!link.closed) {
+                ByteBuffer payload = ByteBuffer.wrap(AofCodec.readPayload(in));
+
+                if (payload.get() == ReplicationStream.ACK) {
+                    link.acked = payload.getLong();
+                }
+            }
+        } catch (IOException e) {
+            // the sender notices the closed socket on its next write
+            link.closed = true;
+        }
+    }
+
+    // marks the link while a write is blocked in the socket, see watch
+    private static final class TimedOutput extends FilterOutputStream {
+
+        private final Link link;
+
+        TimedOutput(OutputStream socket, Link link) {
+            super(socket);
+            this.link = link;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.link.writingSinceNs = System.nanoTime();
+
+            try {
+                this.out.write(b, off, len);
+            } finally {
+                this.link.writingSinceNs = 0;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+    }
+
+    private byte[] encode(Op op) {
+        return switch (op.type) {
+            case AofCodec.SET -> AofCodec.set(op.key, op.val, Replay.wallClockExpiry(op.expiresAtNs, this.time));
+            case AofCodec.DELETE -> AofCodec.delete(op.key);
+            case AofCodec.FLUSH -> AofCodec.flush((String) op.val);
+            default -> AofCodec.clear();
+        };
+    }
+
+    private synchronized void register(Link link) {
+        Link[] next = Arrays.copyOf(this.links, this.links.length + 1);
+        next[next.length - 1] = link;
+
+        this.links = next;
+    }
+
+    private synchronized void close(Link link) {
+        link.closed = true;
+
+        try {
+            link.channel.close();
+        } catch (IOException e) {
+            log.debug("Closing follower {} failed", link.name, e);
+        }
+
+        this.links = Arrays.stream(this.links).filter(l -> l != link).toArray(Link[]::new);
+    }
+
+    public static void validateReplication(CacheForgeProperties.Replication props) {
+        if (props.getHeartbeatMs() <= 0 || props.getMaxBacklog() <= 0 || props.getReconnectMs() <= 0
+                || props.getSendTimeoutMs() <= 0 || props.getSendTimeoutMs() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Replication heartbeat ms, max backlog, reconnect ms and send timeout ms must be > 0");
+        }
+
+        // the follower acks once per heartbeat, and times out reads after MISSED_HEARTBEATS of them
+        if (props.getSendTimeoutMs() <= props.getHeartbeatMs()
+                || props.getHeartbeatMs() > Integer.MAX_VALUE / ReplicationStream.MISSED_HEARTBEATS) {
+            throw new IllegalArgumentException("Replication send timeout ms must be larger than heartbeat ms, and heartbeat ms at most "
+                    + Integer.MAX_VALUE / ReplicationStream.MISSED_HEARTBEATS);
+        }
+    }
+}
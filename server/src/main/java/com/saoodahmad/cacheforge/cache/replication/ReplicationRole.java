@@ -0,0 +1,7 @@
+package com.saoodahmad.cacheforge.cache.replication;
+
+public enum ReplicationRole {
+    NONE,
+    LEADER, // streams its writes to followers
+    FOLLOWER // mirrors a leader, serves reads only
+}
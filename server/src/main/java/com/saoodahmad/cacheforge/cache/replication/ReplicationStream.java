@@ -0,0 +1,48 @@
+package com.saoodahmad.cacheforge.cache.replication;
+
+import com.saoodahmad.cacheforge.cache.persistence.AofCodec;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Replication stream layout, big endian, every frame as in the append-only file
+ * (length:i32 crc32c:i32 payload):
+ *
+ *   follower  magic "CFREPL1" ack*
+ *   leader    magic "CFREPL1" heartbeat* 'C' 'S'* ready (record | heartbeat)*
+ *
+ *   ready     'R' offset:i64                    the full state is sent, it covers writes up to offset
+ *   heartbeat 'H' offset:i64 head:i64 sentAtMs:i64
+ *             everything up to offset is sent, head is the leader's latest write
+ *   ack       'A' offset:i64                    the follower applied everything up to offset
+ *
+ * Records are the append-only file's 'S' 'D' 'C' 'F'. Offsets count the writes the leader
+ * reported since it started, the full state transfer does not advance them. Heartbeats
+ * before the clear only keep the connection alive while the leader walks its state.
+ */
+final class ReplicationStream {
+
+    static final byte[] MAGIC = {'C', 'F', 'R', 'E', 'P', 'L', '1'};
+
+    static final byte READY = 'R';
+    static final byte HEARTBEAT = 'H';
+    static final byte ACK = 'A';
+
+    // a follower that heard nothing for this many heartbeats takes the leader for gone
+    static final int MISSED_HEARTBEATS = 10;
+
+    private ReplicationStream() {
+    }
+
+    static byte[] ready(long offset) {
+        return AofCodec.frame(ByteBuffer.allocate(1 + 8).put(READY).putLong(offset).array());
+    }
+
+    static byte[] heartbeat(long offset, long head, long sentAtMs) {
+        return AofCodec.frame(ByteBuffer.allocate(1 + 8 + 8 + 8).put(HEARTBEAT).putLong(offset).putLong(head).putLong(sentAtMs).array());
+    }
+
+    static byte[] ack(long offset) {
+        return AofCodec.frame(ByteBuffer.allocate(1 + 8).put(ACK).putLong(offset).array());
+    }
+}
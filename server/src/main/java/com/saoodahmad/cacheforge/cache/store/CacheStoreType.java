@@ -0,0 +1,13 @@
+package com.saoodahmad.cacheforge.cache.store;
+
+public enum CacheStoreType {
+    HEAP,      // CacheEntry objects in a ConcurrentHashMap
+    OFF_HEAP;  // serialized entries in direct memory slabs
+
+    public CacheStore create(int slabBytes) {
+        return switch (this) {
+            case HEAP -> new InMemoryCacheStore();
+            case OFF_HEAP -> new OffHeapCacheStore(slabBytes);
+        };
+    }
+}
@@ -0,0 +1,377 @@
+package com.saoodahmad.cacheforge.cache.store;
+
+import com.saoodahmad.cacheforge.cache.engine.EntryTooLargeException;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+ * Keeps entries serialized in direct memory so values add nothing to the heap or to
+ * GC marking. Memory is carved from fixed size slabs into power of two slots, each slab
+ * serves one size class and a freed slot goes on its slab's free list. A slab whose last
+ * slot is freed is released, one is kept as a spare for whichever size class grows next,
+ * so memory freed by one value size is not pinned away from the others. The heap only
+ * holds the key -> slot address index, the keys themselves are referenced by the
+ * eviction policy anyway.
+ *
+ * Writers are already serialized by the stripe lock. Lock-free readers copy the slot
+ * under an optimistic StampedLock read and retry with a read lock if a writer got in.
+ */
+public class OffHeapCacheStore implements CacheStore {
+
+    private static final int MIN_SLOT = 32;
+
+    // expiresAt (8) + ttlInSecs (8) + flags (1) + generation (4) + value length (4)
+    private static final int HEADER = 25;
+
+    private static final byte FLAG_EXPIRY_COUNTED = 1;
+    private static final byte FLAG_NULL_VALUE = 2;
+    private static final byte FLAG_BINARY = 4;
+
+    private final int slabBytes;
+
+    private final ConcurrentHashMap<CacheKey, Long> index = new ConcurrentHashMap<>();
+
+    private final StampedLock memoryLock = new StampedLock();
+
+    // replaced on growth so optimistic readers never see a half-grown array, released
+    // slabs are nulled in place and a reader that trips over one retries
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+    // by slab index like slabs, only touched under the write lock
+    private Slab[] meta = new Slab[0];
+
+    // indexes of released slabs, reused before the arrays grow
+    private final BitSet released = new BitSet();
+
+    private ByteBuffer spare;
+
+    private int slabCount;
+
+    private final SizeClass[] classes;
+
+    public OffHeapCacheStore(int slabBytes) {
+        if (slabBytes < MIN_SLOT || Integer.bitCount(slabBytes) != 1) {
+            throw new IllegalArgumentException("Slab bytes must be a power of two >= " + MIN_SLOT);
+        }
+
+        this.slabBytes = slabBytes;
+
+        int count = Integer.numberOfTrailingZeros(slabBytes) - Integer.numberOfTrailingZeros(MIN_SLOT) + 1;
+
+        this.classes = new SizeClass[count];
+
+        for (int i = 0; i < count; i++) {
+            this.classes[i] = new SizeClass(MIN_SLOT << i);
+        }
+    }
+
+    @Override
+    public CacheEntry get(CacheKey key) {
+        long stamp = this.memoryLock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            try {
+                CacheEntry entry = this.read(key);
+
+                if (this.memoryLock.validate(stamp)) {
+                    return entry;
+                }
+            } catch (RuntimeException e) {
+                // torn read of a slot that was being rewritten, retry under the read lock
+            }
+        }
+
+        stamp = this.memoryLock.readLock();
+
+        try {
+            return this.read(key);
+        } finally {
+            this.memoryLock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void put(CacheKey key, CacheEntry entry) {
+        Object val = entry.rawVal();
+
+        // binary values are copied into the slot as they are, text is stored as UTF-8
+        byte[] bytes;
+
+        if (val instanceof byte[] raw) {
+            bytes = raw;
+        } else {
+            bytes = val == null ? new byte[0] : ((String) val).getBytes(StandardCharsets.UTF_8);
+        }
+
+        int length = HEADER + bytes.length;
+
+        if (length > this.slabBytes) {
+            throw new EntryTooLargeException("Entry of " + length + " bytes exceeds the off-heap slab size of " + this.slabBytes + " bytes");
+        }
+
+        byte flags = 0;
+
+        if (entry.expiryCounted()) flags |= FLAG_EXPIRY_COUNTED;
+        if (val == null) flags |= FLAG_NULL_VALUE;
+        if (val instanceof byte[]) flags |= FLAG_BINARY;
+
+        long stamp = this.memoryLock.writeLock();
+
+        try {
+            Long old = this.index.get(key);
+
+            if (old != null) {
+                this.free(old);
+            }
+
+            long address = this.allocate(length);
+
+            ByteBuffer slab = this.slabs[slabOf(address)];
+            int offset = offsetOf(address);
+
+            slab.putLong(offset, entry.expiresAtNs());
+            slab.putLong(offset + 8, entry.getTtlInSecs());
+            slab.put(offset + 16, flags);
+            slab.putInt(offset + 17, entry.generation());
+            slab.putInt(offset + 21, bytes.length);
+            slab.put(offset + HEADER, bytes);
+
+            this.index.put(key, address);
+        } finally {
+            this.memoryLock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public CacheEntry remove(CacheKey key) {
+        long stamp = this.memoryLock.writeLock();
+
+        try {
+            Long address = this.index.remove(key);
+
+            if (address == null) {
+                return null;
+            }
+
+            CacheEntry entry = this.decode(address);
+
+            this.free(address);
+
+            return entry;
+        } finally {
+            this.memoryLock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(CacheKey key) {
+        return this.index.containsKey(key);
+    }
+
+    @Override
+    public List<CacheKey> keys() {
+        return this.index.keySet().stream().toList();
+    }
+
+    @Override
+    public void clear() {
+        long stamp = this.memoryLock.writeLock();
+
+        try {
+            this.index.clear();
+            this.slabs = new ByteBuffer[0];
+            this.meta = new Slab[0];
+            this.released.clear();
+            this.spare = null;
+            this.slabCount = 0;
+
+            for (SizeClass sc : this.classes) {
+                sc.open.clear();
+            }
+        } finally {
+            this.memoryLock.unlockWrite(stamp);
+        }
+    }
+
+    // direct memory reserved by slabs and the spare, used or not
+    public long reservedBytes() {
+        return (long) (this.slabCount + (this.spare == null ? 0 : 1)) * this.slabBytes;
+    }
+
+    private CacheEntry read(CacheKey key) {
+        Long address = this.index.get(key);
+
+        return address == null ? null : this.decode(address);
+    }
+
+    private CacheEntry decode(long address) {
+        ByteBuffer slab = this.slabs[slabOf(address)];
+        int offset = offsetOf(address);
+
+        long expiresAt = slab.getLong(offset);
+        long ttlInSecs = slab.getLong(offset + 8);
+        byte flags = slab.get(offset + 16);
+        int generation = slab.getInt(offset + 17);
+        int length = slab.getInt(offset + 21);
+
+        // only possible on an unvalidated optimistic read
+        if (length < 0 || length > this.slabBytes - HEADER) {
+            throw new IllegalStateException("Slot is being rewritten");
+        }
+
+        byte[] bytes = new byte[length];
+        slab.get(offset + HEADER, bytes);
+
+        Object val;
+
+        if ((flags & FLAG_NULL_VALUE) != 0) {
+            val = null;
+        } else if ((flags & FLAG_BINARY) != 0) {
+            val = bytes;
+        } else {
+            val = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return CacheEntry.restore(val, ttlInSecs, expiresAt, (flags & FLAG_EXPIRY_COUNTED) != 0, generation);
+    }
+
+    private long allocate(int length) {
+        SizeClass sc = this.classes[classOf(length)];
+
+        // lowest slab with room first, so the higher ones get a chance to drain
+        int s = sc.open.nextSetBit(0);
+
+        if (s == -1) {
+            s = this.newSlab(sc);
+        }
+
+        Slab slab = this.meta[s];
+        int offset;
+
+        if (slab.freeHead != -1) {
+            offset = slab.freeHead;
+            slab.freeHead = this.slabs[s].getInt(offset);
+        } else {
+            offset = slab.next;
+            slab.next += sc.slotSize;
+        }
+
+        slab.live++;
+
+        if (slab.freeHead == -1 && slab.next + sc.slotSize > this.slabBytes) {
+            sc.open.clear(s);
+        }
+
+        return addressOf(s, offset);
+    }
+
+    private void free(long address) {
+        int s = slabOf(address);
+        int offset = offsetOf(address);
+
+        Slab slab = this.meta[s];
+
+        if (--slab.live == 0) {
+            this.release(s);
+
+            return;
+        }
+
+        // the free list is threaded through the freed slots themselves
+        this.slabs[s].putInt(offset, slab.freeHead);
+        slab.freeHead = offset;
+
+        slab.sc.open.set(s);
+    }
+
+    private int newSlab(SizeClass sc) {
+        ByteBuffer buf = this.spare != null ? this.spare : ByteBuffer.allocateDirect(this.slabBytes);
+
+        this.spare = null;
+
+        int s = this.released.nextSetBit(0);
+
+        if (s == -1) {
+            s = this.slabs.length;
+
+            ByteBuffer[] grown = Arrays.copyOf(this.slabs, s + 1);
+            grown[s] = buf;
+
+            this.meta = Arrays.copyOf(this.meta, s + 1);
+            this.slabs = grown;
+        } else {
+            this.released.clear(s);
+            this.slabs[s] = buf;
+        }
+
+        this.meta[s] = new Slab(sc);
+        this.slabCount++;
+
+        sc.open.set(s);
+
+        return s;
+    }
+
+    private void release(int s) {
+        this.meta[s].sc.open.clear(s);
+
+        if (this.spare == null) {
+            this.spare = this.slabs[s];
+        }
+
+        this.slabs[s] = null;
+        this.meta[s] = null;
+        this.released.set(s);
+        this.slabCount--;
+    }
+
+    private static int classOf(int length) {
+        int slot = Math.max(MIN_SLOT, Integer.highestOneBit(length - 1) << 1);
+
+        return Integer.numberOfTrailingZeros(slot) - Integer.numberOfTrailingZeros(MIN_SLOT);
+    }
+
+    private static long addressOf(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static class SizeClass {
+
+        final int slotSize;
+
+        final BitSet open = new BitSet(); // slabs of this class with a free or uncarved slot
+
+        SizeClass(int slotSize) {
+            this.slotSize = slotSize;
+        }
+    }
+
+    private static class Slab {
+
+        final SizeClass sc;
+
+        int live;          // slots handed out and not freed
+        int next;          // bump offset, slots past it were never handed out
+        int freeHead = -1; // offset of the first freed slot, -1 when none
+
+        Slab(SizeClass sc) {
+            this.sc = sc;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.saoodahmad.cacheforge.cache.stripe;
+
+import com.saoodahmad.cacheforge.cache.expiry.TimingWheel;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicy;
+import com.saoodahmad.cacheforge.cache.store.CacheStore;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+public class CacheStripe {
+
+    public final int id;
+    public final long capacity; // entries, or bytes when the cache has a byte budget
+    public final CacheStore store;
+    public final EvictionPolicy policy;
+    public final TimingWheel timers; // null when active expiry is disabled
+    public final NamespaceQuotas quotas;
+    public final ReadBuffer readBuffer = new ReadBuffer();
+    public final ReentrantLock lock = new ReentrantLock();
+
+    // set once a reshard split the stripe and emptied it, lock-free reads from it are void
+    public volatile boolean retired;
+
+    public CacheStripe(int id, long capacity, CacheStore store, EvictionPolicy policy, TimingWheel timers, NamespaceQuotas quotas) {
+        this.id = id;
+        this.capacity = capacity;
+        this.store = store;
+        this.policy = policy;
+        this.timers = timers;
+        this.quotas = quotas;
+    }
+
+    public int getStripeId() {
+        return this.id;
+    }
+
+    // replays buffered lock-free reads into the eviction policy, caller must hold the lock
+    public void drainReadBuffer() {
+        CacheKey key;
+
+        while ((key = this.readBuffer.poll()) != null) {
+            // key may have been deleted or evicted since it was read
+            if (this.store.containsKey(key)) {
+                this.policy.touch(key);
+                this.quotas.touch(key);
+            }
+        }
+    }
+
+    // drains only if the lock is free, readers never wait on writers
+    public void tryDrainReadBuffer() {
+        if (!this.lock.tryLock()) {
+            return;
+        }
+
+        try {
+            this.drainReadBuffer();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // (re)arms or disarms the key's expiry timer after a write, caller must hold the lock
+    public void scheduleExpiry(CacheKey key, CacheEntry entry) {
+        if (this.timers == null) return;
+
+        if (entry.expiresAtNs() == -1) {
+            this.timers.cancel(key);
+        } else {
+            this.timers.schedule(key, entry.expiresAtNs());
+        }
+    }
+
+    // drops the key from the store, the policy and the timing wheel, caller must hold the lock
+    public CacheEntry remove(CacheKey key) {
+        CacheEntry entry = this.store.remove(key);
+
+        this.policy.forget(key);
+        this.quotas.forget(key);
+
+        if (this.timers != null) {
+            this.timers.cancel(key);
+        }
+
+        return entry;
+    }
+
+    public void clear() {
+        this.drainReadBuffer();
+        this.store.clear();
+        this.policy.clear();
+        this.quotas.clear();
+
+        if (this.timers != null) {
+            this.timers.clear();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.saoodahmad.cacheforge.cache.stripe;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.Namespace;
+import com.saoodahmad.cacheforge.cache.model.NamespaceTable;
+import com.saoodahmad.cacheforge.cache.policy.LRUPolicy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * One stripe's share of the namespace quotas. A namespace with a quota keeps its own LRU
+ * order next to the stripe's eviction policy, and once it is over its share it gives up
+ * its own least recently used keys, so bulk writes to one namespace cannot push the hot
+ * keys of the others out. Namespaces without a quota cost one map lookup.
+ *
+ * All methods are called with the owning stripe's lock held.
+ */
+public class NamespaceQuotas {
+
+    // entry count and byte orders of one namespace, null where that limit is not set
+    private record Limits(LRUPolicy entries, LRUPolicy bytes) {}
+
+    // keyed by the shared Namespace instance, identity lookups
+    private final Map<Namespace, Limits> byNamespace = new HashMap<>();
+
+    // each limit is split evenly over the stripes like the capacity, rounded up
+    public NamespaceQuotas(Map<String, CacheForgeProperties.Quota> quotas, int stripes) {
+        for (Map.Entry<String, CacheForgeProperties.Quota> e : quotas.entrySet()) {
+            long maxEntries = e.getValue().getMaxEntries();
+            long maxBytes = e.getValue().getMaxBytes();
+
+            this.byNamespace.put(NamespaceTable.of(e.getKey()), new Limits(
+                    maxEntries > 0 ? new LRUPolicy((maxEntries + stripes - 1) / stripes) : null,
+                    maxBytes > 0 ? new LRUPolicy((maxBytes + stripes - 1) / stripes) : null));
+        }
+    }
+
+    public static void validate(Map<String, CacheForgeProperties.Quota> quotas) {
+        for (Map.Entry<String, CacheForgeProperties.Quota> e : quotas.entrySet()) {
+            CacheForgeProperties.Quota quota = e.getValue();
+
+            if (quota.getMaxEntries() < 0 || quota.getMaxBytes() < 0) {
+                throw new IllegalArgumentException("Quota of namespace " + e.getKey() + " must be >= 0");
+            }
+
+            if (quota.getMaxEntries() == 0 && quota.getMaxBytes() == 0) {
+                throw new IllegalArgumentException("Quota of namespace " + e.getKey() + " needs max entries or max bytes");
+            }
+        }
+    }
+
+    public boolean covers(CacheKey key) {
+        return !this.byNamespace.isEmpty() && this.byNamespace.containsKey(key.namespace());
+    }
+
+    // the namespace's byte share, 0 when it has none
+    public long maxBytes(CacheKey key) {
+        Limits limits = this.limits(key);
+
+        return limits == null || limits.bytes == null ? 0 : limits.bytes.getMaxWeight();
+    }
+
+    // records a write of val under key
+    public void touch(CacheKey key, Object val) {
+        Limits limits = this.limits(key);
+
+        if (limits == null) {
+            return;
+        }
+
+        if (limits.entries != null) {
+            limits.entries.touch(key, 1);
+        }
+
+        if (limits.bytes != null) {
+            limits.bytes.touch(key, CacheEntry.estimateBytes(key, val));
+        }
+    }
+
+    // records a read, the key is already tracked
+    public void touch(CacheKey key) {
+        Limits limits = this.limits(key);
+
+        if (limits == null) {
+            return;
+        }
+
+        if (limits.entries != null) {
+            limits.entries.touch(key);
+        }
+
+        if (limits.bytes != null) {
+            limits.bytes.touch(key);
+        }
+    }
+
+    public void forget(CacheKey key) {
+        Limits limits = this.limits(key);
+
+        if (limits == null) {
+            return;
+        }
+
+        if (limits.entries != null) {
+            limits.entries.forget(key);
+        }
+
+        if (limits.bytes != null) {
+            limits.bytes.forget(key);
+        }
+    }
+
+    // keys of key's namespace the engine must drop, least recently used first; List.of() when within quota
+    public List<CacheKey> evictIfOverQuota(CacheKey key) {
+        Limits limits = this.limits(key);
+
+        if (limits == null) {
+            return List.of();
+        }
+
+        List<CacheKey> evicted = limits.entries == null ? List.of() : limits.entries.evictIfOverLimit();
+
+        if (limits.bytes == null) {
+            return evicted;
+        }
+
+        // gone from the byte order too before it picks its own victims
+        for (int i = 0; i < evicted.size(); i++) {
+            limits.bytes.forget(evicted.get(i));
+        }
+
+        List<CacheKey> overBytes = limits.bytes.evictIfOverLimit();
+
+        if (overBytes.isEmpty()) {
+            return evicted;
+        }
+
+        if (limits.entries != null) {
+            for (int i = 0; i < overBytes.size(); i++) {
+                limits.entries.forget(overBytes.get(i));
+            }
+        }
+
+        if (evicted.isEmpty()) {
+            return overBytes;
+        }
+
+        List<CacheKey> both = new ArrayList<>(evicted);
+        both.addAll(overBytes);
+
+        return both;
+    }
+
+    public void clear() {
+        for (Limits limits : this.byNamespace.values()) {
+            if (limits.entries != null) {
+                limits.entries.clear();
+            }
+
+            if (limits.bytes != null) {
+                limits.bytes.clear();
+            }
+        }
+    }
+
+    private Limits limits(CacheKey key) {
+        return this.byNamespace.isEmpty() ? null : this.byNamespace.get(key.namespace());
+    }
+}
@@ -0,0 +1,69 @@
+package com.saoodahmad.cacheforge.cache.stripe;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Lossy ring buffer of recently read keys.
+ * Any thread may offer(), only the stripe lock holder may poll().
+ * When the buffer is full or a CAS is lost the access is dropped,
+ * which only makes the LRU order slightly less exact.
+ */
+public class ReadBuffer {
+
+    static final int SIZE = 128; // must be a power of two
+    private static final int MASK = SIZE - 1;
+    private static final int DRAIN_THRESHOLD = SIZE / 2;
+
+    private final AtomicReferenceArray<CacheKey> buffer = new AtomicReferenceArray<>(SIZE);
+
+    private final AtomicLong writeCounter = new AtomicLong();
+
+    private volatile long readCounter;
+
+    // returns true when the caller should try to drain the buffer
+    public boolean offer(CacheKey key) {
+        long head = this.readCounter;
+        long tail = this.writeCounter.get();
+
+        long size = tail - head;
+
+        if (size >= SIZE) {
+            return true;
+        }
+
+        if (this.writeCounter.compareAndSet(tail, tail + 1)) {
+            this.buffer.lazySet((int) (tail & MASK), key);
+        }
+
+        return size + 1 >= DRAIN_THRESHOLD;
+    }
+
+    // must be called with the stripe lock held
+    public CacheKey poll() {
+        long head = this.readCounter;
+
+        if (head == this.writeCounter.get()) {
+            return null;
+        }
+
+        int idx = (int) (head & MASK);
+
+        CacheKey key = this.buffer.get(idx);
+
+        if (key == null) {
+            return null; // writer claimed the slot but has not published yet
+        }
+
+        this.buffer.lazySet(idx, null);
+        this.readCounter = head + 1;
+
+        return key;
+    }
+
+    public boolean isEmpty() {
+        return this.readCounter == this.writeCounter.get();
+    }
+}
@@ -0,0 +1,25 @@
+package com.saoodahmad.cacheforge.cache.stripe;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+public class StripeRouter {
+
+    private final int mask;
+
+    public StripeRouter(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two");
+        }
+
+        this.mask = stripeCount - 1;
+    }
+
+    public int stripeCount() {
+        return this.mask + 1;
+    }
+
+    // high half of the key's 64-bit hash, the low half is left to the maps inside the stripe
+    public int stripeIndex(CacheKey cKey) {
+        return (int) (cKey.hash64() >>> 32) & this.mask;
+    }
+}
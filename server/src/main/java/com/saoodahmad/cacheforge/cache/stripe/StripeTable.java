@@ -0,0 +1,75 @@
+package com.saoodahmad.cacheforge.cache.stripe;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * Stripes and the router that maps keys onto them. While the engine doubles the
+ * stripe count, `next` is the doubled table: stripe i of this table splits into
+ * stripes i and i + n of `next`. Once stripe i's keys have been copied over it is
+ * marked migrated and its keys route through `next` from then on.
+ */
+public class StripeTable {
+
+    public final CacheStripe[] stripes;
+    public final StripeRouter router;
+
+    public final StripeTable next; // null unless a resize is in progress
+
+    private final AtomicIntegerArray migrated;
+
+    public StripeTable(CacheStripe[] stripes) {
+        this(stripes, null);
+    }
+
+    private StripeTable(CacheStripe[] stripes, StripeTable next) {
+        this.stripes = stripes;
+        this.router = new StripeRouter(stripes.length);
+        this.next = next;
+        this.migrated = next == null ? null : new AtomicIntegerArray(stripes.length);
+    }
+
+    // same stripes, routing through `next` for every stripe marked migrated
+    public StripeTable resizingInto(StripeTable next) {
+        return new StripeTable(this.stripes, next);
+    }
+
+    public CacheStripe stripeFor(CacheKey key) {
+        int idx = this.router.stripeIndex(key);
+
+        if (this.next != null && this.migrated.get(idx) == 1) {
+            return this.next.stripeFor(key);
+        }
+
+        return this.stripes[idx];
+    }
+
+    public void markMigrated(int idx) {
+        this.migrated.set(idx, 1);
+    }
+
+    // stripes that currently own keys
+    public List<CacheStripe> activeStripes() {
+        if (this.next == null) {
+            return List.of(this.stripes);
+        }
+
+        int n = this.stripes.length;
+
+        List<CacheStripe> active = new ArrayList<>(2 * n);
+
+        for (int i = 0; i < n; i++) {
+            if (this.migrated.get(i) == 1) {
+                active.add(this.next.stripes[i]);
+                active.add(this.next.stripes[i + n]);
+            } else {
+                active.add(this.stripes[i]);
+            }
+        }
+
+        return active;
+    }
+}
@@ -0,0 +1,477 @@
+package com.saoodahmad.cacheforge.cache.tier;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/*
+ * Second tier below the stripes for entries the eviction policy pushes out. Entries are
+ * appended to fixed-size memory-mapped segment files, and only an index of key -> (segment,
+ * offset, length, expiry, namespace generation) stays on the heap, so a warm tail many times
+ * the heap fits on disk. The generation lives only in the index, the tier is never reloaded.
+ *
+ *   record  ttlInSecs:i64 expiresAtNs:i64 binary:u8 length:u16 namespace length:u16 key length:i32 value
+ *
+ * Nothing is updated in place. Taking, overwriting or re-spilling a key only moves or drops
+ * its index entry and leaves the old record as dead bytes. compact() copies the live records
+ * out of old segments that are mostly dead and deletes them, and drops the oldest segments
+ * whole once the tier is over maxBytes; the keys in them are simply gone.
+ *
+ * Callers hold the key's stripe lock, so calls for one key never race each other. Only
+ * compact() runs alongside them, and index entries are only ever swapped with
+ * compare-and-set, so whichever of the two moves a key first wins.
+ *
+ * The tier is not persistent, old segments are deleted on startup. The append-only file
+ * and snapshots cover spilled keys.
+ */
+public class DiskTier {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskTier.class);
+
+    private static final int HEADER_BYTES = 8 + 8 + 1 + 2;
+
+    private final TimeProvider time;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final int compactPercentage;
+
+    private final ConcurrentHashMap<CacheKey, Slot> index = new ConcurrentHashMap<>();
+
+    // guards segments, active and every write into a segment
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // oldest first, the last one is active
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private Segment active;
+    private int nextSegmentId;
+
+    private static final class Segment {
+
+        final int id;
+        final Path path;
+        final MappedByteBuffer buf;
+
+        // append offset, guarded by appendLock while active, fixed after
+        int end;
+
+        final AtomicLong deadBytes = new AtomicLong();
+
+        // readers that already found a slot in a dropped segment treat it as a miss
+        volatile boolean dropped;
+
+        Segment(int id, Path path, MappedByteBuffer buf) {
+            this.id = id;
+            this.path = path;
+            this.buf = buf;
+        }
+    }
+
+    private record Slot(Segment segment, int offset, int length, long expiresAtNs, int generation) {
+
+        boolean live(long nowNs) {
+            return !this.segment.dropped && (this.expiresAtNs == -1 || this.expiresAtNs > nowNs);
+        }
+    }
+
+    public DiskTier(CacheForgeProperties.Tier props, TimeProvider time) {
+        if (props.getSegmentBytes() <= HEADER_BYTES || props.getMaxBytes() < 2L * props.getSegmentBytes()) {
+            throw new IllegalArgumentException("Tier max bytes must hold at least two segments");
+        }
+
+        if (props.getCompactPercentage() <= 0 || props.getCompactPercentage() >= 100) {
+            throw new IllegalArgumentException("Tier compact percentage must be between 0 and 100");
+        }
+
+        this.time = time;
+        this.dir = Path.of(props.getDir());
+        this.segmentBytes = props.getSegmentBytes();
+        this.maxBytes = props.getMaxBytes();
+        this.compactPercentage = props.getCompactPercentage();
+
+        try {
+            Files.createDirectories(this.dir);
+
+            try (Stream<Path> old = Files.list(this.dir)) {
+                for (Path p : old.filter(p -> p.getFileName().toString().endsWith(".seg")).toList()) {
+                    Files.delete(p);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Preparing disk tier in " + this.dir + " failed", e);
+        }
+
+        this.appendLock.lock();
+
+        try {
+            this.roll();
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // false when the entry cannot be kept (too big, or the disk failed), the caller drops it
+    public boolean put(CacheKey key, CacheEntry entry) {
+        Slot slot = this.append(key, entry);
+
+        if (slot == null) {
+            return false;
+        }
+
+        dead(this.index.put(key, slot));
+
+        return true;
+    }
+
+    // removes the key and returns its entry, possibly expired, or null if the tier does not have it
+    public CacheEntry take(CacheKey key) {
+        while (true) {
+            Slot slot = this.index.get(key);
+
+            if (slot == null) {
+                return null;
+            }
+
+            // lost to compaction moving it, read the new slot
+            if (!this.index.remove(key, slot)) {
+                continue;
+            }
+
+            dead(slot);
+
+            if (slot.segment.dropped) {
+                return null;
+            }
+
+            return read(slot);
+        }
+    }
+
+    // drops the key without reading it, a set made it stale
+    public void remove(CacheKey key) {
+        dead(this.index.remove(key));
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    // disk taken by segments, dead records included
+    public long bytes() {
+        this.appendLock.lock();
+
+        try {
+            return (long) this.segments.size() * this.segmentBytes;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    public void clear() {
+        this.appendLock.lock();
+
+        try {
+            this.index.clear();
+
+            while (!this.segments.isEmpty()) {
+                this.drop(this.segments.pollFirst());
+            }
+
+            this.roll();
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // unexpired entries in batches of up to batchSize, read one at a time so the tier never has to fit on the heap
+    public void forEachBatch(int batchSize, Consumer<List<Map.Entry<CacheKey, CacheEntry>>> consumer) {
+        long nowNs = this.time.nowNs();
+
+        List<Map.Entry<CacheKey, CacheEntry>> batch = new ArrayList<>(batchSize);
+
+        for (Map.Entry<CacheKey, Slot> e : this.index.entrySet()) {
+            Slot slot = e.getValue();
+
+            if (!slot.live(nowNs)) {
+                continue;
+            }
+
+            batch.add(Map.entry(e.getKey(), read(slot)));
+
+            if (batch.size() == batchSize) {
+                consumer.accept(batch);
+
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    // drops keys written before their namespace was last flushed, returns how many
+    public int removeStale(ToIntFunction<CacheKey> generationOf) {
+        int removed = 0;
+
+        for (Map.Entry<CacheKey, Slot> e : this.index.entrySet()) {
+            Slot slot = e.getValue();
+
+            if (slot.generation != generationOf.applyAsInt(e.getKey()) && this.index.remove(e.getKey(), slot)) {
+                dead(slot);
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /*
+     * Background upkeep, one step per call: drops the oldest segments while the tier is over
+     * maxBytes, otherwise copies the live records out of the oldest segment whose live share
+     * fell below compactPercentage and deletes it.
+     */
+    public void compact() {
+        List<Segment> dropped = new ArrayList<>();
+        Segment victim = null;
+
+        this.appendLock.lock();
+
+        try {
+            while ((long) this.segments.size() * this.segmentBytes > this.maxBytes && this.segments.size() > 1) {
+                Segment oldest = this.segments.pollFirst();
+
+                this.drop(oldest);
+
+                dropped.add(oldest);
+            }
+
+            if (dropped.isEmpty()) {
+                for (Segment segment : this.segments) {
+                    if (segment == this.active) {
+                        break;
+                    }
+
+                    long live = segment.end - segment.deadBytes.get();
+
+                    if (live * 100 < (long) segment.end * this.compactPercentage) {
+                        victim = segment;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+
+        if (!dropped.isEmpty()) {
+            // their keys are gone, forget them so the index does not keep growing
+            this.index.entrySet().removeIf(e -> e.getValue().segment.dropped);
+
+            log.info("Disk tier over {} bytes, dropped {} oldest segments", this.maxBytes, dropped.size());
+
+            return;
+        }
+
+        if (victim != null) {
+            this.relocate(victim);
+        }
+    }
+
+    // sealed segments never change, so they are read without the append lock
+    private void relocate(Segment victim) {
+        long nowNs = this.time.nowNs();
+
+        int moved = 0;
+
+        for (int at = 0; at < victim.end; ) {
+            int nsLength = victim.buf.getShort(at + 17) & 0xffff;
+            int keyLength = victim.buf.getShort(at + 19 + nsLength) & 0xffff;
+            int valLength = victim.buf.getInt(at + 21 + nsLength + keyLength);
+
+            int length = HEADER_BYTES + nsLength + 2 + keyLength + 4 + valLength;
+
+            CacheKey key = new CacheKey(string(victim.buf, at + 19, nsLength), string(victim.buf, at + 21 + nsLength, keyLength));
+
+            Slot slot = this.index.get(key);
+
+            if (slot != null && slot.segment == victim && slot.offset == at) {
+                if (!slot.live(nowNs)) {
+                    this.index.remove(key, slot);
+                } else if (this.move(key, slot)) {
+                    moved++;
+                }
+            }
+
+            at += length;
+        }
+
+        this.appendLock.lock();
+
+        try {
+            this.segments.remove(victim);
+            this.drop(victim);
+        } finally {
+            this.appendLock.unlock();
+        }
+
+        log.debug("Compacted disk tier segment {}, moved {} live records", victim.id, moved);
+    }
+
+    // appends a copy and points the key at it, unless a take or put moved the key meanwhile
+    private boolean move(CacheKey key, Slot from) {
+        Slot to = this.append(key, read(from));
+
+        if (to == null) {
+            return false;
+        }
+
+        if (!this.index.replace(key, from, to)) {
+            dead(to);
+
+            return false;
+        }
+
+        dead(from);
+
+        return true;
+    }
+
+    private Slot append(CacheKey key, CacheEntry entry) {
+        byte[] ns = key.getNamespace().getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] v = entry.isBinary() ? entry.valBytes() : entry.getVal().getBytes(StandardCharsets.UTF_8);
+
+        int length = HEADER_BYTES + ns.length + 2 + k.length + 4 + v.length;
+
+        // the u16 length fields cannot hold it, not spilled rather than written truncated
+        if (length > this.segmentBytes || ns.length > 0xffff || k.length > 0xffff) {
+            return null;
+        }
+
+        this.appendLock.lock();
+
+        try {
+            if (this.segmentBytes - this.active.end < length && !this.tryRoll()) {
+                return null;
+            }
+
+            Segment segment = this.active;
+            MappedByteBuffer buf = segment.buf;
+
+            int at = segment.end;
+
+            buf.putLong(at, entry.getTtlInSecs());
+            buf.putLong(at + 8, entry.expiresAtNs());
+            buf.put(at + 16, (byte) (entry.isBinary() ? 1 : 0));
+            buf.putShort(at + 17, (short) ns.length);
+            buf.put(at + 19, ns);
+            buf.putShort(at + 19 + ns.length, (short) k.length);
+            buf.put(at + 21 + ns.length, k);
+            buf.putInt(at + 21 + ns.length + k.length, v.length);
+            buf.put(at + 25 + ns.length + k.length, v);
+
+            segment.end += length;
+
+            return new Slot(segment, at, length, entry.expiresAtNs(), entry.generation());
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // caller holds appendLock; false when the next segment cannot be created
+    private boolean tryRoll() {
+        try {
+            this.roll();
+
+            return true;
+        } catch (UncheckedIOException e) {
+            log.error("Adding a disk tier segment failed, spilled entries are dropped", e);
+
+            return false;
+        }
+    }
+
+    // caller holds appendLock
+    private void roll() {
+        int id = this.nextSegmentId++;
+
+        Path path = this.dir.resolve(String.format("%08d.seg", id));
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping outlives the channel
+            this.active = new Segment(id, path, file.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Creating disk tier segment " + path + " failed", e);
+        }
+
+        this.segments.addLast(this.active);
+    }
+
+    // caller holds appendLock and has taken the segment out of segments
+    private void drop(Segment segment) {
+        segment.dropped = true;
+
+        // readers still holding the buffer keep the mapping alive, deleting the file is safe
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Deleting disk tier segment {} failed", segment.path, e);
+        }
+    }
+
+    private static void dead(Slot slot) {
+        if (slot != null) {
+            slot.segment.deadBytes.addAndGet(slot.length);
+        }
+    }
+
+    private static CacheEntry read(Slot slot) {
+        MappedByteBuffer buf = slot.segment.buf;
+
+        int at = slot.offset;
+
+        long ttlInSecs = buf.getLong(at);
+        long expiresAtNs = buf.getLong(at + 8);
+        boolean binary = buf.get(at + 16) == 1;
+
+        int nsLength = buf.getShort(at + 17) & 0xffff;
+        int keyLength = buf.getShort(at + 19 + nsLength) & 0xffff;
+        int valAt = at + 25 + nsLength + keyLength;
+
+        byte[] v = new byte[buf.getInt(valAt - 4)];
+        buf.get(valAt, v);
+
+        return CacheEntry.restore(binary ? v : new String(v, StandardCharsets.UTF_8), ttlInSecs, expiresAtNs, false, slot.generation);
+    }
+
+    private static String string(MappedByteBuffer buf, int at, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(at, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
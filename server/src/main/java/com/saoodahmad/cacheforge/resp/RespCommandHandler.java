@@ -0,0 +1,326 @@
+package com.saoodahmad.cacheforge.resp;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.api.CacheOperationOutput;
+import com.saoodahmad.cacheforge.cache.api.ReadOnlyReplicaException;
+import com.saoodahmad.cacheforge.cache.engine.EntryTooLargeException;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.KeyTooLongException;
+import com.saoodahmad.cacheforge.cache.model.NamespaceLimitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Maps Redis commands onto CacheApi. A Redis key "ns:key" is namespace "ns" and key "key"
+ * (split at the first ':'), a key without ':' lives in the "default" namespace.
+ *
+ * Only what the engine can do atomically is supported: GET, SET with EX/PX, DEL, MGET, MSET,
+ * plus the connection commands clients and redis-benchmark send on connect. Multi-key
+ * commands go through the batch API, each stripe is locked once per command.
+ */
+final class RespCommandHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(RespCommandHandler.class);
+
+    static final String DEFAULT_NAMESPACE = "default";
+
+    private final CacheApi cacheApi;
+
+    RespCommandHandler(CacheApi cacheApi) {
+        this.cacheApi = cacheApi;
+    }
+
+    void execute(List<byte[]> args, RespConnection conn) {
+        RespOutput out = conn.out;
+
+        String name = new String(args.get(0), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+
+        try {
+            switch (name) {
+                case "GET" -> this.get(args, out);
+                case "SET" -> {
+                    conn.wrote = true;
+                    this.set(args, out);
+                }
+                case "DEL" -> {
+                    conn.wrote = true;
+                    this.del(args, out);
+                }
+                case "MGET" -> this.mget(args, out);
+                case "MSET" -> {
+                    conn.wrote = true;
+                    this.mset(args, out);
+                }
+                case "PING" -> this.ping(args, out);
+                case "ECHO" -> this.echo(args, out);
+                case "HELLO" -> this.hello(args, conn);
+                case "SELECT" -> this.select(args, out);
+                case "QUIT" -> {
+                    out.simple("OK");
+                    conn.closeAfterFlush = true;
+                }
+                // clients probe these on connect, an empty answer means "nothing configured"
+                case "COMMAND", "CONFIG" -> out.array(0);
+                case "CLIENT" -> out.simple("OK");
+                default -> out.error("ERR unknown command '" + name.toLowerCase(Locale.ROOT) + "'");
+            }
+        } catch (EntryTooLargeException | KeyTooLongException | NamespaceLimitException e) {
+            out.error("ERR " + e.getMessage());
+        } catch (ReadOnlyReplicaException e) {
+            out.error("READONLY " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("RESP command {} failed", name, e);
+
+            out.error("ERR internal error");
+        }
+    }
+
+    private void get(List<byte[]> args, RespOutput out) {
+        if (args.size() != 2) {
+            wrongArity(out, "get");
+            return;
+        }
+
+        String key = utf8(args.get(1));
+
+        CacheOperationOutput output = this.cacheApi.getKey(namespaceOf(key), keyOf(key));
+
+        if (output.hit) {
+            out.bulk(output.data.valBytes());
+        } else {
+            out.nil();
+        }
+    }
+
+    // SET key value [EX seconds | PX milliseconds]
+    private void set(List<byte[]> args, RespOutput out) {
+        if (args.size() < 3) {
+            wrongArity(out, "set");
+            return;
+        }
+
+        long ttl = -1;
+
+        for (int i = 3; i < args.size(); i++) {
+            String option = new String(args.get(i), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+
+            boolean ex = option.equals("EX");
+
+            if ((!ex && !option.equals("PX")) || ttl != -1 || i + 1 == args.size()) {
+                out.error("ERR syntax error");
+                return;
+            }
+
+            long amount;
+
+            try {
+                amount = Long.parseLong(new String(args.get(++i), StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                out.error("ERR value is not an integer or out of range");
+                return;
+            }
+
+            if (amount <= 0) {
+                out.error("ERR invalid expire time in 'set' command");
+                return;
+            }
+
+            // TTLs are whole seconds in the engine, PX rounds up so a key never lives shorter
+            ttl = ex ? amount : (amount + 999) / 1000;
+        }
+
+        String key = utf8(args.get(1));
+
+        if (value(args.get(2)) instanceof String text) {
+            this.cacheApi.setKey(namespaceOf(key), keyOf(key), text, ttl);
+        } else {
+            this.cacheApi.setKey(namespaceOf(key), keyOf(key), args.get(2), ttl);
+        }
+
+        out.simple("OK");
+    }
+
+    private void del(List<byte[]> args, RespOutput out) {
+        if (args.size() < 2) {
+            wrongArity(out, "del");
+            return;
+        }
+
+        long deleted = 0;
+
+        for (CacheOperationOutput output : this.cacheApi.deleteKeys(knownKeys(args))) {
+            if (output.hit) {
+                deleted++;
+            }
+        }
+
+        out.integer(deleted);
+    }
+
+    private void mget(List<byte[]> args, RespOutput out) {
+        if (args.size() < 2) {
+            wrongArity(out, "mget");
+            return;
+        }
+
+        List<CacheOperationOutput> outputs = this.cacheApi.getKeys(knownKeys(args));
+
+        out.array(outputs.size());
+
+        for (CacheOperationOutput output : outputs) {
+            if (output.hit) {
+                out.bulk(output.data.valBytes());
+            } else {
+                out.nil();
+            }
+        }
+    }
+
+    // MSET key value [key value ...], no TTL like in Redis
+    private void mset(List<byte[]> args, RespOutput out) {
+        if (args.size() < 3 || args.size() % 2 == 0) {
+            wrongArity(out, "mset");
+            return;
+        }
+
+        List<CacheKey> keys = new ArrayList<>(args.size() / 2);
+
+        for (int i = 1; i < args.size(); i += 2) {
+            String key = utf8(args.get(i));
+
+            keys.add(new CacheKey(namespaceOf(key), keyOf(key)));
+        }
+
+        List<Object> vals = new ArrayList<>(keys.size());
+
+        for (int i = 2; i < args.size(); i += 2) {
+            vals.add(value(args.get(i)));
+        }
+
+        long[] ttls = new long[keys.size()];
+        Arrays.fill(ttls, -1);
+
+        this.cacheApi.setValues(keys, vals, ttls);
+
+        out.simple("OK");
+    }
+
+    private void ping(List<byte[]> args, RespOutput out) {
+        if (args.size() == 1) {
+            out.simple("PONG");
+        } else if (args.size() == 2) {
+            out.bulk(args.get(1));
+        } else {
+            wrongArity(out, "ping");
+        }
+    }
+
+    private void echo(List<byte[]> args, RespOutput out) {
+        if (args.size() != 2) {
+            wrongArity(out, "echo");
+            return;
+        }
+
+        out.bulk(args.get(1));
+    }
+
+    // HELLO [protover [AUTH username password] [SETNAME clientname]]
+    private void hello(List<byte[]> args, RespConnection conn) {
+        RespOutput out = conn.out;
+
+        if (args.size() > 1) {
+            String version = new String(args.get(1), StandardCharsets.US_ASCII);
+
+            if (!version.equals("2") && !version.equals("3")) {
+                out.error("NOPROTO unsupported protocol version");
+                return;
+            }
+
+            out.protocol = Integer.parseInt(version);
+        }
+
+        out.map(7);
+        out.bulk("server");
+        out.bulk("cacheforge");
+        out.bulk("version");
+        out.bulk("0.0.1");
+        out.bulk("proto");
+        out.integer(out.protocol);
+        out.bulk("id");
+        out.integer(conn.id);
+        out.bulk("mode");
+        out.bulk("standalone");
+        out.bulk("role");
+        out.bulk("master");
+        out.bulk("modules");
+        out.array(0);
+    }
+
+    // there is a single keyspace, only database 0 exists
+    private void select(List<byte[]> args, RespOutput out) {
+        if (args.size() != 2) {
+            wrongArity(out, "select");
+            return;
+        }
+
+        if (new String(args.get(1), StandardCharsets.US_ASCII).equals("0")) {
+            out.simple("OK");
+        } else {
+            out.error("ERR DB index is out of range");
+        }
+    }
+
+    static String namespaceOf(String redisKey) {
+        int colon = redisKey.indexOf(':');
+
+        return colon <= 0 ? DEFAULT_NAMESPACE : redisKey.substring(0, colon);
+    }
+
+    static String keyOf(String redisKey) {
+        int colon = redisKey.indexOf(':');
+
+        return colon <= 0 ? redisKey : redisKey.substring(colon + 1);
+    }
+
+    // keys to read or delete from args[1..], null for namespaces never written
+    private static List<CacheKey> knownKeys(List<byte[]> args) {
+        List<CacheKey> keys = new ArrayList<>(args.size() - 1);
+
+        for (int i = 1; i < args.size(); i++) {
+            String key = utf8(args.get(i));
+
+            keys.add(CacheKey.ifKnown(namespaceOf(key), keyOf(key)));
+        }
+
+        return keys;
+    }
+
+    private static void wrongArity(RespOutput out, String command) {
+        out.error("ERR wrong number of arguments for '" + command + "' command");
+    }
+
+    private static String utf8(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Valid UTF-8 is stored as text, so a value set here reads back the same over the JSON
+     * API. Anything else is kept as the bytes sent, the parser gave each argument its own
+     * array. Both come back over RESP byte for byte.
+     */
+    private static Object value(byte[] bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return bytes;
+        }
+    }
+}
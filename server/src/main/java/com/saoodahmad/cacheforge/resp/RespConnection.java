@@ -0,0 +1,184 @@
+package com.saoodahmad.cacheforge.resp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/*
+ * State of one client, only touched by the event loop that owns it.
+ *
+ * Every complete command in the input buffer is executed before anything is written, so a
+ * pipelined batch costs one read and one write. Once the pending replies pass the high
+ * water mark parsing pauses until the socket drains, a client that never reads its replies
+ * cannot grow the buffer without bound. With fsync ALWAYS replies to a batch that wrote
+ * wait for the sync the same way, see RespEventLoop.
+ */
+final class RespConnection {
+
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final int OUTPUT_HIGH_WATER = 64 * 1024;
+
+    final long id;
+
+    final RespOutput out = new RespOutput(BUFFER_BYTES);
+
+    boolean closeAfterFlush;
+
+    // set by commands that write, cleared once the replies wait for their sync
+    boolean wrote;
+
+    // writes to be synced before the pending replies go out
+    long syncTarget;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final RespEventLoop loop;
+    private final RespCommandHandler handler;
+    private final int maxRequestBytes;
+    private final RespParser parser;
+
+    // write mode between events
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+
+    RespConnection(long id, SocketChannel channel, SelectionKey key, RespEventLoop loop, RespCommandHandler handler, int maxRequestBytes) {
+        this.id = id;
+        this.channel = channel;
+        this.key = key;
+        this.loop = loop;
+        this.handler = handler;
+        this.maxRequestBytes = maxRequestBytes;
+        this.parser = new RespParser(maxRequestBytes);
+    }
+
+    void onReadable() throws IOException {
+        // only full when a single argument does not fit yet
+        if (!this.in.hasRemaining()) {
+            if (this.in.capacity() >= this.maxRequestBytes) {
+                this.out.error("ERR Protocol error: request larger than " + this.maxRequestBytes + " bytes");
+                this.closeAfterFlush = true;
+                this.drive();
+                return;
+            }
+
+            this.growInput();
+        }
+
+        if (this.channel.read(this.in) < 0) {
+            this.close();
+            return;
+        }
+
+        this.drive();
+    }
+
+    void onWritable() throws IOException {
+        if (!this.out.writeTo(this.channel)) {
+            return;
+        }
+
+        // replies drained, carry on with commands that were already buffered
+        this.drive();
+    }
+
+    void onSynced() throws IOException {
+        if (!this.key.isValid()) {
+            return;
+        }
+
+        if (!this.out.writeTo(this.channel)) {
+            this.key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+
+        this.drive();
+    }
+
+    void close() {
+        this.key.cancel();
+
+        try {
+            this.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    private void drive() throws IOException {
+        while (true) {
+            boolean more = this.executeBuffered();
+
+            if (this.wrote) {
+                this.wrote = false;
+
+                // neither reads nor writes until the loop hands the connection back
+                if (this.loop.awaitSync(this)) {
+                    this.key.interestOps(0);
+                    return;
+                }
+            }
+
+            if (!this.out.writeTo(this.channel)) {
+                this.key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+
+            if (this.closeAfterFlush) {
+                this.close();
+                return;
+            }
+
+            if (!more) {
+                this.key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+        }
+    }
+
+    // runs complete commands, returns true if it stopped at the high water mark with more buffered
+    private boolean executeBuffered() {
+        this.in.flip();
+
+        try {
+            while (!this.closeAfterFlush) {
+                if (this.out.pending() >= OUTPUT_HIGH_WATER) {
+                    return this.in.hasRemaining();
+                }
+
+                List<byte[]> args = this.parser.parse(this.in);
+
+                if (args == null) {
+                    return false;
+                }
+
+                if (!args.isEmpty()) {
+                    this.handler.execute(args, this);
+                }
+            }
+
+            return false;
+        } catch (RespProtocolException e) {
+            this.out.error("ERR Protocol error: " + e.getMessage());
+            this.closeAfterFlush = true;
+
+            return false;
+        } finally {
+            if (!this.in.hasRemaining() && this.in.capacity() > BUFFER_BYTES) {
+                // drop a buffer that grew for one large request
+                this.in = ByteBuffer.allocate(BUFFER_BYTES);
+            } else {
+                this.in.compact();
+            }
+        }
+    }
+
+    private void growInput() {
+        ByteBuffer grown = ByteBuffer.allocate((int) Math.min((long) this.in.capacity() * 2, this.maxRequestBytes));
+
+        this.in.flip();
+        grown.put(this.in);
+
+        this.in = grown;
+    }
+}
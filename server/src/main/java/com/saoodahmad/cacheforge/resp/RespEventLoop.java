@@ -0,0 +1,202 @@
+package com.saoodahmad.cacheforge.resp;
+
+import com.saoodahmad.cacheforge.cache.persistence.AppendOnlyFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * One selector thread serving many connections, commands run inline on it. With fsync
+ * ALWAYS a connection whose commands wrote parks here until the append-only file synced
+ * them and only then gets its replies, the thread itself never waits on the disk.
+ */
+final class RespEventLoop implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(RespEventLoop.class);
+
+    private static final AtomicLong connectionIds = new AtomicLong();
+
+    private final Selector selector;
+    private final RespCommandHandler handler;
+    private final int maxRequestBytes;
+
+    private final AppendOnlyFile syncedWrites; // null unless every write waits for its fsync
+
+    // connections holding replies until their writes are synced
+    private List<RespConnection> awaitingSync = new ArrayList<>();
+    private List<RespConnection> synced = new ArrayList<>();
+
+    // accepted by the acceptor thread, registered by the loop itself
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    RespEventLoop(RespCommandHandler handler, int maxRequestBytes, AppendOnlyFile syncedWrites) throws IOException {
+        this.selector = Selector.open();
+        this.handler = handler;
+        this.maxRequestBytes = maxRequestBytes;
+        this.syncedWrites = syncedWrites;
+
+        if (syncedWrites != null) {
+            syncedWrites.onSynced(this.selector::wakeup);
+        }
+    }
+
+    void register(SocketChannel channel) {
+        this.accepted.add(channel);
+        this.selector.wakeup();
+    }
+
+    void shutdown() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    // holds conn's replies until the writes its commands reported so far are on disk
+    boolean awaitSync(RespConnection conn) {
+        if (this.syncedWrites == null) {
+            return false;
+        }
+
+        long target = this.syncedWrites.writesQueued();
+
+        if (this.syncedWrites.isSynced(target)) {
+            return false;
+        }
+
+        conn.syncTarget = target;
+
+        this.awaitingSync.add(conn);
+
+        return true;
+    }
+
+    @Override
+    public void run() {
+        if (this.syncedWrites != null) {
+            this.syncedWrites.deferSyncWaits();
+        }
+
+        try {
+            while (this.running) {
+                this.selector.select();
+
+                this.resumeSynced();
+
+                this.registerAccepted();
+
+                Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    this.handle(key);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.error("RESP event loop stopped", e);
+        } finally {
+            this.closeAll();
+        }
+    }
+
+    private void registerAccepted() {
+        SocketChannel channel;
+
+        while ((channel = this.accepted.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+
+                // unix domain sockets have no Nagle to turn off
+                if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+
+                SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+
+                key.attach(new RespConnection(connectionIds.incrementAndGet(), channel, key, this, this.handler, this.maxRequestBytes));
+            } catch (IOException e) {
+                log.debug("Dropping RESP connection that failed to register", e);
+
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // already gone
+                }
+            }
+        }
+    }
+
+    private void resumeSynced() {
+        if (this.awaitingSync.isEmpty()) {
+            return;
+        }
+
+        // swapped first, a resumed connection that writes again parks on the fresh list
+        List<RespConnection> waiting = this.awaitingSync;
+
+        this.awaitingSync = this.synced;
+        this.synced = waiting;
+
+        for (RespConnection conn : waiting) {
+            if (!this.syncedWrites.isSynced(conn.syncTarget)) {
+                this.awaitingSync.add(conn);
+                continue;
+            }
+
+            try {
+                conn.onSynced();
+            } catch (IOException e) {
+                conn.close();
+            }
+        }
+
+        waiting.clear();
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        RespConnection conn = (RespConnection) key.attachment();
+
+        try {
+            if (key.isReadable()) {
+                conn.onReadable();
+            } else if (key.isWritable()) {
+                conn.onWritable();
+            }
+        } catch (IOException e) {
+            // reset by peer and friends, nothing to answer
+            conn.close();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof RespConnection conn) {
+                conn.close();
+            }
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException ignored) {
+            // shutting down
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.saoodahmad.cacheforge.resp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reply buffer of one connection. Replies to every command of a pipelined batch are
+ * appended here and go out in as few writes as the socket allows.
+ */
+final class RespOutput {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final int initialBytes;
+
+    private ByteBuffer buf;
+
+    // 2 = RESP2, 3 = RESP3 after HELLO 3, only changes how null and maps are encoded
+    int protocol = 2;
+
+    RespOutput(int initialBytes) {
+        this.initialBytes = initialBytes;
+        this.buf = ByteBuffer.allocate(initialBytes);
+    }
+
+    int pending() {
+        return this.buf.position();
+    }
+
+    // returns true once everything buffered has been written
+    boolean writeTo(SocketChannel channel) throws IOException {
+        this.buf.flip();
+
+        channel.write(this.buf);
+
+        if (this.buf.hasRemaining()) {
+            this.buf.compact();
+
+            return false;
+        }
+
+        // drop a buffer that grew for one large reply
+        if (this.buf.capacity() > this.initialBytes) {
+            this.buf = ByteBuffer.allocate(this.initialBytes);
+        } else {
+            this.buf.clear();
+        }
+
+        return true;
+    }
+
+    void simple(String s) {
+        this.put((byte) '+');
+        this.putAscii(s);
+        this.put(CRLF);
+    }
+
+    void error(String message) {
+        this.put((byte) '-');
+        // a CRLF inside an error would end the reply early
+        this.putAscii(message.replace('\r', ' ').replace('\n', ' '));
+        this.put(CRLF);
+    }
+
+    void integer(long value) {
+        this.put((byte) ':');
+        this.putAscii(Long.toString(value));
+        this.put(CRLF);
+    }
+
+    void bulk(String s) {
+        this.bulk(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void bulk(byte[] bytes) {
+        this.put((byte) '$');
+        this.putAscii(Integer.toString(bytes.length));
+        this.put(CRLF);
+        this.put(bytes);
+        this.put(CRLF);
+    }
+
+    void nil() {
+        if (this.protocol == 3) {
+            this.putAscii("_\r\n");
+        } else {
+            this.putAscii("$-1\r\n");
+        }
+    }
+
+    void array(int size) {
+        this.put((byte) '*');
+        this.putAscii(Integer.toString(size));
+        this.put(CRLF);
+    }
+
+    // RESP2 has no map type, the pairs are sent as a flat array
+    void map(int pairs) {
+        if (this.protocol == 3) {
+            this.put((byte) '%');
+            this.putAscii(Integer.toString(pairs));
+            this.put(CRLF);
+        } else {
+            this.array(pairs * 2);
+        }
+    }
+
+    private void putAscii(String s) {
+        this.ensure(s.length());
+
+        for (int i = 0; i < s.length(); i++) {
+            this.buf.put((byte) s.charAt(i));
+        }
+    }
+
+    private void put(byte b) {
+        this.ensure(1);
+        this.buf.put(b);
+    }
+
+    private void put(byte[] bytes) {
+        this.ensure(bytes.length);
+        this.buf.put(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (this.buf.remaining() >= bytes) {
+            return;
+        }
+
+        int capacity = this.buf.capacity();
+
+        while (capacity - this.buf.position() < bytes) {
+            capacity *= 2;
+        }
+
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+
+        this.buf.flip();
+        grown.put(this.buf);
+
+        this.buf = grown;
+    }
+}
@@ -0,0 +1,205 @@
+package com.saoodahmad.cacheforge.resp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Incremental parser for client requests: RESP arrays of bulk strings, or inline
+ * commands (space separated, as typed into telnet). One per connection. Arguments of an
+ * array are consumed from the buffer as soon as each is complete and kept until the rest
+ * arrive, so a command split across reads is not parsed again from its start; only a
+ * partial argument stays in the buffer.
+ */
+final class RespParser {
+
+    private static final int MAX_INLINE = 64 * 1024;
+    private static final int MAX_ARGS = 1024 * 1024;
+
+    // "*<count>" and "$<length>" lines, longer ones cannot hold a valid number
+    private static final int MAX_HEADER = 32;
+
+    // the count comes from the client, the list grows as arguments actually arrive
+    private static final int INITIAL_ARGS = 16;
+
+    private final int maxRequestBytes;
+
+    // the array being parsed, null between commands
+    private List<byte[]> args;
+    private long pendingArgs;
+    private long commandBytes;
+
+    RespParser(int maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    // one command, or null if the buffer does not hold the rest of one yet
+    List<byte[]> parse(ByteBuffer in) {
+        if (this.args == null) {
+            if (!in.hasRemaining()) {
+                return null;
+            }
+
+            if (in.get(in.position()) != '*') {
+                return parseInline(in);
+            }
+
+            if (!this.startArray(in)) {
+                return null;
+            }
+        }
+
+        while (this.pendingArgs > 0) {
+            byte[] arg = this.parseBulk(in);
+
+            if (arg == null) {
+                return null;
+            }
+
+            this.args.add(arg);
+            this.pendingArgs--;
+        }
+
+        List<byte[]> args = this.args;
+        this.args = null;
+
+        return args;
+    }
+
+    private boolean startArray(ByteBuffer in) {
+        int end = headerEnd(in, in.position() + 1);
+
+        if (end < 0) {
+            return false;
+        }
+
+        long count = parseLong(in, in.position() + 1, end);
+
+        if (count > MAX_ARGS) {
+            throw new RespProtocolException("invalid multibulk length");
+        }
+
+        this.commandBytes = end + 2 - in.position();
+        in.position(end + 2);
+
+        this.pendingArgs = Math.max(count, 0);
+        this.args = new ArrayList<>((int) Math.min(this.pendingArgs, INITIAL_ARGS));
+
+        return true;
+    }
+
+    // the next argument, or null with the buffer untouched if it has not fully arrived
+    private byte[] parseBulk(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            return null;
+        }
+
+        if (in.get(in.position()) != '$') {
+            throw new RespProtocolException("expected '$', got '" + (char) in.get(in.position()) + "'");
+        }
+
+        int end = headerEnd(in, in.position() + 1);
+
+        if (end < 0) {
+            return null;
+        }
+
+        long length = parseLong(in, in.position() + 1, end);
+
+        if (length < 0 || length > this.maxRequestBytes) {
+            throw new RespProtocolException("invalid bulk length");
+        }
+
+        if (in.limit() - (end + 2) < length + 2) {
+            return null;
+        }
+
+        this.commandBytes += end + 2 - in.position() + length + 2;
+
+        if (this.commandBytes > this.maxRequestBytes) {
+            throw new RespProtocolException("request larger than " + this.maxRequestBytes + " bytes");
+        }
+
+        in.position(end + 2);
+
+        byte[] arg = new byte[(int) length];
+        in.get(arg);
+
+        if (in.get() != '\r' || in.get() != '\n') {
+            throw new RespProtocolException("bulk string not terminated by CRLF");
+        }
+
+        return arg;
+    }
+
+    private static List<byte[]> parseInline(ByteBuffer in) {
+        int end = lineEnd(in, in.position());
+
+        if (end < 0) {
+            if (in.remaining() > MAX_INLINE) {
+                throw new RespProtocolException("too big inline request");
+            }
+
+            return null;
+        }
+
+        byte[] line = new byte[end - in.position()];
+        in.get(line);
+        in.position(end + 2);
+
+        List<byte[]> args = new ArrayList<>();
+
+        for (String part : new String(line, StandardCharsets.UTF_8).trim().split("\\s+")) {
+            if (!part.isEmpty()) {
+                args.add(part.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        return args;
+    }
+
+    // like lineEnd for a length line, which must end within MAX_HEADER bytes
+    private static int headerEnd(ByteBuffer in, int from) {
+        int end = lineEnd(in, from);
+
+        if (end < 0 && in.limit() - from > MAX_HEADER) {
+            throw new RespProtocolException("invalid length");
+        }
+
+        return end;
+    }
+
+    // index of the '\r' of the next CRLF at or after from, -1 if not buffered yet
+    private static int lineEnd(ByteBuffer in, int from) {
+        for (int i = from; i < in.limit() - 1; i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static long parseLong(ByteBuffer in, int from, int to) {
+        if (from == to) {
+            throw new RespProtocolException("empty length");
+        }
+
+        boolean negative = in.get(from) == '-';
+
+        long value = 0;
+
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = in.get(i);
+
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                throw new RespProtocolException("invalid length");
+            }
+
+            value = value * 10 + (b - '0');
+        }
+
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,9 @@
+package com.saoodahmad.cacheforge.resp;
+
+// malformed or oversized input, the connection is answered with an error and closed
+public class RespProtocolException extends RuntimeException {
+
+    public RespProtocolException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,159 @@
+package com.saoodahmad.cacheforge.resp;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.persistence.AppendOnlyFile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Redis protocol (RESP2/RESP3) listener next to the HTTP API. An acceptor thread hands
+ * connections round robin to a fixed set of selector event loops.
+ *
+ * Besides TCP it can listen on a Unix domain socket: co-located clients skip the loopback
+ * TCP stack and get the same commands, served by the same event loops.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cacheforge.resp", name = "enabled", havingValue = "true")
+public class RespServer {
+
+    private static final Logger log = LoggerFactory.getLogger(RespServer.class);
+
+    private final CacheForgeProperties.Resp props;
+
+    private final RespCommandHandler handler;
+
+    // set when every write waits for its fsync, the loops hold replies instead of parking
+    private final AppendOnlyFile syncedWrites;
+
+    private ServerSocketChannel server; // null when port is -1
+
+    private ServerSocketChannel unixServer; // null when no socket path is set
+
+    private Path unixSocket;
+
+    private RespEventLoop[] loops;
+
+    // shared by both acceptors
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    public RespServer(CacheApi cacheApi, CacheForgeProperties props) {
+        this(cacheApi, props, Optional.empty());
+    }
+
+    @Autowired
+    public RespServer(CacheApi cacheApi, CacheForgeProperties props, Optional<AppendOnlyFile> aof) {
+        this.props = props.getResp();
+        this.handler = new RespCommandHandler(cacheApi);
+        this.syncedWrites = aof.filter(AppendOnlyFile::syncsEveryWrite).orElse(null);
+
+        validateResp(this.props);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        this.loops = new RespEventLoop[this.props.getIoThreads()];
+
+        for (int i = 0; i < this.loops.length; i++) {
+            this.loops[i] = new RespEventLoop(this.handler, this.props.getMaxRequestBytes(), this.syncedWrites);
+
+            Thread.ofPlatform().name("resp-io-" + i).daemon().start(this.loops[i]);
+        }
+
+        if (this.props.getPort() != -1) {
+            this.server = ServerSocketChannel.open();
+            this.server.bind(new InetSocketAddress(this.props.getAddress(), this.props.getPort()), 511);
+
+            ServerSocketChannel tcp = this.server;
+            Thread.ofPlatform().name("resp-acceptor").daemon().start(() -> this.accept(tcp));
+
+            log.info("RESP server listening on {}", this.server.getLocalAddress());
+        }
+
+        if (!this.props.getUnixSocket().isBlank()) {
+            this.unixSocket = Path.of(this.props.getUnixSocket());
+
+            // a file left behind by an unclean shutdown would fail the bind
+            Files.deleteIfExists(this.unixSocket);
+
+            this.unixServer = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            this.unixServer.bind(UnixDomainSocketAddress.of(this.unixSocket), 511);
+
+            ServerSocketChannel unix = this.unixServer;
+            Thread.ofPlatform().name("resp-unix-acceptor").daemon().start(() -> this.accept(unix));
+
+            log.info("RESP server listening on unix socket {}", this.unixSocket);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (this.server != null) {
+            this.server.close();
+        }
+
+        if (this.unixServer != null) {
+            this.unixServer.close();
+
+            Files.deleteIfExists(this.unixSocket);
+        }
+
+        for (RespEventLoop loop : this.loops) {
+            loop.shutdown();
+        }
+    }
+
+    // bound port, differs from the configured one when that is 0, -1 without a TCP listener
+    public int port() throws IOException {
+        return this.server == null ? -1 : ((InetSocketAddress) this.server.getLocalAddress()).getPort();
+    }
+
+    private void accept(ServerSocketChannel listener) {
+        while (true) {
+            try {
+                SocketChannel channel = listener.accept();
+
+                this.loops[Math.floorMod(this.nextLoop.getAndIncrement(), this.loops.length)].register(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("RESP accept failed", e);
+            }
+        }
+    }
+
+    public static void validateResp(CacheForgeProperties.Resp resp) {
+        if (resp.getPort() < -1 || resp.getPort() > 65535) {
+            throw new IllegalArgumentException("RESP port must be between 0 and 65535, or -1");
+        }
+
+        if (resp.getPort() == -1 && resp.getUnixSocket().isBlank()) {
+            throw new IllegalArgumentException("RESP needs a port or a unix socket to listen on");
+        }
+
+        if (resp.getIoThreads() <= 0) {
+            throw new IllegalArgumentException("RESP io threads must be > 0");
+        }
+
+        if (resp.getMaxRequestBytes() <= 0) {
+            throw new IllegalArgumentException("RESP max request bytes must be > 0");
+        }
+    }
+}
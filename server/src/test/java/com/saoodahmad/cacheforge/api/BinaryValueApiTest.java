@@ -0,0 +1,105 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static com.saoodahmad.cacheforge.common_utils.ApiTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@AutoConfigureMockMvc
+public class BinaryValueApiTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    // not valid UTF-8 and has leading/trailing whitespace bytes, must survive untouched
+    private static final byte[] BLOB = {' ', 0, (byte) 0xff, (byte) 0xc3, 0x28, '\n'};
+
+    @BeforeEach
+    void clear() {
+        cacheApi.clear();
+    }
+
+    @Test
+    void putThenGet_shouldReturnExactBytes() throws Exception {
+        mvc.perform(put("/api/cache/bin/B1/K1").contentType(MediaType.APPLICATION_OCTET_STREAM).content(BLOB))
+                .andExpect(status().isCreated());
+
+        byte[] body = mvc.perform(get("/api/cache/bin/B1/K1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(BLOB, body);
+    }
+
+    @Test
+    void put_existingKey_should204_andTtlApplies() throws Exception {
+        mvc.perform(put("/api/cache/bin/B1/K1").contentType(MediaType.APPLICATION_OCTET_STREAM).content(BLOB))
+                .andExpect(status().isCreated());
+
+        mvc.perform(put("/api/cache/bin/B1/K1?ttl=30").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1}))
+                .andExpect(status().isNoContent());
+
+        assertEquals(30, cacheApi.getKey("B1", "K1").data.getTtlInSecs());
+    }
+
+    @Test
+    void get_missingKey_should404() throws Exception {
+        mvc.perform(get("/api/cache/bin/B1/NOPE")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void get_textValue_shouldReturnUtf8Bytes() throws Exception {
+        cacheApi.setKey("B1", "T", "héllo", -1);
+
+        byte[] body = mvc.perform(get("/api/cache/bin/B1/T"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals("héllo".getBytes(StandardCharsets.UTF_8), body);
+    }
+
+    @Test
+    void jsonGet_binaryValue_shouldBeBase64() throws Exception {
+        cacheApi.setKey("B1", "K1", BLOB, -1);
+
+        ApiResp r = callJson(mvc, om, get("/api/cache/get/B1/K1"), 200);
+
+        assertTrue(r.body.get("data").get("binary").asBoolean());
+        assertEquals(Base64.getEncoder().encodeToString(BLOB), r.body.get("data").get("val").asText());
+    }
+
+    @Test
+    void put_invalidTtl_should400() throws Exception {
+        var result = mvc.perform(put("/api/cache/bin/B1/K1?ttl=0").contentType(MediaType.APPLICATION_OCTET_STREAM).content(BLOB))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        String raw = result.getResponse().getContentAsString();
+
+        assertError(new ApiResp(400, om.readTree(raw), raw), "INVALID_TTL");
+        assertFalse(cacheApi.getKey("B1", "K1").hit);
+    }
+}
@@ -56,6 +56,16 @@ public class GetKeyApiTest {
         assertError(r, "INVALID_KEY");
     }
 
+    @Test
+    void get_tooLongKey_should400_withErrorResponse() throws Exception {
+        ApiResp r = getKey("K".repeat(20_000), 400);
+
+        assertError(r, "KEY_TOO_LONG");
+
+        // a SET of the same key is rejected with the same code
+        assertError(setKey("K".repeat(20_000), "V", -1, 400), "KEY_TOO_LONG");
+    }
+
     @Test
     void get_missingKey_should200_miss_nullData() throws Exception {
         ApiResp r = getKey("NON_EXISTENT_KEY", 200);
@@ -0,0 +1,136 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.saoodahmad.cacheforge.common_utils.ApiTestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@AutoConfigureMockMvc
+public class MultiKeyApiTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @BeforeEach
+    void clear() {
+        cacheApi.clear();
+    }
+
+    private ObjectNode entry(String key, String value, long ttl) {
+        return om.createObjectNode()
+                .put("namespace", "M1")
+                .put("key", key)
+                .put("value", value)
+                .put("ttl", ttl);
+    }
+
+    private ApiResp mset(ArrayNode entries, int status) throws Exception {
+        String body = om.createObjectNode().set("entries", entries).toString();
+
+        return callJson(mvc, om, post("/api/cache/mset").content(body), status);
+    }
+
+    private ApiResp keysCall(String path, int status, String... keys) throws Exception {
+        ArrayNode refs = om.createArrayNode();
+
+        for (String key : keys) {
+            refs.add(om.createObjectNode().put("namespace", "M1").put("key", key));
+        }
+
+        String body = om.createObjectNode().set("keys", refs).toString();
+
+        return callJson(mvc, om, post(path).content(body), status);
+    }
+
+    @Test
+    void msetThenMget_shouldReturnResultsInRequestOrder() throws Exception {
+        ApiResp set = mset(om.createArrayNode().add(entry("A", "VA", -1)).add(entry("B", "VB", -1)), 200);
+
+        JsonNode setResults = set.body.get("results");
+        assertEquals(2, setResults.size());
+        assertEquals("SET", setResults.get(0).get("opType").asText());
+        assertTrue(setResults.get(1).get("miss").asBoolean());
+
+        ApiResp get = keysCall("/api/cache/mget", 200, "B", "NOPE", "A");
+
+        JsonNode results = get.body.get("results");
+        assertEquals(3, results.size());
+
+        assertTrue(results.get(0).get("hit").asBoolean());
+        assertEquals("VB", results.get(0).get("data").get("val").asText());
+
+        assertTrue(results.get(1).get("miss").asBoolean());
+        assertFalse(results.get(1).get("expired").asBoolean());
+        assertTrue(results.get(1).get("data").isNull());
+
+        assertTrue(results.get(2).get("hit").asBoolean());
+        assertEquals("VA", results.get(2).get("data").get("val").asText());
+    }
+
+    @Test
+    void mdel_shouldReportHitPerKey() throws Exception {
+        mset(om.createArrayNode().add(entry("A", "VA", -1)), 200);
+
+        JsonNode results = keysCall("/api/cache/mdel", 200, "A", "A").body.get("results");
+
+        assertEquals("DELETE", results.get(0).get("opType").asText());
+        assertTrue(results.get(0).get("hit").asBoolean());
+        assertTrue(results.get(1).get("miss").asBoolean());
+
+        assertFalse(cacheApi.getKey("M1", "A").hit);
+    }
+
+    @Test
+    void mset_blankKey_should400_withErrorResponse() throws Exception {
+        ApiResp r = mset(om.createArrayNode().add(entry("A", "VA", -1)).add(entry(" ", "VB", -1)), 400);
+
+        assertError(r, "INVALID_KEY");
+    }
+
+    @Test
+    void mset_invalidTtl_should400_andWriteNothing() throws Exception {
+        ApiResp r = mset(om.createArrayNode().add(entry("A", "VA", -1)).add(entry("B", "VB", 0)), 400);
+
+        assertError(r, "INVALID_TTL");
+        assertFalse(cacheApi.getKey("M1", "A").hit);
+    }
+
+    @Test
+    void mget_emptyKeys_should400() throws Exception {
+        ApiResp r = keysCall("/api/cache/mget", 400);
+
+        assertError(r, "VALIDATION_FAILED");
+    }
+
+    @Test
+    void mget_overBatchLimit_should400() throws Exception {
+        String[] keys = new String[1001];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "K" + i;
+        }
+
+        ApiResp r = keysCall("/api/cache/mget", 400, keys);
+
+        assertError(r, "BATCH_TOO_LARGE");
+    }
+}
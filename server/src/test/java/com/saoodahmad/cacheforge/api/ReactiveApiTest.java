@@ -0,0 +1,215 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saoodahmad.cacheforge.api.tracking.InvalidationTracker;
+import com.saoodahmad.cacheforge.api.wire.CacheWireFormat;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.time.TimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ReactiveApiTest {
+
+    // threads that asked the engine for the time, which every GET hit does
+    static final Queue<String> clockCallers = new ConcurrentLinkedQueue<>();
+
+    // reactor-http-nio-1, or webflux-http-epoll-1 with the native transport
+    static final Pattern EVENT_LOOP = Pattern.compile(".*-http-(nio|epoll|kqueue)-\\d+");
+
+    @TestConfiguration
+    static class RecordingClock {
+
+        @Bean
+        @Primary
+        TimeProvider recordingTimeProvider() {
+            return () -> {
+                clockCallers.add(Thread.currentThread().getName());
+
+                return System.nanoTime();
+            };
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    WebServerApplicationContext context;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        cacheApi.clear();
+
+        client = WebTestClient.bindToServer().baseUrl("http://127.0.0.1:" + port).build();
+    }
+
+    private JsonNode json(WebTestClient.ResponseSpec spec, int status) throws Exception {
+        byte[] body = spec.expectStatus().isEqualTo(status).expectBody().returnResult().getResponseBody();
+
+        return om.readTree(body);
+    }
+
+    @Test
+    void server_shouldBeNetty() {
+        assertTrue(context.getWebServer().getClass().getSimpleName().startsWith("Netty"),
+                context.getWebServer().getClass().getName());
+    }
+
+    @Test
+    void setThenGet_shouldMatchServletContract() throws Exception {
+        String set = "{\"namespace\":\"R1\",\"key\":\"A\",\"value\":\"VA\",\"ttl\":-1}";
+
+        JsonNode created = json(client.post().uri("/api/cache/set").contentType(MediaType.APPLICATION_JSON).bodyValue(set).exchange(), 200);
+
+        assertEquals("SET", created.get("opType").asText());
+        assertTrue(created.get("miss").asBoolean());
+
+        JsonNode hit = json(client.get().uri("/api/cache/get/R1/A").exchange(), 200);
+
+        assertTrue(hit.get("hit").asBoolean());
+        assertEquals("VA", hit.get("data").get("val").asText());
+
+        JsonNode deleted = json(client.delete().uri("/api/cache/del/R1/A").exchange(), 200);
+
+        assertTrue(deleted.get("hit").asBoolean());
+        assertFalse(cacheApi.getKey("R1", "A").hit);
+    }
+
+    @Test
+    void get_shouldRunInlineOnTheEventLoop() {
+        cacheApi.setKey("R1", "A", "VA", -1);
+
+        clockCallers.clear();
+
+        client.get().uri("/api/cache/get/R1/A").exchange().expectStatus().isOk();
+
+        // background jobs like the expiry sweep read the clock too, only request threads count
+        assertTrue(clockCallers.stream().anyMatch(name -> EVENT_LOOP.matcher(name).matches()), clockCallers.toString());
+        assertTrue(clockCallers.stream().noneMatch(name -> name.startsWith("boundedElastic") || name.startsWith("parallel")),
+                clockCallers.toString());
+    }
+
+    @Test
+    void state_shouldRunOffTheEventLoop() {
+        cacheApi.setKey("R1", "A", "VA", -1);
+
+        clockCallers.clear();
+
+        client.get().uri("/api/cache/state").exchange().expectStatus().isOk();
+
+        assertFalse(clockCallers.isEmpty());
+        assertTrue(clockCallers.stream().noneMatch(name -> EVENT_LOOP.matcher(name).matches()), clockCallers.toString());
+    }
+
+    @Test
+    void set_blankKey_should400_withSameErrorCode() throws Exception {
+        String set = "{\"namespace\":\"R1\",\"key\":\" \",\"value\":\"VA\",\"ttl\":-1}";
+
+        JsonNode error = json(client.post().uri("/api/cache/set").contentType(MediaType.APPLICATION_JSON).bodyValue(set).exchange(), 400);
+
+        assertEquals("INVALID_KEY", error.get("errorCode").asText());
+    }
+
+    @Test
+    void mset_invalidEntry_should400_withBatchFieldCode() throws Exception {
+        String mset = "{\"entries\":[{\"namespace\":\"R1\",\"key\":\"A\",\"value\":\"VA\",\"ttl\":-1},"
+                + "{\"namespace\":\"R1\",\"key\":\"B\",\"value\":\" \",\"ttl\":-1}]}";
+
+        JsonNode error = json(client.post().uri("/api/cache/mset").contentType(MediaType.APPLICATION_JSON).bodyValue(mset).exchange(), 400);
+
+        assertEquals("INVALID_VALUE", error.get("errorCode").asText());
+    }
+
+    @Test
+    void binaryPutThenGet_shouldReturnExactBytes() {
+        byte[] blob = {0, (byte) 0xff, 10, ' '};
+
+        client.put().uri("/api/cache/bin/R1/B").contentType(MediaType.APPLICATION_OCTET_STREAM).bodyValue(blob)
+                .exchange()
+                .expectStatus().isCreated();
+
+        byte[] body = client.get().uri("/api/cache/bin/R1/B").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .expectBody().returnResult().getResponseBody();
+
+        assertArrayEquals(blob, body);
+
+        client.get().uri("/api/cache/bin/R1/NOPE").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void get_withWireAccept_shouldUseBinaryFormat() {
+        cacheApi.setKey("R1", "A", "VA", -1);
+
+        byte[] body = client.get().uri("/api/cache/get/R1/A").accept(CacheWireFormat.MEDIA_TYPE).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CacheWireFormat.MEDIA_TYPE)
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals('O', body[0]);
+        assertEquals(1 + 1 + 1 + 8 + 4 + 2, body.length);
+
+        client.get().uri("/api/cache/get/R1/A").exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void tracking_shouldStreamInvalidationsForTrackedReads() {
+        Iterator<ServerSentEvent<String>> events = client.get().uri("/api/cache/tracking")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody()
+                .take(2)
+                .toIterable()
+                .iterator();
+
+        ServerSentEvent<String> hello = events.next();
+
+        assertEquals("hello", hello.event());
+
+        cacheApi.setKey("R1", "A", "VA", -1);
+
+        client.get().uri("/api/cache/get/R1/A").header(InvalidationTracker.HEADER, hello.data()).exchange().expectStatus().isOk();
+
+        cacheApi.setKey("R1", "A", "VB", -1);
+
+        ServerSentEvent<String> invalidate = events.next();
+
+        assertEquals("invalidate", invalidate.event());
+        assertEquals("R1 A", invalidate.data());
+    }
+}
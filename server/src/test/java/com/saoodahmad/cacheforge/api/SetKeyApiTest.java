@@ -43,6 +43,14 @@ public class SetKeyApiTest {
         assertError(r, "INVALID_KEY");
     }
 
+    @Test
+    void set_tooLongKey_should400_withErrorResponse() throws Exception {
+        ApiResp r = setKey("K".repeat(70_000), "V", -1, 400);
+
+        // the same code a GET gives for the key in its path
+        assertError(r, "KEY_TOO_LONG");
+    }
+
     @Test
     void set_invalidTtl_should400_withErrorResponse() throws Exception {
         ApiResp r = setKey("A", "A", 0, 400);
@@ -0,0 +1,126 @@
+package com.saoodahmad.cacheforge.api;
+
+import com.saoodahmad.cacheforge.api.wire.CacheWireFormat;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@AutoConfigureMockMvc
+public class WireFormatApiTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    @BeforeEach
+    void clear() {
+        cacheApi.clear();
+    }
+
+    @Test
+    void set_withWireBody_andWireAccept_shouldUseBinaryBothWays() throws Exception {
+        byte[] body = mvc.perform(post("/api/cache/set")
+                        .contentType(CacheWireFormat.MEDIA_TYPE)
+                        .accept(CacheWireFormat.MEDIA_TYPE)
+                        .content(setRequest("W1", "A", "VA", 60)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CacheWireFormat.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // 'O', SET, MISS | DATA, ttl 60, "VA"
+        ByteBuffer buf = ByteBuffer.wrap(body);
+        assertEquals('O', buf.get());
+        buf.get();
+        assertEquals(2 | 8, buf.get());
+        assertEquals(60, buf.getLong());
+        assertEquals(2, buf.getInt());
+
+        assertEquals("VA", cacheApi.getKey("W1", "A").data.getVal());
+    }
+
+    @Test
+    void get_withoutAccept_shouldStayJson() throws Exception {
+        cacheApi.setKey("W1", "A", "VA", -1);
+
+        mvc.perform(get("/api/cache/get/W1/A"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void get_withWireAccept_shouldBeSmallerThanJson() throws Exception {
+        cacheApi.setKey("W1", "A", "VA", -1);
+
+        byte[] wire = mvc.perform(get("/api/cache/get/W1/A").accept(CacheWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] json = mvc.perform(get("/api/cache/get/W1/A"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // tag, op, flags, ttl, length, value
+        assertEquals(1 + 1 + 1 + 8 + 4 + 2, wire.length);
+        assertTrue(wire.length * 4 < json.length);
+    }
+
+    @Test
+    void error_withWireAccept_shouldBeEncodedToo() throws Exception {
+        byte[] body = mvc.perform(post("/api/cache/set")
+                        .contentType(CacheWireFormat.MEDIA_TYPE)
+                        .accept(CacheWireFormat.MEDIA_TYPE)
+                        .content(setRequest("W1", "A", "VA", 0)))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buf = ByteBuffer.wrap(body);
+        assertEquals('E', buf.get());
+
+        byte[] code = new byte[buf.getShort()];
+        buf.get(code);
+
+        assertEquals("INVALID_TTL", new String(code, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void set_truncatedWireBody_should400() throws Exception {
+        byte[] full = setRequest("W1", "A", "VA", -1);
+
+        mvc.perform(post("/api/cache/set")
+                        .contentType(CacheWireFormat.MEDIA_TYPE)
+                        .content(Arrays.copyOf(full, 5)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static byte[] setRequest(String namespace, String key, String value, long ttl) {
+        byte[] ns = namespace.getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + 2 + ns.length + 2 + k.length + 4 + v.length);
+        buf.putLong(ttl);
+        buf.putShort((short) ns.length).put(ns);
+        buf.putShort((short) k.length).put(k);
+        buf.putInt(v.length).put(v);
+
+        return buf.array();
+    }
+}
@@ -0,0 +1,126 @@
+package com.saoodahmad.cacheforge.api.wire;
+
+import com.saoodahmad.cacheforge.api.dtos.ErrorResponse;
+import com.saoodahmad.cacheforge.api.dtos.MultiKeyResponse;
+import com.saoodahmad.cacheforge.api.dtos.SetRequest;
+import com.saoodahmad.cacheforge.cache.OperationType;
+import com.saoodahmad.cacheforge.cache.api.CacheOperationOutput;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheWireFormatTest {
+
+    @Test
+    void encode_hit_shouldUseFixedLayout() {
+        CacheOperationOutput hit = new CacheOperationOutput(OperationType.GET, true, false, new CacheEntry("héllo", 30, 0));
+
+        ByteBuffer buf = ByteBuffer.wrap(CacheWireFormat.encode(hit));
+
+        assertEquals('O', buf.get());
+        assertEquals(CacheWireFormat.OP_GET, buf.get());
+        assertEquals(CacheWireFormat.HIT | CacheWireFormat.DATA, buf.get());
+        assertEquals(30, buf.getLong());
+
+        byte[] val = new byte[buf.getInt()];
+        buf.get(val);
+
+        assertEquals("héllo", new String(val, StandardCharsets.UTF_8));
+        assertFalse(buf.hasRemaining());
+    }
+
+    @Test
+    void encode_batch_shouldWriteMissesWithoutData() {
+        byte[] blob = {1, 2, 3};
+
+        MultiKeyResponse batch = new MultiKeyResponse(List.of(
+                new CacheOperationOutput(OperationType.GET, false, true, true, null),
+                new CacheOperationOutput(OperationType.GET, true, false, new CacheEntry(blob, -1, 0))));
+
+        ByteBuffer buf = ByteBuffer.wrap(CacheWireFormat.encode(batch));
+
+        assertEquals('M', buf.get());
+        assertEquals(2, buf.getInt());
+
+        assertEquals(CacheWireFormat.OP_GET, buf.get());
+        assertEquals(CacheWireFormat.MISS | CacheWireFormat.EXPIRED, buf.get());
+
+        assertEquals(CacheWireFormat.OP_GET, buf.get());
+        assertEquals(CacheWireFormat.HIT | CacheWireFormat.DATA | CacheWireFormat.BINARY, buf.get());
+        assertEquals(-1, buf.getLong());
+        assertEquals(3, buf.getInt());
+        assertEquals(1, buf.get());
+
+        // 1 + 4 + 2 + (2 + 8 + 4 + 3)
+        assertEquals(24, buf.limit());
+    }
+
+    @Test
+    void encode_error_shouldCarryCodeAndMessage() {
+        ByteBuffer buf = ByteBuffer.wrap(CacheWireFormat.encode(new ErrorResponse("INVALID_TTL", "bad")));
+
+        assertEquals('E', buf.get());
+        assertEquals(11, buf.getShort());
+    }
+
+    @Test
+    void opCodes_shouldStayFixed() {
+        // part of the format, clients decode these, reordering the enum must not move them
+        assertEquals(0, CacheWireFormat.opCode(OperationType.SET));
+        assertEquals(1, CacheWireFormat.opCode(OperationType.GET));
+        assertEquals(2, CacheWireFormat.opCode(OperationType.DELETE));
+
+        CacheOperationOutput created = new CacheOperationOutput(OperationType.SET, false, true, new CacheEntry("V", -1, 0));
+
+        assertEquals(0, CacheWireFormat.encode(created)[1]);
+    }
+
+    @Test
+    void decodeSetRequest_shouldRoundTrip() {
+        SetRequest req = CacheWireFormat.decodeSetRequest(setRequest("N1", "K1", "héllo", 60));
+
+        assertEquals("N1", req.namespace);
+        assertEquals("K1", req.key);
+        assertEquals("héllo", req.value);
+        assertEquals(60, req.ttl);
+    }
+
+    @Test
+    void decodeSetRequest_truncatedOrTrailing_shouldBeRejected() {
+        byte[] full = setRequest("N1", "K1", "V", -1);
+
+        assertThrows(IllegalArgumentException.class, () -> CacheWireFormat.decodeSetRequest(Arrays.copyOf(full, full.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> CacheWireFormat.decodeSetRequest(Arrays.copyOf(full, full.length + 1)));
+    }
+
+    @Test
+    void preferredFor_shouldFollowAcceptQuality() {
+        CacheOperationOutput miss = new CacheOperationOutput(OperationType.GET, false, true, null);
+
+        assertTrue(CacheWireFormat.preferredFor(MediaType.parseMediaTypes("application/x-cacheforge"), miss));
+        assertFalse(CacheWireFormat.preferredFor(MediaType.parseMediaTypes("application/json, application/x-cacheforge;q=0.5"), miss));
+        assertFalse(CacheWireFormat.preferredFor(MediaType.parseMediaTypes("*/*"), miss));
+        assertFalse(CacheWireFormat.preferredFor(MediaType.parseMediaTypes("application/x-cacheforge"), "not encodable"));
+    }
+
+    static byte[] setRequest(String namespace, String key, String value, long ttl) {
+        byte[] ns = namespace.getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + 2 + ns.length + 2 + k.length + 4 + v.length);
+        buf.putLong(ttl);
+        buf.putShort((short) ns.length).put(ns);
+        buf.putShort((short) k.length).put(k);
+        buf.putInt(v.length).put(v);
+
+        return buf.array();
+    }
+}
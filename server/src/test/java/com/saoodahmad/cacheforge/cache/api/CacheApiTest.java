@@ -105,11 +105,12 @@ public class CacheApiTest {
 
         CacheApi cacheApi = new CacheApi(metricEngine);
 
-        CacheKey cKeyA = new CacheKey("N1", "A");
-        CacheKey cKeyB = new CacheKey("N1", "B");
-        CacheKey cKeyC = new CacheKey("N1", "C");
-        CacheKey cKeyD = new CacheKey("N1", "D");
-        CacheKey cKeyE = new CacheKey("N1", "E");
+        // namespace chosen so that A, C, E hash to stripe 1 and B, D to stripe 0
+        CacheKey cKeyA = new CacheKey("N98", "A");
+        CacheKey cKeyB = new CacheKey("N98", "B");
+        CacheKey cKeyC = new CacheKey("N98", "C");
+        CacheKey cKeyD = new CacheKey("N98", "D");
+        CacheKey cKeyE = new CacheKey("N98", "E");
 
         CacheStripe ckeyAStripe = engine.stripeFor(cKeyA);
         CacheStripe ckeyBStripe = engine.stripeFor(cKeyB);
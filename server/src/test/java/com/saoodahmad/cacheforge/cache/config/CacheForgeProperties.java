@@ -0,0 +1,555 @@
+package com.saoodahmad.cacheforge.cache.config;
+
+import com.saoodahmad.cacheforge.cache.persistence.FsyncPolicy;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicyType;
+import com.saoodahmad.cacheforge.cache.replication.ReplicationRole;
+import com.saoodahmad.cacheforge.cache.store.CacheStoreType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "cacheforge")
+public class CacheForgeProperties {
+
+    private int stripes = 2; // value remains 2 if it is not overridden in properties file
+    private int capacity = 4; // value remains 4 if it is not overridden in properties file
+    private long maxBytes = 0; // 0 = capacity counts entries, otherwise a byte budget split across stripes
+    private int maxNamespaces = 65_536; // distinct namespaces kept process wide, writes to further ones are rejected
+    private ReadMode readMode = ReadMode.LOCKED;
+    private final Eviction eviction = new Eviction();
+    private final Expiry expiry = new Expiry();
+    private final Store store = new Store();
+    private final Resp resp = new Resp();
+    private final Batch batch = new Batch();
+    private final Tracking tracking = new Tracking();
+    private final Aof aof = new Aof();
+    private final Snapshot snapshot = new Snapshot();
+    private final Tier tier = new Tier();
+    private final Flush flush = new Flush();
+    private final Replication replication = new Replication();
+    private final Map<String, Quota> quotas = new LinkedHashMap<>(); // namespace -> its limits, others only share the stripe budget
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public int getMaxNamespaces() {
+        return maxNamespaces;
+    }
+
+    public void setMaxNamespaces(int maxNamespaces) {
+        this.maxNamespaces = maxNamespaces;
+    }
+
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
+    public void setReadMode(ReadMode readMode) {
+        this.readMode = readMode;
+    }
+
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    public Expiry getExpiry() {
+        return expiry;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    public Resp getResp() {
+        return resp;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Tracking getTracking() {
+        return tracking;
+    }
+
+    public Aof getAof() {
+        return aof;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    public Flush getFlush() {
+        return flush;
+    }
+
+    public Replication getReplication() {
+        return replication;
+    }
+
+    public Map<String, Quota> getQuotas() {
+        return quotas;
+    }
+
+    public static class Eviction {
+
+        private EvictionPolicyType policy = EvictionPolicyType.LRU;
+
+        public EvictionPolicyType getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(EvictionPolicyType policy) {
+            this.policy = policy;
+        }
+    }
+
+    public static class Expiry {
+
+        private boolean enabled = true;
+        private long tickMs = 1000; // timing wheel resolution and sweep interval
+        private int maxPerTick = 1000; // per stripe, bounds time spent under the stripe lock
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTickMs() {
+            return tickMs;
+        }
+
+        public void setTickMs(long tickMs) {
+            this.tickMs = tickMs;
+        }
+
+        public int getMaxPerTick() {
+            return maxPerTick;
+        }
+
+        public void setMaxPerTick(int maxPerTick) {
+            this.maxPerTick = maxPerTick;
+        }
+    }
+
+    public static class Store {
+
+        private CacheStoreType type = CacheStoreType.HEAP;
+        private int slabBytes = 1 << 20; // off-heap only, power of two, also the largest entry
+
+        public CacheStoreType getType() {
+            return type;
+        }
+
+        public void setType(CacheStoreType type) {
+            this.type = type;
+        }
+
+        public int getSlabBytes() {
+            return slabBytes;
+        }
+
+        public void setSlabBytes(int slabBytes) {
+            this.slabBytes = slabBytes;
+        }
+    }
+
+    public static class Resp {
+
+        private boolean enabled = false;
+        private String address = "127.0.0.1";
+        private int port = 6379; // -1 = no TCP listener
+        private String unixSocket = ""; // socket file path for co-located clients, empty = off
+        private int ioThreads = 1; // selector event loops, commands run on them
+        private int maxRequestBytes = 16 << 20; // largest single command, bounds each connection's input buffer
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getUnixSocket() {
+            return unixSocket;
+        }
+
+        public void setUnixSocket(String unixSocket) {
+            this.unixSocket = unixSocket;
+        }
+
+        public int getIoThreads() {
+            return ioThreads;
+        }
+
+        public void setIoThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+        }
+
+        public int getMaxRequestBytes() {
+            return maxRequestBytes;
+        }
+
+        public void setMaxRequestBytes(int maxRequestBytes) {
+            this.maxRequestBytes = maxRequestBytes;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxKeys = 1000; // per multi-key request
+        private int parallelMinKeys = 64; // smaller batches visit their stripes one after another
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getParallelMinKeys() {
+            return parallelMinKeys;
+        }
+
+        public void setParallelMinKeys(int parallelMinKeys) {
+            this.parallelMinKeys = parallelMinKeys;
+        }
+    }
+
+    public static class Tracking {
+
+        private boolean enabled = true;
+        private int maxKeys = 100_000; // tracked keys over all clients, an arbitrary one is invalidated to make room
+        private int maxPending = 10_000; // invalidations queued for one client before it is disconnected
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    public static class Aof {
+
+        private boolean enabled = false;
+        private String path = "data/appendonly.aof";
+        private FsyncPolicy fsync = FsyncPolicy.EVERYSEC;
+        private long rewriteMinBytes = 64L << 20; // no compaction below this file size
+        private int rewritePercentage = 100; // compact once the file grew this much since the last compaction
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        public long getRewriteMinBytes() {
+            return rewriteMinBytes;
+        }
+
+        public void setRewriteMinBytes(long rewriteMinBytes) {
+            this.rewriteMinBytes = rewriteMinBytes;
+        }
+
+        public int getRewritePercentage() {
+            return rewritePercentage;
+        }
+
+        public void setRewritePercentage(int rewritePercentage) {
+            this.rewritePercentage = rewritePercentage;
+        }
+    }
+
+    public static class Snapshot {
+
+        private boolean enabled = false;
+        private String dir = "data/snapshots";
+        private long intervalMs = 300_000;
+        private int retain = 2; // complete snapshots kept, the newest one is loaded on boot
+        private int loadThreads = 0; // 0 = one per core
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDir() {
+            return dir;
+        }
+
+        public void setDir(String dir) {
+            this.dir = dir;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getRetain() {
+            return retain;
+        }
+
+        public void setRetain(int retain) {
+            this.retain = retain;
+        }
+
+        public int getLoadThreads() {
+            return loadThreads;
+        }
+
+        public void setLoadThreads(int loadThreads) {
+            this.loadThreads = loadThreads;
+        }
+    }
+
+    public static class Tier {
+
+        private boolean enabled = false;
+        private String dir = "data/tier";
+        private int segmentBytes = 64 << 20;
+        private long maxBytes = 1L << 30; // the oldest segments are dropped beyond this
+        private int compactPercentage = 50; // segments with less live data than this are compacted
+        private long compactMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDir() {
+            return dir;
+        }
+
+        public void setDir(String dir) {
+            this.dir = dir;
+        }
+
+        public int getSegmentBytes() {
+            return segmentBytes;
+        }
+
+        public void setSegmentBytes(int segmentBytes) {
+            this.segmentBytes = segmentBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getCompactPercentage() {
+            return compactPercentage;
+        }
+
+        public void setCompactPercentage(int compactPercentage) {
+            this.compactPercentage = compactPercentage;
+        }
+
+        public long getCompactMs() {
+            return compactMs;
+        }
+
+        public void setCompactMs(long compactMs) {
+            this.compactMs = compactMs;
+        }
+    }
+
+    public static class Flush {
+
+        private long sweepMs = 1000; // how soon the keys of a flushed namespace are reclaimed if nothing touches them
+
+        public long getSweepMs() {
+            return sweepMs;
+        }
+
+        public void setSweepMs(long sweepMs) {
+            this.sweepMs = sweepMs;
+        }
+    }
+
+    public static class Replication {
+
+        private ReplicationRole role = ReplicationRole.NONE;
+        private String host = "localhost"; // leader: address to listen on, follower: the leader's address
+        private int port = 6390; // 0 = any free port
+        private long heartbeatMs = 100; // how often an idle stream carries the leader's offset
+        private int maxBacklog = 1_000_000; // writes queued for one follower before it is dropped and must sync again
+        private long reconnectMs = 1000;
+        private long sendTimeoutMs = 10_000; // a follower whose socket takes no bytes this long is dropped
+
+        public ReplicationRole getRole() {
+            return role;
+        }
+
+        public void setRole(ReplicationRole role) {
+            this.role = role;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public long getHeartbeatMs() {
+            return heartbeatMs;
+        }
+
+        public void setHeartbeatMs(long heartbeatMs) {
+            this.heartbeatMs = heartbeatMs;
+        }
+
+        public int getMaxBacklog() {
+            return maxBacklog;
+        }
+
+        public void setMaxBacklog(int maxBacklog) {
+            this.maxBacklog = maxBacklog;
+        }
+
+        public long getReconnectMs() {
+            return reconnectMs;
+        }
+
+        public void setReconnectMs(long reconnectMs) {
+            this.reconnectMs = reconnectMs;
+        }
+
+        public long getSendTimeoutMs() {
+            return sendTimeoutMs;
+        }
+
+        public void setSendTimeoutMs(long sendTimeoutMs) {
+            this.sendTimeoutMs = sendTimeoutMs;
+        }
+    }
+
+    public static class Quota {
+
+        private long maxEntries = 0; // 0 = no entry limit
+        private long maxBytes = 0; // 0 = no byte limit, bytes are estimated like max-bytes does
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.config.ReadMode;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicyType;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * Measures heap bytes allocated by the calling thread per GET hit / SET overwrite,
+ * through the metrics decorator, once the cache is warm. The churn cases cycle
+ * through more keys than fit, so every SET inserts and evicts.
+ */
+public class HotPathAllocationTest {
+
+    private static final int CAPACITY = 1024;
+    private static final int KEYS = 64;
+    private static final int CHURN_KEYS = 4096;
+    private static final int WARMUP = 200_000;
+    private static final int OPS = 200_000;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static Stream<Arguments> engines() {
+        return Stream.of(
+                Arguments.of(ReadMode.LOCKED, EvictionPolicyType.LRU, 0L),
+                Arguments.of(ReadMode.LOCK_FREE, EvictionPolicyType.LRU, 0L),
+                Arguments.of(ReadMode.LOCK_FREE, EvictionPolicyType.SIEVE, 0L),
+                Arguments.of(ReadMode.LOCKED, EvictionPolicyType.W_TINYLFU, 0L),
+                // byte weights are too large for the Long cache, an unchanged weight must not be re-boxed
+                Arguments.of(ReadMode.LOCKED, EvictionPolicyType.LRU, 1L << 20),
+                Arguments.of(ReadMode.LOCKED, EvictionPolicyType.W_TINYLFU, 1L << 20)
+        );
+    }
+
+    static Stream<Arguments> churningEngines() {
+        // a churned SET pays for its entry, map nodes and the evicted list, per op budgets
+        // sit below what a fresh window-overflow deque per SET used to add on top
+        return Stream.of(
+                Arguments.of(EvictionPolicyType.W_TINYLFU, 0L, 150.0),
+                Arguments.of(EvictionPolicyType.W_TINYLFU, 1L << 16, 200.0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void getHitAndSetUpdate_shouldNotAllocate(ReadMode readMode, EvictionPolicyType policy, long maxBytes) {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        MetricsCacheEngine engine = engine(readMode, policy, maxBytes);
+
+        CacheKey[] keys = keys(KEYS);
+        String[] values = values(KEYS);
+
+        for (int i = 0; i < KEYS; i++) {
+            engine.setKey(keys[i], values[i], 60);
+        }
+
+        run(engine, keys, values, WARMUP);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+
+        int hits = run(engine, keys, values, OPS);
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(OPS, hits);
+
+        // two ops per iteration, allow a few hundred bytes of noise from the measurement itself
+        double perOp = (double) allocated / (2L * OPS);
+
+        assertTrue(perOp < 0.01, "allocated " + allocated + " bytes, " + perOp + " per op");
+    }
+
+    @ParameterizedTest
+    @MethodSource("churningEngines")
+    void churnPastCapacity_shouldOnlyAllocateTheNewEntries(EvictionPolicyType policy, long maxBytes, double budget) {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        MetricsCacheEngine engine = engine(ReadMode.LOCKED, policy, maxBytes);
+
+        CacheKey[] keys = keys(CHURN_KEYS);
+        String[] values = values(CHURN_KEYS);
+
+        run(engine, keys, values, WARMUP);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+
+        int hits = run(engine, keys, values, OPS);
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(hits < OPS, "nothing was evicted");
+
+        double perOp = (double) allocated / (2L * OPS);
+
+        assertTrue(perOp < budget, "allocated " + allocated + " bytes, " + perOp + " per op");
+    }
+
+    private static MetricsCacheEngine engine(ReadMode readMode, EvictionPolicyType policy, long maxBytes) {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(CAPACITY);
+        props.setMaxBytes(maxBytes);
+        props.setReadMode(readMode);
+        props.getEviction().setPolicy(policy);
+
+        return new MetricsCacheEngine(
+                new StripedCacheEngine(props, new FakeTimeProvider(0)), new SimpleMeterRegistry());
+    }
+
+    private static CacheKey[] keys(int n) {
+        CacheKey[] keys = new CacheKey[n];
+
+        for (int i = 0; i < n; i++) {
+            keys[i] = new CacheKey("N1", "K" + i);
+        }
+
+        return keys;
+    }
+
+    private static String[] values(int n) {
+        String[] values = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            values[i] = "V" + i;
+        }
+
+        return values;
+    }
+
+    // key counts are powers of two
+    private static int run(MetricsCacheEngine engine, CacheKey[] keys, String[] values, int ops) {
+        int hits = 0;
+
+        for (int i = 0; i < ops; i++) {
+            int k = i & (keys.length - 1);
+
+            if (engine.getKey(keys[k]) instanceof CacheResult.Hit) hits++;
+
+            engine.setKey(keys[k], values[k], 60);
+        }
+
+        return hits;
+    }
+}
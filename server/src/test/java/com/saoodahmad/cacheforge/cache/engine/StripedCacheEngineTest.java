@@ -0,0 +1,860 @@
+package com.saoodahmad.cacheforge.cache.engine;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.config.ReadMode;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.policy.EvictionPolicyType;
+import com.saoodahmad.cacheforge.cache.store.CacheStoreType;
+import com.saoodahmad.cacheforge.cache.stripe.CacheStripe;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedCacheEngineTest {
+
+    private static StripedCacheEngine lockFreeEngine(FakeTimeProvider time) {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setReadMode(ReadMode.LOCK_FREE);
+
+        return new StripedCacheEngine(props, time);
+    }
+
+    // first `count` keys that route to the same stripe
+    private static List<CacheKey> sameStripeKeys(StripedCacheEngine engine, int count) {
+        List<CacheKey> keys = new ArrayList<>();
+        CacheStripe target = null;
+
+        for (int i = 0; keys.size() < count; i++) {
+            CacheKey k = new CacheKey("N1", "K" + i);
+            CacheStripe s = engine.stripeFor(k);
+
+            if (target == null) {
+                target = s;
+            }
+
+            if (s == target) {
+                keys.add(k);
+            }
+        }
+
+        return keys;
+    }
+
+    @Test
+    void lockFreeGet_shouldHitMissAndExpireLikeLockedGet() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = lockFreeEngine(time);
+
+        CacheKey k = new CacheKey("N1", "X");
+
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(k));
+
+        engine.setKey(k, "X", 1);
+
+        CacheResult hit = engine.getKey(k);
+        assertInstanceOf(CacheResult.Hit.class, hit);
+        assertEquals("X", ((CacheResult.Hit) hit).entry().getVal());
+
+        time.advanceNs(1100 * 1000000L);
+
+        assertInstanceOf(CacheResult.Expired.class, engine.getKey(k));
+        assertFalse(engine.snapshotKeys().get(engine.stripeFor(k).id).contains(k));
+        assertFalse(engine.snapshotLRU().get(engine.stripeFor(k).id).contains(k));
+    }
+
+    @Test
+    void lockFreeGet_bufferedRecency_shouldBeAppliedBeforeEviction() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = lockFreeEngine(time);
+
+        List<CacheKey> keys = sameStripeKeys(engine, 3);
+        CacheKey a = keys.get(0), b = keys.get(1), c = keys.get(2);
+
+        engine.setKey(a, "A", -1);
+        engine.setKey(b, "B", -1);
+
+        // recorded in the read buffer only, the stripe lock is free so it may also drain
+        engine.getKey(a);
+
+        // set drains the buffer before evicting, so B is now the LRU key
+        engine.setKey(c, "C", -1);
+
+        int stripeId = engine.stripeFor(a).id;
+
+        assertEquals(List.of(a, c), engine.snapshotLRU().get(stripeId));
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(b));
+    }
+
+    @Test
+    void lockFreeGet_deletedKeyInBuffer_shouldNotReenterLru() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = lockFreeEngine(time);
+
+        CacheKey k = new CacheKey("N1", "X");
+        CacheStripe stripe = engine.stripeFor(k);
+
+        engine.setKey(k, "X", -1);
+
+        // hold the lock so the read stays buffered
+        stripe.lock.lock();
+        try {
+            assertInstanceOf(CacheResult.Hit.class, engine.getKey(k));
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        engine.deleteKey(k);
+
+        assertFalse(engine.snapshotLRU().get(stripe.id).contains(k));
+    }
+
+    @Test
+    void lockFreeGet_concurrentReaders_shouldNotBlockOnHeldStripeLock() throws Exception {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = lockFreeEngine(time);
+
+        CacheKey k = new CacheKey("N1", "X");
+        engine.setKey(k, "X", -1);
+
+        CacheStripe stripe = engine.stripeFor(k);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        stripe.lock.lock();
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    int hits = 0;
+                    for (int i = 0; i < 10_000; i++) {
+                        if (engine.getKey(k) instanceof CacheResult.Hit) hits++;
+                    }
+                    return hits;
+                }));
+            }
+
+            for (Future<Integer> f : futures) {
+                assertEquals(10_000, f.get());
+            }
+        } finally {
+            stripe.lock.unlock();
+            pool.shutdown();
+        }
+
+        assertEquals(List.of(k), engine.snapshotLRU().get(stripe.id));
+    }
+
+    @Test
+    void lockFreeGet_withSieve_shouldRecordHitWithoutReadBuffer() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setReadMode(ReadMode.LOCK_FREE);
+        props.getEviction().setPolicy(EvictionPolicyType.SIEVE);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        List<CacheKey> keys = sameStripeKeys(engine, 3);
+        CacheKey a = keys.get(0), b = keys.get(1), c = keys.get(2);
+        CacheStripe stripe = engine.stripeFor(a);
+
+        engine.setKey(a, "A", -1);
+        engine.setKey(b, "B", -1);
+
+        stripe.lock.lock();
+        try {
+            assertInstanceOf(CacheResult.Hit.class, engine.getKey(a));
+            assertTrue(stripe.readBuffer.isEmpty());
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // A is visited, so the sieve hand skips it and evicts B
+        engine.setKey(c, "C", -1);
+
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(a));
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(b));
+    }
+
+    @Test
+    void expireKeys_shouldRemoveExpiredKeysThatAreNeverRead() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(64); // room for all three keys whatever stripe they hash to
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        CacheKey shortLived = new CacheKey("N1", "S");
+        CacheKey longLived = new CacheKey("N1", "L");
+        CacheKey persistent = new CacheKey("N1", "P");
+
+        engine.setKey(shortLived, "S", 1);
+        engine.setKey(longLived, "L", 100);
+        engine.setKey(persistent, "P", -1);
+
+        time.advanceNs(1100 * 1000000L);
+
+        assertEquals(1, engine.expireKeys());
+
+        assertFalse(engine.snapshotKeys().get(engine.stripeFor(shortLived).id).contains(shortLived));
+        assertFalse(engine.snapshotLRU().get(engine.stripeFor(shortLived).id).contains(shortLived));
+        assertTrue(engine.snapshotKeys().get(engine.stripeFor(longLived).id).contains(longLived));
+        assertTrue(engine.snapshotKeys().get(engine.stripeFor(persistent).id).contains(persistent));
+    }
+
+    @Test
+    void expireKeys_overwriteWithoutTtl_shouldCancelTimer() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(new CacheForgeProperties(), time);
+
+        CacheKey k = new CacheKey("N1", "X");
+
+        engine.setKey(k, "X", 1);
+        engine.setKey(k, "X2", -1);
+
+        time.advanceNs(5000 * 1000000L);
+
+        assertEquals(0, engine.expireKeys());
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(k));
+    }
+
+    @Test
+    void expireKeys_busyStripe_shouldBeSkippedNotAwaited() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(new CacheForgeProperties(), time);
+
+        CacheKey k = new CacheKey("N1", "X");
+        engine.setKey(k, "X", 1);
+
+        time.advanceNs(1100 * 1000000L);
+
+        CacheStripe stripe = engine.stripeFor(k);
+
+        Thread holder = new Thread(stripe.lock::lock);
+        holder.start();
+
+        try {
+            holder.join();
+            assertEquals(0, engine.expireKeys());
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    void byteBudget_shouldEvictByEstimatedSizeNotEntryCount() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setMaxBytes(2 * 1000); // 1000 bytes per stripe
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        List<CacheKey> keys = sameStripeKeys(engine, 4);
+        CacheKey a = keys.get(0), b = keys.get(1), c = keys.get(2), d = keys.get(3);
+        CacheStripe stripe = engine.stripeFor(a);
+
+        String big = "x".repeat(400);
+
+        // more entries than the count capacity, all fit in the byte budget
+        engine.setKey(a, "A", -1);
+        engine.setKey(b, "B", -1);
+        engine.setKey(c, "C", -1);
+
+        assertEquals(3, engine.snapshotKeys().get(stripe.id).size());
+
+        // one large value pushes out the two oldest small ones
+        engine.setKey(d, big, -1);
+
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(a));
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(b));
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(c));
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(d));
+
+        assertEquals(CacheEntry.estimateBytes(c, "C") + CacheEntry.estimateBytes(d, big), engine.stripeBytes(stripe.id));
+
+        // overwriting with a smaller value gives the bytes back
+        engine.setKey(d, "D", -1);
+
+        assertEquals(CacheEntry.estimateBytes(c, "C") + CacheEntry.estimateBytes(d, "D"), engine.stripeBytes(stripe.id));
+    }
+
+    @Test
+    void byteBudget_entryLargerThanStripe_shouldBeRejectedWithoutSideEffects() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setMaxBytes(2 * 1000);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        CacheKey k = new CacheKey("N1", "X");
+        engine.setKey(k, "X", -1);
+
+        long before = engine.stripeBytes(engine.stripeFor(k).id);
+
+        assertThrows(EntryTooLargeException.class, () -> engine.setKey(k, "x".repeat(2000), -1));
+
+        CacheResult hit = engine.getKey(k);
+        assertInstanceOf(CacheResult.Hit.class, hit);
+        assertEquals("X", ((CacheResult.Hit) hit).entry().getVal());
+        assertEquals(before, engine.stripeBytes(engine.stripeFor(k).id));
+    }
+
+    @Test
+    void offHeapStore_shouldBehaveLikeHeapStore() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setReadMode(ReadMode.LOCK_FREE);
+        props.getStore().setType(CacheStoreType.OFF_HEAP);
+        props.getStore().setSlabBytes(1 << 12);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        CacheKey k = new CacheKey("N1", "X");
+
+        assertInstanceOf(CacheResult.Created.class, engine.setKey(k, "X", 1));
+        assertInstanceOf(CacheResult.Updated.class, engine.setKey(k, "X2", 1));
+        assertEquals("X2", ((CacheResult.Hit) engine.getKey(k)).entry().getVal());
+
+        time.advanceNs(1100 * 1000000L);
+
+        assertEquals(1, engine.expireKeys());
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(k));
+
+        List<CacheKey> keys = sameStripeKeys(engine, 3);
+
+        for (CacheKey key : keys) {
+            engine.setKey(key, key.getKey(), -1);
+        }
+
+        // per stripe capacity of 2 still applies
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(keys.get(0)));
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(keys.get(2)));
+    }
+
+    @Test
+    void reshard_shouldKeepEveryKeyAndSpreadThemOverMoreStripes() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        for (int i = 0; i < 200; i++) {
+            engine.setKey(new CacheKey("N1", "K" + i), "V" + i, i % 2 == 0 ? -1 : 10);
+        }
+
+        assertEquals(8, engine.reshard(8));
+        assertEquals(8, engine.stripeCount());
+
+        for (int i = 0; i < 200; i++) {
+            CacheResult r = engine.getKey(new CacheKey("N1", "K" + i));
+
+            assertInstanceOf(CacheResult.Hit.class, r);
+            assertEquals("V" + i, ((CacheResult.Hit) r).entry().getVal());
+        }
+
+        assertEquals(8, engine.snapshotKeys().size());
+        assertTrue(engine.snapshotKeys().values().stream().allMatch(keys -> !keys.isEmpty()));
+
+        // expiry timers moved with the keys
+        time.advanceNs(11_000 * 1000000L);
+
+        assertEquals(100, engine.expireKeys());
+    }
+
+    @Test
+    void reshard_shouldRetireAndEmptyTheSplitStripes() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+        props.setReadMode(ReadMode.LOCK_FREE);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        CacheKey k = new CacheKey("N1", "K");
+        engine.setKey(k, "old", -1);
+
+        // what a lock-free reader that loaded the table before the reshard still holds
+        CacheStripe old = engine.stripeFor(k);
+
+        engine.reshard(4);
+        engine.setKey(k, "new", -1);
+
+        assertTrue(old.retired);
+        assertNull(old.store.get(k));
+        assertTrue(old.policy.snapshot().isEmpty());
+
+        CacheResult.Hit hit = assertInstanceOf(CacheResult.Hit.class, engine.getKey(k));
+        assertEquals("new", hit.entry().getVal());
+    }
+
+    @Test
+    void reshard_shouldOnlyGrowToPowersOfTwo() {
+        StripedCacheEngine engine = new StripedCacheEngine(new CacheForgeProperties(), new FakeTimeProvider(0));
+
+        assertThrows(IllegalArgumentException.class, () -> engine.reshard(2));
+        assertThrows(IllegalArgumentException.class, () -> engine.reshard(3));
+
+        // capacity 4 cannot be split over 8 stripes
+        assertThrows(IllegalArgumentException.class, () -> engine.reshard(8));
+
+        assertEquals(2, engine.stripeCount());
+    }
+
+    @Test
+    void reshard_underConcurrentTraffic_shouldNotLoseWrites() throws Exception {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1 << 14);
+        props.setReadMode(ReadMode.LOCK_FREE);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+
+            // each worker owns its keys, so a read must always see that worker's last write
+            for (int t = 0; t < 4; t++) {
+                int worker = t;
+
+                workers.add(pool.submit(() -> {
+                    for (int round = 0; !done.get() || round < 3; round++) {
+                        for (int i = 0; i < 50; i++) {
+                            CacheKey k = new CacheKey("W" + worker, "K" + i);
+                            String val = "R" + round;
+
+                            engine.setKey(k, val, -1);
+
+                            CacheResult r = engine.getKey(k);
+                            assertInstanceOf(CacheResult.Hit.class, r);
+                            assertEquals(val, ((CacheResult.Hit) r).entry().getVal());
+                        }
+                    }
+                }));
+            }
+
+            engine.reshard(16);
+            done.set(true);
+
+            for (Future<?> f : workers) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(200, engine.snapshotKeys().values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void batch_shouldKeepPerKeyResultsInRequestOrder() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(64);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        CacheKey a = new CacheKey("N1", "A");
+        CacheKey b = new CacheKey("N1", "B");
+        CacheKey missing = new CacheKey("N2", "A");
+
+        List<CacheResult> set = engine.setKeys(List.of(a, b), List.of("A", "B"), new long[]{1, -1});
+
+        assertInstanceOf(CacheResult.Created.class, set.get(0));
+        assertInstanceOf(CacheResult.Created.class, set.get(1));
+
+        time.advanceNs(1100 * 1000000L);
+
+        List<CacheResult> got = engine.getKeys(List.of(a, missing, b));
+
+        assertInstanceOf(CacheResult.Expired.class, got.get(0));
+        assertInstanceOf(CacheResult.Miss.class, got.get(1));
+        assertInstanceOf(CacheResult.Hit.class, got.get(2));
+        assertEquals("B", ((CacheResult.Hit) got.get(2)).entry().getVal());
+
+        List<CacheResult> deleted = engine.deleteKeys(List.of(b, b));
+
+        assertInstanceOf(CacheResult.Hit.class, deleted.get(0));
+        assertInstanceOf(CacheResult.Miss.class, deleted.get(1));
+    }
+
+    @Test
+    void batch_parallelStripeGroups_shouldMatchSingleKeyResults() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(8);
+        props.setCapacity(1024);
+        props.getBatch().setParallelMinKeys(1);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        List<CacheKey> keys = new ArrayList<>();
+        List<String> vals = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            keys.add(new CacheKey("N" + (i % 3), "K" + i));
+            vals.add("V" + i);
+        }
+
+        long[] ttls = new long[keys.size()];
+        Arrays.fill(ttls, -1);
+
+        assertTrue(engine.setKeys(keys, vals, ttls).stream().allMatch(r -> r instanceof CacheResult.Created));
+        assertTrue(engine.setKeys(keys, vals, ttls).stream().allMatch(r -> r instanceof CacheResult.Updated));
+
+        List<CacheResult> got = engine.getKeys(keys);
+
+        for (int i = 0; i < keys.size(); i++) {
+            assertInstanceOf(CacheResult.Hit.class, got.get(i));
+            assertEquals("V" + i, ((CacheResult.Hit) got.get(i)).entry().getVal());
+            assertInstanceOf(CacheResult.Hit.class, engine.getKey(keys.get(i)));
+        }
+    }
+
+    @Test
+    void batch_oversizedEntry_shouldRejectWholeBatch() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setMaxBytes(2 * 1000);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        CacheKey small = new CacheKey("N1", "S");
+        CacheKey large = new CacheKey("N1", "L");
+
+        assertThrows(EntryTooLargeException.class,
+                () -> engine.setKeys(List.of(small, large), List.of("S", "x".repeat(2000)), new long[]{-1, -1}));
+
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(small));
+    }
+
+    @Test
+    void quota_noisyNamespace_shouldEvictOnlyItsOwnKeys() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+        props.getQuotas().put("bulk", new CacheForgeProperties.Quota());
+        props.getQuotas().get("bulk").setMaxEntries(100);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        for (int i = 0; i < 200; i++) {
+            engine.setKey(new CacheKey("hot", "K" + i), "V" + i, -1);
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            engine.setKey(new CacheKey("bulk", "B" + i), "V" + i, -1);
+
+            // recently used, so the quota keeps it
+            engine.getKey(new CacheKey("bulk", "B0"));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("hot", "K" + i)));
+        }
+
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("bulk", "B0")));
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("bulk", "B4999")));
+
+        assertEquals(4900, engine.evictions("bulk", StripedCacheEngine.EVICTED_BY_QUOTA));
+        assertEquals(0, engine.evictions("bulk", StripedCacheEngine.EVICTED_BY_CAPACITY));
+        assertEquals(0, engine.evictions(null, StripedCacheEngine.EVICTED_BY_CAPACITY));
+
+        // each stripe keeps its share after a reshard too
+        engine.reshard(4);
+
+        long bulk = engine.snapshotKeys().values().stream().flatMap(List::stream)
+                .filter(k -> k.namespace().name.equals("bulk")).count();
+
+        // the halves may be uneven, neither keeps more than its quarter
+        assertTrue(bulk <= 100, bulk + " bulk keys");
+        assertEquals(200 + bulk, engine.snapshotKeys().values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void quota_bytes_shouldBoundTheNamespaceAndRejectOversizedEntries() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+        props.getQuotas().put("blobs", new CacheForgeProperties.Quota());
+        props.getQuotas().get("blobs").setMaxBytes(2 * 2000);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        assertThrows(EntryTooLargeException.class, () -> engine.setKey(new CacheKey("blobs", "big"), "x".repeat(3000), -1));
+        assertThrows(EntryTooLargeException.class,
+                () -> engine.setKeys(List.of(new CacheKey("N1", "A"), new CacheKey("blobs", "big")), List.of("A", "x".repeat(3000)), new long[]{-1, -1}));
+
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("N1", "A")));
+
+        // the same value is fine in a namespace without a quota
+        assertInstanceOf(CacheResult.Created.class, engine.setKey(new CacheKey("N1", "big"), "x".repeat(3000), -1));
+
+        for (int i = 0; i < 100; i++) {
+            engine.setKey(new CacheKey("blobs", "K" + i), "x".repeat(100), -1);
+        }
+
+        long kept = 0;
+
+        for (int i = 0; i < 100; i++) {
+            if (engine.getKey(new CacheKey("blobs", "K" + i)) instanceof CacheResult.Hit) kept++;
+        }
+
+        long entryBytes = CacheEntry.estimateBytes(new CacheKey("blobs", "K10"), "x".repeat(100));
+
+        assertTrue(kept > 0 && kept * entryBytes <= 2 * 2000, kept + " kept");
+        assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("blobs", "K99")));
+        assertEquals(100 - kept, engine.evictions("blobs", StripedCacheEngine.EVICTED_BY_QUOTA));
+    }
+
+    @Test
+    void quota_withoutAnyLimit_shouldBeRejected() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.getQuotas().put("T1", new CacheForgeProperties.Quota());
+
+        assertThrows(IllegalArgumentException.class, () -> new StripedCacheEngine(props, new FakeTimeProvider(0)));
+    }
+
+    @Test
+    void maxNamespaces_differentFromAnotherEngine_shouldBeRejected() {
+        new StripedCacheEngine(new CacheForgeProperties(), new FakeTimeProvider(0));
+
+        // the namespace table is shared, this one would change the first engine's limit
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setMaxNamespaces(100);
+
+        assertThrows(IllegalArgumentException.class, () -> new StripedCacheEngine(props, new FakeTimeProvider(0)));
+
+        // agreeing engines are fine
+        new StripedCacheEngine(new CacheForgeProperties(), new FakeTimeProvider(0));
+    }
+
+    @Test
+    void flushNamespace_shouldMissEveryOldKeyOfThatNamespaceOnly() {
+        for (CacheStoreType store : CacheStoreType.values()) {
+            CacheForgeProperties props = new CacheForgeProperties();
+            props.setCapacity(1024);
+            props.setReadMode(ReadMode.LOCK_FREE);
+            props.getStore().setType(store);
+
+            StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+            for (int i = 0; i < 100; i++) {
+                engine.setKey(new CacheKey("T1", "K" + i), "V" + i, -1);
+                engine.setKey(new CacheKey("T2", "K" + i), "V" + i, -1);
+            }
+
+            assertEquals(1, engine.flushNamespace("T1"));
+
+            for (int i = 0; i < 50; i++) {
+                assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("T1", "K" + i)), store.name());
+                assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("T2", "K" + i)), store.name());
+            }
+
+            // a flushed key is new again, and nothing is left to delete
+            assertInstanceOf(CacheResult.Created.class, engine.setKey(new CacheKey("T1", "K60"), "fresh", -1));
+            assertEquals("fresh", ((CacheResult.Hit) engine.getKey(new CacheKey("T1", "K60"))).entry().getVal());
+            assertInstanceOf(CacheResult.Miss.class, engine.deleteKey(new CacheKey("T1", "K70")));
+
+            // the sweep reclaims the 48 untouched ones, flushed once more only the fresh key is left
+            assertEquals(48, engine.sweepFlushed());
+            assertEquals(0, engine.sweepFlushed());
+            assertEquals(2, engine.flushNamespace("T1"));
+            assertEquals(1, engine.sweepFlushed());
+
+            int left = engine.snapshotKeys().values().stream().mapToInt(List::size).sum();
+
+            assertEquals(100, left, store.name());
+        }
+    }
+
+    @Test
+    void flushNamespace_shouldReachListenersAndSkipFlushedKeysInWalks() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        List<String> events = new ArrayList<>();
+
+        engine.addListener(new CacheEventListener() {
+            @Override
+            public void written(CacheKey key, CacheEntry entry) {
+            }
+
+            @Override
+            public void removed(CacheKey key) {
+                events.add("-" + key.getKey());
+            }
+
+            @Override
+            public void cleared() {
+            }
+
+            @Override
+            public void flushed(String namespace) {
+                events.add("flush " + namespace);
+            }
+        });
+
+        engine.setKey(new CacheKey("T1", "a"), "V", -1);
+        engine.setKey(new CacheKey("T2", "b"), "V", -1);
+
+        engine.flushNamespace("T1");
+
+        // reclaiming flushed keys is silent, the flush itself covered them
+        engine.getKey(new CacheKey("T1", "a"));
+        engine.sweepFlushed();
+
+        assertEquals(List.of("flush T1"), events);
+
+        List<String> walked = new ArrayList<>();
+
+        engine.setKey(new CacheKey("T1", "c"), "V", -1);
+        engine.flushNamespace("T1");
+
+        engine.forEachStripeEntries((entries, id) -> entries.forEach(e -> walked.add(e.getKey().getKey())));
+
+        assertEquals(List.of("b"), walked);
+    }
+
+    @Test
+    void flushNamespace_shouldNotWaitForAWalkInProgress() throws Exception {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        engine.setKey(new CacheKey("T1", "a"), "V", -1);
+
+        CountDownLatch visiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        try {
+            // a walk whose visitor stalls, like a snapshot on a slow disk
+            Future<?> walk = pool.submit(() -> engine.forEachStripeEntries((entries, id) -> {
+                visiting.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            assertTrue(visiting.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, pool.submit(() -> engine.flushNamespace("T1")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("T1", "a")));
+
+            release.countDown();
+            walk.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void forEachEntries_shouldLetAReshardRunAndStillVisitEveryKey() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        for (int i = 0; i < 200; i++) {
+            engine.setKey(new CacheKey("N1", "K" + i), "V" + i, -1);
+        }
+
+        Set<String> walked = new HashSet<>();
+
+        // the first visit reshards, the stripes not copied yet are split under the walk
+        engine.forEachEntries(entries -> {
+            if (engine.stripeCount() == 2) {
+                engine.reshard(8);
+            }
+
+            entries.forEach(e -> walked.add(e.getKey().getKey()));
+        });
+
+        assertEquals(8, engine.stripeCount());
+        assertEquals(200, walked.size());
+    }
+
+    @Test
+    void listener_shouldHearWritesRemovalsAndClear() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        StripedCacheEngine engine = new StripedCacheEngine(new CacheForgeProperties(), time);
+
+        List<String> events = new ArrayList<>();
+
+        engine.addListener(new CacheEventListener() {
+            @Override
+            public void written(CacheKey key, CacheEntry entry) {
+                events.add("+" + key.getKey());
+            }
+
+            @Override
+            public void removed(CacheKey key) {
+                events.add("-" + key.getKey());
+            }
+
+            @Override
+            public void cleared() {
+                events.add("*");
+            }
+        });
+
+        // a stripe holds 2 keys, the third set evicts the first
+        List<CacheKey> keys = sameStripeKeys(engine, 3);
+
+        for (CacheKey key : keys) {
+            engine.setKey(key, "V", -1);
+        }
+
+        engine.getKey(keys.get(1));
+        engine.deleteKey(keys.get(1));
+        engine.deleteKey(keys.get(1));
+
+        engine.setKey(keys.get(2), "V", 1);
+
+        time.advanceNs(1100 * 1000000L);
+
+        assertEquals(1, engine.expireKeys());
+
+        engine.clear();
+
+        String k0 = keys.get(0).getKey(), k1 = keys.get(1).getKey(), k2 = keys.get(2).getKey();
+
+        // reads and misses are silent
+        assertEquals(List.of("+" + k0, "+" + k1, "+" + k2, "-" + k0, "-" + k1, "+" + k2, "-" + k2, "*"), events);
+    }
+}
@@ -0,0 +1,111 @@
+package com.saoodahmad.cacheforge.cache.expiry;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    private static CacheKey key(String k) {
+        return new CacheKey("N1", k);
+    }
+
+    @Test
+    void key_shouldFireAtItsDeadline_andNotBefore() {
+        TimingWheel wheel = new TimingWheel(SEC, 0);
+
+        wheel.schedule(key("A"), 3 * SEC);
+
+        assertTrue(wheel.advance(2 * SEC, 100).isEmpty());
+        assertTrue(wheel.advance(3 * SEC - 1, 100).isEmpty());
+        assertEquals(List.of(key("A")), wheel.advance(3 * SEC, 100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledOrRescheduledKey_shouldNotFireAtOldDeadline() {
+        TimingWheel wheel = new TimingWheel(SEC, 0);
+
+        wheel.schedule(key("A"), 2 * SEC);
+        wheel.schedule(key("B"), 2 * SEC);
+
+        wheel.cancel(key("A"));
+        wheel.schedule(key("B"), 10 * SEC);
+
+        assertTrue(wheel.advance(5 * SEC, 100).isEmpty());
+        assertEquals(List.of(key("B")), wheel.advance(10 * SEC, 100));
+    }
+
+    @Test
+    void longTtls_shouldCascadeThroughLevels_andFireOnTime() {
+        TimingWheel wheel = new TimingWheel(SEC, 0);
+        Random random = new Random(7);
+
+        List<Long> deadlines = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            // up to ~3 days, spans levels 0-2
+            long deadline = 1 + (long) random.nextInt(3 * 24 * 3600);
+            deadlines.add(deadline);
+            wheel.schedule(key("K" + i), deadline * SEC);
+        }
+
+        // jump in uneven steps, every key must fire exactly when its deadline has passed
+        long now = 0;
+        Set<CacheKey> fired = new HashSet<>();
+
+        while (fired.size() < 2000) {
+            now += 1 + random.nextInt(5000);
+
+            for (CacheKey k : wheel.advance(now * SEC, Integer.MAX_VALUE)) {
+                int i = Integer.parseInt(k.getKey().substring(1));
+
+                assertTrue(deadlines.get(i) <= now, "fired early");
+                assertTrue(fired.add(k), "fired twice");
+            }
+
+            for (int i = 0; i < deadlines.size(); i++) {
+                if (deadlines.get(i) <= now) {
+                    assertTrue(fired.contains(key("K" + i)), "K" + i + " missed its deadline");
+                }
+            }
+        }
+
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_shouldRespectWorkBudget_andResumeOnNextCall() {
+        TimingWheel wheel = new TimingWheel(SEC, 0);
+
+        for (int i = 0; i < 25; i++) {
+            wheel.schedule(key("K" + i), SEC);
+        }
+
+        assertEquals(10, wheel.advance(SEC, 10).size());
+        assertEquals(10, wheel.advance(SEC, 10).size());
+        assertEquals(5, wheel.advance(SEC, 10).size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBeyondWheelSpan_shouldStillFire() {
+        TimingWheel wheel = new TimingWheel(SEC, 0);
+
+        long farAway = 64L * 64 * 64 * 64 + 1000; // past the top level
+
+        wheel.schedule(key("A"), farAway * SEC);
+
+        assertTrue(wheel.advance((farAway - 1) * SEC, Integer.MAX_VALUE).isEmpty());
+        assertEquals(List.of(key("A")), wheel.advance(farAway * SEC, Integer.MAX_VALUE));
+    }
+}
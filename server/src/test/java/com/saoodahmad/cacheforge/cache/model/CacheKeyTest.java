@@ -0,0 +1,66 @@
+package com.saoodahmad.cacheforge.cache.model;
+
+import com.saoodahmad.cacheforge.cache.stripe.StripeRouter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheKeyTest {
+
+    @Test
+    void equalKeys_shouldShareNamespaceAndHash() {
+        CacheKey a = new CacheKey(new String("orders"), "42");
+        CacheKey b = new CacheKey(new String("orders"), "42");
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.hash64(), b.hash64());
+        assertSame(a.namespace(), b.namespace());
+        assertSame(a.namespace(), NamespaceTable.byId(a.namespace().id));
+        assertEquals("orders:42", a.fullKey());
+
+        assertNotEquals(a, new CacheKey("orders", "43"));
+        assertNotEquals(a, new CacheKey("users", "42"));
+        assertNotEquals(new CacheKey("ab", "c"), new CacheKey("a", "bc"));
+    }
+
+    @Test
+    void namespaceTable_shouldStopGrowingAtItsLimit() {
+        NamespaceTable.setMaxSize(NamespaceTable.size() + 1);
+
+        try {
+            new CacheKey("limit-ok", "1");
+
+            assertThrows(NamespaceLimitException.class, () -> new CacheKey("limit-over", "1"));
+
+            // reads do not register, existing namespaces keep working
+            assertNull(CacheKey.ifKnown("limit-never-written", "1"));
+            assertNotNull(CacheKey.ifKnown("limit-ok", "2"));
+            assertNull(NamespaceTable.find("limit-never-written"));
+        } finally {
+            NamespaceTable.setMaxSize(NamespaceTable.DEFAULT_MAX_SIZE);
+        }
+    }
+
+    @Test
+    void keysOfOneStripe_shouldStillSpreadOverMapBuckets() {
+        StripeRouter router = new StripeRouter(16);
+
+        int[] buckets = new int[16];
+        int inStripe = 0;
+
+        for (int i = 0; i < 16_000; i++) {
+            CacheKey k = new CacheKey("N1", "K" + i);
+
+            if (router.stripeIndex(k) != 0) continue;
+
+            inStripe++;
+            buckets[k.hashCode() & 15]++;
+        }
+
+        // about 1000 keys land in stripe 0, each of the 16 buckets should get roughly 1/16 of them
+        for (int count : buckets) {
+            assertTrue(count > inStripe / 32, "bucket count " + count + " of " + inStripe);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppendOnlyFileTest {
+
+    @TempDir
+    Path dir;
+
+    private CacheForgeProperties props(FsyncPolicy fsync) {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+        props.getAof().setEnabled(true);
+        props.getAof().setPath(this.dir.resolve("cache.aof").toString());
+        props.getAof().setFsync(fsync);
+
+        return props;
+    }
+
+    @Test
+    void restart_shouldReplaySetsDeletesAndBinaryValues() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.EVERYSEC);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        engine.setKey(new CacheKey("N1", "a"), "alpha", -1);
+        engine.setKey(new CacheKey("N1", "b"), new byte[]{0, 1, 2}, -1);
+        engine.setKey(new CacheKey("N1", "c"), "gone", -1);
+        engine.setKey(new CacheKey("N1", "a"), "alpha2", 3600);
+        engine.deleteKey(new CacheKey("N1", "c"));
+
+        aof.stop();
+
+        StripedCacheEngine restored = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile reopened = new AppendOnlyFile(restored, new FakeTimeProvider(0), props);
+        reopened.start();
+
+        try {
+            CacheResult.Hit a = assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N1", "a")));
+            assertEquals("alpha2", a.entry().getVal());
+            assertEquals(3600, a.entry().getTtlInSecs());
+
+            CacheResult.Hit b = assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N1", "b")));
+            assertArrayEquals(new byte[]{0, 1, 2}, b.entry().valBytes());
+
+            assertInstanceOf(CacheResult.Miss.class, restored.getKey(new CacheKey("N1", "c")));
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    @Test
+    void restart_shouldReplayNamespaceFlushes() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.ALWAYS);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        engine.setKey(new CacheKey("T1", "old"), "v", -1);
+        engine.setKey(new CacheKey("T2", "other"), "v", -1);
+        engine.flushNamespace("T1");
+        engine.setKey(new CacheKey("T1", "new"), "v", -1);
+
+        aof.stop();
+
+        StripedCacheEngine restored = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile reopened = new AppendOnlyFile(restored, new FakeTimeProvider(0), props);
+        reopened.start();
+
+        try {
+            assertInstanceOf(CacheResult.Miss.class, restored.getKey(new CacheKey("T1", "old")));
+            assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("T1", "new")));
+            assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("T2", "other")));
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    @Test
+    void restart_shouldDropKeysThatExpiredWhileDown() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.EVERYSEC);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        engine.setKey(new CacheKey("N1", "short"), "v", 1);
+        engine.setKey(new CacheKey("N1", "long"), "v", 3600);
+
+        aof.stop();
+
+        // expiry is stored as wall clock time, so time spent down counts
+        Thread.sleep(1100);
+
+        StripedCacheEngine restored = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile reopened = new AppendOnlyFile(restored, new FakeTimeProvider(0), props);
+        reopened.start();
+
+        try {
+            assertInstanceOf(CacheResult.Miss.class, restored.getKey(new CacheKey("N1", "short")));
+            assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N1", "long")));
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    @Test
+    void tornTail_shouldBeTruncatedOnReplay() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.EVERYSEC);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        engine.setKey(new CacheKey("N1", "a"), "alpha", -1);
+
+        aof.stop();
+
+        Path path = Path.of(props.getAof().getPath());
+        long intact = Files.size(path);
+
+        // half a record, as a crash mid-append leaves it
+        byte[] record = AofCodec.set(new CacheKey("N1", "b"), "beta", -1);
+        Files.write(path, Arrays.copyOf(record, record.length / 2), StandardOpenOption.APPEND);
+
+        StripedCacheEngine restored = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile reopened = new AppendOnlyFile(restored, new FakeTimeProvider(0), props);
+        reopened.start();
+
+        try {
+            assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N1", "a")));
+            assertInstanceOf(CacheResult.Miss.class, restored.getKey(new CacheKey("N1", "b")));
+            assertEquals(intact, Files.size(path));
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    @Test
+    void growth_shouldTriggerCompactionThatKeepsLatestValues() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.NO);
+        props.getAof().setRewriteMinBytes(4096);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        // ten keys overwritten many times, the log is mostly dead records
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 10; i++) {
+                engine.setKey(new CacheKey("N1", "K" + i), "round" + round, -1);
+            }
+        }
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+
+        // the writer appends on its own thread and may compact while the rounds are still coming,
+        // only once it has appended all of them is the next compaction the last one
+        while ((aof.writesAppended() < aof.writesQueued() || aof.fileBytes() > 4096) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        aof.stop();
+
+        assertTrue(aof.rewrites() > 0);
+
+        Path path = Path.of(props.getAof().getPath());
+        assertTrue(Files.size(path) < 4096, "compacted file is " + Files.size(path) + " bytes");
+
+        // appends made after the last compaction may follow the snapshot, the latest must win
+        Map<String, String> values = new HashMap<>();
+
+        AofCodec.read(path, record -> values.put(record.key().getKey(), (String) record.val()));
+
+        assertEquals(10, values.size());
+        assertTrue(values.values().stream().allMatch("round199"::equals));
+    }
+
+    @Test
+    void writesDuringCompaction_shouldSurviveTheSwap() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.ALWAYS);
+        props.getAof().setRewriteMinBytes(1024);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        // compactions keep starting whenever the writer catches up, with a reshard under one of them
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 20; i++) {
+                CacheKey key = new CacheKey("N1", "K" + (round * 7 + i) % 50);
+
+                if (i % 5 == 0) {
+                    engine.deleteKey(key);
+                } else {
+                    engine.setKey(key, "round" + round, -1);
+                }
+            }
+
+            if (round == 50) {
+                engine.reshard(8);
+            }
+        }
+
+        aof.stop();
+
+        assertTrue(aof.rewrites() > 0);
+
+        StripedCacheEngine restored = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile reopened = new AppendOnlyFile(restored, new FakeTimeProvider(0), props);
+        reopened.start();
+
+        try {
+            for (int i = 0; i < 50; i++) {
+                CacheKey key = new CacheKey("N1", "K" + i);
+
+                CacheResult expected = engine.getKey(key);
+                CacheResult actual = restored.getKey(key);
+
+                assertEquals(expected.getClass(), actual.getClass(), key.getKey());
+
+                if (expected instanceof CacheResult.Hit hit) {
+                    assertEquals(hit.entry().getVal(), ((CacheResult.Hit) actual).entry().getVal(), key.getKey());
+                }
+            }
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    @Test
+    void fsyncAlways_shouldPersistBeforeSetReturns() throws Exception {
+        CacheForgeProperties props = props(FsyncPolicy.ALWAYS);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+        AppendOnlyFile aof = new AppendOnlyFile(engine, new FakeTimeProvider(0), props);
+        aof.start();
+
+        try {
+            engine.setKey(new CacheKey("N1", "a"), "alpha", -1);
+            engine.deleteKeys(List.of(new CacheKey("N1", "a")));
+
+            List<AofCodec.Record> records = new ArrayList<>();
+
+            AofCodec.read(Path.of(props.getAof().getPath()), records::add);
+
+            assertEquals(List.of(AofCodec.SET, AofCodec.DELETE), records.stream().map(AofCodec.Record::op).toList());
+        } finally {
+            aof.stop();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.saoodahmad.cacheforge.cache.persistence;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private CacheForgeProperties props(int stripes) {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(stripes);
+        props.setCapacity(4096);
+        props.getSnapshot().setEnabled(true);
+        props.getSnapshot().setDir(this.dir.toString());
+
+        return props;
+    }
+
+    @Test
+    void restore_shouldRebuildEveryStripeFromTheNewestSnapshot() throws IOException {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(props(8), time);
+
+        // expired but not yet cleaned up, must not be saved
+        engine.setKey(new CacheKey("N1", "stale"), "x", 1);
+        time.advanceNs(2_000_000_000L);
+
+        for (int i = 0; i < 1000; i++) {
+            engine.setKey(new CacheKey("N" + (i % 7), "K" + i), "V" + i, i % 2 == 0 ? -1 : 3600);
+        }
+
+        engine.setKey(new CacheKey("bin", "b"), new byte[]{(byte) 0xff, 0, 1}, -1);
+
+        Path snapshot = new SnapshotWriter(engine, time, props(8)).save();
+
+        assertEquals(8, SnapshotCodec.stripeFiles(snapshot).size());
+
+        // a different stripe count still loads, the files just no longer map one to one
+        for (int stripes : new int[]{8, 4}) {
+            StripedCacheEngine restored = new StripedCacheEngine(props(stripes), new FakeTimeProvider(0));
+
+            assertEquals(1001, new SnapshotLoader(restored, props(stripes)).restore());
+
+            for (int i = 0; i < 1000; i++) {
+                CacheResult.Hit hit = assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N" + (i % 7), "K" + i)));
+
+                assertEquals("V" + i, hit.entry().getVal());
+                assertEquals(i % 2 == 0 ? -1 : 3600, hit.entry().getTtlInSecs());
+            }
+
+            CacheResult.Hit bin = assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("bin", "b")));
+            assertArrayEquals(new byte[]{(byte) 0xff, 0, 1}, bin.entry().valBytes());
+
+            assertInstanceOf(CacheResult.Miss.class, restored.getKey(new CacheKey("N1", "stale")));
+        }
+    }
+
+    @Test
+    void corruptSnapshot_shouldFallBackToTheOlderOne() throws IOException {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(props(4), time);
+        SnapshotWriter writer = new SnapshotWriter(engine, time, props(4));
+
+        engine.setKey(new CacheKey("N1", "a"), "old", -1);
+        writer.save();
+
+        engine.setKey(new CacheKey("N1", "a"), "new", -1);
+        Path newest = writer.save();
+
+        Path file = SnapshotCodec.stripeFile(newest, engine.stripeFor(new CacheKey("N1", "a")).id);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        StripedCacheEngine restored = new StripedCacheEngine(props(4), new FakeTimeProvider(0));
+
+        assertEquals(1, new SnapshotLoader(restored, props(4)).restore());
+
+        CacheResult.Hit hit = assertInstanceOf(CacheResult.Hit.class, restored.getKey(new CacheKey("N1", "a")));
+        assertEquals("old", hit.entry().getVal());
+    }
+
+    @Test
+    void save_shouldKeepOnlyRetainedSnapshots() throws IOException {
+        CacheForgeProperties props = props(2);
+        props.getSnapshot().setRetain(2);
+
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+        SnapshotWriter writer = new SnapshotWriter(engine, time, props);
+
+        Path first = writer.save();
+        Path second = writer.save();
+        Path third = writer.save();
+
+        assertEquals(List.of(third, second), SnapshotCodec.snapshots(this.dir));
+        assertFalse(Files.exists(first));
+
+        // no snapshot yet is not an error, the cache starts empty
+        CacheForgeProperties fresh = props(2);
+        fresh.getSnapshot().setDir(this.dir.resolve("none").toString());
+
+        assertEquals(0, new SnapshotLoader(new StripedCacheEngine(fresh, time), fresh).restore());
+    }
+}
@@ -0,0 +1,190 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvictionPolicyTest {
+
+    private static CacheKey key(String k) {
+        return new CacheKey("N1", k);
+    }
+
+    private static List<CacheKey> insert(EvictionPolicy policy, CacheKey key) {
+        policy.touch(key);
+
+        return policy.evictIfOverLimit();
+    }
+
+    @ParameterizedTest
+    @EnumSource(EvictionPolicyType.class)
+    void randomWorkload_shouldStayWithinCapacity_andTrackExactlyTheResidentKeys(EvictionPolicyType type) {
+        EvictionPolicy policy = type.create(16);
+        Set<CacheKey> resident = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            CacheKey k = key("K" + random.nextInt(64));
+
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    policy.forget(k);
+                    resident.remove(k);
+                }
+                case 1 -> {
+                    if (resident.contains(k)) policy.recordHitLockFree(k);
+                }
+                default -> {
+                    resident.add(k);
+                    insert(policy, k).forEach(resident::remove);
+                }
+            }
+
+            assertTrue(policy.size() <= 16);
+        }
+
+        assertEquals(resident.size(), policy.size());
+        assertEquals(resident, new HashSet<>(policy.snapshot()));
+
+        policy.clear();
+
+        assertEquals(0, policy.size());
+        assertTrue(policy.snapshot().isEmpty());
+    }
+
+    @Test
+    void lockFreeHits_shouldOnlyBeSupportedByBitAndCounterPolicies() {
+        assertFalse(EvictionPolicyType.LRU.create(4).recordHitLockFree(key("A")));
+        assertFalse(EvictionPolicyType.W_TINYLFU.create(4).recordHitLockFree(key("A")));
+
+        assertTrue(EvictionPolicyType.SIEVE.create(4).recordHitLockFree(key("A")));
+        assertTrue(EvictionPolicyType.S3_FIFO.create(4).recordHitLockFree(key("A")));
+        assertTrue(EvictionPolicyType.CLOCK.create(4).recordHitLockFree(key("A")));
+    }
+
+    @Test
+    void sieve_visitedKey_shouldSurvive_andHandShouldKeepItsPosition() {
+        EvictionPolicy policy = new SievePolicy(3);
+
+        insert(policy, key("A"));
+        insert(policy, key("B"));
+        insert(policy, key("C"));
+
+        policy.touch(key("A"));
+
+        assertEquals(List.of(key("B")), insert(policy, key("D")));
+
+        // hand stopped between A and C, C is unvisited so it goes next, A keeps its place
+        assertEquals(List.of(key("C")), insert(policy, key("E")));
+        assertEquals(List.of(key("A"), key("D"), key("E")), policy.snapshot());
+    }
+
+    @Test
+    void clock_referencedKey_shouldGetSecondChance() {
+        EvictionPolicy policy = new ClockPolicy(3);
+
+        insert(policy, key("A"));
+        insert(policy, key("B"));
+        insert(policy, key("C"));
+
+        policy.recordHitLockFree(key("A"));
+
+        assertEquals(List.of(key("B")), insert(policy, key("D")));
+
+        // the hand resumes at C instead of restarting from A
+        assertEquals(List.of(key("C")), insert(policy, key("E")));
+
+        // D was inserted unreferenced, then the hand wraps to A whose bit was cleared on the first lap
+        assertEquals(List.of(key("D")), insert(policy, key("F")));
+        assertEquals(List.of(key("A")), insert(policy, key("G")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(EvictionPolicyType.class)
+    void weightedWorkload_shouldStayWithinWeightBudget_andTrackWeightedSize(EvictionPolicyType type) {
+        EvictionPolicy policy = type.create(1000);
+        Map<CacheKey, Long> resident = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            CacheKey k = key("K" + random.nextInt(64));
+
+            if (random.nextInt(4) == 0) {
+                policy.forget(k);
+                resident.remove(k);
+            } else {
+                long weight = 1 + random.nextInt(200);
+
+                policy.touch(k, weight);
+                resident.put(k, weight);
+                policy.evictIfOverLimit().forEach(resident::remove);
+            }
+
+            assertTrue(policy.weightedSize() <= 1000);
+            assertEquals(resident.values().stream().mapToLong(Long::longValue).sum(), policy.weightedSize());
+        }
+
+        assertEquals(resident.keySet(), new HashSet<>(policy.snapshot()));
+
+        policy.clear();
+
+        assertEquals(0, policy.weightedSize());
+    }
+
+    @Test
+    void s3fifo_oneHitWonders_shouldLeaveBeforeKeysHitInSmallQueue() {
+        EvictionPolicy policy = new S3FifoPolicy(10);
+
+        for (int i = 0; i < 10; i++) {
+            insert(policy, key("K" + i));
+        }
+
+        policy.touch(key("K0"));
+        policy.touch(key("K1"));
+
+        for (int i = 0; i < 20; i++) {
+            insert(policy, key("S" + i));
+        }
+
+        List<CacheKey> snapshot = policy.snapshot();
+
+        assertTrue(snapshot.contains(key("K0")));
+        assertTrue(snapshot.contains(key("K1")));
+        assertFalse(snapshot.contains(key("K2")));
+    }
+
+    @Test
+    void s3fifo_ghostHit_shouldReadmitStraightIntoMainQueue() {
+        EvictionPolicy policy = new S3FifoPolicy(10);
+
+        insert(policy, key("G"));
+
+        for (int i = 0; i < 10; i++) {
+            insert(policy, key("K" + i));
+        }
+
+        assertFalse(policy.snapshot().contains(key("G")));
+
+        insert(policy, key("G"));
+
+        // main queue is listed after the small queue
+        List<CacheKey> snapshot = policy.snapshot();
+        assertEquals(key("G"), snapshot.get(snapshot.size() - 1));
+
+        for (int i = 10; i < 15; i++) {
+            insert(policy, key("K" + i));
+        }
+
+        assertTrue(policy.snapshot().contains(key("G")));
+    }
+}
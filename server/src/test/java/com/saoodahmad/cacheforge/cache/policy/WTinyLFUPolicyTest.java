@@ -0,0 +1,102 @@
+package com.saoodahmad.cacheforge.cache.policy;
+
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WTinyLFUPolicyTest {
+
+    // mirrors what the engine does on every SET
+    private static void insert(EvictionPolicy policy, Set<CacheKey> resident, CacheKey key) {
+        policy.touch(key);
+        resident.add(key);
+
+        List<CacheKey> evicted = policy.evictIfOverLimit();
+        evicted.forEach(resident::remove);
+    }
+
+    // 50 hot keys, each re-read every 200 inserts while 10k cold keys stream through
+    private static Set<CacheKey> runScan(EvictionPolicy policy) {
+        Set<CacheKey> resident = new HashSet<>();
+
+        for (int i = 0; i < 50; i++) {
+            insert(policy, resident, new CacheKey("hot", "K" + i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            insert(policy, resident, new CacheKey("scan", "S" + i));
+
+            if (i % 4 == 0) {
+                CacheKey hot = new CacheKey("hot", "K" + ((i / 4) % 50));
+
+                if (resident.contains(hot)) {
+                    policy.touch(hot);
+                } else {
+                    insert(policy, resident, hot); // miss, the caller reloads it
+                }
+            }
+        }
+
+        return resident;
+    }
+
+    private static long hotResident(Set<CacheKey> resident) {
+        return resident.stream().filter(k -> k.getNamespace().equals("hot")).count();
+    }
+
+    @Test
+    void scanOfColdKeys_shouldNotFlushFrequentlyUsedKeys() {
+        EvictionPolicy policy = new WTinyLFUPolicy(100);
+
+        Set<CacheKey> resident = runScan(policy);
+
+        assertEquals(50, hotResident(resident));
+        assertEquals(100, policy.size());
+        assertEquals(resident, new HashSet<>(policy.snapshot()));
+    }
+
+    @Test
+    void lruPolicy_sameScan_shouldFlushHotKeys() {
+        Set<CacheKey> resident = runScan(new LRUPolicy(100));
+
+        assertTrue(hotResident(resident) < 50);
+    }
+
+    @Test
+    void forget_shouldRemoveFromEveryRegion() {
+        EvictionPolicy policy = new WTinyLFUPolicy(10);
+        Set<CacheKey> resident = new HashSet<>();
+
+        for (int i = 0; i < 10; i++) {
+            insert(policy, resident, new CacheKey("N1", "K" + i));
+        }
+
+        // promote K0 to the protected region
+        policy.touch(new CacheKey("N1", "K0"));
+
+        for (int i = 0; i < 10; i++) {
+            policy.forget(new CacheKey("N1", "K" + i));
+        }
+
+        assertEquals(0, policy.size());
+        assertTrue(policy.snapshot().isEmpty());
+    }
+
+    @Test
+    void capacityOfOne_shouldKeepExactlyOneKey() {
+        EvictionPolicy policy = new WTinyLFUPolicy(1);
+        Set<CacheKey> resident = new HashSet<>();
+
+        insert(policy, resident, new CacheKey("N1", "A"));
+        insert(policy, resident, new CacheKey("N1", "B"));
+        insert(policy, resident, new CacheKey("N1", "C"));
+
+        assertEquals(1, policy.size());
+        assertEquals(resident, new HashSet<>(policy.snapshot()));
+    }
+}
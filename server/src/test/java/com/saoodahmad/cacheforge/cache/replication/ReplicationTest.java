@@ -0,0 +1,240 @@
+package com.saoodahmad.cacheforge.cache.replication;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.api.ReadOnlyReplicaException;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.MetricsCacheEngine;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationTest {
+
+    private static CacheForgeProperties props(ReplicationRole role, int port) {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(1024);
+        props.getReplication().setRole(role);
+        props.getReplication().setPort(port);
+        props.getReplication().setHeartbeatMs(10);
+        props.getReplication().setReconnectMs(50);
+
+        return props;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Follower did not catch up in time");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean hasVal(StripedCacheEngine engine, CacheKey key, String val) {
+        return engine.getKey(key) instanceof CacheResult.Hit hit && val.equals(hit.entry().getVal());
+    }
+
+    @Test
+    void follower_shouldSyncFullStateThenApplyTheStream() throws Exception {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine leaderEngine = new StripedCacheEngine(props(ReplicationRole.LEADER, 0), time);
+
+        ReplicationLeader leader = new ReplicationLeader(leaderEngine, time, props(ReplicationRole.LEADER, 0), new SimpleMeterRegistry());
+        leader.start();
+
+        // written before the follower exists, reaches it through the full state transfer
+        for (int i = 0; i < 100; i++) {
+            leaderEngine.setKey(new CacheKey("N1", "K" + i), "V" + i, i % 2 == 0 ? -1 : 3600);
+        }
+
+        leaderEngine.setKey(new CacheKey("bin", "b"), new byte[]{1, 2, 3}, -1);
+        leaderEngine.setKey(new CacheKey("T2", "old"), "x", -1);
+
+        StripedCacheEngine followerEngine = new StripedCacheEngine(props(ReplicationRole.FOLLOWER, 0), new FakeTimeProvider(0));
+        CacheApi followerApi = new CacheApi(new MetricsCacheEngine(followerEngine, new SimpleMeterRegistry()));
+
+        ReplicationFollower follower = new ReplicationFollower(followerEngine, followerApi,
+                props(ReplicationRole.FOLLOWER, leader.port()), new SimpleMeterRegistry());
+        follower.start();
+
+        try {
+            await(follower::isSynced);
+
+            for (int i = 0; i < 100; i++) {
+                CacheResult.Hit hit = assertInstanceOf(CacheResult.Hit.class, followerEngine.getKey(new CacheKey("N1", "K" + i)));
+
+                assertEquals("V" + i, hit.entry().getVal());
+                assertEquals(i % 2 == 0 ? -1 : 3600, hit.entry().getTtlInSecs());
+            }
+
+            CacheResult.Hit bin = assertInstanceOf(CacheResult.Hit.class, followerEngine.getKey(new CacheKey("bin", "b")));
+            assertArrayEquals(new byte[]{1, 2, 3}, bin.entry().valBytes());
+
+            // the live stream
+            leaderEngine.setKey(new CacheKey("N1", "K1"), "changed", -1);
+            leaderEngine.deleteKey(new CacheKey("N1", "K2"));
+            leaderEngine.flushNamespace("T2");
+            leaderEngine.setKey(new CacheKey("N1", "last"), "done", -1);
+
+            await(() -> hasVal(followerEngine, new CacheKey("N1", "last"), "done"));
+
+            assertTrue(hasVal(followerEngine, new CacheKey("N1", "K1"), "changed"));
+            assertInstanceOf(CacheResult.Miss.class, followerEngine.getKey(new CacheKey("N1", "K2")));
+            assertInstanceOf(CacheResult.Miss.class, followerEngine.getKey(new CacheKey("T2", "old")));
+
+            // reads only through the API
+            assertEquals("done", followerApi.getKey("N1", "last").data.getVal());
+            assertThrows(ReadOnlyReplicaException.class, () -> followerApi.setKey("N1", "x", "y", -1));
+            assertThrows(ReadOnlyReplicaException.class, () -> followerApi.deleteKey("N1", "K3"));
+            assertThrows(ReadOnlyReplicaException.class, () -> followerApi.flushNamespace("N1"));
+
+            await(() -> leader.lag() == 0 && follower.lagWrites() == 0);
+
+            assertEquals(1, leader.followers());
+        } finally {
+            follower.stop();
+            leader.stop();
+        }
+    }
+
+    @Test
+    void follower_shouldResyncAfterARecordFailsToApply() throws Exception {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine leaderEngine = new StripedCacheEngine(props(ReplicationRole.LEADER, 0), time);
+
+        ReplicationLeader leader = new ReplicationLeader(leaderEngine, time, props(ReplicationRole.LEADER, 0), new SimpleMeterRegistry());
+        leader.start();
+
+        // larger than the follower's whole budget, applying it throws EntryTooLargeException
+        leaderEngine.setKey(new CacheKey("N1", "big"), "x".repeat(10_000), -1);
+
+        CacheForgeProperties followerProps = props(ReplicationRole.FOLLOWER, leader.port());
+        followerProps.setMaxBytes(4096);
+
+        StripedCacheEngine followerEngine = new StripedCacheEngine(followerProps, new FakeTimeProvider(0));
+        ReplicationFollower follower = new ReplicationFollower(followerEngine,
+                new CacheApi(new MetricsCacheEngine(followerEngine, new SimpleMeterRegistry())),
+                followerProps, new SimpleMeterRegistry());
+        follower.start();
+
+        try {
+            Thread.sleep(200);
+
+            assertFalse(follower.isSynced());
+
+            leaderEngine.deleteKey(new CacheKey("N1", "big"));
+            leaderEngine.setKey(new CacheKey("N1", "small"), "y", -1);
+
+            // the follower thread survived and synced on a later attempt
+            await(() -> hasVal(followerEngine, new CacheKey("N1", "small"), "y"));
+        } finally {
+            follower.stop();
+            leader.stop();
+        }
+    }
+
+    @Test
+    void follower_shouldResyncFromScratchAfterReconnecting() throws Exception {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+
+        StripedCacheEngine firstEngine = new StripedCacheEngine(props(ReplicationRole.LEADER, 0), time);
+        ReplicationLeader first = new ReplicationLeader(firstEngine, time, props(ReplicationRole.LEADER, 0), new SimpleMeterRegistry());
+        first.start();
+
+        int port = first.port();
+
+        firstEngine.setKey(new CacheKey("N1", "stale"), "x", -1);
+
+        StripedCacheEngine followerEngine = new StripedCacheEngine(props(ReplicationRole.FOLLOWER, port), new FakeTimeProvider(0));
+        ReplicationFollower follower = new ReplicationFollower(followerEngine,
+                new CacheApi(new MetricsCacheEngine(followerEngine, new SimpleMeterRegistry())),
+                props(ReplicationRole.FOLLOWER, port), new SimpleMeterRegistry());
+        follower.start();
+
+        ReplicationLeader second = null;
+
+        try {
+            await(() -> hasVal(followerEngine, new CacheKey("N1", "stale"), "x"));
+
+            first.stop();
+
+            await(() -> !follower.isSynced());
+
+            // a restarted leader on the same port with other data
+            StripedCacheEngine secondEngine = new StripedCacheEngine(props(ReplicationRole.LEADER, port), time);
+            secondEngine.setKey(new CacheKey("N1", "fresh"), "y", -1);
+
+            second = new ReplicationLeader(secondEngine, time, props(ReplicationRole.LEADER, port), new SimpleMeterRegistry());
+            second.start();
+
+            await(follower::isSynced);
+
+            assertTrue(hasVal(followerEngine, new CacheKey("N1", "fresh"), "y"));
+            assertInstanceOf(CacheResult.Miss.class, followerEngine.getKey(new CacheKey("N1", "stale")));
+        } finally {
+            follower.stop();
+
+            if (second != null) {
+                second.stop();
+            }
+        }
+    }
+
+    @Test
+    void follower_shouldReconnectWhenTheLeaderGoesSilent() throws Exception {
+        // answers the handshake, then neither sends the state nor heartbeats
+        try (ServerSocket silent = new ServerSocket(0)) {
+            StripedCacheEngine followerEngine = new StripedCacheEngine(props(ReplicationRole.FOLLOWER, 0), new FakeTimeProvider(0));
+            ReplicationFollower follower = new ReplicationFollower(followerEngine,
+                    new CacheApi(new MetricsCacheEngine(followerEngine, new SimpleMeterRegistry())),
+                    props(ReplicationRole.FOLLOWER, silent.getLocalPort()), new SimpleMeterRegistry());
+            follower.start();
+
+            List<Socket> accepted = new ArrayList<>();
+
+            try {
+                silent.setSoTimeout(5_000);
+
+                for (int i = 0; i < 2; i++) {
+                    Socket socket = silent.accept();
+                    accepted.add(socket);
+
+                    socket.getInputStream().readNBytes(ReplicationStream.MAGIC.length);
+                    socket.getOutputStream().write(ReplicationStream.MAGIC);
+                }
+
+                // the first connection was given up after a few missed heartbeats
+                assertEquals(-1, accepted.get(0).getInputStream().read());
+                assertFalse(follower.isSynced());
+            } finally {
+                follower.stop();
+
+                for (Socket socket : accepted) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void sendTimeout_notAboveHeartbeat_shouldBeRejected() {
+        CacheForgeProperties props = props(ReplicationRole.LEADER, 0);
+        props.getReplication().setSendTimeoutMs(10);
+
+        assertThrows(IllegalArgumentException.class, () -> ReplicationLeader.validateReplication(props.getReplication()));
+    }
+}
@@ -0,0 +1,169 @@
+package com.saoodahmad.cacheforge.cache.store;
+
+import com.saoodahmad.cacheforge.cache.engine.EntryTooLargeException;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapCacheStoreTest {
+
+    private static CacheKey key(String k) {
+        return new CacheKey("N1", k);
+    }
+
+    @Test
+    void putGet_shouldRoundTripValueAndExpiry() {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 12);
+
+        CacheEntry entry = new CacheEntry("héllo", 5, 1_000);
+        entry.markExpiryCounted();
+
+        store.put(key("A"), entry);
+
+        CacheEntry read = store.get(key("A"));
+
+        assertEquals("héllo", read.getVal());
+        assertEquals(5, read.getTtlInSecs());
+        assertEquals(entry.expiresAtNs(), read.expiresAtNs());
+        assertTrue(read.expiryCounted());
+
+        assertNull(store.get(key("B")));
+        assertTrue(store.containsKey(key("A")));
+        assertEquals(List.of(key("A")), store.keys());
+    }
+
+    @Test
+    void putGet_binaryValue_shouldRoundTripBytes() {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 12);
+
+        byte[] blob = {0, (byte) 0xff, (byte) 0xc3, 0x28, 10};
+
+        store.put(key("A"), new CacheEntry(blob, -1, 0));
+        store.put(key("B"), new CacheEntry("text", -1, 0));
+
+        CacheEntry read = store.get(key("A"));
+
+        assertTrue(read.isBinary());
+        assertArrayEquals(blob, read.valBytes());
+        assertFalse(store.get(key("B")).isBinary());
+    }
+
+    @Test
+    void overwriteAndRemove_shouldReuseFreedSlots() {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 12);
+
+        for (int i = 0; i < 10_000; i++) {
+            store.put(key("K" + (i % 8)), new CacheEntry("x".repeat(i % 300), -1, 0));
+
+            if (i % 3 == 0) {
+                assertNotNull(store.remove(key("K" + (i % 8))));
+            }
+        }
+
+        // 8 live keys in at most a few size classes, without reuse this would need hundreds of slabs
+        assertTrue(store.reservedBytes() <= 8L * (1 << 12));
+
+        store.put(key("K1"), new CacheEntry("one", -1, 0));
+
+        assertEquals("one", store.remove(key("K1")).getVal());
+        assertNull(store.get(key("K1")));
+        assertNull(store.remove(key("K1")));
+
+        store.clear();
+
+        assertEquals(0, store.reservedBytes());
+        assertTrue(store.keys().isEmpty());
+    }
+
+    @Test
+    void remove_shouldReleaseEmptySlabsToOtherSizeClasses() {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 12);
+
+        // 128 byte slots, 32 to a slab
+        for (int i = 0; i < 320; i++) {
+            store.put(key("S" + i), new CacheEntry("x".repeat(100), -1, 0));
+        }
+
+        assertEquals(10L * (1 << 12), store.reservedBytes());
+
+        for (int i = 0; i < 320; i++) {
+            store.remove(key("S" + i));
+        }
+
+        // only the spare is left
+        assertEquals(1 << 12, store.reservedBytes());
+
+        // 512 byte slots, 8 to a slab, built from the released memory
+        for (int i = 0; i < 80; i++) {
+            store.put(key("L" + i), new CacheEntry("y".repeat(400), -1, 0));
+        }
+
+        assertEquals(10L * (1 << 12), store.reservedBytes());
+        assertEquals("y".repeat(400), store.get(key("L79")).getVal());
+
+        // a slab with one live slot left is kept
+        for (int i = 1; i < 8; i++) {
+            store.remove(key("L" + i));
+        }
+
+        assertEquals(10L * (1 << 12), store.reservedBytes());
+        assertEquals("y".repeat(400), store.get(key("L0")).getVal());
+    }
+
+    @Test
+    void put_entryLargerThanSlab_shouldBeRejected() {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 10);
+
+        assertThrows(EntryTooLargeException.class, () -> store.put(key("A"), new CacheEntry("x".repeat(2000), -1, 0)));
+        assertNull(store.get(key("A")));
+    }
+
+    @Test
+    void get_concurrentWithRewrites_shouldNeverReturnTornValue() throws Exception {
+        OffHeapCacheStore store = new OffHeapCacheStore(1 << 12);
+        CacheKey k = key("A");
+
+        store.put(k, new CacheEntry("a", -1, 0));
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+
+        try {
+            List<Future<?>> readers = List.of(
+                    pool.submit(() -> readUntil(store, k, done)),
+                    pool.submit(() -> readUntil(store, k, done))
+            );
+
+            // every value is a single repeated letter, a torn read would mix two of them
+            for (int i = 0; i < 50_000; i++) {
+                char c = (char) ('a' + i % 26);
+                store.put(k, new CacheEntry(String.valueOf(c).repeat(1 + i % 100), -1, 0));
+            }
+
+            done.set(true);
+
+            for (Future<?> f : readers) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void readUntil(OffHeapCacheStore store, CacheKey k, AtomicBoolean done) {
+        while (!done.get()) {
+            String val = store.get(k).getVal();
+
+            assertFalse(val.isEmpty());
+            assertEquals(String.valueOf(val.charAt(0)).repeat(val.length()), val);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.saoodahmad.cacheforge.cache.tier;
+
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.model.CacheEntry;
+import com.saoodahmad.cacheforge.cache.model.CacheKey;
+import com.saoodahmad.cacheforge.cache.model.CacheResult;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskTierTest {
+
+    @TempDir
+    Path dir;
+
+    private CacheForgeProperties.Tier tierProps(int segmentBytes, long maxBytes) {
+        CacheForgeProperties.Tier tier = new CacheForgeProperties().getTier();
+        tier.setEnabled(true);
+        tier.setDir(this.dir.toString());
+        tier.setSegmentBytes(segmentBytes);
+        tier.setMaxBytes(maxBytes);
+
+        return tier;
+    }
+
+    @Test
+    void evictedKeys_shouldSpillToDiskAndPromoteOnGet() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(2);
+        props.setCapacity(4);
+        props.getTier().setEnabled(true);
+        props.getTier().setDir(this.dir.toString());
+
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        StripedCacheEngine engine = new StripedCacheEngine(props, time);
+
+        for (int i = 0; i < 100; i++) {
+            engine.setKey(new CacheKey("N1", "K" + i), "V" + i, i < 50 ? -1 : 1);
+        }
+
+        engine.setKey(new CacheKey("N1", "bin"), new byte[]{7, 8}, -1);
+
+        assertTrue(engine.tierKeys() >= 90, "spilled " + engine.tierKeys());
+
+        for (int i = 0; i < 50; i++) {
+            CacheResult.Hit hit = assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("N1", "K" + i)));
+            assertEquals("V" + i, hit.entry().getVal());
+        }
+
+        CacheResult.Hit bin = assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("N1", "bin")));
+        assertArrayEquals(new byte[]{7, 8}, bin.entry().valBytes());
+
+        // a set replaces the spilled copy, a delete reaches it on disk
+        engine.setKey(new CacheKey("N1", "K60"), "new", -1);
+        assertEquals("new", ((CacheResult.Hit) engine.getKey(new CacheKey("N1", "K60"))).entry().getVal());
+
+        assertInstanceOf(CacheResult.Hit.class, engine.deleteKey(new CacheKey("N1", "K3")));
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("N1", "K3")));
+
+        // TTLs keep running on disk
+        time.advanceNs(2_000_000_000L);
+
+        assertInstanceOf(CacheResult.Expired.class, engine.getKey(new CacheKey("N1", "K70")));
+
+        engine.clear();
+
+        assertEquals(0, engine.tierKeys());
+        assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("N1", "K10")));
+    }
+
+    @Test
+    void persistenceWalk_shouldSeeSpilledKeys() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(2);
+        props.setCapacity(4);
+        props.getTier().setEnabled(true);
+        props.getTier().setDir(this.dir.toString());
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        for (int i = 0; i < 100; i++) {
+            engine.setKey(new CacheKey("N1", "K" + i), "V" + i, -1);
+        }
+
+        List<String> keys = new ArrayList<>();
+
+        engine.forEachStripeEntries((entries, id) -> entries.forEach(e -> keys.add(e.getKey().getKey())));
+
+        assertEquals(100, keys.size());
+        assertEquals(100, keys.stream().distinct().count());
+    }
+
+    @Test
+    void flushNamespace_shouldReachSpilledKeys() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setStripes(2);
+        props.setCapacity(4);
+        props.getTier().setEnabled(true);
+        props.getTier().setDir(this.dir.toString());
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, new FakeTimeProvider(0));
+
+        for (int i = 0; i < 50; i++) {
+            engine.setKey(new CacheKey("T1", "K" + i), "V" + i, -1);
+        }
+
+        engine.flushNamespace("T1");
+
+        // spilled after the flush, must survive the sweep
+        for (int i = 0; i < 50; i++) {
+            engine.setKey(new CacheKey("T1", "new" + i), "V" + i, -1);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertInstanceOf(CacheResult.Miss.class, engine.getKey(new CacheKey("T1", "K" + i)));
+        }
+
+        engine.sweepFlushed();
+
+        assertEquals(50, engine.tierKeys() + engine.snapshotKeys().values().stream().mapToInt(List::size).sum());
+
+        for (int i = 0; i < 50; i++) {
+            assertInstanceOf(CacheResult.Hit.class, engine.getKey(new CacheKey("T1", "new" + i)));
+        }
+    }
+
+    @Test
+    void compact_shouldMoveLiveRecordsOutOfMostlyDeadSegments() {
+        FakeTimeProvider time = new FakeTimeProvider(0);
+        DiskTier tier = new DiskTier(tierProps(4096, 1 << 20), time);
+
+        // each key rewritten many times, only the last copy is live
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 10; i++) {
+                tier.put(new CacheKey("N1", "K" + i), CacheEntry.of("round" + round, -1, 0));
+            }
+        }
+
+        long before = tier.bytes();
+
+        for (int i = 0; i < 100; i++) {
+            tier.compact();
+        }
+
+        assertTrue(tier.bytes() < before, before + " -> " + tier.bytes());
+        assertEquals(10, tier.size());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("round49", tier.take(new CacheKey("N1", "K" + i)).getVal());
+        }
+    }
+
+    @Test
+    void compact_shouldDropOldestSegmentsOverTheBudget() {
+        DiskTier tier = new DiskTier(tierProps(4096, 8192), new FakeTimeProvider(0));
+
+        for (int i = 0; i < 200; i++) {
+            tier.put(new CacheKey("N1", "K" + i), CacheEntry.of("x".repeat(50), -1, 0));
+        }
+
+        tier.compact();
+
+        assertTrue(tier.bytes() <= 8192);
+
+        // the newest keys survive, the oldest went with their segment
+        assertNotNull(tier.take(new CacheKey("N1", "K199")));
+        assertNull(tier.take(new CacheKey("N1", "K0")));
+
+        int[] left = {0};
+        tier.forEachBatch(16, batch -> left[0] += batch.size());
+
+        assertEquals(tier.size(), left[0]);
+        assertTrue(left[0] < 199);
+    }
+
+    @Test
+    void entryLargerThanASegment_shouldNotBeKept() {
+        DiskTier tier = new DiskTier(tierProps(4096, 8192), new FakeTimeProvider(0));
+
+        assertFalse(tier.put(new CacheKey("N1", "big"), CacheEntry.of("x".repeat(5000), -1, 0)));
+        assertNull(tier.take(new CacheKey("N1", "big")));
+    }
+
+    @Test
+    void invalidBudget_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DiskTier(tierProps(4096, 4096), new FakeTimeProvider(0)));
+    }
+}
@@ -0,0 +1,224 @@
+package com.saoodahmad.cacheforge.client;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"cacheforge.capacity=256", "cacheforge.stripes=4"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CacheForgeClientTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    private CacheForgeClient client;
+
+    @BeforeEach
+    void setUp() {
+        cacheApi.clear();
+
+        client = CacheForgeClient.builder(URI.create("http://127.0.0.1:" + port)).maxInFlight(4).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void setGetDelete_shouldMirrorCacheResult() {
+        CacheReply created = client.set("C1", "A", "VA", 60);
+        CacheReply updated = client.set("C1", "A", "VB", -1);
+
+        assertInstanceOf(CacheReply.Created.class, created);
+        assertEquals(60, ((CacheReply.Created) created).entry().ttlInSecs());
+        assertInstanceOf(CacheReply.Updated.class, updated);
+
+        CacheReply hit = client.get("C1", "A");
+
+        assertEquals("VB", ((CacheReply.Hit) hit).entry().text());
+        assertEquals(-1, ((CacheReply.Hit) hit).entry().ttlInSecs());
+
+        assertInstanceOf(CacheReply.Hit.class, client.delete("C1", "A"));
+        assertSame(CacheReply.MISS, client.get("C1", "A"));
+        assertSame(CacheReply.MISS, client.delete("C1", "A"));
+    }
+
+    @Test
+    void binaryValue_shouldRoundTripRawBytes() {
+        byte[] blob = {0, (byte) 0xff, 10, ' '};
+
+        assertInstanceOf(CacheReply.Created.class, client.set("C1", "B", blob, -1));
+        assertInstanceOf(CacheReply.Updated.class, client.set("C1", "B", blob, -1));
+
+        CacheReply.Entry entry = ((CacheReply.Hit) client.get("C1", "B")).entry();
+
+        assertTrue(entry.binary());
+        assertArrayEquals(blob, entry.value());
+    }
+
+    @Test
+    void asyncRequests_beyondMaxInFlight_shouldAllComplete() {
+        List<CompletableFuture<CacheReply>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            futures.add(client.setAsync("C1", "K" + i, "V" + i, -1));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        futures.clear();
+
+        for (int i = 0; i < 100; i++) {
+            futures.add(client.getAsync("C1", "K" + i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("V" + i, ((CacheReply.Hit) futures.get(i).join()).entry().text());
+        }
+    }
+
+    @Test
+    void batches_shouldKeepKeyOrder_andEscapeJson() {
+        List<CacheForgeClient.Key> keys = List.of(
+                new CacheForgeClient.Key("C1", "q\"uote"),
+                new CacheForgeClient.Key("C1", "back\\slash"));
+
+        List<CacheReply> set = client.setAll(keys, List.of("x\ny", "z"), 30);
+
+        assertInstanceOf(CacheReply.Created.class, set.get(0));
+
+        List<CacheReply> got = client.getAll(List.of(keys.get(1), new CacheForgeClient.Key("C1", "nope"), keys.get(0)));
+
+        assertEquals("z", ((CacheReply.Hit) got.get(0)).entry().text());
+        assertSame(CacheReply.MISS, got.get(1));
+        assertEquals("x\ny", ((CacheReply.Hit) got.get(2)).entry().text());
+
+        List<CacheReply> deleted = client.deleteAll(keys);
+
+        assertInstanceOf(CacheReply.Hit.class, deleted.get(0));
+        assertInstanceOf(CacheReply.Hit.class, deleted.get(1));
+    }
+
+    @Test
+    void serverError_shouldSurfaceErrorCode() {
+        CacheForgeClientException e = assertThrows(CacheForgeClientException.class, () -> client.set("C1", "A", "VA", 0));
+
+        assertEquals(400, e.status());
+        assertEquals("INVALID_TTL", e.errorCode());
+    }
+
+    @Test
+    void nearCache_shouldServeRepeatReadsLocally_untilTheServerInvalidates() {
+        cacheApi.setKey("C1", "A", "V1", -1);
+
+        try (CacheForgeClient near = nearClient()) {
+            // cached once the tracking stream is up
+            awaitTrue(() -> near.get("C1", "A") != null && near.nearCacheSize() == 1);
+
+            CacheReply first = near.get("C1", "A");
+
+            assertSame(first, near.get("C1", "A"));
+            assertEquals("V1", ((CacheReply.Hit) first).entry().text());
+
+            // written behind the client's back
+            cacheApi.setKey("C1", "A", "V2", -1);
+
+            awaitTrue(() -> near.nearCacheSize() == 0);
+
+            assertEquals("V2", ((CacheReply.Hit) near.get("C1", "A")).entry().text());
+
+            cacheApi.deleteKey("C1", "A");
+
+            awaitTrue(() -> near.nearCacheSize() == 0);
+
+            assertSame(CacheReply.MISS, near.get("C1", "A"));
+        }
+    }
+
+    @Test
+    void nearCache_ownWritesAndClear_shouldDropLocalCopies() {
+        cacheApi.setKey("C1", "A", "V1", -1);
+        cacheApi.setKey("C1", "B", "V1", -1);
+
+        try (CacheForgeClient near = nearClient()) {
+            awaitTrue(() -> near.get("C1", "A") != null && near.nearCacheSize() == 1);
+
+            near.set("C1", "A", "V2", -1);
+
+            assertEquals(0, near.nearCacheSize());
+
+            // the server's invalidation for our own set may still be on its way and would drop a re-read A
+            near.get("C1", "B");
+
+            assertEquals(1, near.nearCacheSize());
+            assertEquals("V2", ((CacheReply.Hit) near.get("C1", "A")).entry().text());
+
+            cacheApi.clear();
+
+            awaitTrue(() -> near.nearCacheSize() == 0);
+        }
+    }
+
+    @Test
+    void nearCache_namespaceFlush_shouldDropOnlyThatNamespace() {
+        cacheApi.setKey("F1", "A", "V1", -1);
+        cacheApi.setKey("F2", "A", "V1", -1);
+
+        try (CacheForgeClient near = nearClient()) {
+            awaitTrue(() -> near.get("F1", "A") != null && near.nearCacheSize() == 1);
+
+            CacheReply other = near.get("F2", "A");
+
+            assertEquals(2, near.nearCacheSize());
+
+            cacheApi.flushNamespace("F1");
+
+            awaitTrue(() -> near.nearCacheSize() == 1);
+
+            assertSame(other, near.get("F2", "A"));
+            assertSame(CacheReply.MISS, near.get("F1", "A"));
+        }
+    }
+
+    private CacheForgeClient nearClient() {
+        return CacheForgeClient.builder(URI.create("http://127.0.0.1:" + port))
+                .nearCache(100, Duration.ofMinutes(1))
+                .build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 5s");
+            }
+
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.saoodahmad.cacheforge.resp;
+
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import com.saoodahmad.cacheforge.cache.config.CacheForgeProperties;
+import com.saoodahmad.cacheforge.cache.engine.MetricsCacheEngine;
+import com.saoodahmad.cacheforge.cache.engine.StripedCacheEngine;
+import com.saoodahmad.cacheforge.cache.persistence.AppendOnlyFile;
+import com.saoodahmad.cacheforge.cache.persistence.FsyncPolicy;
+import com.saoodahmad.cacheforge.cache.time.FakeTimeProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RespServerTest {
+
+    private FakeTimeProvider time;
+
+    private CacheApi cacheApi;
+
+    private RespServer server;
+
+    private Socket socket;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(2048);
+        props.getResp().setPort(0);
+        props.getResp().setIoThreads(2);
+
+        this.time = new FakeTimeProvider(0);
+
+        this.cacheApi = new CacheApi(new MetricsCacheEngine(new StripedCacheEngine(props, this.time), new SimpleMeterRegistry()));
+
+        this.server = new RespServer(this.cacheApi, props);
+        this.server.start();
+
+        this.socket = new Socket("127.0.0.1", this.server.port());
+        this.socket.setSoTimeout(5000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.socket.close();
+        this.server.stop();
+    }
+
+    @Test
+    void pipelinedCommands_shouldBeAnsweredInOrder() throws IOException {
+        send(command("SET", "user:1", "alice")
+                + command("GET", "user:1")
+                + command("DEL", "user:1", "user:2")
+                + command("GET", "user:1")
+                + command("PING"));
+
+        assertEquals("+OK\r\n$5\r\nalice\r\n:1\r\n$-1\r\n+PONG\r\n",
+                read("+OK\r\n$5\r\nalice\r\n:1\r\n$-1\r\n+PONG\r\n".length()));
+    }
+
+    @Test
+    void msetAndMget_shouldUseBatchResultsInOrder() throws IOException {
+        send(command("MSET", "a:1", "x", "b:2", "y") + command("MGET", "b:2", "missing", "a:1") + command("MSET", "a:1"));
+
+        String expected = "+OK\r\n*3\r\n$1\r\ny\r\n$-1\r\n$1\r\nx\r\n"
+                + "-ERR wrong number of arguments for 'mset' command\r\n";
+
+        assertEquals(expected, read(expected.length()));
+    }
+
+    @Test
+    void binaryValues_shouldBeStoredAsSent() throws IOException {
+        byte[] val = {(byte) 0xff, 0, (byte) 0x80, '\r', '\n', (byte) 0xc3};
+
+        OutputStream out = this.socket.getOutputStream();
+        out.write("*3\r\n$3\r\nSET\r\n$5\r\nbin:1\r\n$6\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.write(val);
+        out.write("\r\n*3\r\n$4\r\nMSET\r\n$5\r\nbin:2\r\n$6\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.write(val);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        assertEquals("+OK\r\n+OK\r\n", read(10));
+
+        assertArrayEquals(val, this.cacheApi.getKey("bin", "1").data.valBytes());
+        assertArrayEquals(val, this.cacheApi.getKey("bin", "2").data.valBytes());
+    }
+
+    @Test
+    void commandSplitAcrossWrites_shouldWaitForTheRest() throws IOException {
+        byte[] bytes = command("SET", "k", "v").getBytes(StandardCharsets.UTF_8);
+
+        OutputStream out = this.socket.getOutputStream();
+
+        for (byte b : bytes) {
+            out.write(b);
+            out.flush();
+        }
+
+        assertEquals("+OK\r\n", read(5));
+    }
+
+    @Test
+    void manyPipelinedCommands_shouldAllBeAnswered() throws IOException {
+        StringBuilder batch = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+
+        String value = "x".repeat(100);
+
+        for (int i = 0; i < 1000; i++) {
+            batch.append(command("SET", "bench:" + i, value));
+            batch.append(command("GET", "bench:" + i));
+
+            expected.append("+OK\r\n$100\r\n").append(value).append("\r\n");
+        }
+
+        send(batch.toString());
+
+        assertEquals(expected.toString(), read(expected.length()));
+    }
+
+    @Test
+    void redisKey_shouldSplitIntoNamespaceAndKey() throws IOException {
+        send(command("SET", "orders:42:items", "3") + command("SET", "plain", "p"));
+
+        assertEquals("+OK\r\n+OK\r\n", read(10));
+
+        assertTrue(this.cacheApi.getKey("orders", "42:items").hit);
+        assertTrue(this.cacheApi.getKey(RespCommandHandler.DEFAULT_NAMESPACE, "plain").hit);
+    }
+
+    @Test
+    void setWithExAndPx_shouldExpire() throws IOException {
+        send(command("SET", "a", "1", "EX", "2") + command("SET", "b", "1", "PX", "1500"));
+
+        assertEquals("+OK\r\n+OK\r\n", read(10));
+
+        this.time.advanceNs(2_000_000_000L);
+
+        // PX 1500 rounds up to 2 seconds, both are gone
+        send(command("GET", "a") + command("GET", "b"));
+
+        assertEquals("$-1\r\n$-1\r\n", read(10));
+    }
+
+    @Test
+    void setWithInvalidOptions_shouldReturnErrors() throws IOException {
+        send(command("SET", "a", "1", "NX") + command("SET", "a", "1", "EX", "0") + command("GET"));
+
+        String expected = "-ERR syntax error\r\n"
+                + "-ERR invalid expire time in 'set' command\r\n"
+                + "-ERR wrong number of arguments for 'get' command\r\n";
+
+        assertEquals(expected, read(expected.length()));
+    }
+
+    @Test
+    void hello3_shouldSwitchToResp3Nulls() throws IOException {
+        send(command("HELLO", "3"));
+
+        String reply = readUntil("modules\r\n*0\r\n");
+
+        assertTrue(reply.startsWith("%7\r\n"));
+
+        send(command("GET", "missing"));
+
+        assertEquals("_\r\n", read(3));
+    }
+
+    @Test
+    void inlineCommand_shouldBeAccepted() throws IOException {
+        send("SET k hello\r\nGET k\r\n");
+
+        assertEquals("+OK\r\n$5\r\nhello\r\n", read(16));
+    }
+
+    @Test
+    void protocolError_shouldReplyAndClose() throws IOException {
+        send("*1\r\n#3\r\nGET\r\n");
+
+        String expected = "-ERR Protocol error: expected '$', got '#'\r\n";
+
+        assertEquals(expected, read(expected.length()));
+        assertEquals(-1, this.socket.getInputStream().read());
+    }
+
+    @Test
+    void unixSocket_shouldServeSameCommands(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("cacheforge.sock");
+
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.getResp().setPort(-1);
+        props.getResp().setUnixSocket(path.toString());
+
+        RespServer unixServer = new RespServer(this.cacheApi, props);
+        unixServer.start();
+
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(path))) {
+            assertEquals(-1, unixServer.port());
+
+            channel.write(ByteBuffer.wrap((command("SET", "uds:1", "v") + command("GET", "uds:1")).getBytes(StandardCharsets.UTF_8)));
+
+            String expected = "+OK\r\n$1\r\nv\r\n";
+
+            ByteBuffer reply = ByteBuffer.allocate(expected.length());
+
+            while (reply.hasRemaining() && channel.read(reply) >= 0) {
+                // blocking reads until the whole reply is in
+            }
+
+            assertEquals(expected, new String(reply.array(), StandardCharsets.UTF_8));
+        } finally {
+            unixServer.stop();
+        }
+
+        assertFalse(Files.exists(path));
+        assertTrue(this.cacheApi.getKey("uds", "1").hit);
+    }
+
+    @Test
+    void fsyncAlways_shouldAnswerPipelinedWritesOnceTheyAreSynced(@TempDir Path dir) throws Exception {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.setCapacity(2048);
+        props.getResp().setPort(0);
+        props.getResp().setIoThreads(1);
+        props.getAof().setEnabled(true);
+        props.getAof().setPath(dir.resolve("cache.aof").toString());
+        props.getAof().setFsync(FsyncPolicy.ALWAYS);
+
+        StripedCacheEngine engine = new StripedCacheEngine(props, this.time);
+
+        AppendOnlyFile aof = new AppendOnlyFile(engine, this.time, props);
+        aof.start();
+
+        RespServer synced = new RespServer(new CacheApi(new MetricsCacheEngine(engine, new SimpleMeterRegistry())), props, Optional.of(aof));
+        synced.start();
+
+        try (Socket writer = new Socket("127.0.0.1", synced.port()); Socket other = new Socket("127.0.0.1", synced.port())) {
+            writer.setSoTimeout(5000);
+            other.setSoTimeout(5000);
+
+            StringBuilder batch = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+
+            for (int i = 0; i < 100; i++) {
+                batch.append(command("SET", "aof:" + i, "v" + i));
+                expected.append("+OK\r\n");
+            }
+
+            batch.append(command("GET", "aof:99"));
+            expected.append("$3\r\nv99\r\n");
+
+            writer.getOutputStream().write(batch.toString().getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(expected.toString(), new String(writer.getInputStream().readNBytes(expected.length()), StandardCharsets.UTF_8));
+
+            // on disk by the time they were answered
+            assertTrue(aof.isSynced(100));
+
+            // the single loop kept serving other connections meanwhile
+            other.getOutputStream().write(command("PING").getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("+PONG\r\n", new String(other.getInputStream().readNBytes(7), StandardCharsets.UTF_8));
+        } finally {
+            synced.stop();
+            aof.stop();
+        }
+    }
+
+    @Test
+    void noPortAndNoUnixSocket_shouldBeRejected() {
+        CacheForgeProperties props = new CacheForgeProperties();
+        props.getResp().setPort(-1);
+
+        assertThrows(IllegalArgumentException.class, () -> new RespServer(this.cacheApi, props));
+    }
+
+    private static String command(String... args) {
+        StringBuilder sb = new StringBuilder("*").append(args.length).append("\r\n");
+
+        for (String arg : args) {
+            sb.append('$').append(arg.getBytes(StandardCharsets.UTF_8).length).append("\r\n").append(arg).append("\r\n");
+        }
+
+        return sb.toString();
+    }
+
+    private void send(String s) throws IOException {
+        OutputStream out = this.socket.getOutputStream();
+        out.write(s.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String read(int bytes) throws IOException {
+        byte[] buf = this.socket.getInputStream().readNBytes(bytes);
+
+        return new String(buf, StandardCharsets.UTF_8);
+    }
+
+    private String readUntil(String suffix) throws IOException {
+        InputStream in = this.socket.getInputStream();
+
+        StringBuilder sb = new StringBuilder();
+
+        while (!sb.toString().endsWith(suffix)) {
+            int b = in.read();
+
+            if (b < 0) {
+                fail("connection closed after " + sb);
+            }
+
+            sb.append((char) b);
+        }
+
+        return sb.toString();
+    }
+}
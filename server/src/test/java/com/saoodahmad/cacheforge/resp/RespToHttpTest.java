@@ -0,0 +1,100 @@
+package com.saoodahmad.cacheforge.resp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saoodahmad.cacheforge.cache.api.CacheApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"cacheforge.resp.enabled=true", "cacheforge.resp.port=0"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@AutoConfigureMockMvc
+public class RespToHttpTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheApi cacheApi;
+
+    @Autowired
+    RespServer server;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @BeforeEach
+    void clear() {
+        cacheApi.clear();
+    }
+
+    private void resp(byte[] command, String reply) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.port())) {
+            socket.setSoTimeout(5000);
+
+            OutputStream out = socket.getOutputStream();
+            out.write(command);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+
+            assertEquals(reply, new String(in.readNBytes(reply.length()), StandardCharsets.UTF_8));
+        }
+    }
+
+    private JsonNode httpGet(String namespace, String key) throws Exception {
+        byte[] body = mvc.perform(get("/api/cache/get/" + namespace + "/" + key))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        return om.readTree(body).get("data");
+    }
+
+    @Test
+    void textSetOverResp_shouldReadBackAsTextOverHttp() throws Exception {
+        resp("*3\r\n$3\r\nSET\r\n$8\r\nusers:42\r\n$6\r\nälice\r\n".getBytes(StandardCharsets.UTF_8), "+OK\r\n");
+        resp("*5\r\n$4\r\nMSET\r\n$7\r\nusers:1\r\n$3\r\nbob\r\n$7\r\nusers:2\r\n$3\r\neve\r\n".getBytes(StandardCharsets.UTF_8), "+OK\r\n");
+
+        JsonNode data = httpGet("users", "42");
+
+        assertEquals("älice", data.get("val").asText());
+        assertFalse(data.get("binary").asBoolean());
+
+        assertEquals("bob", httpGet("users", "1").get("val").asText());
+        assertEquals("eve", httpGet("users", "2").get("val").asText());
+    }
+
+    @Test
+    void binarySetOverResp_shouldReadBackAsBase64OverHttp() throws Exception {
+        byte[] val = {(byte) 0xff, 0, (byte) 0xc3};
+
+        byte[] head = "*3\r\n$3\r\nSET\r\n$7\r\nusers:9\r\n$3\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] command = new byte[head.length + val.length + 2];
+
+        System.arraycopy(head, 0, command, 0, head.length);
+        System.arraycopy(val, 0, command, head.length, val.length);
+        command[command.length - 2] = '\r';
+        command[command.length - 1] = '\n';
+
+        resp(command, "+OK\r\n");
+
+        JsonNode data = httpGet("users", "9");
+
+        assertTrue(data.get("binary").asBoolean());
+        assertArrayEquals(val, Base64.getDecoder().decode(data.get("val").asText()));
+    }
+}
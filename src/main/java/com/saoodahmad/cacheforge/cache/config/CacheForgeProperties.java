@@ -1,27 +0,0 @@
-package com.saoodahmad.cacheforge.cache.config;
-
-import org.springframework.boot.context.properties.ConfigurationProperties;
-
-@ConfigurationProperties(prefix = "cacheforge")
-public class CacheForgeProperties {
-
-    private int stripes = 4;
-    private int capacity = 32;
-
-    public int getStripes() {
-        return stripes;
-    }
-
-    public void setStripes(int stripes) {
-        this.stripes = stripes;
-    }
-
-    public int getCapacity() {
-        return capacity;
-    }
-
-    public void setCapacity(int capacity) {
-        this.capacity = capacity;
-    }
-
-}